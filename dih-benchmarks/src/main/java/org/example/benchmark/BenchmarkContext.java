@@ -0,0 +1,70 @@
+package org.example.benchmark;
+
+import org.example.DihCoreStarterApplication;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shared fixture of the benchmark suites.
+ * <p>
+ * Boots the real starter application (component scan of {@code org.example}, so the synthetic steps
+ * in {@code org.example.benchmark.steps} are discovered like any other {@code @DihStepComponent}).
+ * Engine logging is lowered to {@code WARN}: the per-execution {@code INFO} lines would otherwise
+ * dominate every measurement.
+ * </p>
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Starts a non-web application context. The caller owns it and MUST close it in its {@code @TearDown}.
+     *
+     * @param extraProperties Additional {@code key=value} properties, e.g. {@code dih.executor.retry.mode=PROXY}.
+     */
+    public static ConfigurableApplicationContext start(String... extraProperties) {
+        return new SpringApplicationBuilder(DihCoreStarterApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties(
+                        "logging.level.root=WARN",
+                        "logging.level.org.example=WARN",
+                        "spring.main.banner-mode=off")
+                .properties(extraProperties)
+                .run();
+    }
+
+    /**
+     * Builds a linear pipeline of {@code stepCount} steps of the same type.
+     */
+    public static PipelineDefinition linearPipeline(String name, String stepType, int stepCount) {
+        List<StepDefinition> steps = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            steps.add(new StepDefinition("step" + i, stepType, Map.of(), null, null));
+        }
+        return new PipelineDefinition(name, "pipeline", "1.0", steps);
+    }
+
+    /**
+     * Builds a pipeline with a single {@code ParallelSplitter} fanning out to {@code width} branches
+     * of one sub-step.
+     */
+    public static PipelineDefinition fanOutPipeline(String name, String branchType, int width) {
+        StepDefinition branch = new StepDefinition("branch", branchType, Map.of(), null, null);
+        List<String> subStepIds = new ArrayList<>(width);
+        for (int i = 0; i < width; i++) {
+            subStepIds.add("branch");
+        }
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter", Map.of("subStepIds", subStepIds), List.of(branch), null);
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(splitter));
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.benchmark;
+
+import org.example.aop.RetryBeanPostProcessor;
+import org.example.bpp.DynamicContextBeanPostProcessor;
+import org.example.model.PipelineDefinition;
+import org.example.plan.PipelinePlan;
+import org.example.plan.PipelinePlanCache;
+import org.example.service.PipelineRegistrar;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.config.CustomScopeConfigurer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of bootstrapping a pipeline's child {@code ApplicationContext}, isolated from step execution.
+ * <ul>
+ * <li>{@code rawChildContext} - the pre-plan per-execution path: create, register, refresh, close.</li>
+ * <li>{@code compilePlan} - the same work through {@link PipelinePlanCache} (compile, lease, evict).</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildContextBootstrapBenchmark {
+
+    @Param({"1", "10"})
+    private int steps;
+
+    private ConfigurableApplicationContext context;
+    private PipelineRegistrar registrar;
+    private PipelinePlanCache planCache;
+    private List<CustomScopeConfigurer> scopeConfigurers;
+    private PipelineDefinition definition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        registrar = context.getBean(PipelineRegistrar.class);
+        planCache = context.getBean(PipelinePlanCache.class);
+        scopeConfigurers = context.getBeanProvider(CustomScopeConfigurer.class).orderedStream().toList();
+        definition = BenchmarkContext.linearPipeline("Bootstrap" + steps, "BenchNoOp", steps);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object rawChildContext() {
+        try (var childContext = new AnnotationConfigApplicationContext()) {
+            childContext.setParent(context);
+            scopeConfigurers.forEach(childContext::addBeanFactoryPostProcessor);
+            childContext.registerBean(RetryBeanPostProcessor.class);
+            childContext.registerBean(DynamicContextBeanPostProcessor.class);
+            registrar.registerPipeline(definition, childContext);
+            childContext.refresh();
+            return childContext.getBean(definition.name() + "_step0");
+        }
+    }
+
+    @Benchmark
+    public Object compilePlan() {
+        PipelinePlan plan = planCache.acquire(definition);
+        plan.release();
+        planCache.evict(definition.name(), definition.version());
+        return plan;
+    }
+}
@@ -0,0 +1,58 @@
+package org.example.benchmark;
+
+import org.example.model.PipelineDefinition;
+import org.example.service.PipelineExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scatter-gather overhead of {@code ParallelSplitterStep}: one virtual-thread task per branch,
+ * context propagation through {@code DihTaskDecorator}, and result aggregation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelSplitterBenchmark {
+
+    @Param({"2", "10", "100", "1000"})
+    private int width;
+
+    private ConfigurableApplicationContext context;
+    private PipelineExecutor executor;
+    private PipelineDefinition definition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        executor = context.getBean(PipelineExecutor.class);
+        definition = BenchmarkContext.fanOutPipeline("FanOut" + width, "BenchNoOp", width);
+        executor.executePipeline(definition, "warm");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object fanOut() {
+        return executor.executePipeline(definition, "payload");
+    }
+}
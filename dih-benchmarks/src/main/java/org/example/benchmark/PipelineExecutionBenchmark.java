@@ -0,0 +1,82 @@
+package org.example.benchmark;
+
+import org.example.model.PipelineDefinition;
+import org.example.service.PipelineExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of {@link PipelineExecutor#executePipeline(PipelineDefinition, Object)} for
+ * linear pipelines of pass-through steps. The plan is compiled during setup, so the numbers
+ * reflect the steady state (plan lease, context setup, step loop, scope teardown, metrics).
+ * <p>
+ * {@code threadSafe=false} measures the per-execution instantiation of pipeline-scoped steps.
+ * {@code executePipelineBatch} reports the time per item of a batch of {@value #BATCH_SIZE}, with the
+ * per-execution overhead shared by the whole batch.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineExecutionBenchmark {
+
+    static final int BATCH_SIZE = 100;
+
+    private final List<String> batch = Collections.nCopies(BATCH_SIZE, "payload");
+
+    @Param({"1", "10", "100"})
+    private int steps;
+
+    @Param({"true", "false"})
+    private boolean threadSafe;
+
+    private ConfigurableApplicationContext context;
+    private PipelineExecutor executor;
+    private PipelineDefinition definition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start();
+        executor = context.getBean(PipelineExecutor.class);
+        definition = BenchmarkContext.linearPipeline(
+                "Bench" + steps, threadSafe ? "BenchNoOp" : "BenchIsolatedNoOp", steps);
+        // Compile the plan outside of the measurement
+        executor.executePipeline(definition, "warm");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object executePipeline() {
+        return executor.executePipeline(definition, "payload");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object executePipelineBatch() {
+        return executor.executePipelineBatch(definition, batch);
+    }
+}
@@ -0,0 +1,77 @@
+package org.example.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.aop.RetryMethodInterceptor;
+import org.example.benchmark.steps.NoOpStep;
+import org.example.model.RetryPolicyDefinition;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.retry.RetryExecutorFactory;
+import org.example.retry.RetryingStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Success-path overhead of retries: a direct call versus the same call through the CGLIB proxy with a
+ * {@link RetryMethodInterceptor} ({@code PROXY} mode) and through the {@link RetryingStep} decorator
+ * ({@code DECORATOR} mode).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetryInterceptorBenchmark {
+
+    private PipelineStep<Object, Object> direct;
+    private PipelineStep<Object, Object> proxied;
+    private PipelineStep<Object, Object> decorated;
+    private PipelineContext context;
+    private Object payload;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        direct = new NoOpStep();
+
+        ProxyFactory proxyFactory = new ProxyFactory(new NoOpStep());
+        proxyFactory.setProxyTargetClass(true);
+        proxyFactory.addAdvice(new RetryMethodInterceptor(
+                new RetryPolicyDefinition(3, 100), new SimpleMeterRegistry(), "Bench_retry"));
+        proxied = (PipelineStep<Object, Object>) proxyFactory.getProxy();
+
+        decorated = new RetryingStep(new NoOpStep(), new RetryExecutorFactory(new SimpleMeterRegistry(), null, null)
+                .create("Bench", "retry", "BenchNoOp", new RetryPolicyDefinition(3, 100), RetryExceptionClassifier.RETRY_ALL));
+
+        context = new PipelineContext("bench", System.currentTimeMillis(), "Bench");
+        payload = new Object();
+    }
+
+    @Benchmark
+    public Object directCall() throws Exception {
+        return direct.execute(payload, context);
+    }
+
+    @Benchmark
+    public Object retryProxyCall() throws Exception {
+        return proxied.execute(payload, context);
+    }
+
+    @Benchmark
+    public Object retryDecoratorCall() throws Exception {
+        return decorated.execute(payload, context);
+    }
+}
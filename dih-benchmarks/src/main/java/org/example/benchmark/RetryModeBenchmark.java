@@ -0,0 +1,78 @@
+package org.example.benchmark;
+
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.service.PipelineExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end cost of retries on the success path, per {@code dih.executor.retry.mode}: every step of a
+ * linear pipeline has a retry policy. With {@code threadSafe=false} the steps are pipeline-scoped, so
+ * {@code PROXY} creates a CGLIB proxy (and its meters) per step and execution, while {@code DECORATOR}
+ * reuses the decorator compiled into the plan.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RetryModeBenchmark {
+
+    @Param({"DECORATOR", "PROXY"})
+    private String mode;
+
+    @Param({"true", "false"})
+    private boolean threadSafe;
+
+    @Param({"10"})
+    private int steps;
+
+    private ConfigurableApplicationContext context;
+    private PipelineExecutor executor;
+    private PipelineDefinition definition;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = BenchmarkContext.start("dih.executor.retry.mode=" + mode);
+        executor = context.getBean(PipelineExecutor.class);
+
+        PipelineDefinition linear = BenchmarkContext.linearPipeline(
+                "BenchRetry" + steps, threadSafe ? "BenchNoOp" : "BenchIsolatedNoOp", steps);
+        List<StepDefinition> retried = linear.steps().stream()
+                .map(step -> new StepDefinition(step.id(), step.type(), step.properties(), null,
+                        new RetryPolicyDefinition(3, 100)))
+                .toList();
+        definition = new PipelineDefinition(linear.name(), linear.scope(), linear.version(), retried);
+
+        // Compile the plan outside of the measurement
+        executor.executePipeline(definition, "warm");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Object executePipeline() {
+        return executor.executePipeline(definition, "payload");
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.benchmark;
+
+import org.example.concurrency.DihTaskDecorator;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.PipelineContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of propagating the pipeline context to a worker task with {@link DihTaskDecorator}
+ * (capture, ThreadLocal/MDC restore and cleanup), measured on the calling thread so that
+ * thread hand-off does not blur the result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TaskDecoratorBenchmark {
+
+    private final DihTaskDecorator decorator = new DihTaskDecorator();
+    private PipelineContext context;
+
+    @Setup
+    public void setup() {
+        context = new PipelineContext("bench", System.currentTimeMillis(), "Bench");
+    }
+
+    @TearDown
+    public void tearDown() {
+        PipelineContextHolder.cleanup();
+    }
+
+    @Benchmark
+    public void plainRunnable(Blackhole blackhole) {
+        Runnable task = () -> blackhole.consume(context);
+        task.run();
+    }
+
+    @Benchmark
+    public void decoratedRunnable(Blackhole blackhole) {
+        // The decorator captures the submitter's context; it is re-established because the
+        // decorated task cleans up after itself, exactly like a worker thread would.
+        PipelineContextHolder.initializeContext(context);
+        Runnable task = decorator.decorate(() -> blackhole.consume(PipelineContextHolder.getContext()));
+        task.run();
+    }
+}
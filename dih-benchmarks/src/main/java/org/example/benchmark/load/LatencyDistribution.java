@@ -0,0 +1,96 @@
+package org.example.benchmark.load;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service-time distribution of a synthetic step.
+ * <p>
+ * Parsed from the compact notation used in step properties:
+ * </p>
+ * <ul>
+ * <li>{@code fixed:5ms} - always the same value.</li>
+ * <li>{@code uniform:1ms-10ms} - uniformly distributed between both bounds.</li>
+ * <li>{@code exponential:5ms} - exponential with the given mean (Poisson-like service times).</li>
+ * <li>{@code lognormal:20ms,0.5} - log-normal with the given median and sigma (long tail, typical for remote calls).</li>
+ * </ul>
+ * Durations accept the units {@code us}, {@code ms} and {@code s}.
+ */
+public sealed interface LatencyDistribution {
+
+    LatencyDistribution NONE = new Fixed(0);
+
+    /**
+     * @return The next sample in nanoseconds.
+     */
+    long sampleNanos();
+
+    static LatencyDistribution parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return NONE;
+        }
+        int separator = spec.indexOf(':');
+        if (separator < 0) {
+            return new Fixed(parseNanos(spec));
+        }
+        String kind = spec.substring(0, separator).trim();
+        String args = spec.substring(separator + 1).trim();
+
+        return switch (kind) {
+            case "fixed" -> new Fixed(parseNanos(args));
+            case "uniform" -> {
+                String[] bounds = args.split("-", 2);
+                yield new Uniform(parseNanos(bounds[0]), parseNanos(bounds[1]));
+            }
+            case "exponential" -> new Exponential(parseNanos(args));
+            case "lognormal" -> {
+                String[] parts = args.split(",", 2);
+                yield new LogNormal(parseNanos(parts[0]), parts.length > 1 ? Double.parseDouble(parts[1].trim()) : 0.5);
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution '" + kind + "' in '" + spec + "'.");
+        };
+    }
+
+    static long parseNanos(String value) {
+        String v = value.trim();
+        if (v.endsWith("us")) {
+            return Math.round(Double.parseDouble(v.substring(0, v.length() - 2)) * 1_000);
+        }
+        if (v.endsWith("ms")) {
+            return Math.round(Double.parseDouble(v.substring(0, v.length() - 2)) * 1_000_000);
+        }
+        if (v.endsWith("s")) {
+            return Math.round(Double.parseDouble(v.substring(0, v.length() - 1)) * 1_000_000_000);
+        }
+        throw new IllegalArgumentException("Duration '" + value + "' needs a unit (us, ms, s).");
+    }
+
+    record Fixed(long nanos) implements LatencyDistribution {
+        @Override
+        public long sampleNanos() {
+            return nanos;
+        }
+    }
+
+    record Uniform(long minNanos, long maxNanos) implements LatencyDistribution {
+        @Override
+        public long sampleNanos() {
+            return minNanos >= maxNanos ? minNanos : ThreadLocalRandom.current().nextLong(minNanos, maxNanos + 1);
+        }
+    }
+
+    record Exponential(long meanNanos) implements LatencyDistribution {
+        @Override
+        public long sampleNanos() {
+            double u = ThreadLocalRandom.current().nextDouble();
+            return Math.round(-meanNanos * Math.log(1.0 - u));
+        }
+    }
+
+    record LogNormal(long medianNanos, double sigma) implements LatencyDistribution {
+        @Override
+        public long sampleNanos() {
+            double gaussian = ThreadLocalRandom.current().nextGaussian();
+            return Math.round(medianNanos * Math.exp(sigma * gaussian));
+        }
+    }
+}
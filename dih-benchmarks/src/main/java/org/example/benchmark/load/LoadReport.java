@@ -0,0 +1,105 @@
+package org.example.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Result of a load-test run: throughput and latency percentiles per pipeline and per step.
+ * All latencies are in microseconds and printed in milliseconds.
+ *
+ * @param config      The run settings.
+ * @param elapsed     Wall time of the measured phase, including draining in-flight executions.
+ * @param maxInFlight Peak number of concurrently running executions.
+ * @param pipelines   Results keyed by pipeline name.
+ * @param steps       Step service times keyed by bean name ({@code PipelineName_StepId}).
+ */
+public record LoadReport(
+        LoadTestConfig config,
+        Duration elapsed,
+        int maxInFlight,
+        Map<String, PipelineResult> pipelines,
+        Map<String, Histogram> steps
+) {
+
+    private static final double[] PERCENTILES = {50.0, 90.0, 99.0, 99.9, 99.99};
+
+    /**
+     * @param successes Completed executions.
+     * @param failures  Executions that ended with an exception.
+     * @param corrected End-to-end latency corrected for coordinated omission.
+     * @param raw       Execution time as observed by the caller, uncorrected.
+     */
+    public record PipelineResult(long successes, long failures, Histogram corrected, Histogram raw) {
+
+        public long total() {
+            return successes + failures;
+        }
+    }
+
+    public double throughput() {
+        long total = pipelines.values().stream().mapToLong(PipelineResult::total).sum();
+        return total / (elapsed.toNanos() / 1e9);
+    }
+
+    public void print(PrintStream out) {
+        out.printf("%n=== DIH load test: %s, %s, measured %.1fs, peak in-flight %d ===%n",
+                config.mode(), describeLoad(), elapsed.toNanos() / 1e9, maxInFlight);
+        out.printf("Throughput: %.1f executions/s%n%n", throughput());
+
+        out.printf("%-28s %9s %7s %9s %9s %9s %9s %9s %9s %9s %12s%n",
+                "pipeline (corrected, ms)", "count", "errors", "ops/s",
+                "p50", "p90", "p99", "p99.9", "p99.99", "max", "raw p99");
+        pipelines.forEach((name, result) -> {
+            out.printf("%-28s %9d %7d %9.1f", name, result.total(), result.failures(),
+                    result.total() / (elapsed.toNanos() / 1e9));
+            printPercentiles(out, result.corrected());
+            out.printf(" %12.3f%n", millis(result.raw().getValueAtPercentile(99.0)));
+        });
+
+        out.printf("%n%-28s %9s %7s %9s %9s %9s %9s %9s %9s %9s%n",
+                "step (service time, ms)", "count", "", "", "p50", "p90", "p99", "p99.9", "p99.99", "max");
+        pipelines.keySet().forEach(pipelineName -> steps.forEach((beanName, histogram) -> {
+            if (beanName.startsWith(pipelineName + "_")) {
+                out.printf("%-28s %9d %7s %9s", beanName, histogram.getTotalCount(), "", "");
+                printPercentiles(out, histogram);
+                out.println();
+            }
+        }));
+    }
+
+    /**
+     * Writes the full percentile distribution of every pipeline ({@code <name>.hgrm}),
+     * readable by the HdrHistogram plotter.
+     */
+    public void writeHistograms(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        for (Map.Entry<String, PipelineResult> entry : pipelines.entrySet()) {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                entry.getValue().corrected().outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+
+    private String describeLoad() {
+        return config.mode() == LoadTestConfig.Mode.FIXED_RATE
+                ? config.rate() + " arrivals/s"
+                : config.concurrency() + " workers";
+    }
+
+    private static void printPercentiles(PrintStream out, Histogram histogram) {
+        for (double percentile : PERCENTILES) {
+            out.printf(" %9.3f", millis(histogram.getValueAtPercentile(percentile)));
+        }
+        out.printf(" %9.3f", millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
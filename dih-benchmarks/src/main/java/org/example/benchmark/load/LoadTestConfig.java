@@ -0,0 +1,54 @@
+package org.example.benchmark.load;
+
+import org.example.model.PipelineDefinition;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Settings of one load-test run.
+ *
+ * @param mode        How load is generated.
+ * @param rate        Target arrivals per second ({@link Mode#FIXED_RATE} only).
+ * @param concurrency Number of closed-loop workers ({@link Mode#FIXED_CONCURRENCY} only).
+ * @param warmup      Load applied before measuring; results are discarded.
+ * @param duration    Measured period.
+ * @param pipelines   Pipelines driven round-robin.
+ */
+public record LoadTestConfig(
+        Mode mode,
+        int rate,
+        int concurrency,
+        Duration warmup,
+        Duration duration,
+        List<PipelineDefinition> pipelines
+) {
+
+    public enum Mode {
+        /**
+         * Open model: executions start on a fixed schedule regardless of how many are in flight.
+         * Latency is measured from the <i>intended</i> start time, so queueing delay caused by a
+         * slow engine is not hidden (coordinated omission).
+         */
+        FIXED_RATE,
+        /**
+         * Closed model: a fixed number of workers, each starting its next execution when the
+         * previous one finishes. Percentiles are corrected with HdrHistogram's expected-interval
+         * back-filling, using the mean latency as the expected interval.
+         */
+        FIXED_CONCURRENCY
+    }
+
+    public LoadTestConfig {
+        if (pipelines == null || pipelines.isEmpty()) {
+            throw new IllegalArgumentException("At least one pipeline is required.");
+        }
+        if (mode == Mode.FIXED_RATE && rate <= 0) {
+            throw new IllegalArgumentException("Rate must be > 0 in FIXED_RATE mode.");
+        }
+        if (mode == Mode.FIXED_CONCURRENCY && concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency must be > 0 in FIXED_CONCURRENCY mode.");
+        }
+        pipelines = List.copyOf(pipelines);
+    }
+}
@@ -0,0 +1,103 @@
+package org.example.benchmark.load;
+
+import org.example.benchmark.BenchmarkContext;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.service.PipelineExecutor;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line entry point of the load-test harness.
+ * <pre>
+ * java -cp dih-benchmarks/target/benchmarks.jar org.example.benchmark.load.LoadTestMain \
+ *      --mode=rate --rate=5000 --warmup=10s --duration=60s --scenario=mixed
+ * java -cp dih-benchmarks/target/benchmarks.jar org.example.benchmark.load.LoadTestMain \
+ *      --mode=concurrency --concurrency=5000 --duration=60s
+ * </pre>
+ * Options: {@code --mode=rate|concurrency}, {@code --rate}, {@code --concurrency}, {@code --warmup},
+ * {@code --duration}, {@code --scenario=mixed|io|cpu} and {@code --hgrm-dir} (defaults to {@code target/load-report}).
+ */
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+
+        LoadTestConfig config = new LoadTestConfig(
+                "concurrency".equals(options.getOrDefault("mode", "rate"))
+                        ? LoadTestConfig.Mode.FIXED_CONCURRENCY : LoadTestConfig.Mode.FIXED_RATE,
+                Integer.parseInt(options.getOrDefault("rate", "5000")),
+                Integer.parseInt(options.getOrDefault("concurrency", "5000")),
+                parseDuration(options.getOrDefault("warmup", "10s")),
+                parseDuration(options.getOrDefault("duration", "30s")),
+                scenario(options.getOrDefault("scenario", "mixed")));
+
+        try (ConfigurableApplicationContext context = BenchmarkContext.start()) {
+            LoadTestRunner runner = new LoadTestRunner(
+                    context.getBean(PipelineExecutor.class), context.getBean(StepLatencyRecorder.class));
+
+            LoadReport report = runner.run(config);
+            report.print(System.out);
+            report.writeHistograms(Path.of(options.getOrDefault("hgrm-dir", "target/load-report")));
+        }
+    }
+
+    /**
+     * Predefined pipeline mixes built from the synthetic steps.
+     */
+    static List<PipelineDefinition> scenario(String name) {
+        PipelineDefinition io = pipeline("IoBound",
+                step("fetch", "SyntheticSleep", Map.of("latency", "lognormal:20ms,0.5")),
+                step("enrich", "SyntheticSleep", Map.of("latency", "exponential:5ms")),
+                step("store", "SyntheticSleep", Map.of("latency", "uniform:2ms-8ms")));
+        PipelineDefinition cpu = pipeline("CpuBound",
+                step("parse", "SyntheticAllocate", Map.of("bytes", 256 * 1024, "latency", "fixed:100us")),
+                step("transform", "SyntheticCpuBurn", Map.of("latency", "exponential:300us")));
+        PipelineDefinition flaky = pipeline("Flaky",
+                step("call", "SyntheticFailure", Map.of("latency", "lognormal:10ms,1.0", "failureRate", 0.02)));
+
+        StepDefinition branch = step("branch", "SyntheticSleep", Map.of("latency", "lognormal:10ms,0.7"));
+        PipelineDefinition fanOut = pipeline("FanOut",
+                new StepDefinition("splitter", "ParallelSplitter",
+                        Map.of("subStepIds", List.of("branch", "branch", "branch", "branch")), List.of(branch), null));
+
+        return switch (name) {
+            case "io" -> List.of(io, fanOut);
+            case "cpu" -> List.of(cpu);
+            case "mixed" -> List.of(io, cpu, flaky, fanOut);
+            default -> throw new IllegalArgumentException("Unknown scenario '" + name + "'.");
+        };
+    }
+
+    private static PipelineDefinition pipeline(String name, StepDefinition... steps) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(steps));
+    }
+
+    private static StepDefinition step(String id, String type, Map<String, Object> properties) {
+        return new StepDefinition(id, type, properties, null, null);
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got '" + arg + "'.");
+            }
+            int separator = arg.indexOf('=');
+            options.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private static Duration parseDuration(String value) {
+        return Duration.ofNanos(LatencyDistribution.parseNanos(value));
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.benchmark.load;
+
+import org.HdrHistogram.Histogram;
+import org.example.benchmark.load.LoadTestConfig.Mode;
+import org.example.model.PipelineDefinition;
+import org.example.service.PipelineExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives {@link PipelineExecutor} with synthetic load, one virtual thread per execution.
+ * <p>
+ * A run consists of a warmup phase (results discarded) and a measured phase. Executions still
+ * in flight when the measured phase ends are awaited and included in the results.
+ * </p>
+ */
+public class LoadTestRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LoadTestRunner.class);
+
+    private final PipelineExecutor executor;
+    private final StepLatencyRecorder stepRecorder;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    public LoadTestRunner(PipelineExecutor executor, StepLatencyRecorder stepRecorder) {
+        this.executor = executor;
+        this.stepRecorder = stepRecorder;
+    }
+
+    public LoadReport run(LoadTestConfig config) {
+        Map<String, PipelineStats> stats = new LinkedHashMap<>();
+        config.pipelines().forEach(definition -> stats.put(definition.name(), new PipelineStats()));
+
+        // 1. Warmup: compiles the plans and lets the JIT settle
+        if (!config.warmup().isZero()) {
+            log.info("Warming up for {}s", config.warmup().toSeconds());
+            runPhase(config, config.warmup(), stats);
+        }
+        stats.values().forEach(PipelineStats::reset);
+        stepRecorder.reset();
+        maxInFlight.set(0);
+
+        // 2. Measurement
+        log.info("Measuring for {}s ({})", config.duration().toSeconds(), config.mode());
+        long start = System.nanoTime();
+        runPhase(config, config.duration(), stats);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // 3. Report
+        Map<String, LoadReport.PipelineResult> results = new LinkedHashMap<>();
+        stats.forEach((name, pipelineStats) -> results.put(name, toResult(config.mode(), pipelineStats)));
+        return new LoadReport(config, elapsed, maxInFlight.get(), results, stepRecorder.snapshot());
+    }
+
+    private void runPhase(LoadTestConfig config, Duration duration, Map<String, PipelineStats> stats) {
+        if (config.mode() == Mode.FIXED_RATE) {
+            runFixedRate(config, duration, stats);
+        } else {
+            runFixedConcurrency(config, duration, stats);
+        }
+    }
+
+    private void runFixedRate(LoadTestConfig config, Duration duration, Map<String, PipelineStats> stats) {
+        List<PipelineDefinition> pipelines = config.pipelines();
+        long intervalNanos = 1_000_000_000L / config.rate();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        // close() waits for the executions still in flight
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + i * intervalNanos;
+                if (intendedStart >= end) {
+                    break;
+                }
+                long wait;
+                while ((wait = intendedStart - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+
+                PipelineDefinition definition = pipelines.get((int) (i % pipelines.size()));
+                PipelineStats pipelineStats = stats.get(definition.name());
+                workers.execute(() -> executeOnce(definition, intendedStart, pipelineStats));
+            }
+        }
+    }
+
+    private void runFixedConcurrency(LoadTestConfig config, Duration duration, Map<String, PipelineStats> stats) {
+        List<PipelineDefinition> pipelines = config.pipelines();
+        long end = System.nanoTime() + duration.toNanos();
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int w = 0; w < config.concurrency(); w++) {
+                int offset = w;
+                workers.execute(() -> {
+                    for (int i = offset; System.nanoTime() < end; i++) {
+                        PipelineDefinition definition = pipelines.get(i % pipelines.size());
+                        executeOnce(definition, System.nanoTime(), stats.get(definition.name()));
+                    }
+                });
+            }
+        }
+    }
+
+    private void executeOnce(PipelineDefinition definition, long intendedStart, PipelineStats stats) {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        long actualStart = System.nanoTime();
+        boolean success = false;
+        try {
+            executor.executePipeline(definition, "payload");
+            success = true;
+        } catch (RuntimeException e) {
+            log.debug("Execution of '{}' failed: {}", definition.name(), e.getMessage());
+        } finally {
+            stats.record(intendedStart, actualStart, System.nanoTime(), success);
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private LoadReport.PipelineResult toResult(Mode mode, PipelineStats stats) {
+        Histogram raw = stats.fromActualStart.copy();
+        Histogram corrected;
+        if (mode == Mode.FIXED_RATE) {
+            corrected = stats.fromIntendedStart.copy();
+        } else {
+            // Closed loop: back-fill the samples a stalled worker could not issue
+            long expectedInterval = Math.max(1, Math.round(raw.getMean()));
+            corrected = raw.copyCorrectedForCoordinatedOmission(expectedInterval);
+        }
+        return new LoadReport.PipelineResult(stats.successes.sum(), stats.failures.sum(), corrected, raw);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live measurements of one pipeline during a run. Values are recorded in microseconds.
+ */
+class PipelineStats {
+
+    /** Latency from the intended start (fixed rate) - includes time spent waiting to start. */
+    final Histogram fromIntendedStart = newHistogram();
+    /** Latency from the actual start - pure execution time. */
+    final Histogram fromActualStart = newHistogram();
+    final LongAdder successes = new LongAdder();
+    final LongAdder failures = new LongAdder();
+
+    void record(long intendedStartNanos, long actualStartNanos, long endNanos, boolean success) {
+        fromIntendedStart.recordValue(toMicros(endNanos - intendedStartNanos));
+        fromActualStart.recordValue(toMicros(endNanos - actualStartNanos));
+        (success ? successes : failures).increment();
+    }
+
+    void reset() {
+        fromIntendedStart.reset();
+        fromActualStart.reset();
+        successes.reset();
+        failures.reset();
+    }
+
+    private static long toMicros(long nanos) {
+        return Math.min(TimeUnit.NANOSECONDS.toMicros(Math.max(0, nanos)), StepLatencyRecorder.HIGHEST_TRACKABLE_MICROS);
+    }
+
+    private static Histogram newHistogram() {
+        return new ConcurrentHistogram(StepLatencyRecorder.HIGHEST_TRACKABLE_MICROS, 3);
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.benchmark.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the service time of every synthetic step invocation, keyed by step bean name
+ * ({@code PipelineName_StepId}).
+ * <p>
+ * Lives in the application context, so step beans of every compiled plan share one instance.
+ * Values are recorded in microseconds.
+ * </p>
+ */
+@Component
+public class StepLatencyRecorder {
+
+    static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(10);
+
+    private final Map<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    public void record(String beanName, long nanos) {
+        histograms.computeIfAbsent(beanName, k -> new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3))
+                .recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(nanos), HIGHEST_TRACKABLE_MICROS));
+    }
+
+    /**
+     * Discards everything recorded so far (end of warmup).
+     */
+    public void reset() {
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * @return Copies of the per-step histograms, sorted by bean name.
+     */
+    public Map<String, Histogram> snapshot() {
+        Map<String, Histogram> copy = new TreeMap<>();
+        histograms.forEach((name, histogram) -> copy.put(name, histogram.copy()));
+        return copy;
+    }
+}
@@ -0,0 +1,43 @@
+package org.example.benchmark.load.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates payload-heavy steps (deserialization, enrichment): allocates {@code bytes} per invocation
+ * in chunks of {@code chunkSize}, touches them, then waits for the remaining sampled time.
+ */
+@ThreadSafeStep
+@DihStepComponent("SyntheticAllocate")
+public class AllocationStep extends SyntheticStep {
+
+    private int bytes = 64 * 1024;
+    private int chunkSize = 4 * 1024;
+
+    public void setBytes(int bytes) {
+        this.bytes = bytes;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected Object work(Object input, long serviceNanos) throws InterruptedException {
+        long start = System.nanoTime();
+        byte[][] chunks = new byte[Math.max(1, bytes / chunkSize)][];
+        for (int i = 0; i < chunks.length; i++) {
+            chunks[i] = new byte[chunkSize];
+            chunks[i][ThreadLocalRandom.current().nextInt(chunkSize)] = 1;
+        }
+
+        long remaining = serviceNanos - (System.nanoTime() - start);
+        if (remaining > 0) {
+            TimeUnit.NANOSECONDS.sleep(remaining);
+        }
+        return chunks.length == 0 ? null : input;
+    }
+}
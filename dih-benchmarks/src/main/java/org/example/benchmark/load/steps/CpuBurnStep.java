@@ -0,0 +1,27 @@
+package org.example.benchmark.load.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+
+/**
+ * Simulates CPU-bound work (parsing, mapping, crypto): spins on arithmetic for the sampled time
+ * and pins the carrier thread while doing so.
+ */
+@ThreadSafeStep
+@DihStepComponent("SyntheticCpuBurn")
+public class CpuBurnStep extends SyntheticStep {
+
+    @Override
+    protected Object work(Object input, long serviceNanos) {
+        long deadline = System.nanoTime() + serviceNanos;
+        long accumulator = 17;
+        do {
+            for (int i = 0; i < 256; i++) {
+                accumulator = accumulator * 6364136223846793005L + 1442695040888963407L;
+            }
+        } while (System.nanoTime() < deadline);
+
+        // Keep the loop observable for the JIT
+        return accumulator == 0 ? null : input;
+    }
+}
@@ -0,0 +1,34 @@
+package org.example.benchmark.load.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+import org.example.exception.StepExecutionException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates an unreliable dependency: waits for the sampled time and then fails with probability
+ * {@code failureRate} (0.0 - 1.0).
+ */
+@ThreadSafeStep
+@DihStepComponent("SyntheticFailure")
+public class RandomFailureStep extends SyntheticStep {
+
+    private double failureRate = 0.01;
+
+    public void setFailureRate(double failureRate) {
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    protected Object work(Object input, long serviceNanos) throws InterruptedException {
+        if (serviceNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(serviceNanos);
+        }
+        if (ThreadLocalRandom.current().nextDouble() < failureRate) {
+            throw new StepExecutionException("Synthetic failure.", beanName());
+        }
+        return input;
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.benchmark.load.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates blocking I/O (remote call, database query): parks the thread for the sampled time.
+ * On virtual threads the carrier is released while sleeping.
+ */
+@ThreadSafeStep
+@DihStepComponent("SyntheticSleep")
+public class SleepStep extends SyntheticStep {
+
+    @Override
+    protected Object work(Object input, long serviceNanos) throws InterruptedException {
+        if (serviceNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(serviceNanos);
+        }
+        return input;
+    }
+}
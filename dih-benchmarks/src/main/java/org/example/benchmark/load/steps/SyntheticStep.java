@@ -0,0 +1,59 @@
+package org.example.benchmark.load.steps;
+
+import org.example.benchmark.load.LatencyDistribution;
+import org.example.benchmark.load.StepLatencyRecorder;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.springframework.beans.factory.BeanNameAware;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Base class of the load-test steps.
+ * <p>
+ * Samples a service time from the configured {@link LatencyDistribution} (property {@code latency}),
+ * delegates to {@link #work(Object, long)} and records the observed duration under the step's bean
+ * name, so reports can be broken down per pipeline and per step.
+ * </p>
+ */
+public abstract class SyntheticStep implements PipelineStep<Object, Object>, BeanNameAware {
+
+    private LatencyDistribution latency = LatencyDistribution.NONE;
+    private String beanName;
+
+    @Autowired(required = false)
+    private StepLatencyRecorder recorder;
+
+    /**
+     * Injected via setter from the {@code StepDefinition} properties, e.g. {@code "lognormal:20ms,0.5"}.
+     */
+    public void setLatency(String latency) {
+        this.latency = LatencyDistribution.parse(latency);
+    }
+
+    @Override
+    public void setBeanName(String name) {
+        this.beanName = name;
+    }
+
+    protected String beanName() {
+        return beanName;
+    }
+
+    @Override
+    public Object execute(Object input, PipelineContext context) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return work(input, latency.sampleNanos());
+        } finally {
+            if (recorder != null) {
+                recorder.record(beanName, System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @param input        The step input.
+     * @param serviceNanos The sampled service time of this invocation.
+     */
+    protected abstract Object work(Object input, long serviceNanos) throws Exception;
+}
@@ -0,0 +1,18 @@
+package org.example.benchmark.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+
+/**
+ * Pass-through step without the thread-safety marker: resolved from the "pipeline" scope,
+ * i.e. instantiated once per execution.
+ */
+@DihStepComponent("BenchIsolatedNoOp")
+public class IsolatedNoOpStep implements PipelineStep<Object, Object> {
+
+    @Override
+    public Object execute(Object input, PipelineContext context) {
+        return input;
+    }
+}
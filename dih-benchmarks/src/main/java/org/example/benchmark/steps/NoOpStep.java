@@ -0,0 +1,19 @@
+package org.example.benchmark.steps;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+
+/**
+ * Stateless pass-through step: measures pure engine overhead, shared by all executions of a plan.
+ */
+@ThreadSafeStep
+@DihStepComponent("BenchNoOp")
+public class NoOpStep implements PipelineStep<Object, Object> {
+
+    @Override
+    public Object execute(Object input, PipelineContext context) {
+        return input;
+    }
+}
@@ -0,0 +1,27 @@
+package org.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a Pipeline Step implementation as <b>idempotent</b>.
+ * <p>
+ * Invoking such a step twice with the same input has the same effect as invoking it once, so the engine
+ * may run duplicate attempts of it. Only idempotent steps can be configured with a {@code hedge} policy
+ * ({@code StepDefinition.hedge()}): a slow attempt is raced by a second one, and the loser is cancelled.
+ * As both attempts run on the same instance, hedged steps must also be thread-safe ({@link ThreadSafeStep}).
+ * </p>
+ *
+ * Example:
+ * <pre>
+ * {@code
+ * @IdempotentStep
+ * @DihStepComponent("HttpLookup")
+ * public class HttpLookupStep implements PipelineStep<String, Customer> { ... }
+ * }
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface IdempotentStep {
+}
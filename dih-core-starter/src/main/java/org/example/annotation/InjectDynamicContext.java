@@ -19,7 +19,8 @@ import java.lang.annotation.*;
  * </ul>
  *
  * <h2> Architectural Warning (Scope Safety):</h2>
- * This annotation <b>MUST ONLY</b> be used on beans with  {@code @Scope("prototype")}.
+ * This annotation <b>MUST ONLY</b> be used on beans with {@code @Scope("pipeline")} (the default for
+ * steps not marked {@code @ThreadSafeStep}) or {@code @Scope("prototype")}.
  * <p>
  * If used on a <b>Singleton</b> bean, the context will be injected only once (during application startup
  * or first usage) and effectively "cached" forever. This will lead to <b>Context Leaks</b> where
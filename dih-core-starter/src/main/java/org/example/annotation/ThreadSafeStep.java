@@ -0,0 +1,30 @@
+package org.example.annotation;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a Pipeline Step implementation as <b>thread-safe</b>.
+ * <p>
+ * A single instance of such a step is created per compiled execution plan and shared by all
+ * concurrent executions, avoiding per-run allocation and proxying. Steps without this marker
+ * follow the scope of their pipeline definition (by default {@code "pipeline"}: a fresh instance
+ * per execution, destroyed when the run ends).
+ * </p>
+ * <p>
+ * The marker can be overridden per step via {@code StepDefinition.threadSafe()}.
+ * </p>
+ *
+ * Example:
+ * <pre>
+ * {@code
+ * @ThreadSafeStep
+ * @DihStepComponent("JsonMapper")
+ * public class JsonMapperStep implements PipelineStep<String, Map<String, Object>> { ... }
+ * }
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ThreadSafeStep {
+}
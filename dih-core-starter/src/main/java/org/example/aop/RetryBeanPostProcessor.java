@@ -1,7 +1,9 @@
 package org.example.aop;
 
-import io.micrometer.core.instrument.MeterRegistry;
 import org.example.model.RetryPolicyDefinition;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.retry.RetryExecutorFactory;
+import org.example.service.PipelineRegistrar;
 import org.example.step.PipelineStep;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -21,6 +23,10 @@ import org.springframework.stereotype.Component;
  * If a {@link RetryPolicyDefinition} attribute is found (injected by the Registrar),
  * it wraps the bean in a Spring AOP Proxy with a {@link RetryMethodInterceptor}.
  * </p>
+ * <p>
+ * Only registered in compiled plans with {@code dih.executor.retry.mode=PROXY}. Proxying requires
+ * non-final step classes and, for pipeline-scoped steps, creates a proxy on every execution.
+ * </p>
  */
 @Component
 public class RetryBeanPostProcessor implements BeanPostProcessor, BeanFactoryAware {
@@ -28,10 +34,10 @@ public class RetryBeanPostProcessor implements BeanPostProcessor, BeanFactoryAwa
     private static final Logger log = LoggerFactory.getLogger(RetryBeanPostProcessor.class);
 
     private ConfigurableListableBeanFactory beanFactory;
-    private final MeterRegistry meterRegistry;
+    private final RetryExecutorFactory retryExecutorFactory;
 
-    public RetryBeanPostProcessor(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
+    public RetryBeanPostProcessor(RetryExecutorFactory retryExecutorFactory) {
+        this.retryExecutorFactory = retryExecutorFactory;
     }
 
     @Override
@@ -58,15 +64,31 @@ public class RetryBeanPostProcessor implements BeanPostProcessor, BeanFactoryAwa
         // 3. Proxy Creation
         ProxyFactory proxyFactory = new ProxyFactory(bean);
         proxyFactory.setProxyTargetClass(true); // Enforce CGLIB (Class-based proxy)
-        proxyFactory.addAdvice(new RetryMethodInterceptor(policy, meterRegistry, beanName));
+        BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
+        // Extract clean ID from "PipelineName_StepId"
+        String[] parts = beanName.split("_", 2);
+        String stepId = parts.length > 1 ? parts[1] : beanName;
+        proxyFactory.addAdvice(new RetryMethodInterceptor(retryExecutorFactory.create(
+                parts[0], stepId, (String) definition.getAttribute(PipelineRegistrar.STEP_TYPE_ATTRIBUTE),
+                policy, getClassifier(definition, policy))));
 
         // Use Logger instead of System.out
-        log.info("Applied Retry AOP Proxy to step '{}'. Policy: [Max={}, Delay={}ms]",
-                beanName, policy.maxAttempts(), policy.delay());
+        log.info("Applied Retry AOP Proxy to step '{}'. Policy: [Max={}, Delay={}ms, Backoff={}, Jitter={}]",
+                beanName, policy.maxAttempts(), policy.delay(), policy.backoff(), policy.jitter());
 
         return proxyFactory.getProxy();
     }
 
+    /**
+     * Uses the classifier resolved by the registrar; definitions registered by other means are classified here.
+     */
+    private RetryExceptionClassifier getClassifier(BeanDefinition definition, RetryPolicyDefinition policy) {
+        if (definition.getAttribute(PipelineRegistrar.RETRY_CLASSIFIER_ATTRIBUTE) instanceof RetryExceptionClassifier classifier) {
+            return classifier;
+        }
+        return RetryExceptionClassifier.of(policy, beanFactory.getBeanClassLoader());
+    }
+
     /**
      * Safely retrieves the retry policy from the bean definition attributes.
      */
@@ -77,7 +99,7 @@ public class RetryBeanPostProcessor implements BeanPostProcessor, BeanFactoryAwa
 
         try {
             BeanDefinition definition = beanFactory.getBeanDefinition(beanName);
-            Object policyAttribute = definition.getAttribute("retryPolicy");
+            Object policyAttribute = definition.getAttribute(PipelineRegistrar.RETRY_POLICY_ATTRIBUTE);
 
             if (policyAttribute instanceof RetryPolicyDefinition) {
                 return (RetryPolicyDefinition) policyAttribute;
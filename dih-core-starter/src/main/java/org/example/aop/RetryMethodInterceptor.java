@@ -1,44 +1,62 @@
 package org.example.aop;
 
-import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.aopalliance.intercept.MethodInterceptor;
 import org.aopalliance.intercept.MethodInvocation;
-import org.example.exception.RetryExhaustedException;
 import org.example.model.RetryPolicyDefinition;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import org.example.retry.RetryBudget;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.retry.RetryExecutor;
+import org.example.retry.RetryExecutorFactory;
+import org.example.retry.RetryScheduler;
+import org.example.step.PipelineContext;
 
 import java.lang.reflect.Method;
+import java.util.concurrent.Callable;
 
 /**
  * AOP Advice that implements the Retry Logic.
  * <p>
  * Wraps the execution of the {@code execute} method. If an exception occurs,
- * it pauses the thread and retries until the maximum attempts are reached.
+ * it waits for the backoff of the {@link RetryPolicyDefinition} and retries until the maximum
+ * attempts are reached.
  * </p>
+ *
+ * <h2>Waiting:</h2>
+ * Every attempt runs on the calling thread. With a {@link RetryScheduler}, the thread parks through the
+ * backoff (releasing its carrier on a virtual thread); without one, it sleeps. See {@link RetryExecutor}.
+ * <p>
+ * Only used in the {@code PROXY} retry mode; by default the plan applies retries through
+ * {@link org.example.retry.RetryingStep} instead.
+ * </p>
+ *
+ * <h2>Retry Storm Protection:</h2>
+ * Only failures accepted by the {@link RetryExceptionClassifier} are retried, and every retry is charged
+ * to the {@link RetryBudget}s of the step type and the pipeline.
  */
 public class RetryMethodInterceptor implements MethodInterceptor {
 
-    private static final Logger log = LoggerFactory.getLogger(RetryMethodInterceptor.class);
-
-    private final RetryPolicyDefinition retryPolicy;
-    private final Counter retryCounter;
-    private final String stepId;
+    private final RetryExecutor retryExecutor;
 
     public RetryMethodInterceptor(RetryPolicyDefinition retryPolicy, MeterRegistry meterRegistry, String beanName) {
-        this.retryPolicy = retryPolicy;
+        this(createExecutor(retryPolicy, meterRegistry, beanName));
+    }
+
+    /**
+     * @param retryExecutor The retry loop, typically created by {@link RetryExecutorFactory}.
+     */
+    public RetryMethodInterceptor(RetryExecutor retryExecutor) {
+        this.retryExecutor = retryExecutor;
+    }
 
+    private static RetryExecutor createExecutor(RetryPolicyDefinition retryPolicy, MeterRegistry meterRegistry, String beanName) {
         // Extract clean ID from "PipelineName_StepId"
         String[] parts = beanName.split("_", 2);
         String pipelineName = parts.length > 0 ? parts[0] : "unknown";
-        this.stepId = parts.length > 1 ? parts[1] : beanName;
+        String stepId = parts.length > 1 ? parts[1] : beanName;
 
-        this.retryCounter = Counter.builder("dih.step.retries")
-                .tag("pipeline.name", pipelineName)
-                .tag("step.id", stepId)
-                .description("Counts failed attempts that triggered a retry.")
-                .register(meterRegistry);
+        return new RetryExecutorFactory(meterRegistry, null, null)
+                .create(pipelineName, stepId, null, retryPolicy, RetryExceptionClassifier.RETRY_ALL);
     }
 
     @Override
@@ -50,47 +68,29 @@ public class RetryMethodInterceptor implements MethodInterceptor {
             return invocation.proceed();
         }
 
-        int maxAttempts = retryPolicy.maxAttempts();
-        long delay = retryPolicy.delay();
-
-        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
-            try {
-                return invocation.proceed();
-            } catch (Exception e) {
-                if (attempt == maxAttempts) {
-                    log.error("RETRY EXHAUSTED: Step '{}' failed after {} attempts.", stepId, maxAttempts);
-                    throw new RetryExhaustedException(stepId, maxAttempts, e);
-                }
-
-                log.warn("Attempt {}/{} failed for step '{}'. Retrying in {}ms. Error: {}",
-                        attempt, maxAttempts, stepId, delay, e.getMessage());
-
-                this.retryCounter.increment();
+        // 2. Retry Loop (every attempt on the calling thread), within the execution's deadline
+        return retryExecutor.execute(attempt(invocation), deadlineOf(invocation.getArguments()));
+    }
 
-                // ARCHITECTURAL WARNING: Blocking I/O
-                performWait(delay);
+    private static long deadlineOf(Object[] arguments) {
+        for (Object argument : arguments) {
+            if (argument instanceof PipelineContext context) {
+                return context.deadline();
             }
         }
-        throw new IllegalStateException("Unreachable code in RetryMethodInterceptor");
+        return PipelineContext.NO_DEADLINE;
     }
 
-    /**
-     * Pauses the current thread.
-     *
-     * @deprecated <b>Performance Bottleneck:</b> Calling {@code Thread.sleep} blocks the actual
-     * worker thread from the pool. In high-concurrency scenarios (like your {@code ParallelSplitterStep}),
-     * this leads to Thread Starvation.
-     * <br><b>Fix:</b> Switch to a non-blocking retry mechanism (e.g., Spring Retry with BackOffPolicy
-     * or Reactor's {@code .retryWhen()}) if moving to a reactive stack. For synchronous flows,
-     * this is acceptable ONLY if pool size is sufficient.
-     */
-    @Deprecated
-    private void performWait(long delay) {
-        try {
-            Thread.sleep(delay);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Retry interrupted", e);
-        }
+    private static Callable<Object> attempt(MethodInvocation invocation) {
+        // Attempts never overlap and run on the calling thread, so the same invocation can safely be proceeded again.
+        return () -> {
+            try {
+                return invocation.proceed();
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,193 @@
+package org.example.batching;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.example.model.MicroBatchDefinition;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.PipelineContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * DataLoader-style batching window in front of one step of a compiled plan.
+ * <p>
+ * {@link #submit} adds an item to the open window and returns a future for its output. The window is
+ * flushed as one chunk when it holds {@code maxSize} items, or {@code maxDelay} after its first item.
+ * Chunks run on a worker thread; each item's future completes with its slice of the outputs, or with
+ * the failure of the chunk.
+ * </p>
+ * <p>
+ * Items whose future was cancelled before the flush are left out of the chunk. The chunk runs with the
+ * {@link PipelineContext} of its first item bound.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code dih.step.batch.size} (summary) - items per flushed chunk.</li>
+ * <li>{@code dih.step.batch.wait} (timer) - time items spent in the window, i.e. the latency added by batching.</li>
+ * </ul>
+ */
+public class MicroBatcher {
+
+    /**
+     * Processes one flushed chunk, e.g. a {@code BatchPipelineStep} behind its decorators.
+     */
+    @FunctionalInterface
+    public interface BatchHandler {
+        /**
+         * @return One output per input, in input order.
+         */
+        List<Object> execute(List<Object> inputs, PipelineContext context) throws Exception;
+    }
+
+    private final int maxSize;
+    private final long maxDelayNanos;
+    private final BatchHandler handler;
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary sizeSummary;
+    private final Timer waitTimer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private List<Item> window = new ArrayList<>();
+    private ScheduledFuture<?> flushTask;
+
+    MicroBatcher(MicroBatchDefinition definition,
+                 Tags tags,
+                 BatchHandler handler,
+                 ScheduledExecutorService timer,
+                 Executor executor,
+                 MeterRegistry meterRegistry) {
+        this.maxSize = definition.maxSize();
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(definition.maxDelayMs());
+        this.handler = handler;
+        this.timer = timer;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.sizeSummary = DistributionSummary.builder("dih.step.batch.size")
+                .tags(tags)
+                .description("Items per micro-batch handed to the step.")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("dih.step.batch.wait")
+                .tags(tags)
+                .description("Time items waited in the micro-batching window.")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds an item to the open window.
+     *
+     * @return A future completed with the item's output once its chunk has run.
+     */
+    public CompletableFuture<Object> submit(Object input, PipelineContext context) {
+        Item item = new Item(input, context, new CompletableFuture<>(), System.nanoTime());
+        List<Item> full = null;
+        lock.lock();
+        try {
+            window.add(item);
+            if (window.size() >= maxSize) {
+                full = closeWindow();
+            } else if (window.size() == 1) {
+                flushTask = timer.schedule(this::flushDue, maxDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+        return item.result();
+    }
+
+    /**
+     * Removes the meters. Items still waiting are flushed.
+     */
+    public void close() {
+        List<Item> pending;
+        lock.lock();
+        try {
+            pending = closeWindow();
+        } finally {
+            lock.unlock();
+        }
+        if (!pending.isEmpty()) {
+            dispatch(pending);
+        }
+        List.<Meter>of(sizeSummary, waitTimer).forEach(meterRegistry::remove);
+    }
+
+    private void flushDue() {
+        List<Item> due;
+        lock.lock();
+        try {
+            due = closeWindow();
+        } finally {
+            lock.unlock();
+        }
+        if (!due.isEmpty()) {
+            dispatch(due);
+        }
+    }
+
+    /** Must be called with the lock held. */
+    private List<Item> closeWindow() {
+        List<Item> closed = window;
+        window = new ArrayList<>();
+        if (flushTask != null) {
+            flushTask.cancel(false);
+            flushTask = null;
+        }
+        return closed;
+    }
+
+    private void dispatch(List<Item> chunk) {
+        try {
+            executor.execute(() -> run(chunk));
+        } catch (RejectedExecutionException e) {
+            chunk.forEach(item -> item.result().completeExceptionally(e));
+        }
+    }
+
+    private void run(List<Item> chunk) {
+        long now = System.nanoTime();
+        List<Item> live = new ArrayList<>(chunk.size());
+        List<Object> inputs = new ArrayList<>(chunk.size());
+        for (Item item : chunk) {
+            if (!item.result().isDone()) {
+                live.add(item);
+                inputs.add(item.input());
+                waitTimer.record(now - item.enqueuedAt(), TimeUnit.NANOSECONDS);
+            }
+        }
+        if (live.isEmpty()) {
+            return;
+        }
+        sizeSummary.record(live.size());
+
+        try {
+            List<Object> outputs = PipelineContextHolder.callWithContext(
+                    live.get(0).context(), () -> handler.execute(inputs, live.get(0).context()));
+            for (int i = 0; i < live.size(); i++) {
+                live.get(i).result().complete(outputs.get(i));
+            }
+        } catch (Throwable t) {
+            live.forEach(item -> item.result().completeExceptionally(t));
+        }
+    }
+
+    private record Item(Object input, PipelineContext context, CompletableFuture<Object> result, long enqueuedAt) {
+    }
+}
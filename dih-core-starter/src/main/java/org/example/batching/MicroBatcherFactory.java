@@ -0,0 +1,50 @@
+package org.example.batching;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.model.MicroBatchDefinition;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Creates the {@link MicroBatcher}s of compiled plans, sharing one window timer and one pool of
+ * virtual worker threads that run the flushed chunks.
+ */
+public class MicroBatcherFactory implements DisposableBean {
+
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    public MicroBatcherFactory(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("dih-batch-timer")
+                .daemon(true)
+                .factory());
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("dih-batch-", 0)
+                .factory());
+    }
+
+    public MicroBatcher create(String pipelineName,
+                               String pipelineVersion,
+                               String stepId,
+                               MicroBatchDefinition definition,
+                               MicroBatcher.BatchHandler handler) {
+        Tags tags = Tags.of(
+                "pipeline.name", pipelineName,
+                "pipeline.version", String.valueOf(pipelineVersion),
+                "step.id", stepId);
+        return new MicroBatcher(definition, tags, handler, timer, workers, meterRegistry);
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+}
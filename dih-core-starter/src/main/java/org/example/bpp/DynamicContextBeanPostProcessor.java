@@ -29,7 +29,7 @@ import java.lang.reflect.Field;
  * </ul>
  *
  * <p>
- * <b>Recommendation:</b> Use this ONLY with beans annotated with {@code @PipelineScope}
+ * <b>Recommendation:</b> Use this ONLY with beans annotated with {@code @Scope("pipeline")}
  * or {@code @Scope("prototype")}.
  * </p>
  */
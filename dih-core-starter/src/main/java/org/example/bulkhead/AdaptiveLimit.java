@@ -0,0 +1,41 @@
+package org.example.bulkhead;
+
+import org.example.config.DihProperties.BulkheadLimit;
+
+/**
+ * Algorithm deriving a {@link Bulkhead}'s concurrency limit from the observed round-trip time (RTT)
+ * of its permit holders, i.e. the time from obtaining to returning a permit.
+ * <p>
+ * Implementations are invoked under the bulkhead's lock and need no synchronization of their own;
+ * {@link #rttNanos()} is read by metrics without it.
+ * </p>
+ */
+public interface AdaptiveLimit {
+
+    /**
+     * Records one successful call. Failed calls are not sampled: their latency says nothing about how
+     * much concurrency the downstream sustains.
+     *
+     * @param rttNanos Time the permit was held.
+     * @param inFlight Permits held when the call completed, including its own.
+     * @return The new limit.
+     */
+    int onSample(long rttNanos, int inFlight);
+
+    /**
+     * @return The latency the algorithm currently works with, for metrics.
+     */
+    double rttNanos();
+
+    /**
+     * @return The configured algorithm, or {@code null} for a static limit.
+     */
+    static AdaptiveLimit of(BulkheadLimit limit) {
+        BulkheadLimit.Adaptive settings = limit.getAdaptive();
+        return switch (settings.getAlgorithm()) {
+            case NONE -> null;
+            case AIMD -> new AimdLimit(limit.getMaxConcurrent(), settings);
+            case GRADIENT -> new GradientLimit(limit.getMaxConcurrent(), settings);
+        };
+    }
+}
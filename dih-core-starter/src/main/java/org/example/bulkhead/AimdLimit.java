@@ -0,0 +1,46 @@
+package org.example.bulkhead;
+
+import org.example.config.DihProperties.BulkheadLimit;
+
+/**
+ * Additive-increase / multiplicative-decrease limit.
+ * <p>
+ * A call slower than {@code latency-threshold} multiplies the limit by {@code backoff-ratio}; a faster
+ * call raises it by one, but only while at least half of the limit is in use, so an idle system does
+ * not inflate its limit without ever proving it can sustain it.
+ * </p>
+ */
+final class AimdLimit implements AdaptiveLimit {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long thresholdNanos;
+    private final double backoffRatio;
+
+    private double limit;
+    private volatile double rttNanos;
+
+    AimdLimit(int initialLimit, BulkheadLimit.Adaptive settings) {
+        this.minLimit = Math.max(1, settings.getMinLimit());
+        this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+        this.thresholdNanos = settings.getLatencyThreshold().toNanos();
+        this.backoffRatio = settings.getBackoffRatio();
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    public int onSample(long rttNanos, int inFlight) {
+        this.rttNanos = rttNanos;
+        if (rttNanos > thresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        return (int) limit;
+    }
+
+    @Override
+    public double rttNanos() {
+        return rttNanos;
+    }
+}
@@ -0,0 +1,321 @@
+package org.example.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.example.config.DihProperties.BulkheadLimit;
+import org.example.config.DihProperties.BulkheadLimit.RejectPolicy;
+import org.example.exception.ExecutionRejectedException;
+import org.example.model.ExecutionOptions.Priority;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrency limit with a bounded, priority-ordered wait queue.
+ * <p>
+ * Up to {@code maxConcurrent} callers hold a permit at a time. Further callers wait in a queue of
+ * at most {@code maxQueue} entries for at most {@code queueTimeout}; beyond that they are rejected
+ * with {@link ExecutionRejectedException}, so a burst cannot pile up unbounded work.
+ * </p>
+ * <p>
+ * Waiting is non-blocking: {@link #acquire()} returns a future that completes when a permit is handed
+ * over. Permits are handed directly from the releasing caller to the next waiter: the oldest one of the
+ * highest {@link Priority}. A full queue makes room for a caller by rejecting the newest waiter of a lower
+ * priority, before the reject policy applies.
+ * </p>
+ * <p>
+ * With an {@link AdaptiveLimit}, {@code maxConcurrent} is only the initial limit: every permit returned
+ * via {@link #release(long)} reports how long it was held, and the algorithm moves the limit accordingly.
+ * Failed calls return their permit via {@link #release()}, without a sample.
+ * A lowered limit takes effect as permits are returned; a raised one admits waiters immediately.
+ * </p>
+ *
+ * <h2>Metrics</h2> (tags {@code bulkhead.level}, {@code bulkhead.name}):
+ * <ul>
+ * <li>{@code dih.bulkhead.permits.used} / {@code dih.bulkhead.permits.limit} (gauges)</li>
+ * <li>{@code dih.bulkhead.rtt} (time gauge, adaptive limits only) - latency the limit is derived from.</li>
+ * <li>{@code dih.bulkhead.queue.depth} (gauge)</li>
+ * <li>{@code dih.bulkhead.wait} (timer) - time from request to permit, {@code 0} for immediate grants.</li>
+ * <li>{@code dih.bulkhead.rejected} (counter, {@code reason=queue_full|timeout|evicted})</li>
+ * </ul>
+ */
+public class Bulkhead {
+
+    private static final CompletableFuture<Void> GRANTED = CompletableFuture.completedFuture(null);
+
+    private final String name;
+    private final int maxQueue;
+    private final long queueTimeoutNanos;
+    private final RejectPolicy rejectPolicy;
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+
+    private final AdaptiveLimit adaptiveLimit;
+
+    /** Guarded by {@code this}; volatile for metrics. */
+    private volatile int limit;
+    /** Guarded by {@code this}. */
+    private int inUse;
+    /** Guarded by {@code this}. */
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(
+            Comparator.<Waiter>comparingInt(waiter -> waiter.priority.ordinal()).thenComparingLong(waiter -> waiter.sequence));
+    /** Guarded by {@code this}. */
+    private long sequence;
+
+    private final Timer waitTimer;
+    private final Counter rejectedQueueFull;
+    private final Counter rejectedTimeout;
+    private final Counter rejectedEvicted;
+
+    /**
+     * @param level Scope of the limit ({@code global}, {@code pipeline} or {@code step.type}), used as a tag.
+     * @param timer    Fires queue timeouts.
+     * @param executor Runs the continuations of asynchronous callers that had to queue.
+     */
+    public Bulkhead(String level,
+                    String name,
+                    BulkheadLimit limit,
+                    ScheduledExecutorService timer,
+                    Executor executor,
+                    MeterRegistry meterRegistry) {
+        this.name = name;
+        this.limit = limit.getMaxConcurrent();
+        this.adaptiveLimit = AdaptiveLimit.of(limit);
+        this.maxQueue = Math.max(0, limit.getMaxQueue());
+        this.queueTimeoutNanos = limit.getQueueTimeout().toNanos();
+        this.rejectPolicy = limit.getRejectPolicy();
+        this.timer = timer;
+        this.executor = executor;
+
+        Tags tags = Tags.of("bulkhead.level", level, "bulkhead.name", name);
+        Gauge.builder("dih.bulkhead.permits.used", this, Bulkhead::inUse)
+                .tags(tags)
+                .description("Permits currently held.")
+                .register(meterRegistry);
+        Gauge.builder("dih.bulkhead.permits.limit", this, Bulkhead::limit)
+                .tags(tags)
+                .description("Maximum concurrent permits.")
+                .register(meterRegistry);
+        Gauge.builder("dih.bulkhead.queue.depth", this, Bulkhead::queueDepth)
+                .tags(tags)
+                .description("Callers waiting for a permit.")
+                .register(meterRegistry);
+        if (adaptiveLimit != null) {
+            TimeGauge.builder("dih.bulkhead.rtt", adaptiveLimit, TimeUnit.NANOSECONDS, AdaptiveLimit::rttNanos)
+                    .tags(tags)
+                    .description("Latency of permit holders the adaptive limit is derived from.")
+                    .register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder("dih.bulkhead.wait")
+                .tags(tags)
+                .description("Time from requesting to obtaining a permit.")
+                .register(meterRegistry);
+        this.rejectedQueueFull = rejectedCounter(meterRegistry, tags, "queue_full");
+        this.rejectedTimeout = rejectedCounter(meterRegistry, tags, "timeout");
+        this.rejectedEvicted = rejectedCounter(meterRegistry, tags, "evicted");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The executor asynchronous callers continue on after waiting in the queue, so their work
+     * does not run on the thread that released the permit.
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Requests a permit with {@link Priority#NORMAL} priority.
+     *
+     * @see #acquire(Priority)
+     */
+    public CompletableFuture<Void> acquire() {
+        return acquire(Priority.NORMAL);
+    }
+
+    /**
+     * Requests a permit.
+     *
+     * @param priority Position in the wait queue; waiters of a higher priority are served first.
+     * @return A future completed once the permit is held, or exceptionally with
+     * {@link ExecutionRejectedException}. Cancelling the future withdraws the request.
+     * The holder MUST call {@link #release()} exactly once.
+     */
+    public CompletableFuture<Void> acquire(Priority priority) {
+        Waiter waiter;
+        Waiter evicted = null;
+        synchronized (this) {
+            if (inUse < limit && waiters.isEmpty()) {
+                inUse++;
+                waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return GRANTED;
+            }
+            if (waiters.size() >= maxQueue) {
+                evicted = evictionCandidate(priority);
+                if (evicted == null) {
+                    rejectedQueueFull.increment();
+                    return CompletableFuture.failedFuture(new ExecutionRejectedException(name, "queue is full"));
+                }
+                waiters.remove(evicted);
+            }
+            waiter = new Waiter(priority, sequence++);
+            waiters.add(waiter);
+        }
+
+        if (evicted != null && evicted.completeExceptionally(
+                new ExecutionRejectedException(name, "evicted from the queue by a newer request"))) {
+            rejectedEvicted.increment();
+        }
+        if (queueTimeoutNanos > 0) {
+            waiter.timeout = timer.schedule(() -> {
+                synchronized (this) {
+                    if (!waiters.remove(waiter)) {
+                        return; // Granted, cancelled or evicted in the meantime
+                    }
+                }
+                rejectedTimeout.increment();
+                waiter.completeExceptionally(new ExecutionRejectedException(
+                        name, "no permit within " + TimeUnit.NANOSECONDS.toMillis(queueTimeoutNanos) + "ms"));
+            }, queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        }
+        waiter.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                synchronized (this) {
+                    waiters.remove(waiter);
+                }
+            }
+            ScheduledFuture<?> timeout = waiter.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+        });
+        return waiter;
+    }
+
+    /**
+     * Returns a permit without a latency sample.
+     */
+    public void release() {
+        release(-1);
+    }
+
+    /**
+     * Returns a permit, handing it to the next waiter if the limit allows.
+     *
+     * @param rttNanos How long the permit was held; fed to the adaptive limit if {@code >= 0}.
+     */
+    public void release(long rttNanos) {
+        List<Waiter> granted;
+        synchronized (this) {
+            if (adaptiveLimit != null && rttNanos >= 0) {
+                limit = adaptiveLimit.onSample(rttNanos, inUse);
+            }
+            inUse--;
+            granted = grantWaiters();
+        }
+        // Completed outside the lock: the waiters' continuations may run inline
+        while (!granted.isEmpty()) {
+            List<Waiter> returned = new ArrayList<>(0);
+            for (Waiter waiter : granted) {
+                if (waiter.complete(null)) {
+                    waitTimer.record(System.nanoTime() - waiter.enqueuedAt, TimeUnit.NANOSECONDS);
+                } else {
+                    // The waiter timed out or was cancelled concurrently; its permit goes to the next one
+                    returned.add(waiter);
+                }
+            }
+            if (returned.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                inUse -= returned.size();
+                granted = grantWaiters();
+            }
+        }
+    }
+
+    /**
+     * Picks the waiter to reject in favour of a new caller: the newest waiter of the lowest priority below the
+     * caller's, else (with {@code DROP_OLDEST}) the oldest waiter of the caller's own priority. Must hold the lock.
+     */
+    private Waiter evictionCandidate(Priority priority) {
+        Waiter lower = null;
+        Waiter oldestPeer = null;
+        for (Waiter candidate : waiters) {
+            int ordinal = candidate.priority.ordinal();
+            if (ordinal > priority.ordinal()) {
+                if (lower == null || ordinal > lower.priority.ordinal()
+                        || (ordinal == lower.priority.ordinal() && candidate.sequence > lower.sequence)) {
+                    lower = candidate;
+                }
+            } else if (ordinal == priority.ordinal() && (oldestPeer == null || candidate.sequence < oldestPeer.sequence)) {
+                oldestPeer = candidate;
+            }
+        }
+        if (lower != null) {
+            return lower;
+        }
+        return rejectPolicy == RejectPolicy.DROP_OLDEST ? oldestPeer : null;
+    }
+
+    /**
+     * Takes permits for as many waiters as the limit allows. Must hold the lock.
+     */
+    private List<Waiter> grantWaiters() {
+        if (waiters.isEmpty() || inUse >= limit) {
+            return List.of();
+        }
+        List<Waiter> granted = new ArrayList<>(1);
+        while (inUse < limit && !waiters.isEmpty()) {
+            granted.add(waiters.poll());
+            inUse++;
+        }
+        return granted;
+    }
+
+    synchronized int inUse() {
+        return inUse;
+    }
+
+    synchronized int queueDepth() {
+        return waiters.size();
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    private static Counter rejectedCounter(MeterRegistry meterRegistry, Tags tags, String reason) {
+        return Counter.builder("dih.bulkhead.rejected")
+                .tags(tags)
+                .tag("reason", reason)
+                .description("Requests rejected by the bulkhead.")
+                .register(meterRegistry);
+    }
+
+    private static final class Waiter extends CompletableFuture<Void> {
+        final Priority priority;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+        volatile ScheduledFuture<?> timeout;
+
+        Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
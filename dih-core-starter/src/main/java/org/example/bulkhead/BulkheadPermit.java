@@ -0,0 +1,174 @@
+package org.example.bulkhead;
+
+import org.example.concurrency.Futures;
+import org.example.model.ExecutionOptions.Priority;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Permits held by one caller across one or more {@link Bulkhead}s.
+ * <p>
+ * {@link #release(boolean)} returns them in reverse acquisition order and is idempotent, so it can be called
+ * unconditionally from {@code finally} blocks and completion callbacks alike. Only a successful call reports
+ * the time it held the permits to adaptive limits: a failure is often fast precisely because the downstream
+ * is down, and would otherwise pass for good latency and raise the limit during an outage.
+ * </p>
+ */
+public final class BulkheadPermit {
+
+    /** Permit of a caller that is not subject to any bulkhead. */
+    public static final BulkheadPermit NONE = new BulkheadPermit(List.of());
+
+    private final List<Bulkhead> bulkheads;
+    private final long grantedAt = System.nanoTime();
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private BulkheadPermit(List<Bulkhead> bulkheads) {
+        this.bulkheads = bulkheads;
+    }
+
+    /**
+     * Acquires a permit from each bulkhead, one after the other, without blocking.
+     * A caller waits in at most one queue at a time and holds no permit of a later bulkhead while
+     * it waits for an earlier one.
+     *
+     * @param priority Position in the bulkheads' wait queues.
+     * @return A future completed with the combined permit, or exceptionally with the first rejection.
+     * Cancelling it withdraws the request and returns any permit already obtained.
+     */
+    public static CompletableFuture<BulkheadPermit> acquire(List<Bulkhead> bulkheads, Priority priority) {
+        CompletableFuture<BulkheadPermit> permit = new CompletableFuture<>();
+        acquire(bulkheads, priority, 0, permit);
+        return permit;
+    }
+
+    /**
+     * Runs an asynchronous action while holding permits of the bulkheads.
+     * The permits are returned when the action's stage completes.
+     *
+     * @param executor Runs the action if the caller had to queue, instead of the thread releasing the permit.
+     * @return The action's outcome, or a rejection. Cancelling it withdraws the request or cancels the action.
+     */
+    public static <T> CompletableFuture<T> callWith(List<Bulkhead> bulkheads,
+                                                    Priority priority,
+                                                    Executor executor,
+                                                    Callable<CompletableFuture<T>> action) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<BulkheadPermit> admission = acquire(bulkheads, priority);
+        Futures.propagateCancellation(result, admission);
+
+        BiConsumer<BulkheadPermit, Throwable> proceed = (permit, failure) -> {
+            if (failure != null) {
+                result.completeExceptionally(Futures.unwrap(failure));
+                return;
+            }
+            if (result.isDone()) {
+                permit.discard();
+                return;
+            }
+            CompletableFuture<T> stage;
+            try {
+                stage = action.call();
+            } catch (Throwable t) {
+                stage = CompletableFuture.failedFuture(t);
+            }
+            Futures.propagateCancellation(result, stage);
+            stage.whenComplete((value, stageFailure) -> {
+                permit.release(stageFailure == null);
+                if (stageFailure != null) {
+                    result.completeExceptionally(Futures.unwrap(stageFailure));
+                } else {
+                    result.complete(value);
+                }
+            });
+        };
+
+        if (admission.isDone()) {
+            admission.whenComplete(proceed);
+        } else {
+            admission.whenCompleteAsync(proceed, executor);
+        }
+        return result;
+    }
+
+    /**
+     * Waits for a permit on the calling thread.
+     * A permit handed over while the thread is being interrupted is returned, not leaked.
+     *
+     * @throws InterruptedException if the waiting thread was interrupted.
+     */
+    public static BulkheadPermit await(CompletableFuture<BulkheadPermit> permit) throws Exception {
+        try {
+            return Futures.await(permit);
+        } catch (InterruptedException e) {
+            BulkheadPermit granted = permit.getNow(null);
+            if (granted != null) {
+                granted.discard();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the permits.
+     *
+     * @param succeeded Whether the call completed normally; only then is the time the permits were held
+     *                  reported to adaptive limits.
+     */
+    public void release(boolean succeeded) {
+        if (!succeeded) {
+            discard();
+            return;
+        }
+        if (bulkheads.isEmpty() || !released.compareAndSet(false, true)) {
+            return;
+        }
+        long rttNanos = System.nanoTime() - grantedAt;
+        for (int i = bulkheads.size() - 1; i >= 0; i--) {
+            bulkheads.get(i).release(rttNanos);
+        }
+    }
+
+    /**
+     * Returns permits that were never used (a withdrawn request) or held by a failed call, without a latency sample.
+     */
+    void discard() {
+        if (released.compareAndSet(false, true)) {
+            for (int i = bulkheads.size() - 1; i >= 0; i--) {
+                bulkheads.get(i).release();
+            }
+        }
+    }
+
+    private static void acquire(List<Bulkhead> bulkheads,
+                                Priority priority,
+                                int index,
+                                CompletableFuture<BulkheadPermit> permit) {
+        if (index == bulkheads.size()) {
+            BulkheadPermit granted = new BulkheadPermit(bulkheads);
+            if (!permit.complete(granted)) {
+                // Cancelled while the last permit was handed over
+                granted.discard();
+            }
+            return;
+        }
+
+        CompletableFuture<Void> acquired = bulkheads.get(index).acquire(priority);
+        Futures.propagateCancellation(permit, acquired);
+        acquired.whenComplete((ignored, failure) -> {
+            if (failure != null) {
+                new BulkheadPermit(bulkheads.subList(0, index)).discard();
+                permit.completeExceptionally(Futures.unwrap(failure));
+            } else if (permit.isDone()) {
+                new BulkheadPermit(bulkheads.subList(0, index + 1)).discard();
+            } else {
+                acquire(bulkheads, priority, index + 1, permit);
+            }
+        });
+    }
+}
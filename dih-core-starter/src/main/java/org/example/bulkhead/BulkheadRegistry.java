@@ -0,0 +1,130 @@
+package org.example.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.config.DihProperties;
+import org.example.config.DihProperties.BulkheadLimit;
+import org.example.model.ExecutionOptions.Priority;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Application-wide {@link Bulkhead}s, configured via {@code dih.executor.bulkhead.*}.
+ * <p>
+ * Four levels bound the work in flight:
+ * <ul>
+ * <li><b>global</b> - all pipeline executions of the application.</li>
+ * <li><b>pipeline</b> - executions of one pipeline name ({@code pipelines.<name>}, falling back to
+ * {@code pipeline-default}), so a single hot pipeline cannot take every global permit.</li>
+ * <li><b>step.type</b> - invocations of one step type across all pipelines ({@code step-types.<type>}),
+ * protecting a shared downstream system.</li>
+ * <li><b>fan.out</b> - concurrently running {@code ParallelSplitter} branches of one pipeline name
+ * ({@code fan-out}).</li>
+ * </ul>
+ * Executions are admitted through the pipeline bulkhead first and the global one second: callers
+ * queueing for a saturated pipeline do not hold global permits other pipelines could use.
+ * </p>
+ * <p>
+ * Any level can derive its limit from observed latency instead ({@code adaptive.algorithm}),
+ * see {@link AdaptiveLimit}.
+ * </p>
+ */
+public class BulkheadRegistry implements DisposableBean {
+
+    private static final CompletableFuture<BulkheadPermit> UNLIMITED = CompletableFuture.completedFuture(BulkheadPermit.NONE);
+
+    private final DihProperties.Bulkheads settings;
+    private final MeterRegistry meterRegistry;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final Bulkhead global;
+    private final Map<String, Bulkhead> pipelineBulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> stepTypeBulkheads = new ConcurrentHashMap<>();
+    private final Map<String, Bulkhead> fanOutBulkheads = new ConcurrentHashMap<>();
+
+    public BulkheadRegistry(DihProperties.Bulkheads settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("dih-bulkhead-timer")
+                .daemon(true)
+                .factory());
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("dih-bulkhead-", 0)
+                .factory());
+        this.global = settings.getGlobal().isEnabled()
+                ? new Bulkhead("global", "global", settings.getGlobal(), timer, workers, meterRegistry)
+                : null;
+    }
+
+    /**
+     * Admits one execution of the pipeline through its pipeline bulkhead and the global bulkhead.
+     * Queued executions are admitted by {@link Priority}, then in arrival order.
+     *
+     * @return A future completed with the permit to {@link BulkheadPermit#release() release} when the
+     * execution ends, or exceptionally with {@link org.example.exception.ExecutionRejectedException}.
+     * Cancelling it withdraws the request and returns any permit already obtained.
+     */
+    public CompletableFuture<BulkheadPermit> admit(String pipelineName, Priority priority) {
+        List<Bulkhead> levels = new ArrayList<>(2);
+        Bulkhead pipeline = forPipeline(pipelineName);
+        if (pipeline != null) {
+            levels.add(pipeline);
+        }
+        if (global != null) {
+            levels.add(global);
+        }
+        if (levels.isEmpty()) {
+            return UNLIMITED;
+        }
+
+        return BulkheadPermit.acquire(levels, priority);
+    }
+
+    /**
+     * @return The bulkhead shared by all invocations of the step type, or {@code null} if it is not limited.
+     */
+    public Bulkhead forStepType(String stepType) {
+        BulkheadLimit limit = settings.getStepTypes().get(stepType);
+        if (limit == null || !limit.isEnabled()) {
+            return null;
+        }
+        return stepTypeBulkheads.computeIfAbsent(stepType,
+                type -> new Bulkhead("step.type", type, limit, timer, workers, meterRegistry));
+    }
+
+    /**
+     * @return The bulkhead shared by the {@code ParallelSplitter} branches of all executions of the pipeline,
+     * or {@code null} if fan-out is not limited.
+     */
+    public Bulkhead forFanOut(String pipelineName) {
+        BulkheadLimit limit = settings.getFanOut();
+        if (!limit.isEnabled()) {
+            return null;
+        }
+        return fanOutBulkheads.computeIfAbsent(pipelineName,
+                name -> new Bulkhead("fan.out", name, limit, timer, workers, meterRegistry));
+    }
+
+    private Bulkhead forPipeline(String pipelineName) {
+        BulkheadLimit limit = settings.getPipelines().getOrDefault(pipelineName, settings.getPipelineDefault());
+        if (!limit.isEnabled()) {
+            return null;
+        }
+        return pipelineBulkheads.computeIfAbsent(pipelineName,
+                name -> new Bulkhead("pipeline", name, limit, timer, workers, meterRegistry));
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.bulkhead;
+
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Composition decorator holding a step-type {@link Bulkhead} permit for the duration of one invocation.
+ * <p>
+ * Sits inside the retry decorator, so the permit is returned during backoff and every attempt
+ * queues again. Invocations queue by the priority of their execution. {@link #executeAsync} waits for
+ * the permit without blocking a thread; an invocation that had to queue continues on the
+ * {@link Bulkhead#getExecutor() bulkhead's executor}.
+ * </p>
+ */
+public final class BulkheadStep implements AsyncPipelineStep<Object, Object> {
+
+    private final AsyncPipelineStep<Object, Object> delegate;
+    private final Bulkhead bulkhead;
+
+    public BulkheadStep(AsyncPipelineStep<Object, Object> delegate, Bulkhead bulkhead) {
+        this.delegate = delegate;
+        this.bulkhead = bulkhead;
+    }
+
+    @Override
+    public Object execute(Object input, PipelineContext context) throws Exception {
+        BulkheadPermit permit = BulkheadPermit.await(BulkheadPermit.acquire(List.of(bulkhead), context.priority()));
+        boolean succeeded = false;
+        try {
+            Object result = delegate.execute(input, context);
+            succeeded = true;
+            return result;
+        } finally {
+            permit.release(succeeded);
+        }
+    }
+
+    @Override
+    public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+        return BulkheadPermit.callWith(List.of(bulkhead), context.priority(), bulkhead.getExecutor(),
+                () -> delegate.executeAsync(input, context).toCompletableFuture());
+    }
+}
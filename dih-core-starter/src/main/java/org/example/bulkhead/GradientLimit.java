@@ -0,0 +1,74 @@
+package org.example.bulkhead;
+
+import org.example.config.DihProperties.BulkheadLimit;
+
+/**
+ * Gradient (Vegas-style) limit.
+ * <p>
+ * Compares the long-term average RTT, the latency the downstream delivers when it is not overloaded,
+ * with the recent RTT. Queueing anywhere behind the bulkhead inflates the recent RTT first, so the
+ * gradient {@code tolerance * longRtt / shortRtt} drops below {@code 1} and the limit shrinks before
+ * timeouts and errors set in:
+ * </p>
+ * <pre>
+ * newLimit = limit * clamp(gradient, 0.5, 1.0) + sqrt(limit)
+ * limit    = limit * (1 - smoothing) + newLimit * smoothing
+ * </pre>
+ * The {@code sqrt(limit)} headroom lets the limit grow while latency is stable. Samples taken while less
+ * than half of the limit is in use do not change it.
+ */
+final class GradientLimit implements AdaptiveLimit {
+
+    /** Samples averaged into the recent RTT. */
+    private static final int SHORT_WINDOW = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double smoothing;
+    private final double tolerance;
+    private final double longWeight;
+    private final double shortWeight = 2.0 / (SHORT_WINDOW + 1);
+
+    private double limit;
+    private double longRtt;
+    private volatile double shortRtt;
+
+    GradientLimit(int initialLimit, BulkheadLimit.Adaptive settings) {
+        this.minLimit = Math.max(1, settings.getMinLimit());
+        this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+        this.smoothing = settings.getSmoothing();
+        this.tolerance = settings.getRttTolerance();
+        this.longWeight = 2.0 / (Math.max(SHORT_WINDOW, settings.getLongWindow()) + 1);
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+    }
+
+    @Override
+    public int onSample(long rttNanos, int inFlight) {
+        if (longRtt == 0) {
+            longRtt = rttNanos;
+            shortRtt = rttNanos;
+            return (int) limit;
+        }
+        double recent = shortRtt + shortWeight * (rttNanos - shortRtt);
+        shortRtt = recent;
+        longRtt += longWeight * (rttNanos - longRtt);
+
+        // A long-lasting improvement (e.g. after a slow period) would otherwise keep the gradient at its cap
+        if (longRtt > 2 * recent) {
+            longRtt *= 0.95;
+        }
+        if (inFlight * 2 < limit) {
+            return (int) limit;
+        }
+
+        double gradient = Math.clamp(tolerance * longRtt / recent, 0.5, 1.0);
+        double estimate = limit * gradient + Math.sqrt(limit);
+        limit = Math.clamp(limit * (1 - smoothing) + estimate * smoothing, minLimit, maxLimit);
+        return (int) limit;
+    }
+
+    @Override
+    public double rttNanos() {
+        return shortRtt;
+    }
+}
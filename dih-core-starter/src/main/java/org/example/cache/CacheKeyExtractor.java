@@ -0,0 +1,14 @@
+package org.example.cache;
+
+/**
+ * Derives the cache key of a step input, for steps with a {@code cache} configuration naming this bean.
+ * <p>
+ * Keys must implement {@code equals} and {@code hashCode} by value. Inputs for which {@code null} is returned
+ * bypass the cache.
+ * </p>
+ */
+@FunctionalInterface
+public interface CacheKeyExtractor {
+
+    Object extractKey(Object input);
+}
@@ -0,0 +1,14 @@
+package org.example.cache;
+
+/**
+ * Weighs a cached output against the {@code maxWeight} of the on-heap tier of a {@link StepCache},
+ * for steps with a {@code cache} configuration naming this bean (e.g. by an approximate size in bytes).
+ */
+@FunctionalInterface
+public interface CacheWeigher {
+
+    /**
+     * @return The weight of the entry; at least {@code 1} is counted.
+     */
+    long weigh(Object key, Object value);
+}
@@ -0,0 +1,199 @@
+package org.example.cache;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.util.ClassUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Second tier of a {@link StepCache}: serialized outputs in a fixed-size direct buffer, outside of the
+ * garbage-collected heap.
+ * <p>
+ * The buffer is written as a ring log. Every entry is appended at the write position; when the position
+ * reaches the end it wraps to the start, and the oldest entries in the way are evicted (first in, first out).
+ * Replaced and removed entries are not compacted, their bytes are simply overwritten when the log comes
+ * around. The footprint is thereby fixed at the capacity; only the keys and slot positions live on the heap.
+ * </p>
+ * All operations copy bytes under the tier's monitor; serialization runs outside of it.
+ */
+final class OffHeapTier {
+
+    /** Largest buffer a {@code ByteBuffer} can address. */
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /** {@code null} once the tier is closed; guarded by {@code this}. */
+    private ByteBuffer buffer;
+    private final int capacity;
+    private final Runnable evictionListener;
+
+    /** Live slot per key; guarded by {@code this}. */
+    private final Map<Object, Slot> index = new HashMap<>();
+    /** All slots in write order, including dead ones; guarded by {@code this}. */
+    private final ArrayDeque<Slot> log = new ArrayDeque<>();
+    /** Guarded by {@code this}. */
+    private int writePosition;
+    /** Bytes of the live slots; guarded by {@code this}. */
+    private long usedBytes;
+
+    private record Slot(Object key, int offset, int length, long loadedAt) {
+    }
+
+    /**
+     * A value read from the tier, with the time it was originally loaded.
+     */
+    record Hit(Object value, long loadedAt) {
+    }
+
+    /**
+     * @param evictionListener Notified for every live entry overwritten to make room.
+     */
+    OffHeapTier(long capacityBytes, Runnable evictionListener) {
+        this.capacity = (int) Math.min(capacityBytes, MAX_CAPACITY);
+        this.buffer = ByteBuffer.allocateDirect(capacity);
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Stores an entry, replacing any previous one of the key.
+     *
+     * @return {@code false} if the value is not serializable or larger than the tier.
+     */
+    boolean put(Object key, Object value, long loadedAt) {
+        byte[] bytes = serialize(value);
+        if (bytes == null || bytes.length > capacity) {
+            return false;
+        }
+        synchronized (this) {
+            if (buffer == null) {
+                return false;
+            }
+            int offset = reserve(bytes.length);
+            buffer.put(offset, bytes);
+            Slot slot = new Slot(key, offset, bytes.length, loadedAt);
+            log.addLast(slot);
+            Slot replaced = index.put(key, slot);
+            if (replaced != null) {
+                usedBytes -= replaced.length();
+            }
+            usedBytes += bytes.length;
+        }
+        return true;
+    }
+
+    /**
+     * @return The entry of the key, or {@code null} if the tier holds none (or it can no longer be read).
+     */
+    Hit get(Object key) {
+        byte[] bytes;
+        long loadedAt;
+        synchronized (this) {
+            Slot slot = index.get(key);
+            if (slot == null) {
+                return null;
+            }
+            bytes = new byte[slot.length()];
+            buffer.get(slot.offset(), bytes);
+            loadedAt = slot.loadedAt();
+        }
+        try {
+            return new Hit(deserialize(bytes), loadedAt);
+        } catch (IOException | ClassNotFoundException e) {
+            // E.g. the output class changed with a redeployed step: the entry is lost, not the call
+            remove(key);
+            return null;
+        }
+    }
+
+    synchronized void remove(Object key) {
+        Slot slot = index.remove(key);
+        if (slot != null) {
+            usedBytes -= slot.length();
+        }
+    }
+
+    /**
+     * Drops all entries and the buffer, whose native memory is freed once it is garbage collected.
+     * Later writes are ignored.
+     */
+    synchronized void close() {
+        buffer = null;
+        index.clear();
+        log.clear();
+        writePosition = 0;
+        usedBytes = 0;
+    }
+
+    synchronized int size() {
+        return index.size();
+    }
+
+    synchronized long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Advances the write position past {@code length} bytes, evicting the oldest slots in the way.
+     * Slots are laid out in write order, so the ones in the way are always at the head of the log.
+     *
+     * @return The offset to write at.
+     */
+    private int reserve(int length) {
+        if (writePosition + length > capacity) {
+            // The remainder up to the end is skipped: its slots are the oldest ones
+            while (!log.isEmpty() && log.peekFirst().offset() >= writePosition) {
+                evictOldest();
+            }
+            writePosition = 0;
+        }
+        while (!log.isEmpty() && overlaps(log.peekFirst(), writePosition, length)) {
+            evictOldest();
+        }
+        int offset = writePosition;
+        writePosition += length;
+        return offset;
+    }
+
+    private static boolean overlaps(Slot slot, int offset, int length) {
+        return slot.offset() < offset + length && offset < slot.offset() + slot.length();
+    }
+
+    private void evictOldest() {
+        Slot slot = log.removeFirst();
+        if (index.get(slot.key()) == slot) {
+            index.remove(slot.key());
+            usedBytes -= slot.length();
+            evictionListener.run();
+        }
+    }
+
+    private static byte[] serialize(Object value) {
+        if (!(value instanceof Serializable)) {
+            return null;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            // A non-serializable field somewhere in the object graph
+            return null;
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+        // Step classes may not be visible to the loader of this class
+        try (ObjectInputStream in = new ConfigurableObjectInputStream(
+                new ByteArrayInputStream(bytes), ClassUtils.getDefaultClassLoader())) {
+            return in.readObject();
+        }
+    }
+}
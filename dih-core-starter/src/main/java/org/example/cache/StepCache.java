@@ -0,0 +1,376 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.concurrency.Futures;
+import org.example.concurrency.InterruptibleFuture;
+import org.example.model.CacheDefinition;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Memoized outputs of one step configuration, shared by all executions and plans using it
+ * (see {@link StepCacheRegistry}). Closed, with its meters removed, once the last of these plans is closed.
+ * <p>
+ * {@link #execute} looks the input's key up and returns the cached output, or runs the given loader - the
+ * step's decorator chain - and caches its output. Failures and {@code null} outputs are never cached.
+ * Concurrent misses of the same key all run the loader.
+ * </p>
+ *
+ * <h2>Tiers:</h2>
+ * <ul>
+ * <li><b>On-heap:</b> least recently used entries are evicted once their total weight exceeds {@code maxWeight}.</li>
+ * <li><b>Off-heap</b> (optional): entries evicted from the heap are serialized into an {@link OffHeapTier} of
+ * fixed capacity, and promoted back to the heap on their next hit.</li>
+ * </ul>
+ * <p>
+ * Entries expire {@code ttlMs} after they were loaded. A hit on an entry older than {@code refreshAheadMs}
+ * returns it and reloads it once on the executor, so hot keys do not miss when they expire. The reload runs
+ * within the entry's expiry, not within the deadline of the execution that triggered it.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code dih.step.cache.hits} (counter, {@code tier=heap|off-heap}) - invocations served from the cache.</li>
+ * <li>{@code dih.step.cache.misses} (counter) - invocations that ran the step.</li>
+ * <li>{@code dih.step.cache.evictions} (counter, {@code tier=heap|off-heap}) - entries evicted to stay within bounds.</li>
+ * <li>{@code dih.step.cache.refreshes} (counter) - background reloads started ahead of expiry.</li>
+ * <li>{@code dih.step.cache.size} (gauge, {@code tier=heap|off-heap}) - cached entries.</li>
+ * <li>{@code dih.step.cache.weight} (gauge) - total weight of the on-heap entries.</li>
+ * <li>{@code dih.step.cache.off.heap.bytes} (gauge) - bytes of the live off-heap entries.</li>
+ * </ul>
+ */
+public class StepCache {
+
+    private final String name;
+    private final CacheKeyExtractor keyExtractor;
+    private final CacheWeigher weigher;
+    private final long maxWeight;
+    private final long ttlMs;
+    private final long refreshAheadMs;
+    private final OffHeapTier offHeap;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+    private final Consumer<StepCache> releaser;
+
+    /** Plans using the cache; guarded by the {@link StepCacheRegistry}'s map entry. */
+    int owners;
+
+    /** Access-ordered: iteration starts at the least recently used entry. Guarded by itself. */
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    /** Guarded by {@code entries}. */
+    private long weight;
+    /** Guarded by {@code entries}. */
+    private boolean closed;
+
+    private final Counter heapHitCounter;
+    private final Counter offHeapHitCounter;
+    private final Counter missCounter;
+    private final Counter heapEvictionCounter;
+    private final Counter refreshCounter;
+
+    private static final class Entry {
+        final Object value;
+        final long weight;
+        final long loadedAt;
+        /** Set while a refresh-ahead reload of the entry runs. */
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Entry(Object value, long weight, long loadedAt) {
+            this.value = value;
+            this.weight = weight;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    /**
+     * A cache owned by its creator alone: {@link #release()} closes it.
+     */
+    StepCache(String name,
+              CacheDefinition definition,
+              CacheKeyExtractor keyExtractor,
+              CacheWeigher weigher,
+              Executor refreshExecutor,
+              MeterRegistry meterRegistry,
+              Tags tags) {
+        this(name, definition, keyExtractor, weigher, refreshExecutor, meterRegistry, tags, StepCache::close);
+    }
+
+    /**
+     * @param releaser Returns a reference obtained from the {@link StepCacheRegistry}.
+     */
+    StepCache(String name,
+              CacheDefinition definition,
+              CacheKeyExtractor keyExtractor,
+              CacheWeigher weigher,
+              Executor refreshExecutor,
+              MeterRegistry meterRegistry,
+              Tags tags,
+              Consumer<StepCache> releaser) {
+        this.name = name;
+        this.keyExtractor = keyExtractor;
+        this.weigher = weigher;
+        this.maxWeight = definition.maxWeight();
+        this.ttlMs = definition.ttlMs();
+        this.refreshAheadMs = definition.refreshAheadMs();
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+        this.releaser = releaser;
+
+        this.heapHitCounter = counter("dih.step.cache.hits", "Invocations served from the cache.", tags.and("tier", "heap"));
+        this.offHeapHitCounter = counter("dih.step.cache.hits", "Invocations served from the cache.", tags.and("tier", "off-heap"));
+        this.missCounter = counter("dih.step.cache.misses", "Invocations that ran the step.", tags);
+        this.heapEvictionCounter = counter("dih.step.cache.evictions", "Entries evicted to stay within bounds.", tags.and("tier", "heap"));
+        this.refreshCounter = counter("dih.step.cache.refreshes", "Background reloads started ahead of expiry.", tags);
+
+        meters.add(Gauge.builder("dih.step.cache.size", this, StepCache::heapSize)
+                .tags(tags.and("tier", "heap"))
+                .description("Cached entries.")
+                .register(meterRegistry));
+        meters.add(Gauge.builder("dih.step.cache.weight", this, StepCache::heapWeight)
+                .tags(tags)
+                .description("Total weight of the on-heap entries.")
+                .register(meterRegistry));
+
+        if (definition.offHeapBytes() > 0) {
+            Counter offHeapEvictionCounter = counter("dih.step.cache.evictions", "Entries evicted to stay within bounds.",
+                    tags.and("tier", "off-heap"));
+            this.offHeap = new OffHeapTier(definition.offHeapBytes(), offHeapEvictionCounter::increment);
+            meters.add(Gauge.builder("dih.step.cache.size", offHeap, OffHeapTier::size)
+                    .tags(tags.and("tier", "off-heap"))
+                    .description("Cached entries.")
+                    .register(meterRegistry));
+            meters.add(Gauge.builder("dih.step.cache.off.heap.bytes", offHeap, OffHeapTier::usedBytes)
+                    .tags(tags)
+                    .description("Bytes of the live off-heap entries.")
+                    .register(meterRegistry));
+        } else {
+            this.offHeap = null;
+        }
+    }
+
+    private Counter counter(String name, String description, Tags tags) {
+        Counter counter = Counter.builder(name).tags(tags).description(description).register(meterRegistry);
+        meters.add(counter);
+        return counter;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the cached output of the input, or runs the loader and caches its output.
+     *
+     * @param loader The uncached invocation of the step; also used for refresh-ahead reloads.
+     */
+    public Object execute(Object input, PipelineContext context, AsyncPipelineStep<Object, Object> loader) throws Exception {
+        Object key = keyOf(input);
+        if (key == null) {
+            return loader.execute(input, context);
+        }
+        Entry cached = lookup(key);
+        if (cached != null) {
+            refreshIfStale(key, cached, input, context, loader);
+            return cached.value;
+        }
+        long loadedAt = System.currentTimeMillis();
+        Object output = loader.execute(input, context);
+        store(key, output, loadedAt);
+        return output;
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}: hits complete immediately, misses with the loader's stage.
+     */
+    public CompletableFuture<Object> executeAsync(Object input, PipelineContext context, AsyncPipelineStep<Object, Object> loader) {
+        Object key;
+        try {
+            key = keyOf(input);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (key == null) {
+            return start(loader, input, context);
+        }
+        Entry cached = lookup(key);
+        if (cached != null) {
+            refreshIfStale(key, cached, input, context, loader);
+            return CompletableFuture.completedFuture(cached.value);
+        }
+        long loadedAt = System.currentTimeMillis();
+        CompletableFuture<Object> stage = start(loader, input, context);
+        return Futures.propagateCancellation(stage.whenComplete((output, failure) -> {
+            if (failure == null) {
+                store(key, output, loadedAt);
+            }
+        }), stage);
+    }
+
+    private Object keyOf(Object input) {
+        return keyExtractor != null ? keyExtractor.extractKey(input) : input;
+    }
+
+    /**
+     * @return The valid entry of the key from either tier, or {@code null} on a miss. Off-heap hits are
+     * promoted to the heap.
+     */
+    private Entry lookup(Object key) {
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!isExpired(entry.loadedAt, now)) {
+                    heapHitCounter.increment();
+                    return entry;
+                }
+                entries.remove(key);
+                weight -= entry.weight;
+            }
+        }
+        if (offHeap != null) {
+            OffHeapTier.Hit hit = offHeap.get(key);
+            if (hit != null) {
+                offHeap.remove(key);
+                if (!isExpired(hit.loadedAt(), now)) {
+                    offHeapHitCounter.increment();
+                    return store(key, hit.value(), hit.loadedAt());
+                }
+            }
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    private boolean isExpired(long loadedAt, long now) {
+        return ttlMs > 0 && now - loadedAt >= ttlMs;
+    }
+
+    /**
+     * Caches an output on the heap, evicting the least recently used entries beyond the maximum weight.
+     * Evicted entries that are still valid move to the off-heap tier.
+     *
+     * @return The new entry, or {@code null} for a {@code null} output.
+     */
+    private Entry store(Object key, Object value, long loadedAt) {
+        if (value == null) {
+            return null;
+        }
+        Entry entry = new Entry(value, weigher != null ? Math.max(1, weigher.weigh(key, value)) : 1, loadedAt);
+        List<Map.Entry<Object, Entry>> evicted = new ArrayList<>();
+        synchronized (entries) {
+            if (closed) {
+                // E.g. a refresh-ahead reload completing after the last plan was closed
+                return entry;
+            }
+            Entry replaced = entries.put(key, entry);
+            if (replaced != null) {
+                weight -= replaced.weight;
+            }
+            weight += entry.weight;
+            Iterator<Map.Entry<Object, Entry>> eldest = entries.entrySet().iterator();
+            while (weight > maxWeight && eldest.hasNext()) {
+                Map.Entry<Object, Entry> next = eldest.next();
+                eldest.remove();
+                weight -= next.getValue().weight;
+                evicted.add(next);
+            }
+        }
+        if (!evicted.isEmpty()) {
+            heapEvictionCounter.increment(evicted.size());
+            if (offHeap != null) {
+                // Serialized outside of the heap tier's lock
+                long now = System.currentTimeMillis();
+                for (Map.Entry<Object, Entry> demoted : evicted) {
+                    if (!isExpired(demoted.getValue().loadedAt, now)) {
+                        offHeap.put(demoted.getKey(), demoted.getValue().value, demoted.getValue().loadedAt);
+                    }
+                }
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Reloads an entry older than {@code refreshAheadMs} on the executor, once at a time. The entry stays
+     * valid until the reload replaces it; a failed reload is retried by a later hit.
+     */
+    private void refreshIfStale(Object key, Entry entry, Object input, PipelineContext context,
+                                AsyncPipelineStep<Object, Object> loader) {
+        if (refreshAheadMs == 0 || System.currentTimeMillis() - entry.loadedAt < refreshAheadMs
+                || !entry.refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        refreshCounter.increment();
+        long loadedAt = System.currentTimeMillis();
+        // The triggering execution's deadline may pass long before the reload completes, or already has
+        PipelineContext refreshContext = new PipelineContext(context.executionId(), context.startTime(),
+                context.pipelineName(), context.tenant(), context.priority(),
+                ttlMs > 0 ? entry.loadedAt + ttlMs : PipelineContext.NO_DEADLINE);
+        InterruptibleFuture.submitStage(() -> PipelineContextHolder.callWithContext(refreshContext,
+                        () -> loader.executeAsync(input, refreshContext)), refreshExecutor)
+                .whenComplete((output, failure) -> {
+                    if (failure != null || store(key, output, loadedAt) == null) {
+                        entry.refreshing.set(false);
+                    }
+                });
+    }
+
+    private static CompletableFuture<Object> start(AsyncPipelineStep<Object, Object> loader, Object input, PipelineContext context) {
+        try {
+            return loader.executeAsync(input, context).toCompletableFuture();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    /**
+     * Returns the reference of a plan that no longer uses the cache, see {@link StepCacheRegistry#cacheFor}.
+     */
+    public void release() {
+        releaser.accept(this);
+    }
+
+    /**
+     * Drops all entries, frees the off-heap tier and removes the cache's meters. Called by the
+     * {@link StepCacheRegistry} once no plan uses the cache; later invocations still work, but cache nothing.
+     */
+    void close() {
+        synchronized (entries) {
+            closed = true;
+            entries.clear();
+            weight = 0;
+        }
+        if (offHeap != null) {
+            offHeap.close();
+        }
+        meters.forEach(meterRegistry::remove);
+    }
+
+    private int heapSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private long heapWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.CacheDefinition;
+import org.example.model.StepDefinition;
+import org.springframework.context.ApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * Application-wide store of {@link StepCache}s.
+ * <p>
+ * Caches are keyed by step type, step properties and cache configuration: a step is only a pure function
+ * of its input for one set of properties. Every execution of such a step - in any pipeline and any compiled
+ * plan version - shares the cached outputs.
+ * </p>
+ * <p>
+ * Each compiled plan holds a reference to the caches of its steps and returns it via {@link StepCache#release}
+ * when it is closed. A cache lives as long as one plan still uses it: it survives the switch to a newer pipeline
+ * version that is compiled before the old one is closed, and is closed - entries, off-heap buffer and meters -
+ * once the last plan using it is gone.
+ * </p>
+ * {@link CacheKeyExtractor} and {@link CacheWeigher} beans are resolved from the application context.
+ */
+public class StepCacheRegistry {
+
+    private final ApplicationContext applicationContext;
+    private final Executor refreshExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, StepCache> caches = new ConcurrentHashMap<>();
+
+    private record Key(String stepType, Map<String, Object> properties, CacheDefinition config) {
+    }
+
+    /**
+     * @param refreshExecutor Runs the refresh-ahead reloads.
+     */
+    public StepCacheRegistry(ApplicationContext applicationContext, Executor refreshExecutor, MeterRegistry meterRegistry) {
+        this.applicationContext = applicationContext;
+        this.refreshExecutor = refreshExecutor;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Obtains a reference to the shared cache of the step, to be returned via {@link StepCache#release}.
+     *
+     * @return The shared cache of the step, or {@code null} if the step has no cache configured.
+     * @throws PipelineConfigurationException if the key extractor or weigher bean does not exist.
+     */
+    public StepCache cacheFor(StepDefinition stepDefinition) {
+        CacheDefinition config = stepDefinition.cache();
+        if (config == null) {
+            return null;
+        }
+        // Copied: definitions parsed from JSON carry mutable maps
+        Map<String, Object> properties = stepDefinition.properties() != null
+                ? new HashMap<>(stepDefinition.properties())
+                : Map.of();
+        return caches.compute(new Key(stepDefinition.type(), properties, config), (key, cache) -> {
+            StepCache shared = cache != null ? cache : create(key, stepDefinition);
+            shared.owners++;
+            return shared;
+        });
+    }
+
+    private StepCache create(Key key, StepDefinition stepDefinition) {
+        // Equal configurations of one type share a name; distinct ones are told apart by a short suffix
+        String name = key.stepType() + "#" + Integer.toHexString(key.hashCode());
+        return new StepCache(name, key.config(),
+                bean(stepDefinition, key.config().keyExtractor(), CacheKeyExtractor.class),
+                bean(stepDefinition, key.config().weigher(), CacheWeigher.class),
+                refreshExecutor, meterRegistry,
+                Tags.of("step.cache", name, "step.type", String.valueOf(key.stepType())),
+                cache -> release(key, cache));
+    }
+
+    /**
+     * Returns a reference to the cache; the last one closes it and removes it from the registry.
+     * Closed under the map entry's lock, so a cache created next for the key registers its meters afresh.
+     */
+    private void release(Key key, StepCache cache) {
+        caches.computeIfPresent(key, (k, shared) -> {
+            if (shared != cache || --shared.owners > 0) {
+                return shared;
+            }
+            shared.close();
+            return null;
+        });
+    }
+
+    private <T> T bean(StepDefinition stepDefinition, String beanName, Class<T> type) {
+        if (beanName == null) {
+            return null;
+        }
+        if (!applicationContext.containsBean(beanName)) {
+            throw new PipelineConfigurationException("Cache of step '" + stepDefinition.id()
+                    + "' references unknown " + type.getSimpleName() + " '" + beanName + "'.");
+        }
+        Object bean = applicationContext.getBean(beanName);
+        if (!type.isInstance(bean)) {
+            throw new PipelineConfigurationException("Bean '" + beanName + "' referenced by the cache of step '"
+                    + stepDefinition.id() + "' must implement " + type.getName() + ".");
+        }
+        return type.cast(bean);
+    }
+}
@@ -0,0 +1,241 @@
+package org.example.circuitbreaker;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.model.CircuitBreakerDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Count-based sliding-window circuit breaker.
+ *
+ * <h2>States:</h2>
+ * <ul>
+ * <li><b>CLOSED</b> - calls pass; outcomes are recorded in a ring buffer of the last {@code windowSize} calls.</li>
+ * <li><b>OPEN</b> - calls are rejected until {@code openDurationMs} has elapsed.</li>
+ * <li><b>HALF_OPEN</b> - up to {@code halfOpenCalls} probes pass. If their failure and slow-call rates stay
+ * below the thresholds the breaker closes, otherwise it opens again.</li>
+ * </ul>
+ * Outcomes of calls permitted in an earlier state are discarded, so a slow call started before the breaker
+ * opened cannot skew the probes. Calls that do not reach a verdict on the downstream return their permit via
+ * {@link #releasePermission} instead of recording an outcome.
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code dih.circuit.breaker.state} (gauge: 0 = closed, 1 = open, 2 = half-open).</li>
+ * <li>{@code dih.circuit.breaker.transitions} (counter, tags {@code from}, {@code to}).</li>
+ * <li>{@code dih.circuit.breaker.rejected} (counter) - calls failed fast.</li>
+ * </ul>
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    /** Returned by {@link #tryAcquirePermission()} when the call must be rejected. */
+    public static final long REJECTED = -1;
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final CircuitBreakerDefinition config;
+    private final long slowCallNanos;
+    private final LongSupplier clock;
+
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+    private final Counter rejectedCounter;
+
+    // Guarded by "this"
+    private State state = State.CLOSED;
+    /** Incremented on every transition; identifies the state a permission was granted in. */
+    private long epoch;
+    private long openedAt;
+
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+    private int windowSlow;
+
+    private int probesPermitted;
+    private int probesCompleted;
+    private int probeFailures;
+    private int probeSlow;
+
+    public CircuitBreaker(String name, CircuitBreakerDefinition config, MeterRegistry meterRegistry, Tags tags) {
+        this(name, config, meterRegistry, tags, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, CircuitBreakerDefinition config, MeterRegistry meterRegistry, Tags tags, LongSupplier clock) {
+        this.name = name;
+        this.config = config;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(config.slowCallDurationMs());
+        this.clock = clock;
+        this.window = new byte[config.windowSize()];
+        this.meterRegistry = meterRegistry;
+        this.tags = tags;
+
+        Gauge.builder("dih.circuit.breaker.state", this, breaker -> breaker.getState().ordinal())
+                .tags(tags)
+                .description("Circuit breaker state: 0 = closed, 1 = open, 2 = half-open.")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("dih.circuit.breaker.rejected")
+                .tags(tags)
+                .description("Calls rejected because the circuit breaker was open.")
+                .register(meterRegistry);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * Asks for permission to run one call.
+     *
+     * @return A permit to pass to {@link #onSuccess} / {@link #onError}, or {@link #REJECTED}.
+     */
+    public synchronized long tryAcquirePermission() {
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= TimeUnit.MILLISECONDS.toNanos(config.openDurationMs())) {
+            transitionTo(State.HALF_OPEN);
+        }
+
+        switch (state) {
+            case CLOSED:
+                return epoch;
+            case HALF_OPEN:
+                if (probesPermitted < config.halfOpenCalls()) {
+                    probesPermitted++;
+                    return epoch;
+                }
+                break;
+            default:
+                break;
+        }
+        rejectedCounter.increment();
+        return REJECTED;
+    }
+
+    public void onSuccess(long permit, long durationNanos) {
+        record(permit, durationNanos, false);
+    }
+
+    public void onError(long permit, long durationNanos) {
+        record(permit, durationNanos, true);
+    }
+
+    /**
+     * Returns a permit without recording an outcome, for calls that say nothing about the downstream
+     * (rejected locally, cancelled, or failed with an ignored exception). A released probe may be granted again.
+     */
+    public synchronized void releasePermission(long permit) {
+        if (permit == epoch && state == State.HALF_OPEN && probesPermitted > probesCompleted) {
+            probesPermitted--;
+        }
+    }
+
+    private synchronized void record(long permit, long durationNanos, boolean failed) {
+        if (permit != epoch) {
+            return; // permitted in an earlier state
+        }
+        boolean slow = slowCallNanos > 0 && durationNanos >= slowCallNanos;
+
+        if (state == State.CLOSED) {
+            recordInWindow(failed, slow);
+            if (windowCount >= config.minimumCalls() && thresholdReached(windowFailures, windowSlow, windowCount)) {
+                transitionTo(State.OPEN);
+            }
+        } else if (state == State.HALF_OPEN) {
+            probesCompleted++;
+            if (failed) {
+                probeFailures++;
+            }
+            if (slow) {
+                probeSlow++;
+            }
+            if (probesCompleted >= config.halfOpenCalls()) {
+                transitionTo(thresholdReached(probeFailures, probeSlow, probesCompleted) ? State.OPEN : State.CLOSED);
+            }
+        }
+    }
+
+    private void recordInWindow(boolean failed, boolean slow) {
+        if (windowCount == window.length) {
+            byte evicted = window[windowIndex];
+            if ((evicted & FAILED) != 0) {
+                windowFailures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                windowSlow--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        windowIndex = (windowIndex + 1) % window.length;
+        if (failed) {
+            windowFailures++;
+        }
+        if (slow) {
+            windowSlow++;
+        }
+    }
+
+    private boolean thresholdReached(int failures, int slow, int calls) {
+        if (calls == 0) {
+            return false;
+        }
+        if (failures * 100.0 / calls >= config.failureRateThreshold()) {
+            return true;
+        }
+        return slowCallNanos > 0 && slow * 100.0 / calls >= config.slowCallRateThreshold();
+    }
+
+    private void transitionTo(State target) {
+        State previous = state;
+        state = target;
+        epoch++;
+
+        switch (target) {
+            case OPEN -> openedAt = clock.getAsLong();
+            case HALF_OPEN -> {
+                probesPermitted = 0;
+                probesCompleted = 0;
+                probeFailures = 0;
+                probeSlow = 0;
+            }
+            case CLOSED -> {
+                windowIndex = 0;
+                windowCount = 0;
+                windowFailures = 0;
+                windowSlow = 0;
+            }
+        }
+
+        Counter.builder("dih.circuit.breaker.transitions")
+                .tags(tags)
+                .tag("from", previous.name())
+                .tag("to", target.name())
+                .description("Circuit breaker state transitions.")
+                .register(meterRegistry)
+                .increment();
+
+        if (target == State.OPEN) {
+            log.warn("Circuit breaker '{}' transitioned {} -> OPEN. Calls fail fast for {}ms.",
+                    name, previous, config.openDurationMs());
+        } else {
+            log.info("Circuit breaker '{}' transitioned {} -> {}.", name, previous, target);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.circuitbreaker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.model.CircuitBreakerDefinition;
+import org.example.model.StepDefinition;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide store of {@link CircuitBreaker}s.
+ * <p>
+ * Breakers are keyed by step type and configuration, so every execution - of any pipeline and any
+ * compiled plan version - calling the same kind of downstream with the same settings sees the same
+ * breaker state. Recompiling or evicting a plan does not reset it.
+ * </p>
+ */
+public class CircuitBreakerRegistry {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Key, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private record Key(String stepType, CircuitBreakerDefinition config) {
+    }
+
+    public CircuitBreakerRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return The shared breaker of the step, or {@code null} if the step has no circuit breaker configured.
+     */
+    public CircuitBreaker circuitBreakerFor(StepDefinition stepDefinition) {
+        CircuitBreakerDefinition config = stepDefinition.circuitBreaker();
+        if (config == null) {
+            return null;
+        }
+        return breakers.computeIfAbsent(new Key(stepDefinition.type(), config), key -> {
+            // Equal configurations of one type share a name; distinct ones are told apart by a short suffix
+            String name = key.stepType() + "#" + Integer.toHexString(key.config().hashCode());
+            return new CircuitBreaker(name, key.config(), meterRegistry,
+                    Tags.of("circuit.breaker", name, "step.type", key.stepType()));
+        });
+    }
+}
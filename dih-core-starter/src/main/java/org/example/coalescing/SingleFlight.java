@@ -0,0 +1,334 @@
+package org.example.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.cache.CacheKeyExtractor;
+import org.example.concurrency.Futures;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.ExecutionRejectedException;
+import org.example.step.PipelineContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent invocations of a pipeline or a step into one run.
+ * Shared through the {@link SingleFlightRegistry}, and closed, with its meters removed, once its last user is gone.
+ * <p>
+ * The first caller with a key becomes the <b>leader</b> and runs; callers arriving with the same key while the
+ * run is in flight become <b>followers</b> and complete with the leader's outcome. The key is released before
+ * the outcome is published, so a result is never handed to callers arriving after the run.
+ * </p>
+ * <p>
+ * Failures caused by the leader rather than by the run - its deadline, its cancellation, the rejection of
+ * its admission - are not handed to followers: they try again, and the first of them leads a new run.
+ * Every other failure reaches the followers as it was thrown.
+ * </p>
+ *
+ * <h2>Cancellation:</h2>
+ * <ul>
+ * <li>{@link #execute}: the leader runs on its own thread. A follower giving up (interrupted, or past its
+ * deadline) only stops waiting.</li>
+ * <li>{@link #call}: every caller receives its own future. The run is cancelled only once all callers,
+ * the leader included, have cancelled theirs; new callers then start a run of their own.</li>
+ * </ul>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code <prefix>.coalesced} (counter) - invocations attached to a run in flight instead of running.</li>
+ * <li>{@code <prefix>.coalescing.in.flight} (gauge) - keys with a run in flight.</li>
+ * </ul>
+ */
+public class SingleFlight {
+
+    private final CacheKeyExtractor keyExtractor;
+    private final Map<Object, Flight> flights = new ConcurrentHashMap<>();
+    private final Counter coalescedCounter;
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters;
+    private final Consumer<SingleFlight> releaser;
+
+    /** Plans and executions using the single-flight; guarded by the {@link SingleFlightRegistry}'s map entry. */
+    int owners;
+
+    /**
+     * A single-flight owned by its creator alone: {@link #release()} closes it.
+     *
+     * @param meterPrefix {@code dih.pipeline} or {@code dih.step}.
+     */
+    SingleFlight(CacheKeyExtractor keyExtractor, String meterPrefix, Tags tags, MeterRegistry meterRegistry) {
+        this(keyExtractor, meterPrefix, tags, meterRegistry, SingleFlight::close);
+    }
+
+    /**
+     * @param meterPrefix {@code dih.pipeline} or {@code dih.step}.
+     * @param releaser    Returns a reference obtained from the {@link SingleFlightRegistry}.
+     */
+    SingleFlight(CacheKeyExtractor keyExtractor, String meterPrefix, Tags tags, MeterRegistry meterRegistry,
+                 Consumer<SingleFlight> releaser) {
+        this.keyExtractor = keyExtractor;
+        this.meterRegistry = meterRegistry;
+        this.releaser = releaser;
+        this.coalescedCounter = Counter.builder(meterPrefix + ".coalesced")
+                .tags(tags)
+                .description("Invocations attached to an identical run in flight.")
+                .register(meterRegistry);
+        Gauge inFlight = Gauge.builder(meterPrefix + ".coalescing.in.flight", flights, Map::size)
+                .tags(tags)
+                .description("Keys with a coalesced run in flight.")
+                .register(meterRegistry);
+        this.meters = List.of(coalescedCounter, inFlight);
+    }
+
+    /**
+     * Returns a reference obtained from the {@link SingleFlightRegistry}.
+     */
+    public void release() {
+        releaser.accept(this);
+    }
+
+    /**
+     * Removes the meters. Called by the {@link SingleFlightRegistry} once nothing uses the single-flight;
+     * runs still in flight complete, and later invocations still work.
+     */
+    void close() {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    /**
+     * @return The coalescing key of the input, or {@code null} if the invocation must not be coalesced.
+     */
+    public Object keyOf(Object input) {
+        return keyExtractor != null ? keyExtractor.extractKey(input) : input;
+    }
+
+    /**
+     * Runs a synchronous invocation on the calling thread, or waits for the identical one in flight.
+     * A follower whose leader failed for reasons of its own (see {@link #isLeaderSpecific}) tries again:
+     * it leads a new run, or follows one started by another caller in the meantime.
+     *
+     * @param deadline Time after which a follower stops waiting, or {@link PipelineContext#NO_DEADLINE}.
+     * @param expiry   The failure of a follower whose deadline has passed.
+     * @return The result of the run.
+     * @throws X                    the failure of the run, as thrown by the leader.
+     * @throws InterruptedException if the thread was interrupted while following.
+     */
+    public <X extends Exception> Object execute(Object key,
+                                                long deadline,
+                                                Supplier<? extends X> expiry,
+                                                Run<X> run) throws X, InterruptedException {
+        while (true) {
+            Flight flight = new Flight(key);
+            Flight leader = flights.putIfAbsent(key, flight);
+            if (leader == null) {
+                try {
+                    Object result = run.call();
+                    flight.settle(result, null);
+                    return result;
+                } catch (Exception | Error e) {
+                    flight.settle(null, e);
+                    throw e;
+                }
+            }
+            if (!leader.attach()) {
+                // The run in flight was abandoned by all of its callers and is being cancelled
+                return run.call();
+            }
+            coalescedCounter.increment();
+            CompletableFuture<Object> view = leader.view();
+            try {
+                if (deadline == PipelineContext.NO_DEADLINE) {
+                    return view.get();
+                }
+                return view.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                view.cancel(true);
+                throw e;
+            } catch (TimeoutException e) {
+                view.cancel(true);
+                throw expiry.get();
+            } catch (ExecutionException e) {
+                Throwable failure = Futures.unwrap(e);
+                if (!isLeaderSpecific(failure)) {
+                    throw SingleFlight.<X>rethrow(failure);
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts an asynchronous invocation, or attaches to the identical one in flight.
+     * A follower whose leader failed for reasons of its own tries again, like in {@link #execute}.
+     *
+     * @param run Starts the run; called by the leader only.
+     * @return A future of this caller, completed like the run.
+     */
+    public CompletableFuture<Object> call(Object key, Supplier<CompletableFuture<Object>> run) {
+        Flight flight = new Flight(key);
+        Flight leader = flights.putIfAbsent(key, flight);
+        if (leader != null && leader.attach()) {
+            coalescedCounter.increment();
+            return follow(leader, key, run);
+        }
+        if (leader != null) {
+            return run.get();
+        }
+        flight.attach();
+        CompletableFuture<Object> started;
+        try {
+            started = run.get();
+        } catch (Throwable t) {
+            started = CompletableFuture.failedFuture(t);
+        }
+        flight.follow(started);
+        return flight.view();
+    }
+
+    private CompletableFuture<Object> follow(Flight leader, Object key, Supplier<CompletableFuture<Object>> run) {
+        CompletableFuture<Object> result = new CompletableFuture<>();
+        CompletableFuture<Object> view = leader.view();
+        Futures.propagateCancellation(result, view);
+        view.whenComplete((value, failure) -> {
+            if (failure != null && isLeaderSpecific(Futures.unwrap(failure)) && !result.isDone()) {
+                CompletableFuture<Object> retry = call(key, run);
+                Futures.propagateCancellation(result, retry);
+                retry.whenComplete((retried, retryFailure) -> complete(result, retried, retryFailure));
+            } else {
+                complete(result, value, failure);
+            }
+        });
+        return result;
+    }
+
+    private static void complete(CompletableFuture<Object> future, Object result, Throwable failure) {
+        if (failure == null) {
+            future.complete(result);
+        } else {
+            future.completeExceptionally(Futures.unwrap(failure));
+        }
+    }
+
+    /**
+     * @return {@code true} if the failure of a run tells nothing about the outcome of the followers' runs:
+     * the leader's deadline passed, the leader was cancelled, or its admission was rejected (which depends
+     * on its priority).
+     */
+    private static boolean isLeaderSpecific(Throwable failure) {
+        if (Futures.isCancellation(failure)) {
+            return true;
+        }
+        for (Throwable current = failure; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            if (current instanceof DeadlineExceededException || current instanceof ExecutionRejectedException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Rethrows a failure of the leader's run: an unchecked one, or the checked {@code X} of the run.
+     */
+    @SuppressWarnings("unchecked")
+    private static <X extends Exception> RuntimeException rethrow(Throwable failure) throws X {
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        throw (X) failure;
+    }
+
+    /**
+     * A synchronous run.
+     *
+     * @param <X> The checked failure of the run.
+     */
+    @FunctionalInterface
+    public interface Run<X extends Exception> {
+
+        Object call() throws X;
+    }
+
+    /**
+     * One run in flight and the callers attached to it.
+     */
+    private final class Flight {
+
+        private final Object key;
+        private final CompletableFuture<Object> outcome = new CompletableFuture<>();
+        /** The asynchronous run; {@code null} for synchronous ones, which are never cancelled. Guarded by {@code this}. */
+        private Future<?> run;
+        /** Attached callers; {@code -1} once all of them left and the run is cancelled. Guarded by {@code this}. */
+        private int callers;
+
+        Flight(Object key) {
+            this.key = key;
+        }
+
+        synchronized boolean attach() {
+            if (callers < 0) {
+                return false;
+            }
+            callers++;
+            return true;
+        }
+
+        /**
+         * @return A future of one caller: cancelling it detaches the caller, never the others.
+         */
+        CompletableFuture<Object> view() {
+            // Not outcome.copy(): callers see the failure unwrapped, like from the run itself
+            CompletableFuture<Object> view = new CompletableFuture<>();
+            outcome.whenComplete((result, failure) -> {
+                if (failure == null) {
+                    view.complete(result);
+                } else {
+                    view.completeExceptionally(failure);
+                }
+            });
+            view.whenComplete((result, failure) -> {
+                if (view.isCancelled()) {
+                    detach();
+                }
+            });
+            return view;
+        }
+
+        private void detach() {
+            Future<?> abandoned;
+            synchronized (this) {
+                if (--callers > 0 || run == null || outcome.isDone()) {
+                    return;
+                }
+                callers = -1;
+                abandoned = run;
+            }
+            abandoned.cancel(true);
+        }
+
+        void follow(CompletableFuture<Object> started) {
+            synchronized (this) {
+                run = started;
+            }
+            started.whenComplete(this::settle);
+        }
+
+        void settle(Object result, Throwable failure) {
+            flights.remove(key, this);
+            if (failure == null) {
+                outcome.complete(result);
+            } else {
+                outcome.completeExceptionally(Futures.unwrap(failure));
+            }
+        }
+    }
+}
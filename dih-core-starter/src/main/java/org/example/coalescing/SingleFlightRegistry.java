@@ -0,0 +1,136 @@
+package org.example.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.cache.CacheKeyExtractor;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.CoalescingDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.springframework.context.ApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Application-wide store of {@link SingleFlight}s.
+ * <p>
+ * Pipelines are coalesced per name and version: executions leading and following each other always run
+ * the same plan. Steps are coalesced per step type, properties and configuration, like their caches
+ * (see {@code StepCacheRegistry}), so identical lookups of different pipelines share one call.
+ * </p>
+ * <p>
+ * Single-flights are reference-counted like step caches. Each compiled plan holds a reference to the single-flights
+ * of its pipeline version and of its steps, and returns it via {@link SingleFlight#release} when it is closed;
+ * each coalesced execution holds one while it runs or waits. A single-flight is closed, and its meters removed,
+ * once the last reference is returned, e.g. after its pipeline version was evicted.
+ * </p>
+ * {@link CacheKeyExtractor} beans are resolved from the application context.
+ */
+public class SingleFlightRegistry {
+
+    private final ApplicationContext applicationContext;
+    private final MeterRegistry meterRegistry;
+    private final Map<PipelineKey, SingleFlight> pipelineFlights = new ConcurrentHashMap<>();
+    private final Map<StepKey, SingleFlight> stepFlights = new ConcurrentHashMap<>();
+
+    private record PipelineKey(String pipelineName, String version, CoalescingDefinition config) {
+    }
+
+    private record StepKey(String stepType, Map<String, Object> properties, CoalescingDefinition config) {
+    }
+
+    public SingleFlightRegistry(ApplicationContext applicationContext, MeterRegistry meterRegistry) {
+        this.applicationContext = applicationContext;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Obtains a reference to the single-flight of the pipeline version, to be returned via
+     * {@link SingleFlight#release}.
+     *
+     * @return The single-flight of the pipeline version, or {@code null} if it is not coalesced.
+     * @throws PipelineConfigurationException if the key extractor bean does not exist.
+     */
+    public SingleFlight forPipeline(PipelineDefinition definition) {
+        CoalescingDefinition config = definition.coalesce();
+        if (config == null) {
+            return null;
+        }
+        return acquire(pipelineFlights, new PipelineKey(definition.name(), definition.version(), config),
+                (key, releaser) -> new SingleFlight(keyExtractor(config, "pipeline '" + key.pipelineName() + "'"),
+                        "dih.pipeline",
+                        Tags.of("pipeline.name", key.pipelineName(), "pipeline.version", String.valueOf(key.version())),
+                        meterRegistry, releaser));
+    }
+
+    /**
+     * Obtains a reference to the single-flight shared by the step's configuration, to be returned via
+     * {@link SingleFlight#release}.
+     *
+     * @return The single-flight shared by the step's configuration, or {@code null} if the step is not coalesced.
+     * @throws PipelineConfigurationException if the key extractor bean does not exist.
+     */
+    public SingleFlight forStep(StepDefinition stepDefinition) {
+        CoalescingDefinition config = stepDefinition.coalesce();
+        if (config == null) {
+            return null;
+        }
+        // Copied: definitions parsed from JSON carry mutable maps
+        Map<String, Object> properties = stepDefinition.properties() != null
+                ? new HashMap<>(stepDefinition.properties())
+                : Map.of();
+        return acquire(stepFlights, new StepKey(stepDefinition.type(), properties, config), (key, releaser) -> {
+            String name = key.stepType() + "#" + Integer.toHexString(key.hashCode());
+            return new SingleFlight(keyExtractor(config, "step '" + stepDefinition.id() + "'"), "dih.step",
+                    Tags.of("step.coalescing", name, "step.type", String.valueOf(key.stepType())),
+                    meterRegistry, releaser);
+        });
+    }
+
+    private interface Factory<K> {
+
+        SingleFlight create(K key, Consumer<SingleFlight> releaser);
+    }
+
+    private <K> SingleFlight acquire(Map<K, SingleFlight> flights, K key, Factory<K> factory) {
+        return flights.compute(key, (k, flight) -> {
+            SingleFlight shared = flight != null ? flight : factory.create(k, created -> release(flights, k, created));
+            shared.owners++;
+            return shared;
+        });
+    }
+
+    /**
+     * Returns a reference; the last one closes the single-flight and removes it from the registry.
+     * Closed under the map entry's lock, so a single-flight created next for the key registers its meters afresh.
+     */
+    private static <K> void release(Map<K, SingleFlight> flights, K key, SingleFlight flight) {
+        flights.computeIfPresent(key, (k, shared) -> {
+            if (shared != flight || --shared.owners > 0) {
+                return shared;
+            }
+            shared.close();
+            return null;
+        });
+    }
+
+    private CacheKeyExtractor keyExtractor(CoalescingDefinition config, String owner) {
+        String beanName = config.keyExtractor();
+        if (beanName == null) {
+            return null;
+        }
+        if (!applicationContext.containsBean(beanName)) {
+            throw new PipelineConfigurationException(
+                    "Coalescing of " + owner + " references unknown CacheKeyExtractor '" + beanName + "'.");
+        }
+        Object bean = applicationContext.getBean(beanName);
+        if (!(bean instanceof CacheKeyExtractor extractor)) {
+            throw new PipelineConfigurationException("Bean '" + beanName + "' referenced by the coalescing of "
+                    + owner + " must implement " + CacheKeyExtractor.class.getName() + ".");
+        }
+        return extractor;
+    }
+}
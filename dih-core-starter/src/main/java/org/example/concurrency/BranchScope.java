@@ -0,0 +1,283 @@
+package org.example.concurrency;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Structured fork/join of concurrent branches with fail-fast shutdown.
+ * <p>
+ * Follows the semantics of {@code StructuredTaskScope.ShutdownOnFailure} (a preview API in Java 21, hence
+ * not used directly): branches are {@linkplain #fork forked} into the scope and {@linkplain #gather gathered}
+ * as a whole. The first failing branch shuts the scope down: all sibling branches are cancelled and
+ * interrupted, and branches not yet forked never start. The owner does not see the failure before every
+ * forked branch has actually stopped, so no branch outlives the step that started it.
+ * </p>
+ *
+ * <h2>Notes:</h2>
+ * <ul>
+ * <li>Branch threads are renamed to {@code <scope name>/<branch name>} while they run, so thread dumps show
+ * which execution and branch a thread belongs to.</li>
+ * <li>{@link #close()} shuts the scope down and waits for all branches, for use with try-with-resources by
+ * blocking owners.</li>
+ * <li>Branches that have stopped are no longer tracked, so a scope can fork an unbounded number of
+ * branches over its lifetime.</li>
+ * <li>Besides the all-or-nothing {@link #gather}, branches can be joined by {@link #gatherFirst} (the first N
+ * successes, cancelling the rest) or {@link #settle} (every outcome, tolerating failures).</li>
+ * <li>Cancelling the future returned by any of the gather methods shuts the scope down without waiting.</li>
+ * </ul>
+ *
+ * @param <T> The result type of the branches.
+ */
+public class BranchScope<T> implements AutoCloseable {
+
+    private final String name;
+    private final Executor executor;
+
+    // Guards forks and shutdown, so no branch is forked into a scope that is shutting down
+    private final ReentrantLock lock = new ReentrantLock();
+    private final List<InterruptibleFuture<T>> forks = new ArrayList<>();
+    private boolean shutdown;
+
+    public BranchScope(String name, Executor executor) {
+        this.name = name;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a branch on the scope's executor.
+     *
+     * @param branchName Shown in the thread name while the branch runs.
+     * @param task       Starts the branch; synchronous work returns a completed stage.
+     * @return The branch's future, already cancelled if the scope has been shut down.
+     */
+    public CompletableFuture<T> fork(String branchName, Callable<? extends CompletionStage<T>> task) {
+        lock.lock();
+        try {
+            if (shutdown) {
+                CompletableFuture<T> rejected = new CompletableFuture<>();
+                rejected.cancel(false);
+                return rejected;
+            }
+            InterruptibleFuture<T> fork = InterruptibleFuture.submitStage(() -> runNamed(branchName, task), executor);
+            // Stopped branches need no shutdown: long-lived scopes only track the running ones
+            forks.removeIf(forked -> forked.termination().isDone());
+            forks.add(fork);
+            return fork;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Joins the branches, in order.
+     * <p>
+     * {@code branches} are the futures of {@link #fork} or futures wrapping them, e.g. branches waiting for a
+     * permit before they are forked. Cancelling a wrapper must cancel the branch it wraps.
+     * </p>
+     *
+     * @return A future completed with all results once every branch succeeded; or, after the first failure,
+     * completed with that failure once the scope has been shut down and all forked branches have stopped.
+     */
+    public CompletableFuture<List<T>> gather(List<CompletableFuture<T>> branches) {
+        CompletableFuture<List<T>> outcome = new CompletableFuture<>();
+        AtomicInteger remaining = new AtomicInteger(branches.size());
+        if (branches.isEmpty()) {
+            outcome.complete(List.of());
+            return outcome;
+        }
+        for (CompletableFuture<T> branch : branches) {
+            branch.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    if (shutdownOnce()) {
+                        branches.forEach(sibling -> sibling.cancel(true));
+                        // Report the failure only once the siblings are gone
+                        termination().whenComplete((ignored, none) ->
+                                outcome.completeExceptionally(Futures.unwrap(failure)));
+                    }
+                } else if (remaining.decrementAndGet() == 0) {
+                    outcome.complete(branches.stream().map(CompletableFuture::join).toList());
+                }
+            });
+        }
+        return cancelWith(outcome, branches);
+    }
+
+    /**
+     * Joins the first {@code required} successful branches, in completion order.
+     * <p>
+     * Once enough branches have succeeded, or so many have failed that {@code required} successes are out of
+     * reach, the scope is shut down: the remaining branches are cancelled and interrupted. Failures before
+     * that point are tolerated. {@code branches} follow the same rules as for {@link #gather}.
+     * </p>
+     *
+     * @return A future completed, once all forked branches have stopped, with the first {@code required}
+     * results; or with the first failure (later ones {@linkplain Throwable#addSuppressed suppressed}) if fewer
+     * than {@code required} branches can succeed.
+     */
+    public CompletableFuture<List<T>> gatherFirst(List<CompletableFuture<T>> branches, int required) {
+        CompletableFuture<List<T>> outcome = new CompletableFuture<>();
+        if (required <= 0) {
+            outcome.complete(List.of());
+            return outcome;
+        }
+        int tolerated = branches.size() - required;
+        if (tolerated < 0) {
+            outcome.completeExceptionally(new IllegalArgumentException(
+                    "Cannot gather " + required + " of " + branches.size() + " branches."));
+            return outcome;
+        }
+        List<T> successes = new ArrayList<>(required);
+        List<Throwable> failures = new ArrayList<>();
+        AtomicBoolean decided = new AtomicBoolean();
+        for (CompletableFuture<T> branch : branches) {
+            branch.whenComplete((result, failure) -> {
+                List<T> reached = null;
+                Throwable unreachable = null;
+                synchronized (successes) {
+                    if (decided.get()) {
+                        // Siblings cancelled by the decision
+                        return;
+                    }
+                    if (failure == null) {
+                        successes.add(result);
+                        if (successes.size() == required) {
+                            reached = List.copyOf(successes);
+                        }
+                    } else {
+                        failures.add(Futures.unwrap(failure));
+                        if (failures.size() > tolerated) {
+                            unreachable = failures.get(0);
+                            failures.subList(1, failures.size()).forEach(unreachable::addSuppressed);
+                        }
+                    }
+                    if (reached == null && unreachable == null) {
+                        return;
+                    }
+                    decided.set(true);
+                }
+                shutdown();
+                branches.forEach(sibling -> sibling.cancel(true));
+                List<T> results = reached;
+                Throwable cause = unreachable;
+                // Report the outcome only once the siblings are gone
+                termination().whenComplete((ignored, none) -> {
+                    if (cause != null) {
+                        outcome.completeExceptionally(cause);
+                    } else {
+                        outcome.complete(results);
+                    }
+                });
+            });
+        }
+        return cancelWith(outcome, branches);
+    }
+
+    /**
+     * Waits for every branch, tolerating failures: no branch is cancelled because a sibling failed.
+     * {@code branches} follow the same rules as for {@link #gather}.
+     *
+     * @return A future completed once every branch has completed, successfully or not. The outcome of each
+     * branch is read from its own future.
+     */
+    public CompletableFuture<Void> settle(List<CompletableFuture<T>> branches) {
+        CompletableFuture<Void> outcome = new CompletableFuture<>();
+        CompletableFuture.allOf(branches.stream()
+                        .map(branch -> branch.handle((result, failure) -> null))
+                        .toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, none) -> outcome.complete(null));
+        return cancelWith(outcome, branches);
+    }
+
+    /**
+     * Cancels and interrupts all forked branches; later forks are rejected. Idempotent.
+     */
+    public void shutdown() {
+        shutdownOnce();
+    }
+
+    /**
+     * @return A future completed once all branches forked so far have stopped.
+     */
+    public CompletableFuture<Void> termination() {
+        lock.lock();
+        try {
+            return CompletableFuture.allOf(forks.stream()
+                    .map(InterruptibleFuture::termination)
+                    .toArray(CompletableFuture[]::new));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shuts the scope down and waits until every branch has stopped. An interrupt while waiting is
+     * restored once the branches are gone.
+     */
+    @Override
+    public void close() {
+        shutdown();
+        CompletableFuture<Void> terminated = termination();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                terminated.get();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            } catch (Exception e) {
+                // Termination futures never fail
+                break;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Shuts the scope down without waiting if the owner cancels the gathered future.
+     */
+    private <R> CompletableFuture<R> cancelWith(CompletableFuture<R> outcome, List<CompletableFuture<T>> branches) {
+        outcome.whenComplete((result, failure) -> {
+            if (outcome.isCancelled()) {
+                shutdown();
+                branches.forEach(branch -> branch.cancel(true));
+            }
+        });
+        return outcome;
+    }
+
+    private boolean shutdownOnce() {
+        List<InterruptibleFuture<T>> running;
+        lock.lock();
+        try {
+            if (shutdown) {
+                return false;
+            }
+            shutdown = true;
+            running = List.copyOf(forks);
+        } finally {
+            lock.unlock();
+        }
+        running.forEach(fork -> fork.cancel(true));
+        return true;
+    }
+
+    private CompletionStage<T> runNamed(String branchName, Callable<? extends CompletionStage<T>> task) throws Exception {
+        Thread current = Thread.currentThread();
+        String previousName = current.getName();
+        current.setName(name + "/" + branchName);
+        try {
+            return task.call();
+        } finally {
+            current.setName(previousName);
+        }
+    }
+}
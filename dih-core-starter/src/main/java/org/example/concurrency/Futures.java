@@ -0,0 +1,99 @@
+package org.example.concurrency;
+
+import org.example.exception.PipelineCancelledException;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Helpers shared by the synchronous and the stage-composed execution paths.
+ */
+public final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Strips the {@link CompletionException} / {@link ExecutionException} wrappers added by futures.
+     */
+    public static Throwable unwrap(Throwable failure) {
+        Throwable current = failure;
+        while ((current instanceof CompletionException || current instanceof ExecutionException)
+                && current.getCause() != null) {
+            current = current.getCause();
+        }
+        return current;
+    }
+
+    /**
+     * @return {@code true} if the failure reports that the invocation was cancelled or interrupted (by the caller,
+     * a sibling branch or a deadline) rather than a failure of the step itself.
+     */
+    public static boolean isCancellation(Throwable failure) {
+        for (Throwable current = unwrap(failure); current != null;
+             current = current.getCause() == current ? null : current.getCause()) {
+            if (current instanceof InterruptedException
+                    || current instanceof CancellationException
+                    || current instanceof PipelineCancelledException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs a synchronous action on the calling thread and returns its outcome as a completed future.
+     */
+    public static <T> CompletableFuture<T> call(Callable<T> action) {
+        try {
+            return CompletableFuture.completedFuture(action.call());
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    /**
+     * Waits for a stage and rethrows its failure unwrapped.
+     * If the waiting thread is interrupted, the stage is cancelled.
+     *
+     * @throws InterruptedException if the waiting thread was interrupted.
+     */
+    public static <T> T await(CompletionStage<T> stage) throws Exception {
+        CompletableFuture<T> future = stage.toCompletableFuture();
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = unwrap(e);
+            if (cause instanceof Exception exception) {
+                throw exception;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Makes cancellation of a dependent stage reach the stage it was derived from.
+     * {@code CompletableFuture} only propagates completion downstream, never cancellation upstream.
+     *
+     * @return The {@code dependent} future.
+     */
+    public static <T> CompletableFuture<T> propagateCancellation(CompletableFuture<T> dependent, Future<?> source) {
+        dependent.whenComplete((result, failure) -> {
+            if (dependent.isCancelled()) {
+                source.cancel(true);
+            }
+        });
+        return dependent;
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.concurrency;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * {@link CompletableFuture} of a task that can be interrupted.
+ * <p>
+ * A future of {@code CompletableFuture.supplyAsync} ignores {@code cancel(true)}: the future completes, but
+ * the task keeps running. This future remembers the thread running its task and interrupts it on
+ * {@code cancel(true)}, so blocking steps (I/O, sleeps, nested joins) stop early. Tasks returning a
+ * {@link CompletionStage} ({@link #submitStage}) additionally have that stage cancelled.
+ * </p>
+ *
+ * <h2>Notes:</h2>
+ * <ul>
+ * <li>A task cancelled before it starts is never run.</li>
+ * <li>The interrupt is only delivered while the task runs. If it arrives as the task finishes, it is
+ * cleared again, so pooled threads are not left interrupted.</li>
+ * <li>Dependent stages ({@code thenApply}, ...) are plain {@code CompletableFuture}s: cancelling them
+ * does not reach the task.</li>
+ * <li>The future completes on {@code cancel(true)} right away, while the task may still be stopping.
+ * {@link #termination()} completes once the task has actually ended (or will never run).</li>
+ * <li>Subclasses driving their own tasks use {@link #bindRunner()} / {@link #unbindRunner()} and
+ * {@link #onCancel()}.</li>
+ * </ul>
+ *
+ * @param <T> The result type.
+ */
+public class InterruptibleFuture<T> extends CompletableFuture<T> {
+
+    /** Thread running the task; guarded by {@code this}. */
+    private Thread runner;
+    /** Thread interrupted by {@link #cancel}; guarded by {@code this}. */
+    private Thread interrupted;
+    /** Completed once the task (and the stage it started) has ended. */
+    private final CompletableFuture<Void> terminated = new CompletableFuture<>();
+
+    /**
+     * Submits the task to the executor.
+     *
+     * @return A future completed with the task's result or failure; rejected tasks complete it exceptionally.
+     */
+    public static <T> InterruptibleFuture<T> submit(Callable<T> task, Executor executor) {
+        InterruptibleFuture<T> future = new InterruptibleFuture<>();
+        execute(future, executor, () -> {
+            if (!future.bindRunner()) {
+                terminate(future);
+                return;
+            }
+            try {
+                future.complete(task.call());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            } finally {
+                future.unbindRunner();
+                terminate(future);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Submits a task that starts asynchronous work. The task itself runs on the executor; the future
+     * completes with the outcome of the stage it returns.
+     */
+    public static <T> InterruptibleFuture<T> submitStage(Callable<? extends CompletionStage<T>> task, Executor executor) {
+        StageFuture<T> future = new StageFuture<>();
+        execute(future, executor, () -> {
+            if (!future.bindRunner()) {
+                terminate(future);
+                return;
+            }
+            CompletionStage<T> stage;
+            try {
+                stage = task.call();
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+                terminate(future);
+                return;
+            } finally {
+                future.unbindRunner();
+            }
+            CompletableFuture<T> started = stage.toCompletableFuture();
+            started.whenComplete((result, failure) -> terminate(future));
+            future.follow(started);
+        });
+        return future;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            if (mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        interrupted = runner;
+                        runner.interrupt();
+                    }
+                }
+            }
+            onCancel();
+        }
+        return cancelled;
+    }
+
+    /**
+     * @return A future completed once the submitted task has returned and the stage it started (if any) is
+     * complete, or once it is clear that the task will never run. Never completes exceptionally.
+     */
+    public CompletableFuture<Void> termination() {
+        return terminated;
+    }
+
+    /**
+     * Invoked once after the future has been cancelled, on the cancelling thread.
+     */
+    protected void onCancel() {
+    }
+
+    /**
+     * Registers the current thread as the one to interrupt on cancellation.
+     *
+     * @return {@code false} if the future is already complete and the task must not run.
+     */
+    protected final synchronized boolean bindRunner() {
+        if (isDone()) {
+            return false;
+        }
+        runner = Thread.currentThread();
+        return true;
+    }
+
+    /**
+     * Unregisters the current thread and clears an interrupt delivered by a cancellation.
+     */
+    protected final void unbindRunner() {
+        Thread current = Thread.currentThread();
+        boolean clearInterrupt;
+        synchronized (this) {
+            if (runner == current) {
+                runner = null;
+            }
+            clearInterrupt = interrupted == current;
+            if (clearInterrupt) {
+                interrupted = null;
+            }
+        }
+        if (clearInterrupt) {
+            Thread.interrupted();
+        }
+    }
+
+    private static void execute(InterruptibleFuture<?> future, Executor executor, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(e);
+            terminate(future);
+        }
+    }
+
+    private static void terminate(InterruptibleFuture<?> future) {
+        future.terminated.complete(null);
+    }
+
+    /**
+     * Completes with the stage returned by the task and cancels that stage on cancellation.
+     */
+    private static final class StageFuture<T> extends InterruptibleFuture<T> {
+
+        private volatile CompletableFuture<T> stage;
+
+        void follow(CompletableFuture<T> started) {
+            this.stage = started;
+            if (isCancelled()) {
+                started.cancel(true);
+                return;
+            }
+            started.whenComplete((result, failure) -> {
+                if (failure != null) {
+                    completeExceptionally(Futures.unwrap(failure));
+                } else {
+                    complete(result);
+                }
+            });
+        }
+
+        @Override
+        protected void onCancel() {
+            CompletableFuture<T> started = stage;
+            if (started != null) {
+                started.cancel(true);
+            }
+        }
+    }
+}
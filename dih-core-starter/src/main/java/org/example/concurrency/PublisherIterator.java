@@ -0,0 +1,124 @@
+package org.example.concurrency;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Flow;
+
+/**
+ * Blocking {@link Iterator} over a {@link Flow.Publisher}, with bounded demand.
+ * <p>
+ * Requests {@code bufferSize} items up front and one more for every item taken, so the publisher never has
+ * more than {@code bufferSize} items outstanding, however slowly the iterating thread consumes them.
+ * </p>
+ * <p>
+ * {@link #hasNext()} blocks until an item, completion or an error arrives. An error of the publisher is rethrown
+ * wrapped in a {@link CompletionException}. Interrupting the iterating thread cancels the subscription and
+ * fails with {@link CancellationException}, leaving the thread's interrupt flag set.
+ * </p>
+ */
+public final class PublisherIterator<T> implements Iterator<T>, Flow.Subscriber<T>, AutoCloseable {
+
+    private static final Object COMPLETE = new Object();
+
+    private final int bufferSize;
+    private final BlockingQueue<Object> items;
+    private volatile Flow.Subscription subscription;
+    private Object next;
+    private boolean done;
+
+    public PublisherIterator(Flow.Publisher<? extends T> publisher, int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+        // Room for a terminal signal on top of the full demand
+        this.items = new ArrayBlockingQueue<>(this.bufferSize + 1);
+        publisher.subscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(bufferSize);
+    }
+
+    @Override
+    public void onNext(T item) {
+        // Never blocks: the publisher is bound to the requested demand
+        if (!items.offer(item)) {
+            subscription.cancel();
+            items.clear();
+            items.offer(new Failure(new IllegalStateException("Publisher emitted more items than requested")));
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        items.offer(new Failure(throwable));
+    }
+
+    @Override
+    public void onComplete() {
+        items.offer(COMPLETE);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        Object item;
+        try {
+            item = items.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new CancellationException("Interrupted while waiting for the next record");
+        }
+        if (item == COMPLETE) {
+            done = true;
+            return false;
+        }
+        if (item instanceof Failure failure) {
+            done = true;
+            throw new CompletionException(failure.cause());
+        }
+        next = item;
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T item = (T) next;
+        next = null;
+        subscription.request(1);
+        return item;
+    }
+
+    /**
+     * Cancels the subscription; the iterator reports no further items.
+     */
+    @Override
+    public void close() {
+        done = true;
+        Flow.Subscription current = subscription;
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    private record Failure(Throwable cause) {
+    }
+}
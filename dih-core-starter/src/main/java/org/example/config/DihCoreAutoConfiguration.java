@@ -1,11 +1,28 @@
 package org.example.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.batching.MicroBatcherFactory;
+import org.example.bulkhead.BulkheadRegistry;
+import org.example.cache.StepCacheRegistry;
+import org.example.circuitbreaker.CircuitBreakerRegistry;
+import org.example.coalescing.SingleFlightRegistry;
+import org.example.deadline.DeadlineTimer;
+import org.example.hedge.HedgerFactory;
 import org.example.concurrency.DihTaskDecorator;
+import org.example.retry.RetryBudgetRegistry;
+import org.example.retry.RetryExecutorFactory;
+import org.example.retry.RetryScheduler;
+import org.example.scheduling.ExecutionScheduler;
+import org.example.scope.PipelineScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties; // <--- Важно
 import org.springframework.beans.factory.config.CustomScopeConfigurer;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
@@ -20,6 +37,134 @@ public class DihCoreAutoConfiguration {
     private static final Logger log = LoggerFactory.getLogger(DihCoreAutoConfiguration.class);
 
 
+    /**
+     * Backing store of the "pipeline" scope. Static: required before regular beans are instantiated.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public static PipelineScope pipelineScope() {
+        return new PipelineScope();
+    }
+
+    /**
+     * Registers the "pipeline" scope in the application context. Compiled execution plans re-apply
+     * this configurer to their child contexts, so step beans can use the scope as well.
+     */
+    @Bean
+    public static CustomScopeConfigurer dihScopeConfigurer(PipelineScope pipelineScope) {
+        CustomScopeConfigurer configurer = new CustomScopeConfigurer();
+        configurer.addScope(PipelineScope.SCOPE_NAME, pipelineScope);
+        return configurer;
+    }
+
+    /**
+     * Timer for non-blocking retry backoff. Absent with {@code dih.executor.retry.wait-strategy=SLEEP},
+     * in which case retries sleep on the calling thread.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "dih.executor.retry", name = "wait-strategy", havingValue = "SCHEDULED", matchIfMissing = true)
+    public RetryScheduler dihRetryScheduler(DihProperties properties) {
+        return new RetryScheduler(properties.getRetry().getThreadNamePrefix());
+    }
+
+    /**
+     * Retry budgets shared by all compiled plans ({@code dih.executor.retry.budget.*}).
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryBudgetRegistry dihRetryBudgetRegistry(DihProperties properties, MeterRegistry meterRegistry) {
+        return new RetryBudgetRegistry(properties.getRetry().getBudget(), meterRegistry);
+    }
+
+    /**
+     * Creates the retry loops of steps with a {@code retryPolicy}, in either {@code dih.executor.retry.mode}.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RetryExecutorFactory dihRetryExecutorFactory(MeterRegistry meterRegistry,
+                                                        ObjectProvider<RetryScheduler> retryScheduler,
+                                                        ObjectProvider<RetryBudgetRegistry> retryBudgetRegistry) {
+        return new RetryExecutorFactory(meterRegistry, retryScheduler.getIfAvailable(), retryBudgetRegistry.getIfAvailable());
+    }
+
+    /**
+     * Circuit breakers shared by all compiled plans, keyed by step type and configuration.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public CircuitBreakerRegistry dihCircuitBreakerRegistry(MeterRegistry meterRegistry) {
+        return new CircuitBreakerRegistry(meterRegistry);
+    }
+
+    /**
+     * Global, per-pipeline and per-step-type concurrency limits ({@code dih.executor.bulkhead.*}).
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public BulkheadRegistry dihBulkheadRegistry(DihProperties properties, MeterRegistry meterRegistry) {
+        return new BulkheadRegistry(properties.getBulkhead(), meterRegistry);
+    }
+
+    /**
+     * Batching windows of steps with a {@code microBatch} configuration.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public MicroBatcherFactory dihMicroBatcherFactory(MeterRegistry meterRegistry) {
+        return new MicroBatcherFactory(meterRegistry);
+    }
+
+    /**
+     * Timer enforcing execution deadlines and step timeouts.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public DeadlineTimer dihDeadlineTimer() {
+        return new DeadlineTimer("dih-deadline-timer");
+    }
+
+    /**
+     * Hedging of slow idempotent steps with a {@code hedge} configuration. Attempts run on the task executor.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public HedgerFactory dihHedgerFactory(MeterRegistry meterRegistry,
+                                          DeadlineTimer dihDeadlineTimer,
+                                          @Qualifier("dihTaskExecutor") AsyncTaskExecutor dihTaskExecutor) {
+        return new HedgerFactory(meterRegistry, dihDeadlineTimer, dihTaskExecutor);
+    }
+
+    /**
+     * Result caches of steps with a {@code cache} configuration, keyed by step type, properties and configuration.
+     * Refresh-ahead reloads run on the task executor.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public StepCacheRegistry dihStepCacheRegistry(ApplicationContext applicationContext,
+                                                  @Qualifier("dihTaskExecutor") AsyncTaskExecutor dihTaskExecutor,
+                                                  MeterRegistry meterRegistry) {
+        return new StepCacheRegistry(applicationContext, dihTaskExecutor, meterRegistry);
+    }
+
+    /**
+     * Single-flight coalescing of pipelines and steps with a {@code coalesce} configuration.
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SingleFlightRegistry dihSingleFlightRegistry(ApplicationContext applicationContext, MeterRegistry meterRegistry) {
+        return new SingleFlightRegistry(applicationContext, meterRegistry);
+    }
+
+    /**
+     * Priority and tenant-fair admission of executions ({@code dih.executor.scheduler.*}).
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public ExecutionScheduler dihExecutionScheduler(DihProperties properties, MeterRegistry meterRegistry) {
+        return new ExecutionScheduler(properties.getScheduler(), meterRegistry);
+    }
+
     @Bean(name = "dihTaskExecutor")
     @ConditionalOnMissingBean(name = "dihTaskExecutor")
     public AsyncTaskExecutor dihTaskExecutor(DihProperties properties) {
@@ -2,11 +2,337 @@ package org.example.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 @ConfigurationProperties(prefix = "dih.executor")
 public class DihProperties {
 
     private String threadNamePrefix = "dih-vthread-";
 
+    private final ResourcePool resourcePool = new ResourcePool();
+
+    private final Retry retry = new Retry();
+
+    private final Bulkheads bulkhead = new Bulkheads();
+
+    private final Scheduler scheduler = new Scheduler();
+
+    private final Streaming streaming = new Streaming();
+
+    private final Batch batch = new Batch();
+
     public String getThreadNamePrefix() { return threadNamePrefix; }
     public void setThreadNamePrefix(String threadNamePrefix) { this.threadNamePrefix = threadNamePrefix; }
-}
\ No newline at end of file
+
+    public ResourcePool getResourcePool() { return resourcePool; }
+
+    public Retry getRetry() { return retry; }
+
+    public Bulkheads getBulkhead() { return bulkhead; }
+
+    public Scheduler getScheduler() { return scheduler; }
+
+    public Streaming getStreaming() { return streaming; }
+
+    public Batch getBatch() { return batch; }
+
+    /**
+     * Sizing of the per-step {@code StepResource} pools ({@code dih.executor.resource-pool.*}).
+     */
+    public static class ResourcePool {
+
+        /** Maximum number of resources (idle + leased) per step of a pipeline version. */
+        private int maxSize = 16;
+
+        /** Maximum time an invocation waits for a free resource. */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+
+        public int getMaxSize() { return maxSize; }
+        public void setMaxSize(int maxSize) { this.maxSize = maxSize; }
+
+        public Duration getAcquireTimeout() { return acquireTimeout; }
+        public void setAcquireTimeout(Duration acquireTimeout) { this.acquireTimeout = acquireTimeout; }
+    }
+
+    /**
+     * Retry behaviour of steps with a {@code retryPolicy} ({@code dih.executor.retry.*}).
+     */
+    public static class Retry {
+
+        public enum Mode {
+            /** Retries are a decorator of the compiled plan step, created once per pipeline version. */
+            DECORATOR,
+            /** Legacy: every step bean with a retry policy is wrapped in a CGLIB proxy. */
+            PROXY
+        }
+
+        /**
+         * How a retrying step waits out its backoff. Synchronous invocations (including
+         * {@code RetryMethodInterceptor} proxies) always keep the calling thread: it parks under {@code SCHEDULED}
+         * and sleeps under {@code SLEEP}, which is equivalent. The strategies differ for asynchronous invocations.
+         */
+        public enum WaitStrategy {
+            /**
+             * Asynchronous invocations hold no thread during the backoff: a shared timer fires the retry and the
+             * next attempt runs on a fresh virtual thread.
+             */
+            SCHEDULED,
+            /**
+             * No retry timer is created: asynchronous invocations retry synchronously, sleeping through the backoff
+             * on the thread that runs the step.
+             */
+            SLEEP
+        }
+
+        private Mode mode = Mode.DECORATOR;
+
+        private WaitStrategy waitStrategy = WaitStrategy.SCHEDULED;
+
+        /** Name prefix of the retry timer and attempt threads. */
+        private String threadNamePrefix = "dih-retry-";
+
+        private final Budget budget = new Budget();
+
+        public Mode getMode() { return mode; }
+        public void setMode(Mode mode) { this.mode = mode; }
+
+        public WaitStrategy getWaitStrategy() { return waitStrategy; }
+        public void setWaitStrategy(WaitStrategy waitStrategy) { this.waitStrategy = waitStrategy; }
+
+        public String getThreadNamePrefix() { return threadNamePrefix; }
+        public void setThreadNamePrefix(String threadNamePrefix) { this.threadNamePrefix = threadNamePrefix; }
+
+        public Budget getBudget() { return budget; }
+
+        /**
+         * Token-bucket retry budgets per step type and per pipeline ({@code dih.executor.retry.budget.*}).
+         */
+        public static class Budget {
+
+            private boolean enabled = true;
+
+            /** Retries allowed as a percentage of recent calls. */
+            private double percent = 20.0;
+
+            /** Retries always affordable per second, so low-traffic steps can still retry. */
+            private double minRetriesPerSecond = 10.0;
+
+            /** Upper bound of saved-up retries; limits how far back "recent calls" reach. */
+            private double maxTokens = 100.0;
+
+            public boolean isEnabled() { return enabled; }
+            public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+            public double getPercent() { return percent; }
+            public void setPercent(double percent) { this.percent = percent; }
+
+            public double getMinRetriesPerSecond() { return minRetriesPerSecond; }
+            public void setMinRetriesPerSecond(double minRetriesPerSecond) { this.minRetriesPerSecond = minRetriesPerSecond; }
+
+            public double getMaxTokens() { return maxTokens; }
+            public void setMaxTokens(double maxTokens) { this.maxTokens = maxTokens; }
+        }
+    }
+
+    /**
+     * Record streaming between steps ({@code dih.executor.streaming.*}).
+     */
+    public static class Streaming {
+
+        /** Records buffered between two steps, and requested ahead from a {@code Flow.Publisher} source. */
+        private int bufferSize = 256;
+
+        public int getBufferSize() { return bufferSize; }
+        public void setBufferSize(int bufferSize) { this.bufferSize = bufferSize; }
+    }
+
+    /**
+     * Batch executions ({@code dih.executor.batch.*}).
+     */
+    public static class Batch {
+
+        /** Maximum items handed to a {@code BatchPipelineStep} in one call; 0 passes all items at once. */
+        private int maxChunkSize = 0;
+
+        public int getMaxChunkSize() { return maxChunkSize; }
+        public void setMaxChunkSize(int maxChunkSize) { this.maxChunkSize = maxChunkSize; }
+    }
+
+    /**
+     * Admission of executions by priority and tenant ({@code dih.executor.scheduler.*}).
+     * Disabled unless {@code max-concurrent} is set.
+     */
+    public static class Scheduler {
+
+        /** Executions running at the same time; further executions queue. {@code 0} disables the scheduler. */
+        private int maxConcurrent = 0;
+
+        /** Maximum queued executions across all priorities and tenants. */
+        private int maxQueue = 1000;
+
+        /** Queue wait above which the lowest priority classes are shed; {@code 0} disables shedding. */
+        private Duration queueWaitSlo = Duration.ofSeconds(1);
+
+        /** Share of capacity per tenant within a priority class, relative to {@code default-tenant-weight}. */
+        private Map<String, Integer> tenantWeights = new LinkedHashMap<>();
+
+        private int defaultTenantWeight = 1;
+
+        public boolean isEnabled() { return maxConcurrent > 0; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getMaxQueue() { return maxQueue; }
+        public void setMaxQueue(int maxQueue) { this.maxQueue = maxQueue; }
+
+        public Duration getQueueWaitSlo() { return queueWaitSlo; }
+        public void setQueueWaitSlo(Duration queueWaitSlo) { this.queueWaitSlo = queueWaitSlo; }
+
+        public Map<String, Integer> getTenantWeights() { return tenantWeights; }
+        public void setTenantWeights(Map<String, Integer> tenantWeights) { this.tenantWeights = tenantWeights; }
+
+        public int getDefaultTenantWeight() { return defaultTenantWeight; }
+        public void setDefaultTenantWeight(int defaultTenantWeight) { this.defaultTenantWeight = defaultTenantWeight; }
+    }
+
+    /**
+     * Concurrency limits for executions and step invocations ({@code dih.executor.bulkhead.*}).
+     * All limits are disabled unless {@code max-concurrent} is set.
+     */
+    public static class Bulkheads {
+
+        /** Limit across all pipeline executions of the application. */
+        private final BulkheadLimit global = new BulkheadLimit();
+
+        /** Limit applied to every pipeline name without an entry in {@code pipelines}. */
+        private final BulkheadLimit pipelineDefault = new BulkheadLimit();
+
+        /** Limits per pipeline name. */
+        private Map<String, BulkheadLimit> pipelines = new LinkedHashMap<>();
+
+        /** Limits per step type, shared by all pipelines invoking that type. */
+        private Map<String, BulkheadLimit> stepTypes = new LinkedHashMap<>();
+
+        /** Limit on the concurrently running {@code ParallelSplitter} branches, applied per pipeline name. */
+        private final BulkheadLimit fanOut = new BulkheadLimit();
+
+        public BulkheadLimit getGlobal() { return global; }
+
+        public BulkheadLimit getPipelineDefault() { return pipelineDefault; }
+
+        public Map<String, BulkheadLimit> getPipelines() { return pipelines; }
+        public void setPipelines(Map<String, BulkheadLimit> pipelines) { this.pipelines = pipelines; }
+
+        public Map<String, BulkheadLimit> getStepTypes() { return stepTypes; }
+        public void setStepTypes(Map<String, BulkheadLimit> stepTypes) { this.stepTypes = stepTypes; }
+
+        public BulkheadLimit getFanOut() { return fanOut; }
+    }
+
+    /**
+     * A single bulkhead: concurrent permits plus a bounded wait queue.
+     */
+    public static class BulkheadLimit {
+
+        public enum RejectPolicy {
+            /** A full queue rejects the new caller. */
+            ABORT,
+            /** A full queue rejects its oldest waiter and admits the new caller (favours fresh requests). */
+            DROP_OLDEST
+        }
+
+        /** Maximum concurrent permits (the initial limit when adaptive); {@code 0} disables the bulkhead. */
+        private int maxConcurrent = 0;
+
+        /** Maximum callers waiting for a permit. */
+        private int maxQueue = 100;
+
+        /** Maximum time a caller waits in the queue before it is rejected. */
+        private Duration queueTimeout = Duration.ofSeconds(1);
+
+        private RejectPolicy rejectPolicy = RejectPolicy.ABORT;
+
+        private final Adaptive adaptive = new Adaptive();
+
+        public boolean isEnabled() { return maxConcurrent > 0; }
+
+        public int getMaxConcurrent() { return maxConcurrent; }
+        public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+
+        public int getMaxQueue() { return maxQueue; }
+        public void setMaxQueue(int maxQueue) { this.maxQueue = maxQueue; }
+
+        public Duration getQueueTimeout() { return queueTimeout; }
+        public void setQueueTimeout(Duration queueTimeout) { this.queueTimeout = queueTimeout; }
+
+        public RejectPolicy getRejectPolicy() { return rejectPolicy; }
+        public void setRejectPolicy(RejectPolicy rejectPolicy) { this.rejectPolicy = rejectPolicy; }
+
+        public Adaptive getAdaptive() { return adaptive; }
+
+        /**
+         * Tunes the limit from the observed latency of the permit holders ({@code ...adaptive.*}).
+         */
+        public static class Adaptive {
+
+            public enum Algorithm {
+                /** Static limit. */
+                NONE,
+                /** Additive increase while latency stays below {@code latency-threshold}, multiplicative decrease above it. */
+                AIMD,
+                /** Scales the limit by the ratio of the long-term to the recent latency (queueing shows up as inflation). */
+                GRADIENT
+            }
+
+            private Algorithm algorithm = Algorithm.NONE;
+
+            private int minLimit = 1;
+
+            private int maxLimit = 1000;
+
+            /** AIMD: latency above which the limit is decreased. */
+            private Duration latencyThreshold = Duration.ofSeconds(1);
+
+            /** AIMD: factor applied to the limit on a slow call. */
+            private double backoffRatio = 0.9;
+
+            /** GRADIENT: weight of a new limit estimate (0..1). */
+            private double smoothing = 0.2;
+
+            /** GRADIENT: latency inflation tolerated before the limit shrinks. */
+            private double rttTolerance = 1.5;
+
+            /** GRADIENT: number of samples the long-term latency averages over. */
+            private int longWindow = 600;
+
+            public boolean isEnabled() { return algorithm != Algorithm.NONE; }
+
+            public Algorithm getAlgorithm() { return algorithm; }
+            public void setAlgorithm(Algorithm algorithm) { this.algorithm = algorithm; }
+
+            public int getMinLimit() { return minLimit; }
+            public void setMinLimit(int minLimit) { this.minLimit = minLimit; }
+
+            public int getMaxLimit() { return maxLimit; }
+            public void setMaxLimit(int maxLimit) { this.maxLimit = maxLimit; }
+
+            public Duration getLatencyThreshold() { return latencyThreshold; }
+            public void setLatencyThreshold(Duration latencyThreshold) { this.latencyThreshold = latencyThreshold; }
+
+            public double getBackoffRatio() { return backoffRatio; }
+            public void setBackoffRatio(double backoffRatio) { this.backoffRatio = backoffRatio; }
+
+            public double getSmoothing() { return smoothing; }
+            public void setSmoothing(double smoothing) { this.smoothing = smoothing; }
+
+            public double getRttTolerance() { return rttTolerance; }
+            public void setRttTolerance(double rttTolerance) { this.rttTolerance = rttTolerance; }
+
+            public int getLongWindow() { return longWindow; }
+            public void setLongWindow(int longWindow) { this.longWindow = longWindow; }
+        }
+    }
+}
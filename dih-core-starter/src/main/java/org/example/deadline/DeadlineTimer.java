@@ -0,0 +1,168 @@
+package org.example.deadline;
+
+import org.example.concurrency.Futures;
+import org.example.step.PipelineContext;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Enforces deadlines of executions and steps.
+ * <p>
+ * A single daemon timer thread fires expired deadlines; the work itself is stopped the way the engine stops
+ * cancelled work:
+ * </p>
+ * <ul>
+ * <li><b>Synchronous work</b> is interrupted: {@link #interruptAt} arms an {@link Alarm} for the calling thread.</li>
+ * <li><b>Asynchronous work</b> is cancelled: {@link #bound} fails a stage that has not completed in time and
+ * cancels it with {@code cancel(true)}.</li>
+ * </ul>
+ * Deadlines are epoch timestamps in milliseconds, as carried by {@link PipelineContext#deadline()};
+ * {@link PipelineContext#NO_DEADLINE} arms nothing. Timers of work that finishes in time are removed from
+ * the queue right away, so short deadlines on hot paths do not accumulate.
+ */
+public class DeadlineTimer implements DisposableBean {
+
+    private static final Future<?> NOT_SCHEDULED = CompletableFuture.completedFuture(null);
+
+    private final ScheduledThreadPoolExecutor timer;
+
+    public DeadlineTimer(String threadName) {
+        this.timer = new ScheduledThreadPoolExecutor(1, Thread.ofPlatform()
+                .name(threadName)
+                .daemon(true)
+                .factory());
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Interrupts the calling thread once the deadline has passed, unless the alarm has been disarmed before.
+     * The caller MUST {@link Alarm#disarm() disarm} the alarm when the guarded work ends.
+     */
+    public Alarm interruptAt(long deadline) {
+        if (deadline == PipelineContext.NO_DEADLINE) {
+            return Alarm.NONE;
+        }
+        Alarm alarm = new Alarm(Thread.currentThread());
+        alarm.timeout = runAt(deadline, alarm::ring);
+        return alarm;
+    }
+
+    /**
+     * Runs the action on the timer thread once the deadline has passed. The action must not block.
+     *
+     * @return A handle to cancel the action.
+     */
+    public Future<?> runAt(long deadline, Runnable action) {
+        if (deadline == PipelineContext.NO_DEADLINE) {
+            return NOT_SCHEDULED;
+        }
+        try {
+            return timer.schedule(action, Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Shutting down: deadlines are no longer enforced
+            return NOT_SCHEDULED;
+        }
+    }
+
+    /**
+     * Limits the time a stage may take.
+     *
+     * @param expiry Creates the failure of an expired stage.
+     * @return A future completed like the stage, or exceptionally with the expiry failure once the deadline
+     * has passed; the stage is then cancelled. Cancelling the returned future cancels the stage.
+     */
+    public <T> CompletableFuture<T> bound(CompletableFuture<T> stage,
+                                          long deadline,
+                                          Supplier<? extends Throwable> expiry) {
+        if (deadline == PipelineContext.NO_DEADLINE || stage.isDone()) {
+            return stage;
+        }
+        CompletableFuture<T> bounded = new CompletableFuture<>();
+        AtomicBoolean expired = new AtomicBoolean();
+        Future<?> timeout = runAt(deadline, () -> {
+            // The stage is cancelled before the caller learns about the expiry
+            expired.set(true);
+            stage.cancel(true);
+            bounded.completeExceptionally(expiry.get());
+        });
+        stage.whenComplete((result, failure) -> {
+            timeout.cancel(false);
+            if (expired.get()) {
+                bounded.completeExceptionally(expiry.get());
+            } else if (failure == null) {
+                bounded.complete(result);
+            } else {
+                bounded.completeExceptionally(Futures.unwrap(failure));
+            }
+        });
+        return Futures.propagateCancellation(bounded, stage);
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+    }
+
+    /**
+     * Interrupts one thread at a deadline.
+     * <p>
+     * The interrupt is only delivered while the alarm is armed. {@link #disarm()} clears an interrupt the
+     * alarm has delivered, so pooled threads are not left interrupted.
+     * </p>
+     */
+    public static final class Alarm {
+
+        /** Alarm of work without a deadline. */
+        static final Alarm NONE = new Alarm(null);
+
+        private final Thread thread;
+        private volatile Future<?> timeout = NOT_SCHEDULED;
+        /** Guarded by {@code this}. */
+        private boolean armed = true;
+        /** Guarded by {@code this}. */
+        private boolean rung;
+
+        private Alarm(Thread thread) {
+            this.thread = thread;
+        }
+
+        private synchronized void ring() {
+            if (armed) {
+                rung = true;
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Stops the alarm. Must be called on the thread the alarm was armed for; repeated calls have no effect.
+         *
+         * @return {@code true} if the deadline has passed and the thread was interrupted.
+         */
+        public boolean disarm() {
+            if (thread == null) {
+                return false;
+            }
+            boolean wasArmed;
+            boolean wasRung;
+            synchronized (this) {
+                wasArmed = armed;
+                wasRung = rung;
+                armed = false;
+            }
+            if (wasArmed) {
+                timeout.cancel(false);
+                if (wasRung) {
+                    Thread.interrupted();
+                }
+            }
+            return wasRung;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.example.exception;
+
+// Вызов шага отклонен без выполнения: circuit breaker открыт (downstream недоступен).
+public class CircuitBreakerOpenException extends DihCoreException {
+
+    public CircuitBreakerOpenException(String stepId, String circuitBreakerName) {
+        super("Circuit breaker '" + circuitBreakerName + "' is open. Call rejected.", stepId);
+    }
+}
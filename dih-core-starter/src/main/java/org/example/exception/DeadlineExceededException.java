@@ -0,0 +1,13 @@
+package org.example.exception;
+
+// Истёк дедлайн исполнения или таймаут шага: незавершённая работа была прервана (или отменена).
+public class DeadlineExceededException extends DihCoreException {
+
+    public DeadlineExceededException(String message, String sourceName, Throwable cause) {
+        super(message, sourceName, cause);
+    }
+
+    public DeadlineExceededException(String message, String sourceName) {
+        super(message, sourceName);
+    }
+}
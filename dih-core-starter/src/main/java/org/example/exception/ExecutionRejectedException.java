@@ -0,0 +1,9 @@
+package org.example.exception;
+
+// Исполнение отклонено bulkhead'ом: лимит параллелизма исчерпан и очередь полна или истек таймаут ожидания.
+public class ExecutionRejectedException extends DihCoreException {
+
+    public ExecutionRejectedException(String bulkheadName, String reason) {
+        super("Execution rejected by bulkhead '" + bulkheadName + "': " + reason, bulkheadName);
+    }
+}
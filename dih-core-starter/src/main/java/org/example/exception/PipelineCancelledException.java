@@ -0,0 +1,13 @@
+package org.example.exception;
+
+// Исполнение пайплайна прервано: поток был прерван (например, отменой CompletableFuture).
+public class PipelineCancelledException extends DihCoreException {
+
+    public PipelineCancelledException(String pipelineName, Throwable cause) {
+        super("Pipeline execution was cancelled.", pipelineName, cause);
+    }
+
+    public PipelineCancelledException(String pipelineName) {
+        super("Pipeline execution was cancelled.", pipelineName);
+    }
+}
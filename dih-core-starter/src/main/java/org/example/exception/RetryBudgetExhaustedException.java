@@ -0,0 +1,9 @@
+package org.example.exception;
+
+// Повтор отклонен: бюджет повторов шага или пайплайна исчерпан (защита от retry storm).
+public class RetryBudgetExhaustedException extends RetryExhaustedException {
+
+    public RetryBudgetExhaustedException(String stepId, int attempt, Throwable lastCause) {
+        super("Retry budget exhausted after attempt " + attempt + ". Failing fast.", stepId, lastCause);
+    }
+}
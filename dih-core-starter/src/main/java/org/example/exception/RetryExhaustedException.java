@@ -6,4 +6,9 @@ public class RetryExhaustedException extends StepExecutionException {
     public RetryExhaustedException(String stepId, int maxAttempts, Throwable lastCause) {
         super("Max retry attempts (" + maxAttempts + ") exhausted for step.", stepId, lastCause);
     }
-}
\ No newline at end of file
+
+    // Для подклассов с собственным сообщением (например, исчерпан бюджет повторов).
+    protected RetryExhaustedException(String message, String stepId, Throwable lastCause) {
+        super(message, stepId, lastCause);
+    }
+}
@@ -0,0 +1,243 @@
+package org.example.hedge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.TimeGauge;
+import org.example.concurrency.Futures;
+import org.example.concurrency.InterruptibleFuture;
+import org.example.deadline.DeadlineTimer;
+import org.example.model.HedgeDefinition;
+import org.example.retry.TokenBucketRetryBudget;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Races slow invocations of one step of a compiled plan with a duplicate attempt.
+ * <p>
+ * {@link #call} starts the first attempt on the executor. If it has not completed within the hedge delay,
+ * the {@link DeadlineTimer} starts a second one. The first successful attempt wins; the other one is
+ * cancelled and interrupted. A failing attempt does not fail the call while the other one still runs.
+ * Attempts failing before the hedge delay fail the call right away: failures are left to the retry policy.
+ * </p>
+ *
+ * <h2>Hedge Delay:</h2>
+ * <ul>
+ * <li><b>Fixed:</b> {@code delayMs} of the {@link HedgeDefinition}.</li>
+ * <li><b>Adaptive:</b> the configured percentile of the last {@value #WINDOW_SIZE} successful attempt
+ * latencies, recomputed every {@value #RECOMPUTE_INTERVAL} samples. No call is hedged before
+ * {@code minSamples} latencies have been observed.</li>
+ * </ul>
+ * <p>
+ * Hedges are limited by a token bucket: every call deposits {@code maxHedgeRatePercent / 100} tokens and
+ * every hedge withdraws one, so a downstream that slows down as a whole is not sent twice the load.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code dih.step.hedge.calls} (counter) - calls of the step.</li>
+ * <li>{@code dih.step.hedge.attempts} (counter) - hedges started.</li>
+ * <li>{@code dih.step.hedge.wins} (counter) - hedges that completed before the first attempt.</li>
+ * <li>{@code dih.step.hedge.suppressed} (counter) - hedges not started because the rate limit was reached.</li>
+ * <li>{@code dih.step.hedge.win.ratio} (gauge) - share of started hedges that won.</li>
+ * <li>{@code dih.step.hedge.delay} (time gauge) - current hedge delay.</li>
+ * </ul>
+ */
+public class Hedger {
+
+    /** Latencies the adaptive delay is computed from. */
+    static final int WINDOW_SIZE = 256;
+    /** Samples between two recomputations of the adaptive delay. */
+    static final int RECOMPUTE_INTERVAL = 16;
+    /** Hedges the rate limit may accumulate during quiet periods. */
+    private static final double MAX_HEDGE_BURST = 10;
+
+    /** Hedge delay while too few latencies are known: no hedging. */
+    private static final long NOT_HEDGED = -1;
+
+    private final long fixedDelayMillis;
+    private final double percentile;
+    private final int minSamples;
+    private final Executor executor;
+    private final DeadlineTimer timer;
+    private final TokenBucketRetryBudget rateLimit;
+
+    private final MeterRegistry meterRegistry;
+    private final Counter callCounter;
+    private final Counter hedgeCounter;
+    private final Counter winCounter;
+    private final Counter suppressedCounter;
+    private final List<Meter> gauges;
+
+    /** Ring buffer of attempt latencies in nanoseconds; guarded by {@code this}. */
+    private final long[] latencies = new long[WINDOW_SIZE];
+    /** Guarded by {@code this}. */
+    private long samples;
+    private volatile long adaptiveDelayNanos = NOT_HEDGED;
+
+    Hedger(HedgeDefinition definition, Tags tags, Executor executor, DeadlineTimer timer, MeterRegistry meterRegistry) {
+        this.fixedDelayMillis = definition.delayMs();
+        this.percentile = definition.percentile();
+        this.minSamples = Math.min(definition.minSamples(), WINDOW_SIZE);
+        this.executor = executor;
+        this.timer = timer;
+        // Hedges are retries that do not wait for a failure: the retry token bucket applies as is
+        this.rateLimit = new TokenBucketRetryBudget(definition.maxHedgeRatePercent() / 100, 0, MAX_HEDGE_BURST);
+
+        this.meterRegistry = meterRegistry;
+        this.callCounter = counter("dih.step.hedge.calls", "Calls of the hedged step.", tags);
+        this.hedgeCounter = counter("dih.step.hedge.attempts", "Hedged attempts started.", tags);
+        this.winCounter = counter("dih.step.hedge.wins", "Hedged attempts that completed first.", tags);
+        this.suppressedCounter = counter("dih.step.hedge.suppressed", "Hedges not started due to the rate limit.", tags);
+        this.gauges = List.of(
+                Gauge.builder("dih.step.hedge.win.ratio", this, Hedger::winRatio)
+                        .tags(tags)
+                        .description("Share of hedged attempts that completed first.")
+                        .register(meterRegistry),
+                TimeGauge.builder("dih.step.hedge.delay", this, TimeUnit.MILLISECONDS, Hedger::delayMillis)
+                        .tags(tags)
+                        .description("Time after which a slow call is hedged; negative while warming up.")
+                        .register(meterRegistry));
+    }
+
+    private Counter counter(String name, String description, Tags tags) {
+        return Counter.builder(name).tags(tags).description(description).register(meterRegistry);
+    }
+
+    /**
+     * Runs an invocation, hedging it if it is slow.
+     *
+     * @param attempt Starts one attempt; called once, or twice if the call is hedged. Runs on the executor.
+     * @return A future completed like the first successful attempt. Cancelling it cancels all attempts.
+     */
+    public CompletableFuture<Object> call(Callable<? extends CompletionStage<Object>> attempt) {
+        callCounter.increment();
+        rateLimit.recordCall();
+
+        CompletableFuture<Object> outcome = new CompletableFuture<>();
+        AtomicReference<InterruptibleFuture<Object>> hedge = new AtomicReference<>();
+        InterruptibleFuture<Object> primary = start(attempt);
+
+        long delay = delayMillis();
+        Future<?> trigger = delay < 0 ? null : timer.runAt(System.currentTimeMillis() + delay, () -> {
+            if (primary.isDone() || outcome.isDone()) {
+                return;
+            }
+            if (!rateLimit.tryAcquireRetry()) {
+                suppressedCounter.increment();
+                return;
+            }
+            hedgeCounter.increment();
+            InterruptibleFuture<Object> second = start(attempt);
+            hedge.set(second);
+            second.whenComplete((result, failure) -> settle(outcome, second, primary, result, failure, true));
+            if (outcome.isDone()) {
+                // Decided while the hedge was starting
+                second.cancel(true);
+            }
+        });
+
+        primary.whenComplete((result, failure) -> {
+            if (trigger != null) {
+                trigger.cancel(false);
+            }
+            settle(outcome, primary, hedge.get(), result, failure, false);
+        });
+        outcome.whenComplete((result, failure) -> {
+            if (outcome.isCancelled()) {
+                primary.cancel(true);
+                InterruptibleFuture<Object> second = hedge.get();
+                if (second != null) {
+                    second.cancel(true);
+                }
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * Completes the call with the first success, or with the failure of the last attempt to fail.
+     */
+    private void settle(CompletableFuture<Object> outcome,
+                        InterruptibleFuture<Object> finished,
+                        InterruptibleFuture<Object> other,
+                        Object result,
+                        Throwable failure,
+                        boolean hedged) {
+        if (failure == null) {
+            if (outcome.complete(result)) {
+                if (hedged) {
+                    winCounter.increment();
+                }
+                if (other != null) {
+                    other.cancel(true);
+                }
+            }
+            return;
+        }
+        if (other != null && !other.isDone()) {
+            // The other attempt may still succeed
+            return;
+        }
+        outcome.completeExceptionally(Futures.unwrap(failure));
+    }
+
+    private InterruptibleFuture<Object> start(Callable<? extends CompletionStage<Object>> attempt) {
+        long start = System.nanoTime();
+        InterruptibleFuture<Object> future = InterruptibleFuture.submitStage(attempt, executor);
+        future.whenComplete((result, failure) -> {
+            if (failure == null) {
+                recordLatency(System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[(int) (samples % WINDOW_SIZE)] = nanos;
+        samples++;
+        if (fixedDelayMillis == 0 && samples >= minSamples
+                && (samples == minSamples || samples % RECOMPUTE_INTERVAL == 0)) {
+            int count = (int) Math.min(samples, WINDOW_SIZE);
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+            adaptiveDelayNanos = sorted[Math.max(0, Math.min(rank, count - 1))];
+        }
+    }
+
+    /**
+     * @return The current hedge delay in milliseconds, or a negative value if calls are not hedged yet.
+     */
+    long delayMillis() {
+        if (fixedDelayMillis > 0) {
+            return fixedDelayMillis;
+        }
+        long nanos = adaptiveDelayNanos;
+        // Millisecond timer resolution: round up, so fast steps are not hedged at once
+        return nanos < 0 ? NOT_HEDGED : Math.max(1, TimeUnit.NANOSECONDS.toMillis(nanos + 999_999));
+    }
+
+    private double winRatio() {
+        double hedges = hedgeCounter.count();
+        return hedges == 0 ? 0 : winCounter.count() / hedges;
+    }
+
+    /**
+     * Removes the meters. Running calls complete normally.
+     */
+    public void close() {
+        List.<Meter>of(callCounter, hedgeCounter, winCounter, suppressedCounter).forEach(meterRegistry::remove);
+        gauges.forEach(meterRegistry::remove);
+    }
+}
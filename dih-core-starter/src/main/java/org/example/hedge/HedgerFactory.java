@@ -0,0 +1,36 @@
+package org.example.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.example.deadline.DeadlineTimer;
+import org.example.model.HedgeDefinition;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Creates the {@link Hedger}s of compiled plans. Hedge delays are scheduled on the shared
+ * {@link DeadlineTimer}; attempts run on the engine's task executor.
+ */
+public class HedgerFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final DeadlineTimer timer;
+    private final Executor executor;
+
+    public HedgerFactory(MeterRegistry meterRegistry, DeadlineTimer timer, Executor executor) {
+        this.meterRegistry = meterRegistry;
+        this.timer = timer;
+        this.executor = executor;
+    }
+
+    public Hedger create(String pipelineName,
+                         String pipelineVersion,
+                         String stepId,
+                         HedgeDefinition definition) {
+        Tags tags = Tags.of(
+                "pipeline.name", pipelineName,
+                "pipeline.version", String.valueOf(pipelineVersion),
+                "step.id", stepId);
+        return new Hedger(definition, tags, executor, timer, meterRegistry);
+    }
+}
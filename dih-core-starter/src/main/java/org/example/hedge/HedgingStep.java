@@ -0,0 +1,37 @@
+package org.example.hedge;
+
+import org.example.concurrency.Futures;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Composition decorator applying a {@link Hedger} to a step.
+ * <p>
+ * Sits inside the circuit breaker, which counts a hedged call once, and outside of the retry decorator:
+ * each attempt retries on its own and holds its own bulkhead permit. Attempts run on the hedger's
+ * executor, so {@link #execute} blocks the calling thread only while it waits for the winner; an interrupt
+ * (e.g. an expired deadline) cancels both attempts.
+ * </p>
+ */
+public final class HedgingStep implements AsyncPipelineStep<Object, Object> {
+
+    private final AsyncPipelineStep<Object, Object> delegate;
+    private final Hedger hedger;
+
+    public HedgingStep(AsyncPipelineStep<Object, Object> delegate, Hedger hedger) {
+        this.delegate = delegate;
+        this.hedger = hedger;
+    }
+
+    @Override
+    public Object execute(Object input, PipelineContext context) throws Exception {
+        return Futures.await(executeAsync(input, context));
+    }
+
+    @Override
+    public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+        return hedger.call(() -> delegate.executeAsync(input, context));
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.model;
+
+/**
+ * Outcome of one item of a batch execution ({@code PipelineExecutor.executePipelineBatch}).
+ *
+ * @param index   Position of the item in the input list.
+ * @param result  The output of the last step, or {@code null} if the item failed.
+ * @param failure The exception that stopped the item, translated as for a single execution;
+ *                {@code null} if the item succeeded.
+ */
+public record BatchItemResult(int index, Object result, RuntimeException failure) {
+
+    public static BatchItemResult success(int index, Object result) {
+        return new BatchItemResult(index, result, null);
+    }
+
+    public static BatchItemResult failure(int index, RuntimeException failure) {
+        return new BatchItemResult(index, null, failure);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.model;
+
+/**
+ * Outcome of one branch of a {@code ParallelSplitter} in {@code collectAll} gather mode.
+ *
+ * @param stepId  The sub-step that ran the branch.
+ * @param result  The output of the branch, or {@code null} if the branch failed.
+ * @param failure The exception that stopped the branch; its message names the branch and its cause is the
+ *                exception thrown by the sub-step. {@code null} if the branch succeeded.
+ */
+public record BranchResult(String stepId, Object result, RuntimeException failure) {
+
+    public static BranchResult success(String stepId, Object result) {
+        return new BranchResult(stepId, result, null);
+    }
+
+    public static BranchResult failure(String stepId, RuntimeException failure) {
+        return new BranchResult(stepId, null, failure);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
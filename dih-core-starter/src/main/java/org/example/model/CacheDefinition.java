@@ -0,0 +1,53 @@
+package org.example.model;
+
+/**
+ * Result memoization of a pipeline step whose output is a pure function of its input.
+ * <p>
+ * Outputs are cached by a key derived from the input and shared by all executions of steps with the same
+ * type, properties and cache configuration - across pipelines and plan versions. The on-heap tier keeps the
+ * most recently used entries up to {@code maxWeight}; entries it evicts move to an optional off-heap tier of
+ * {@code offHeapBytes}, which holds large working sets outside of the garbage-collected heap.
+ * </p>
+ * Cached outputs are handed to every execution hitting them and must not be mutated.
+ *
+ * @param keyExtractor   Name of a {@code CacheKeyExtractor} bean deriving the key from the input.
+ *                       If null (default), the input itself is the key.
+ * @param maxWeight      Total weight of the on-heap entries. Defaults to {@code 10000}.
+ * @param weigher        Name of a {@code CacheWeigher} bean. If null (default), every entry weighs {@code 1}.
+ * @param ttlMs          Time, in milliseconds, an entry stays valid after it was loaded. {@code 0} (default) never expires.
+ * @param refreshAheadMs Age, in milliseconds, after which a hit reloads the entry in the background while the
+ *                       cached output is returned. Requires a thread-safe step. {@code 0} (default) disables it.
+ * @param offHeapBytes   Capacity of the off-heap tier; outputs must be {@code Serializable} to enter it.
+ *                       {@code 0} (default) disables the tier.
+ */
+public record CacheDefinition(String keyExtractor,
+                              long maxWeight,
+                              String weigher,
+                              long ttlMs,
+                              long refreshAheadMs,
+                              long offHeapBytes) {
+
+    public CacheDefinition {
+        // Fields may be omitted in JSON definitions
+        if (maxWeight <= 0) {
+            maxWeight = 10_000;
+        }
+        if (ttlMs < 0) {
+            ttlMs = 0;
+        }
+        if (refreshAheadMs < 0 || (ttlMs > 0 && refreshAheadMs >= ttlMs)) {
+            // Refreshing an entry only once it expired is a plain miss
+            refreshAheadMs = 0;
+        }
+        if (offHeapBytes < 0) {
+            offHeapBytes = 0;
+        }
+    }
+
+    /**
+     * @return An on-heap cache of 10000 entries keyed by the input, without expiry.
+     */
+    public static CacheDefinition defaults() {
+        return new CacheDefinition(null, 0, null, 0, 0, 0);
+    }
+}
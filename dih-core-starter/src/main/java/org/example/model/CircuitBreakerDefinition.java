@@ -0,0 +1,63 @@
+package org.example.model;
+
+/**
+ * Circuit breaker configuration of a pipeline step.
+ * <p>
+ * The breaker observes a count-based sliding window of the most recent calls. Once the window holds
+ * at least {@code minimumCalls} outcomes and the failure rate or the slow-call rate reaches its
+ * threshold, the breaker <b>opens</b>: calls fail fast for {@code openDurationMs}. It then lets
+ * {@code halfOpenCalls} probe calls through (<b>half-open</b>) and closes again if they succeed.
+ * </p>
+ * Steps of the same type with an equal configuration share one breaker across all executions and pipelines.
+ *
+ * @param windowSize                Number of recent calls evaluated. Defaults to {@code 20}.
+ * @param minimumCalls              Calls required before the rates are evaluated. Defaults to {@code 10}.
+ * @param failureRateThreshold      Failure rate in percent that opens the breaker. Defaults to {@code 50}.
+ * @param slowCallDurationMs        Calls taking at least this long (milliseconds) count as slow. {@code 0} disables slow-call tracking.
+ * @param slowCallRateThreshold     Slow-call rate in percent that opens the breaker. Defaults to {@code 100}.
+ * @param openDurationMs            Time the breaker stays open before probing, in milliseconds. Defaults to {@code 30000}.
+ * @param halfOpenCalls             Number of probe calls permitted while half-open. Defaults to {@code 3}.
+ */
+public record CircuitBreakerDefinition(
+        int windowSize,
+        int minimumCalls,
+        double failureRateThreshold,
+        long slowCallDurationMs,
+        double slowCallRateThreshold,
+        long openDurationMs,
+        int halfOpenCalls
+) {
+
+    public CircuitBreakerDefinition {
+        // Fields may be omitted in JSON definitions
+        if (windowSize <= 0) {
+            windowSize = 20;
+        }
+        if (minimumCalls <= 0) {
+            minimumCalls = Math.min(10, windowSize);
+        }
+        minimumCalls = Math.min(minimumCalls, windowSize);
+        if (failureRateThreshold <= 0 || failureRateThreshold > 100) {
+            failureRateThreshold = 50;
+        }
+        if (slowCallDurationMs < 0) {
+            slowCallDurationMs = 0;
+        }
+        if (slowCallRateThreshold <= 0 || slowCallRateThreshold > 100) {
+            slowCallRateThreshold = 100;
+        }
+        if (openDurationMs <= 0) {
+            openDurationMs = 30_000;
+        }
+        if (halfOpenCalls <= 0) {
+            halfOpenCalls = 3;
+        }
+    }
+
+    /**
+     * @return A breaker with default settings, opening at a 50% failure rate over the last 20 calls.
+     */
+    public static CircuitBreakerDefinition defaults() {
+        return new CircuitBreakerDefinition(0, 0, 0, 0, 0, 0, 0);
+    }
+}
@@ -0,0 +1,26 @@
+package org.example.model;
+
+/**
+ * Single-flight coalescing of identical concurrent invocations of a pipeline or a step.
+ * <p>
+ * While an invocation with a given key is in flight, later invocations with the same key do not start their
+ * own run: they attach to the running one and complete with its outcome - result or failure. Only
+ * concurrent invocations are coalesced; once the run completes, the next invocation starts a new one
+ * (see {@code cache} for keeping results).
+ * </p>
+ * Coalesced callers share the outcome of the leading run, except for a failure caused by the leader itself - its
+ * deadline, its cancellation or the rejection of its admission: followers then run on their own. Each caller
+ * waits no longer than its own deadline.
+ *
+ * @param keyExtractor Name of a {@code CacheKeyExtractor} bean deriving the key from the input.
+ *                     If null (default), the input itself is the key.
+ */
+public record CoalescingDefinition(String keyExtractor) {
+
+    /**
+     * @return Coalescing keyed by the input itself.
+     */
+    public static CoalescingDefinition defaults() {
+        return new CoalescingDefinition(null);
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.model;
+
+import java.time.Duration;
+
+/**
+ * Per-call attributes of a pipeline execution, as opposed to the {@link PipelineDefinition} shared by all calls.
+ * <p>
+ * Tenant and priority are carried in the execution's {@code PipelineContext}, visible to every step and
+ * inherited by {@code ParallelSplitter} branches.
+ * </p>
+ *
+ * @param tenant   Owner of the execution. Executions of different tenants share capacity by weight
+ *                 ({@code dih.executor.scheduler.tenant-weights}). Defaults to {@value #DEFAULT_TENANT}.
+ * @param priority Importance of the execution. Defaults to {@link Priority#NORMAL}.
+ * @param timeout  Time the execution may take, including the wait for admission. Once it has elapsed, the
+ *                 running step is interrupted (or its stage cancelled) and the execution fails with
+ *                 {@code DeadlineExceededException}. {@code null} (or a non-positive value) for no deadline.
+ */
+public record ExecutionOptions(String tenant, Priority priority, Duration timeout) {
+
+    public static final String DEFAULT_TENANT = "default";
+
+    public static final ExecutionOptions DEFAULT = new ExecutionOptions(DEFAULT_TENANT, Priority.NORMAL, null);
+
+    /**
+     * Priority classes, most important first. A class is served strictly before the classes below it,
+     * and the lowest classes are shed first under overload.
+     */
+    public enum Priority {
+        /** Interactive traffic that must not wait, e.g. user-facing order flows. */
+        CRITICAL,
+        HIGH,
+        NORMAL,
+        LOW,
+        /** Backfills and other bulk work that only runs on spare capacity. */
+        BATCH
+    }
+
+    public ExecutionOptions {
+        if (tenant == null || tenant.isBlank()) {
+            tenant = DEFAULT_TENANT;
+        }
+        if (priority == null) {
+            priority = Priority.NORMAL;
+        }
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            timeout = null;
+        }
+    }
+
+    public ExecutionOptions(String tenant, Priority priority) {
+        this(tenant, priority, null);
+    }
+
+    public static ExecutionOptions of(String tenant, Priority priority) {
+        return new ExecutionOptions(tenant, priority);
+    }
+
+    public ExecutionOptions withTenant(String tenant) {
+        return new ExecutionOptions(tenant, priority, timeout);
+    }
+
+    public ExecutionOptions withPriority(Priority priority) {
+        return new ExecutionOptions(tenant, priority, timeout);
+    }
+
+    public ExecutionOptions withTimeout(Duration timeout) {
+        return new ExecutionOptions(tenant, priority, timeout);
+    }
+}
@@ -0,0 +1,42 @@
+package org.example.model;
+
+/**
+ * Hedging configuration of an idempotent ({@code @IdempotentStep}) and thread-safe pipeline step.
+ * <p>
+ * If an invocation has not completed within the hedge delay, a duplicate attempt is started. The first
+ * successful attempt wins and the other one is cancelled. The delay is either fixed ({@code delayMs}) or
+ * follows the {@code percentile} of the step's recently observed latencies, so only the slowest calls are
+ * hedged. Hedges are limited to {@code maxHedgeRatePercent} of the calls, so a slow downstream is not
+ * flooded with duplicates.
+ * </p>
+ *
+ * @param delayMs             Fixed hedge delay in milliseconds. {@code 0} (default) derives it from the live latency.
+ * @param percentile          Latency percentile used as the adaptive delay. Defaults to {@code 95}.
+ * @param maxHedgeRatePercent Share of calls, in percent, that may be hedged. Defaults to {@code 10}.
+ * @param minSamples          Latencies observed before adaptive hedging starts. Defaults to {@code 20}.
+ */
+public record HedgeDefinition(long delayMs, double percentile, double maxHedgeRatePercent, int minSamples) {
+
+    public HedgeDefinition {
+        // Fields may be omitted in JSON definitions
+        if (delayMs < 0) {
+            delayMs = 0;
+        }
+        if (percentile <= 0 || percentile >= 100) {
+            percentile = 95;
+        }
+        if (maxHedgeRatePercent <= 0 || maxHedgeRatePercent > 100) {
+            maxHedgeRatePercent = 10;
+        }
+        if (minSamples <= 0) {
+            minSamples = 20;
+        }
+    }
+
+    /**
+     * @return Adaptive hedging at the p95 latency, for at most 10% of the calls.
+     */
+    public static HedgeDefinition defaults() {
+        return new HedgeDefinition(0, 0, 0, 0);
+    }
+}
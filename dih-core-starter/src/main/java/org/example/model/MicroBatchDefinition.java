@@ -0,0 +1,26 @@
+package org.example.model;
+
+/**
+ * Micro-batching configuration of a pipeline step implementing {@code BatchPipelineStep}.
+ * <p>
+ * Invocations of the step by concurrent executions are held in a window and handed to the step as one
+ * chunk. The window closes when it holds {@code maxSize} items or {@code maxDelayMs} after its first item,
+ * whichever comes first; each execution then resumes with its own output.
+ * </p>
+ * Only thread-safe (shared) steps can be micro-batched, as one instance serves all executions of the chunk.
+ *
+ * @param maxSize    Items that close the window immediately. Defaults to {@code 100}.
+ * @param maxDelayMs Longest time, in milliseconds, an item waits for the window to fill. Defaults to {@code 10}.
+ */
+public record MicroBatchDefinition(int maxSize, long maxDelayMs) {
+
+    public MicroBatchDefinition {
+        // Fields may be omitted in JSON definitions
+        if (maxSize <= 0) {
+            maxSize = 100;
+        }
+        if (maxDelayMs <= 0) {
+            maxDelayMs = 10;
+        }
+    }
+}
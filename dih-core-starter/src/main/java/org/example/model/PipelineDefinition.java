@@ -8,16 +8,29 @@ import java.util.List;
  *
  * @param name    The unique identifier of the pipeline (e.g., "OrderProcessing").
  * Used for logging and potential metrics tagging.
- * @param scope   The lifecycle scope of the pipeline components.
- * Defaults to "pipeline" (custom scope implementation).
+ * @param scope   The default lifecycle scope of the pipeline components that are not marked thread-safe.
+ * Defaults to "pipeline" (one instance per execution, see {@code PipelineScope});
+ * "singleton" shares all instances across executions.
  * @param version The version of the pipeline definition (e.g., "1.0.0").
  * Useful for configuration management and blue-green deployments.
- * @param steps   The ordered list of processing steps to be executed.
+ * @param steps   The ordered list of processing steps to be executed. Each step receives the output of the
+ * previous one, unless the steps declare {@code dependsOn}: the pipeline then runs as a dependency graph.
+ * @param coalesce Attaches synchronous and asynchronous executions to an identical one already in flight
+ * (same name, version, tenant and input key) instead of running them. If null, every execution runs.
  */
 public record PipelineDefinition(
         String name,
         String scope,
         String version,
-        List<StepDefinition> steps
+        List<StepDefinition> steps,
+        CoalescingDefinition coalesce
 ) {
+
+    public PipelineDefinition(String name, String scope, String version, List<StepDefinition> steps) {
+        this(name, scope, version, steps, null);
+    }
+
+    public PipelineDefinition withCoalesce(CoalescingDefinition coalesce) {
+        return new PipelineDefinition(name, scope, version, steps, coalesce);
+    }
 }
@@ -1,5 +1,7 @@
 package org.example.model;
 
+import java.util.List;
+
 /**
  * Defines the fault tolerance policy for a specific pipeline step.
  * Used by the AOP layer to wrap step execution in a retry proxy.
@@ -7,9 +9,79 @@ package org.example.model;
  * @param maxAttempts The maximum number of total execution attempts (1 = no retry, just initial attempt).
  * Must be >= 1.
  * @param delay       The backoff delay between attempts in <b>milliseconds</b>.
+ * For {@link Backoff#EXPONENTIAL} it is the delay before the first retry.
+ * @param backoff     How the delay grows between attempts. Defaults to {@link Backoff#FIXED}.
+ * @param multiplier  Growth factor of {@link Backoff#EXPONENTIAL} backoff. Defaults to {@code 2.0}.
+ * @param maxDelay    Upper bound of a single delay in milliseconds. {@code 0} means unbounded.
+ * @param jitter      Randomization applied to every delay. Defaults to {@link Jitter#NONE}.
+ * @param retryExceptions  Fully qualified exception classes worth retrying (including subclasses).
+ * If empty, every {@code Exception} is retried.
+ * @param ignoreExceptions Fully qualified exception classes that are never retried, e.g. validation errors.
+ * Takes precedence over {@code retryExceptions}. Both lists are matched against the whole cause chain.
  */
 public record RetryPolicyDefinition(
         int maxAttempts,
-        long delay
+        long delay,
+        Backoff backoff,
+        double multiplier,
+        long maxDelay,
+        Jitter jitter,
+        List<String> retryExceptions,
+        List<String> ignoreExceptions
 ) {
+
+    public enum Backoff {
+        /** Every retry waits {@code delay}. */
+        FIXED,
+        /** Retry {@code n} waits {@code delay * multiplier^(n-1)}, capped at {@code maxDelay}. */
+        EXPONENTIAL
+    }
+
+    /**
+     * Spreads the retries of concurrent executions, so they do not hit a recovering downstream in lockstep.
+     */
+    public enum Jitter {
+        NONE,
+        /** Uniformly random between {@code 0} and the computed delay. */
+        FULL,
+        /** Uniformly random between {@code delay} and three times the previous delay, capped at {@code maxDelay}. */
+        DECORRELATED
+    }
+
+    public RetryPolicyDefinition {
+        // Fields may be omitted in JSON definitions
+        if (backoff == null) {
+            backoff = Backoff.FIXED;
+        }
+        if (jitter == null) {
+            jitter = Jitter.NONE;
+        }
+        if (multiplier < 1.0) {
+            multiplier = 2.0;
+        }
+        if (maxDelay < 0) {
+            maxDelay = 0;
+        }
+        retryExceptions = retryExceptions == null ? List.of() : List.copyOf(retryExceptions);
+        ignoreExceptions = ignoreExceptions == null ? List.of() : List.copyOf(ignoreExceptions);
+    }
+
+    public RetryPolicyDefinition(int maxAttempts, long delay) {
+        this(maxAttempts, delay, Backoff.FIXED, 2.0, 0, Jitter.NONE, List.of(), List.of());
+    }
+
+    public RetryPolicyDefinition withExponentialBackoff(double multiplier, long maxDelay) {
+        return new RetryPolicyDefinition(maxAttempts, delay, Backoff.EXPONENTIAL, multiplier, maxDelay, jitter,
+                retryExceptions, ignoreExceptions);
+    }
+
+    public RetryPolicyDefinition withJitter(Jitter jitter) {
+        return new RetryPolicyDefinition(maxAttempts, delay, backoff, multiplier, maxDelay, jitter,
+                retryExceptions, ignoreExceptions);
+    }
+
+    public RetryPolicyDefinition withExceptions(List<String> retryExceptions, List<String> ignoreExceptions) {
+        return new RetryPolicyDefinition(maxAttempts, delay, backoff, multiplier, maxDelay, jitter,
+                retryExceptions, ignoreExceptions);
+    }
 }
@@ -18,12 +18,88 @@ import java.util.Map;
  * Allows creating tree-like execution structures.
  * @param retryPolicy Configuration for fault tolerance mechanism (AOP).
  * If null, no retry logic will be applied.
+ * @param threadSafe  Overrides the instance sharing of the step.
+ * {@code true} shares one instance across all executions, {@code false} isolates an instance per execution.
+ * If null, the {@code @ThreadSafeStep} marker of the class or the pipeline scope decides.
+ * @param circuitBreaker Fails calls fast while the step's downstream is unhealthy.
+ * Applied outside of the retry policy. If null, no circuit breaker is used.
+ * @param microBatch Coalesces invocations by concurrent executions into bulk calls of a {@code BatchPipelineStep}.
+ * If null, every execution invokes the step on its own.
+ * @param timeoutMs Time, in milliseconds, the step may take including all retry attempts. On expiry the step
+ * is interrupted (or its stage cancelled) and fails with {@code DeadlineExceededException}. On a
+ * {@code ParallelSplitter} sub-step, this is the timeout of that branch. If null, only the execution deadline applies.
+ * @param hedge Races slow invocations of a thread-safe {@code @IdempotentStep} with a duplicate attempt.
+ * Applied inside the circuit breaker and outside of the retry policy. If null, the step is never hedged.
+ * @param dependsOn IDs of the top-level steps whose outputs this step consumes. As soon as one top-level step
+ * declares dependencies, the pipeline runs as a dependency graph instead of a list (see {@code PlanGraph}),
+ * and all top-level steps must declare them: a step with an empty list receives the initial input, a step with
+ * one dependency its output, and a step with several a {@code Map} of their outputs keyed by step ID.
+ * @param cache Memoizes the outputs of a step that is a pure function of its input, shared by all executions of
+ * the same step configuration. Applied outside of all other decorators: hits never reach the downstream.
+ * If null, every invocation runs the step.
+ * @param coalesce Attaches invocations to an identical one already in flight - in any execution of the same step
+ * configuration - instead of running the step again. Applied inside the cache. If null, every invocation runs.
  */
 public record StepDefinition(
         String id,
         String type,
         Map<String,Object> properties,
         List<StepDefinition> subSteps,
-        RetryPolicyDefinition retryPolicy
+        RetryPolicyDefinition retryPolicy,
+        Boolean threadSafe,
+        CircuitBreakerDefinition circuitBreaker,
+        MicroBatchDefinition microBatch,
+        Long timeoutMs,
+        HedgeDefinition hedge,
+        List<String> dependsOn,
+        CacheDefinition cache,
+        CoalescingDefinition coalesce
 ) {
+
+    public StepDefinition {
+        // 0 in JSON definitions means "no timeout"
+        if (timeoutMs != null && timeoutMs <= 0) {
+            timeoutMs = null;
+        }
+    }
+
+    public StepDefinition(String id,
+                          String type,
+                          Map<String, Object> properties,
+                          List<StepDefinition> subSteps,
+                          RetryPolicyDefinition retryPolicy) {
+        this(id, type, properties, subSteps, retryPolicy, null, null, null, null, null, null, null, null);
+    }
+
+    public StepDefinition withThreadSafe(Boolean threadSafe) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withCircuitBreaker(CircuitBreakerDefinition circuitBreaker) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withMicroBatch(MicroBatchDefinition microBatch) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withTimeoutMs(Long timeoutMs) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withHedge(HedgeDefinition hedge) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withDependsOn(List<String> dependsOn) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withCache(CacheDefinition cache) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
+
+    public StepDefinition withCoalesce(CoalescingDefinition coalesce) {
+        return new StepDefinition(id, type, properties, subSteps, retryPolicy, threadSafe, circuitBreaker, microBatch, timeoutMs, hedge, dependsOn, cache, coalesce);
+    }
 }
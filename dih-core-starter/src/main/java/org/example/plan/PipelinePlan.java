@@ -0,0 +1,288 @@
+package org.example.plan;
+
+import org.example.batching.MicroBatcher;
+import org.example.bulkhead.Bulkhead;
+import org.example.cache.StepCache;
+import org.example.circuitbreaker.CircuitBreaker;
+import org.example.coalescing.SingleFlight;
+import org.example.deadline.DeadlineTimer;
+import org.example.hedge.Hedger;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.resource.StepResourcePool;
+import org.example.retry.RetryExecutor;
+import org.example.step.ResourceAwareStep;
+import org.example.step.PipelineStep;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Compiled, reusable form of a {@link PipelineDefinition}.
+ * <p>
+ * A plan owns a long-lived child {@code ApplicationContext} holding the step beans of exactly one
+ * pipeline version. Step classes, bound properties, retry decorators and the {@code ParallelSplitter}
+ * wiring are resolved once, when the plan is compiled; every later execution only walks
+ * the prepared {@link PlanStep}s. If the top-level steps declare {@code dependsOn}, their {@link PlanGraph}
+ * is validated and built at the same time.
+ * </p>
+ * <p>
+ * The plan also owns the {@link StepResourcePool}s of its {@link ResourceAwareStep}s, so
+ * long-lived resources are shared by all executions of the version and closed together with it.
+ * The same holds for the {@link MicroBatcher}s of steps with a {@code microBatch} configuration and the
+ * {@link Hedger}s (with their latency history) of steps with a {@code hedge} configuration. The
+ * {@link StepCache}s of steps with a {@code cache} configuration, and the {@link SingleFlight}s of the pipeline
+ * and of steps with a {@code coalesce} configuration, are shared with other plans; the plan returns its references
+ * to them when it is closed.
+ * </p>
+ *
+ * <h2>Lifecycle:</h2>
+ * Executions lease the plan via {@link #tryAcquire()} / {@link #release()}. A plan that is evicted
+ * from the {@link PipelinePlanCache} is <i>retired</i>: it accepts no new leases and its context
+ * is closed as soon as the last in-flight execution releases it.
+ */
+public class PipelinePlan {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelinePlan.class);
+
+    /** Lease counter; {@code -1} marks a closed plan. */
+    private final AtomicInteger leases = new AtomicInteger();
+
+    private final PlanKey key;
+    private final PipelineDefinition definition;
+    private final ConfigurableApplicationContext context;
+    private final List<PlanStep> steps;
+    private final PlanGraph graph;
+    private final Map<String, PipelineStep<Object, Object>> stepsById;
+    /** The steps as bound to composite steps (see {@link PlanStep#asSubStep()}); filled while compiling. */
+    private final Map<String, PipelineStep<Object, Object>> subSteps = new LinkedHashMap<>();
+    private final Function<StepDefinition, StepResourcePool> poolFactory;
+    private final Function<StepDefinition, CircuitBreaker> circuitBreakerFactory;
+    private final Function<StepDefinition, RetryExecutor> retryExecutorFactory;
+    private final Function<StepDefinition, Bulkhead> bulkheadFactory;
+    private final BiFunction<StepDefinition, MicroBatcher.BatchHandler, MicroBatcher> microBatcherFactory;
+    private final Function<StepDefinition, Hedger> hedgerFactory;
+    private final Function<StepDefinition, StepCache> cacheFactory;
+    private final Function<StepDefinition, SingleFlight> singleFlightFactory;
+    private final DeadlineTimer deadlineTimer;
+    private final List<StepResourcePool> resourcePools = new ArrayList<>();
+    private final List<MicroBatcher> microBatchers = new ArrayList<>();
+    private final List<Hedger> hedgers = new ArrayList<>();
+    private final List<StepCache> caches = new ArrayList<>();
+    private final List<SingleFlight> singleFlights = new ArrayList<>();
+
+    private volatile boolean retired;
+
+    PipelinePlan(PipelineDefinition definition,
+                 ConfigurableApplicationContext context,
+                 Function<StepDefinition, StepResourcePool> poolFactory,
+                 Function<StepDefinition, CircuitBreaker> circuitBreakerFactory,
+                 Function<StepDefinition, RetryExecutor> retryExecutorFactory,
+                 Function<StepDefinition, Bulkhead> bulkheadFactory,
+                 BiFunction<StepDefinition, MicroBatcher.BatchHandler, MicroBatcher> microBatcherFactory,
+                 Function<StepDefinition, Hedger> hedgerFactory,
+                 Function<StepDefinition, StepCache> cacheFactory,
+                 Function<StepDefinition, SingleFlight> singleFlightFactory,
+                 Supplier<SingleFlight> pipelineFlightFactory,
+                 DeadlineTimer deadlineTimer) {
+        this.key = PlanKey.of(definition);
+        this.definition = definition;
+        this.context = context;
+        this.poolFactory = poolFactory;
+        this.circuitBreakerFactory = circuitBreakerFactory;
+        this.retryExecutorFactory = retryExecutorFactory;
+        this.bulkheadFactory = bulkheadFactory;
+        this.microBatcherFactory = microBatcherFactory;
+        this.hedgerFactory = hedgerFactory;
+        this.cacheFactory = cacheFactory;
+        this.singleFlightFactory = singleFlightFactory;
+        this.deadlineTimer = deadlineTimer;
+
+        // Populated before the steps are bound, so composite steps see the complete view.
+        Map<String, PipelineStep<Object, Object>> allSteps = new LinkedHashMap<>();
+        this.stepsById = Collections.unmodifiableMap(allSteps);
+
+        try {
+            // null unless the pipeline coalesces executions; held so its meters live as long as the version
+            SingleFlight pipelineFlight = pipelineFlightFactory.get();
+            if (pipelineFlight != null) {
+                singleFlights.add(pipelineFlight);
+            }
+
+            List<PlanStep> topLevel = new ArrayList<>();
+            if (definition.steps() != null) {
+                for (StepDefinition stepDef : definition.steps()) {
+                    topLevel.add(compileRecursive(stepDef, allSteps));
+                }
+            }
+            this.steps = List.copyOf(topLevel);
+            this.graph = PlanGraph.of(definition.name(), steps);
+
+            // Shared composite and resource-aware steps are wired once, for the whole lifetime of the plan.
+            allSteps.values().forEach(step -> {
+                PlanStep planStep = (PlanStep) step;
+                if (planStep.isShared()) {
+                    planStep.bind(planStep.sharedInstance());
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            // The compiler only closes the context: resources of the steps compiled so far are released here
+            closeResources();
+            throw e;
+        }
+    }
+
+    private PlanStep compileRecursive(StepDefinition stepDef, Map<String, PipelineStep<Object, Object>> allSteps) {
+        String beanName = definition.name() + "_" + stepDef.id();
+
+        // Resources outlive executions: one pool per step of this pipeline version
+        StepResourcePool resourcePool = null;
+        Class<?> beanType = context.getType(beanName);
+        if (beanType != null && ResourceAwareStep.class.isAssignableFrom(beanType)) {
+            resourcePool = poolFactory.apply(stepDef);
+            resourcePools.add(resourcePool);
+        }
+
+        // Circuit breakers are shared application-wide (see CircuitBreakerRegistry), not owned by the plan
+        CircuitBreaker circuitBreaker = circuitBreakerFactory.apply(stepDef);
+
+        // null unless the step retries and retries are applied as plan decorators
+        RetryExecutor retryExecutor = retryExecutorFactory.apply(stepDef);
+
+        // null unless the step type is limited; shared application-wide like circuit breakers
+        Bulkhead bulkhead = bulkheadFactory.apply(stepDef);
+
+        // null unless the step coalesces invocations of concurrent executions
+        Function<MicroBatcher.BatchHandler, MicroBatcher> microBatching = stepDef.microBatch() == null ? null : handler -> {
+            MicroBatcher microBatcher = microBatcherFactory.apply(stepDef, handler);
+            microBatchers.add(microBatcher);
+            return microBatcher;
+        };
+
+        // null unless the step races slow invocations with a duplicate attempt
+        Hedger hedger = stepDef.hedge() == null ? null : hedgerFactory.apply(stepDef);
+        if (hedger != null) {
+            hedgers.add(hedger);
+        }
+
+        // null unless the step memoizes its outputs; shared with the other plans using the same configuration
+        StepCache cache = cacheFactory.apply(stepDef);
+        if (cache != null) {
+            caches.add(cache);
+        }
+
+        // null unless the step coalesces identical concurrent invocations; shared like caches
+        SingleFlight singleFlight = singleFlightFactory.apply(stepDef);
+        if (singleFlight != null) {
+            singleFlights.add(singleFlight);
+        }
+
+        PlanStep planStep = new PlanStep(stepDef, beanName, context, Collections.unmodifiableMap(subSteps),
+                resourcePool, circuitBreaker, retryExecutor, bulkhead, microBatching, hedger, cache, singleFlight, deadlineTimer);
+        allSteps.put(stepDef.id(), planStep);
+        subSteps.put(stepDef.id(), planStep.asSubStep());
+
+        if (stepDef.subSteps() != null) {
+            for (StepDefinition subStepDef : stepDef.subSteps()) {
+                compileRecursive(subStepDef, allSteps);
+            }
+        }
+        return planStep;
+    }
+
+    public PlanKey key() {
+        return key;
+    }
+
+    public PipelineDefinition definition() {
+        return definition;
+    }
+
+    /**
+     * @return The top-level steps in execution order.
+     */
+    public List<PlanStep> steps() {
+        return steps;
+    }
+
+    /**
+     * @return The dependency graph of the top-level steps, or {@code null} if they run as a list.
+     */
+    public PlanGraph graph() {
+        return graph;
+    }
+
+    /**
+     * @return All steps of the plan (including nested sub-steps), keyed by step ID.
+     */
+    public Map<String, PipelineStep<Object, Object>> stepsById() {
+        return stepsById;
+    }
+
+    /**
+     * Leases the plan for one execution.
+     *
+     * @return {@code false} if the plan has been retired in the meantime and must not be used.
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = leases.get();
+            if (current < 0 || retired) {
+                return false;
+            }
+            if (leases.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns a lease obtained via {@link #tryAcquire()}.
+     */
+    public void release() {
+        if (leases.decrementAndGet() == 0 && retired) {
+            closeIfIdle();
+        }
+    }
+
+    /**
+     * Marks the plan as retired. The underlying context is closed once no execution holds a lease.
+     */
+    void retire() {
+        retired = true;
+        closeIfIdle();
+    }
+
+    boolean isRetired() {
+        return retired;
+    }
+
+    private void closeIfIdle() {
+        if (leases.compareAndSet(0, -1)) {
+            log.debug("Closing execution plan '{}'", key);
+            closeResources();
+            context.close();
+        }
+    }
+
+    /**
+     * Releases the resources owned by the plan's steps, including their meters.
+     */
+    private void closeResources() {
+        resourcePools.forEach(StepResourcePool::close);
+        microBatchers.forEach(MicroBatcher::close);
+        hedgers.forEach(Hedger::close);
+        caches.forEach(StepCache::release);
+        singleFlights.forEach(SingleFlight::release);
+    }
+}
@@ -0,0 +1,298 @@
+package org.example.plan;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.aop.RetryBeanPostProcessor;
+import org.example.batching.MicroBatcherFactory;
+import org.example.bulkhead.BulkheadRegistry;
+import org.example.cache.StepCacheRegistry;
+import org.example.circuitbreaker.CircuitBreakerRegistry;
+import org.example.coalescing.SingleFlightRegistry;
+import org.example.bpp.DynamicContextBeanPostProcessor;
+import org.example.config.DihProperties;
+import org.example.deadline.DeadlineTimer;
+import org.example.exception.DihCoreException;
+import org.example.exception.PipelineCancelledException;
+import org.example.exception.PipelineConfigurationException;
+import org.example.hedge.HedgerFactory;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.resource.StepResourcePool;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.retry.RetryExecutor;
+import org.example.retry.RetryExecutorFactory;
+import org.example.service.PipelineRegistrar;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.CustomScopeConfigurer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Compiles {@link PipelineDefinition}s into {@link PipelinePlan}s and keeps them for reuse.
+ * <p>
+ * Compilation is the expensive part of the engine: it builds a child {@code ApplicationContext},
+ * registers the step beans via {@link PipelineRegistrar}, applies the infrastructure post-processors
+ * and refreshes the context. This cache ensures it happens once per pipeline name and version
+ * instead of once per execution.
+ * </p>
+ *
+ * <h2>Consistency:</h2>
+ * <ul>
+ * <li>Concurrent first executions of the same version trigger a single compilation. The first one installs a
+ * pending entry for the version and compiles outside of any map operation; the others wait for that entry,
+ * so a slow compilation never blocks executions of other versions.</li>
+ * <li>A failed compilation is reported to every waiting execution and removed, so the next one retries.</li>
+ * <li>If a definition arrives with an already known name and version but different content,
+ * the stale plan is retired and the definition is recompiled (a warning is logged, since
+ * versions are expected to be immutable).</li>
+ * </ul>
+ */
+@Service
+public class PipelinePlanCache implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PipelinePlanCache.class);
+
+    private final ApplicationContext parentContext;
+    private final PipelineRegistrar registrar;
+    private final List<CustomScopeConfigurer> scopeConfigurers;
+    private final DihProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+    private final RetryExecutorFactory retryExecutorFactory;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final MicroBatcherFactory microBatcherFactory;
+    private final HedgerFactory hedgerFactory;
+    private final StepCacheRegistry stepCacheRegistry;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final DeadlineTimer deadlineTimer;
+    private final Counter compilationCounter;
+
+    /** Compiled plans, or the pending compilation of one, per pipeline version. */
+    private final Map<PlanKey, CompletableFuture<PipelinePlan>> plans = new ConcurrentHashMap<>();
+
+    public PipelinePlanCache(ApplicationContext parentContext,
+                             PipelineRegistrar registrar,
+                             ObjectProvider<CustomScopeConfigurer> scopeConfigurers,
+                             DihProperties properties,
+                             MeterRegistry meterRegistry,
+                             CircuitBreakerRegistry circuitBreakerRegistry,
+                             RetryExecutorFactory retryExecutorFactory,
+                             BulkheadRegistry bulkheadRegistry,
+                             MicroBatcherFactory microBatcherFactory,
+                             HedgerFactory hedgerFactory,
+                             StepCacheRegistry stepCacheRegistry,
+                             SingleFlightRegistry singleFlightRegistry,
+                             DeadlineTimer deadlineTimer) {
+        this.parentContext = parentContext;
+        this.registrar = registrar;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.retryExecutorFactory = retryExecutorFactory;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.microBatcherFactory = microBatcherFactory;
+        this.hedgerFactory = hedgerFactory;
+        this.stepCacheRegistry = stepCacheRegistry;
+        this.singleFlightRegistry = singleFlightRegistry;
+        this.deadlineTimer = deadlineTimer;
+        // Custom scopes (e.g. "pipeline") are registered per BeanFactory and not inherited by child contexts
+        this.scopeConfigurers = scopeConfigurers.orderedStream().toList();
+
+        this.compilationCounter = Counter.builder("dih.plan.compilations")
+                .description("Number of pipeline definitions compiled into execution plans.")
+                .register(meterRegistry);
+
+        Gauge.builder("dih.plan.cached", plans, Map::size)
+                .description("Number of compiled execution plans currently cached.")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the compiled plan for the definition, compiling it on first use, and leases it
+     * for one execution. The caller MUST call {@link PipelinePlan#release()} when the execution ends.
+     *
+     * @param definition The pipeline blueprint.
+     * @return A leased, ready-to-run plan.
+     * @throws PipelineConfigurationException if the definition cannot be compiled.
+     */
+    public PipelinePlan acquire(PipelineDefinition definition) {
+        PlanKey key = PlanKey.of(definition);
+
+        while (true) {
+            CompletableFuture<PipelinePlan> entry = plans.get(key);
+            if (entry == null) {
+                CompletableFuture<PipelinePlan> pending = new CompletableFuture<>();
+                entry = plans.computeIfAbsent(key, k -> pending);
+                if (entry == pending) {
+                    compileInto(key, definition, pending);
+                }
+            }
+
+            PipelinePlan plan = await(entry, definition);
+            if (!matches(plan, definition)) {
+                // Stale or retired: the execution that swaps in a pending entry recompiles
+                CompletableFuture<PipelinePlan> pending = new CompletableFuture<>();
+                if (plans.replace(key, entry, pending)) {
+                    if (!plan.isRetired()) {
+                        log.warn("Pipeline '{}' was redefined without changing its version. Recompiling the plan.", key);
+                        plan.retire();
+                    }
+                    compileInto(key, definition, pending);
+                }
+                continue;
+            }
+
+            if (plan.tryAcquire()) {
+                return plan;
+            }
+            // The plan was retired between lookup and lease; retry with the current one.
+        }
+    }
+
+    /**
+     * Compiles the plan of a pending entry on the calling thread, outside of any map operation.
+     * A failed entry is removed, so the next execution retries; a plan whose entry was evicted or replaced
+     * in the meantime is closed right away.
+     */
+    private void compileInto(PlanKey key, PipelineDefinition definition, CompletableFuture<PipelinePlan> pending) {
+        PipelinePlan plan;
+        try {
+            plan = compile(definition);
+        } catch (RuntimeException | Error e) {
+            plans.remove(key, pending);
+            pending.completeExceptionally(e);
+            return;
+        }
+        pending.complete(plan);
+        if (plans.get(key) != pending) {
+            // Lost the race against evict() or a redefinition: no one will release it from the map
+            plan.retire();
+        }
+    }
+
+    private PipelinePlan await(CompletableFuture<PipelinePlan> entry, PipelineDefinition definition) {
+        try {
+            return entry.get();
+        } catch (InterruptedException e) {
+            // Never cancels the compilation: other executions may be waiting for it
+            Thread.currentThread().interrupt();
+            throw new PipelineCancelledException(definition.name(), e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException failure) {
+                throw failure;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new PipelineConfigurationException("Failed to compile pipeline '" + PlanKey.of(definition) + "'.", e.getCause());
+        }
+    }
+
+    /**
+     * Unloads the plan of the given pipeline version. In-flight executions finish on the old plan.
+     *
+     * @return {@code true} if a plan was cached for that key.
+     */
+    public boolean evict(String pipelineName, String version) {
+        PlanKey key = new PlanKey(pipelineName, version);
+        CompletableFuture<PipelinePlan> removed = plans.remove(key);
+        if (removed != null) {
+            // A pending compilation closes its plan itself once it finds the entry gone
+            removed.thenAccept(PipelinePlan::retire);
+            log.info("Evicted execution plan '{}'", key);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Unloads all cached plans. Invoked on application shutdown, which also closes all pooled step resources.
+     */
+    public void clear() {
+        plans.keySet().forEach(key -> evict(key.pipelineName(), key.version()));
+    }
+
+    @Override
+    public void destroy() {
+        clear();
+    }
+
+    private boolean matches(PipelinePlan plan, PipelineDefinition definition) {
+        return !plan.isRetired()
+                && (plan.definition() == definition || plan.definition().equals(definition));
+    }
+
+    private PipelinePlan compile(PipelineDefinition definition) {
+        PlanKey key = PlanKey.of(definition);
+        var childContext = new PlanApplicationContext();
+
+        try {
+            // 1. Context Hierarchy: step beans may depend on anything from the application context
+            childContext.setParent(parentContext);
+            childContext.setDisplayName("Pipeline-Plan-" + key);
+
+            // 2. Infrastructure Beans scoped to this plan only
+            scopeConfigurers.forEach(childContext::addBeanFactoryPostProcessor);
+            boolean proxyRetries = properties.getRetry().getMode() == DihProperties.Retry.Mode.PROXY;
+            if (proxyRetries) {
+                childContext.registerBean(RetryBeanPostProcessor.class);
+            }
+            childContext.registerBean(DynamicContextBeanPostProcessor.class);
+
+            // 3. Step Beans
+            registrar.registerPipeline(definition, childContext);
+
+            // 4. Ignite (Dependency Injection, retry proxies for shared steps are created here;
+            // pipeline-scoped steps are instantiated lazily within each execution)
+            childContext.refresh();
+
+            DihProperties.ResourcePool poolSettings = properties.getResourcePool();
+            PipelinePlan plan = new PipelinePlan(definition, childContext, stepDef -> new StepResourcePool(
+                    stepDef, definition.name(), definition.version(),
+                    poolSettings.getMaxSize(), poolSettings.getAcquireTimeout(), meterRegistry),
+                    circuitBreakerRegistry::circuitBreakerFor,
+                    stepDef -> proxyRetries ? null : createRetryExecutor(definition, stepDef),
+                    stepDef -> bulkheadRegistry.forStepType(stepDef.type()),
+                    (stepDef, handler) -> microBatcherFactory.create(
+                            definition.name(), definition.version(), stepDef.id(), stepDef.microBatch(), handler),
+                    stepDef -> hedgerFactory.create(definition.name(), definition.version(), stepDef.id(), stepDef.hedge()),
+                    stepCacheRegistry::cacheFor,
+                    singleFlightRegistry::forStep,
+                    () -> singleFlightRegistry.forPipeline(definition),
+                    deadlineTimer);
+            compilationCounter.increment();
+            log.info("Compiled execution plan '{}' ({} top-level steps).", key, plan.steps().size());
+            return plan;
+
+        } catch (DihCoreException e) {
+            childContext.close();
+            throw e;
+        } catch (Exception e) {
+            childContext.close();
+            throw new PipelineConfigurationException("Failed to compile pipeline '" + key + "': " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Builds the retry decorator of a step, once per plan. Returns {@code null} for steps without retries.
+     */
+    private RetryExecutor createRetryExecutor(PipelineDefinition definition, StepDefinition stepDef) {
+        RetryPolicyDefinition policy = stepDef.retryPolicy();
+        if (policy == null || policy.maxAttempts() <= 1) {
+            return null;
+        }
+        RetryExceptionClassifier classifier = RetryExceptionClassifier.of(policy, parentContext.getClassLoader());
+        return retryExecutorFactory.create(definition.name(), stepDef.id(), stepDef.type(), policy, classifier);
+    }
+}
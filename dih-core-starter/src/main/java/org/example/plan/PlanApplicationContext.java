@@ -0,0 +1,36 @@
+package org.example.plan;
+
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.event.ApplicationContextEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.context.event.SimpleApplicationEventMulticaster;
+
+/**
+ * Child context hosting the step beans of one {@link PipelinePlan}.
+ * <p>
+ * Lifecycle events of the plan context (refreshed, closed, ...) are delivered to the plan's own
+ * listeners only. Propagating them to the application context would let application-level listeners
+ * react to a plan being unloaded as if the application shut down - e.g. Spring Boot's
+ * {@code MeterRegistryCloser} closes every {@code MeterRegistry} on any {@code ContextClosedEvent}.
+ * </p>
+ */
+class PlanApplicationContext extends AnnotationConfigApplicationContext {
+
+    private final ApplicationEventMulticaster localMulticaster;
+
+    PlanApplicationContext() {
+        this.localMulticaster = new SimpleApplicationEventMulticaster(getBeanFactory());
+        // Picked up by refresh() instead of a default multicaster
+        getBeanFactory().registerSingleton(APPLICATION_EVENT_MULTICASTER_BEAN_NAME, localMulticaster);
+    }
+
+    @Override
+    public void publishEvent(ApplicationEvent event) {
+        if (event instanceof ApplicationContextEvent contextEvent && contextEvent.getApplicationContext() == this) {
+            localMulticaster.multicastEvent(event);
+            return;
+        }
+        super.publishEvent(event);
+    }
+}
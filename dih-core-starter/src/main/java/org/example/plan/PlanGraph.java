@@ -0,0 +1,286 @@
+package org.example.plan;
+
+import org.example.concurrency.BranchScope;
+import org.example.concurrency.Futures;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.StepDefinition;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.PipelineContext;
+
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Dependency graph of the top-level steps of a {@link PipelinePlan} whose steps declare {@code dependsOn}.
+ * <p>
+ * The graph is validated when the plan is compiled: every top-level step must declare {@code dependsOn} (an
+ * empty list for steps consuming the initial input), every dependency must name a top-level step of the
+ * pipeline, and the steps must not depend on each other in a cycle. At run time each step is started as soon as
+ * all of its dependencies have finished, so independent chains run concurrently without a
+ * {@code ParallelSplitter}.
+ * </p>
+ *
+ * <h2>Data Flow:</h2>
+ * <ul>
+ * <li>A step without dependencies (a <b>root</b>) receives the initial input of the execution.</li>
+ * <li>A step with one dependency receives that step's output.</li>
+ * <li>A step with several dependencies receives a {@code Map} of their outputs, keyed by step ID in
+ * {@code dependsOn} order.</li>
+ * <li>The result of the run is the output of the only step nothing depends on (the <b>sink</b>), or a
+ * {@code Map} of the outputs of all sinks, keyed by step ID in definition order.</li>
+ * </ul>
+ *
+ * <h2>Concurrency Model:</h2>
+ * Steps run as branches of a {@link BranchScope} on the task executor, with the execution's
+ * {@link PipelineContext} bound. The first failing step shuts the scope down: running steps are cancelled and
+ * interrupted, and no further step is started. The run fails with the step's exception once the others have
+ * stopped.
+ */
+public final class PlanGraph {
+
+    private final List<PlanStep> steps;
+    /** Indices of the steps each step depends on, in {@code dependsOn} order. */
+    private final int[][] dependencies;
+    /** Indices of the steps depending on each step. */
+    private final int[][] dependents;
+    private final int[] roots;
+    private final int[] sinks;
+
+    private PlanGraph(List<PlanStep> steps, int[][] dependencies, int[][] dependents, int[] roots, int[] sinks) {
+        this.steps = steps;
+        this.dependencies = dependencies;
+        this.dependents = dependents;
+        this.roots = roots;
+        this.sinks = sinks;
+    }
+
+    /**
+     * Builds the graph of the top-level steps.
+     *
+     * @return The validated graph, or {@code null} if no step declares dependencies (a linear pipeline).
+     * @throws PipelineConfigurationException if a step declares no dependencies, a dependency is unknown or the
+     * steps form a cycle.
+     */
+    static PlanGraph of(String pipelineName, List<PlanStep> steps) {
+        if (steps.stream().noneMatch(step -> step.definition().dependsOn() != null)) {
+            return null;
+        }
+        // A step without dependsOn is ambiguous: list order (the previous step) or a root (the initial input)
+        List<String> undeclared = steps.stream()
+                .map(PlanStep::definition)
+                .filter(definition -> definition.dependsOn() == null)
+                .map(StepDefinition::id)
+                .toList();
+        if (!undeclared.isEmpty()) {
+            throw new PipelineConfigurationException("Steps " + undeclared + " of pipeline '" + pipelineName
+                    + "' declare no dependsOn, while other steps do. Steps consuming the initial input declare "
+                    + "an empty dependsOn.");
+        }
+
+        Map<String, Integer> indices = new HashMap<>();
+        for (int i = 0; i < steps.size(); i++) {
+            indices.put(steps.get(i).definition().id(), i);
+        }
+
+        int size = steps.size();
+        int[][] dependencies = new int[size][];
+        List<List<Integer>> dependentLists = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            dependentLists.add(new ArrayList<>());
+        }
+        for (int i = 0; i < size; i++) {
+            StepDefinition definition = steps.get(i).definition();
+            List<String> dependsOn = definition.dependsOn();
+            dependencies[i] = new int[dependsOn.size()];
+            for (int d = 0; d < dependsOn.size(); d++) {
+                Integer dependency = indices.get(dependsOn.get(d));
+                if (dependency == null) {
+                    throw new PipelineConfigurationException("Step '" + definition.id() + "' of pipeline '"
+                            + pipelineName + "' depends on unknown top-level step '" + dependsOn.get(d) + "'.");
+                }
+                dependencies[i][d] = dependency;
+                dependentLists.get(dependency).add(i);
+            }
+        }
+        int[][] dependents = dependentLists.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+
+        requireAcyclic(pipelineName, steps, dependencies, dependents);
+
+        List<Integer> roots = new ArrayList<>();
+        List<Integer> sinks = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (dependencies[i].length == 0) {
+                roots.add(i);
+            }
+            if (dependents[i].length == 0) {
+                sinks.add(i);
+            }
+        }
+        return new PlanGraph(steps, dependencies, dependents,
+                roots.stream().mapToInt(Integer::intValue).toArray(),
+                sinks.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * Kahn's algorithm: the steps left over once all steps without pending dependencies are removed form a cycle.
+     */
+    private static void requireAcyclic(String pipelineName, List<PlanStep> steps, int[][] dependencies, int[][] dependents) {
+        int[] pending = new int[steps.size()];
+        Queue<Integer> ready = new ArrayDeque<>();
+        for (int i = 0; i < steps.size(); i++) {
+            pending[i] = dependencies[i].length;
+            if (pending[i] == 0) {
+                ready.add(i);
+            }
+        }
+        int visited = 0;
+        while (!ready.isEmpty()) {
+            int step = ready.remove();
+            visited++;
+            for (int dependent : dependents[step]) {
+                if (--pending[dependent] == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        if (visited < steps.size()) {
+            List<String> cyclic = new ArrayList<>();
+            for (int i = 0; i < steps.size(); i++) {
+                if (pending[i] > 0) {
+                    cyclic.add(steps.get(i).definition().id());
+                }
+            }
+            throw new PipelineConfigurationException(
+                    "Steps " + cyclic + " of pipeline '" + pipelineName + "' form a dependency cycle.");
+        }
+    }
+
+    /**
+     * Starts the run: the roots are forked into the scope right away, every other step once its dependencies
+     * have finished.
+     *
+     * @param scope Owned by the caller; closing it waits for all running steps.
+     * @return A future completed with the result of the run, or with the failure of the first failing step once
+     * all other steps have stopped. Cancelling it shuts the scope down.
+     */
+    public CompletableFuture<Object> start(Object input, PipelineContext context, BranchScope<Object> scope) {
+        Run run = new Run(input, context, scope);
+        run.result.whenComplete((result, failure) -> {
+            if (run.result.isCancelled()) {
+                scope.shutdown();
+            }
+        });
+        for (int root : roots) {
+            run.fork(root);
+        }
+        return run.result;
+    }
+
+    /**
+     * State of one run of the graph. Outputs are written under the lock before their dependents are forked.
+     */
+    private final class Run {
+
+        private final Object input;
+        private final PipelineContext context;
+        private final BranchScope<Object> scope;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+        private final Object[] outputs = new Object[steps.size()];
+        private final int[] pending = new int[steps.size()];
+        /** Guarded by {@code this}. */
+        private int finished;
+        /** Guarded by {@code this}. */
+        private boolean failed;
+
+        Run(Object input, PipelineContext context, BranchScope<Object> scope) {
+            this.input = input;
+            this.context = context;
+            this.scope = scope;
+            for (int i = 0; i < steps.size(); i++) {
+                pending[i] = dependencies[i].length;
+            }
+        }
+
+        void fork(int index) {
+            PlanStep step = steps.get(index);
+            Object stepInput = inputOf(index);
+            // Dependents are forked from the thread completing a step, which may not carry the context
+            scope.fork(step.definition().id(), () -> PipelineContextHolder.callWithContext(context,
+                            () -> step.executeAsync(stepInput, context)))
+                    .whenComplete((output, failure) -> {
+                        if (failure != null) {
+                            fail(failure);
+                        } else {
+                            complete(index, output);
+                        }
+                    });
+        }
+
+        private void complete(int index, Object output) {
+            List<Integer> ready = new ArrayList<>();
+            boolean done;
+            synchronized (this) {
+                if (failed) {
+                    return;
+                }
+                outputs[index] = output;
+                for (int dependent : dependents[index]) {
+                    if (--pending[dependent] == 0) {
+                        ready.add(dependent);
+                    }
+                }
+                done = ++finished == steps.size();
+            }
+            if (done) {
+                result.complete(resultOf());
+                return;
+            }
+            ready.forEach(this::fork);
+        }
+
+        private void fail(Throwable failure) {
+            synchronized (this) {
+                if (failed) {
+                    // Siblings cancelled by the first failure
+                    return;
+                }
+                failed = true;
+            }
+            scope.shutdown();
+            // Report the failure only once the other steps are gone
+            scope.termination().whenComplete((ignored, none) -> result.completeExceptionally(Futures.unwrap(failure)));
+        }
+
+        private synchronized Object inputOf(int index) {
+            int[] upstream = dependencies[index];
+            if (upstream.length == 0) {
+                return input;
+            }
+            if (upstream.length == 1) {
+                return outputs[upstream[0]];
+            }
+            return outputsOf(upstream);
+        }
+
+        private synchronized Object resultOf() {
+            return sinks.length == 1 ? outputs[sinks[0]] : outputsOf(sinks);
+        }
+
+        private Map<String, Object> outputsOf(int[] indices) {
+            Map<String, Object> keyed = new LinkedHashMap<>();
+            for (int index : indices) {
+                keyed.put(steps.get(index).definition().id(), outputs[index]);
+            }
+            return Collections.unmodifiableMap(keyed);
+        }
+    }
+}
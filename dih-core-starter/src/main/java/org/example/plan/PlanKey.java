@@ -0,0 +1,26 @@
+package org.example.plan;
+
+import org.example.model.PipelineDefinition;
+
+/**
+ * Cache key of a compiled {@link PipelinePlan}.
+ * <p>
+ * A plan is identified by the pipeline name and its declared version. Publishing a new version
+ * of a definition therefore always produces a fresh plan, while repeated executions of the same
+ * version reuse the already compiled one.
+ * </p>
+ *
+ * @param pipelineName The {@link PipelineDefinition#name()}.
+ * @param version      The {@link PipelineDefinition#version()} (may be {@code null} for unversioned definitions).
+ */
+public record PlanKey(String pipelineName, String version) {
+
+    public static PlanKey of(PipelineDefinition definition) {
+        return new PlanKey(definition.name(), definition.version());
+    }
+
+    @Override
+    public String toString() {
+        return pipelineName + ":" + (version != null ? version : "unversioned");
+    }
+}
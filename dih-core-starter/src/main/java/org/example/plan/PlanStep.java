@@ -0,0 +1,564 @@
+package org.example.plan;
+
+import org.example.annotation.IdempotentStep;
+import org.example.batching.MicroBatcher;
+import org.example.bulkhead.Bulkhead;
+import org.example.bulkhead.BulkheadStep;
+import org.example.cache.StepCache;
+import org.example.circuitbreaker.CircuitBreaker;
+import org.example.coalescing.SingleFlight;
+import org.example.concurrency.Futures;
+import org.example.deadline.DeadlineTimer;
+import org.example.exception.CircuitBreakerOpenException;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.ExecutionRejectedException;
+import org.example.exception.PipelineConfigurationException;
+import org.example.exception.RetryBudgetExhaustedException;
+import org.example.exception.StepExecutionException;
+import org.example.hedge.Hedger;
+import org.example.hedge.HedgingStep;
+import org.example.model.StepDefinition;
+import org.example.resource.StepResourcePool;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.retry.RetryExecutor;
+import org.example.retry.RetryingStep;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.BatchPipelineStep;
+import org.example.step.CompositeStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.example.step.ResourceAwareStep;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Function;
+
+/**
+ * A single step of a compiled {@link PipelinePlan}.
+ * <p>
+ * Acts as a handle to the step bean living in the plan's context:
+ * <ul>
+ * <li><b>Shared steps</b> (singleton scope) are resolved once at compile time and invoked directly.</li>
+ * <li><b>Isolated steps</b> (any other scope, e.g. {@code prototype}) are resolved from the plan's context
+ * on every invocation, so each execution receives its own instance with all post-processors applied.</li>
+ * </ul>
+ * {@link ResourceAwareStep}s are invoked with a resource leased from the plan-owned {@link StepResourcePool}.
+ * </p>
+ * <p>
+ * Decorators are composed once, when the plan is compiled:
+ * <pre>
+ * CircuitBreaker -&gt; HedgingStep -&gt; RetryingStep -&gt; BulkheadStep -&gt; step bean (with pooled resource)
+ * </pre>
+ * A configured {@link CircuitBreaker} guards the whole invocation, including all retry attempts of the
+ * step bean: while it is open, calls fail fast with {@link CircuitBreakerOpenException}. Only failures of the
+ * downstream count towards it, not local rejections, cancellations or failures the retry policy ignores. A step-type
+ * {@link Bulkhead} is held per attempt only, never across a retry backoff. A {@code hedge} configuration
+ * races slow invocations of an {@link IdempotentStep} with a duplicate attempt, each with its own retries.
+ * </p>
+ * <p>
+ * {@link #executeAsync} composes the same chain without blocking. {@link AsyncPipelineStep} beans
+ * return their stage; synchronous beans run inline on the calling thread.
+ * </p>
+ * <p>
+ * {@link #executeBatch} passes a whole chunk through the same chain to a {@link BatchPipelineStep}:
+ * the circuit breaker, retries and the bulkhead then apply to the chunk as one call.
+ * With a {@code microBatch} configuration, single invocations by concurrent executions are first collected
+ * by a {@link MicroBatcher} and reach the chain as such chunks.
+ * </p>
+ * <p>
+ * The whole invocation runs within a deadline: the earlier of the execution's deadline and the step's
+ * {@code timeoutMs}. The chain receives a {@link PipelineContext} narrowed to that deadline, so retries and
+ * parallel branches stay within it. When it passes, the {@link DeadlineTimer} interrupts the invoking thread
+ * (or cancels the pending stage) and the step fails with {@link DeadlineExceededException}.
+ * Chunks of micro-batched steps serve many executions and are limited by the step's {@code timeoutMs} only.
+ * </p>
+ * <p>
+ * A {@code cache} configuration wraps all of the above: outputs found in the step's {@link StepCache} are
+ * returned without invoking the step, within no deadline. On a miss, a {@code coalesce} configuration attaches
+ * the invocation to an identical one already in flight through the step's {@link SingleFlight}, waiting within the
+ * invocation's own deadline; it runs on its own if the leading invocation exceeds its deadline, is cancelled or
+ * rejected. Chunks passed to {@link #executeBatch} are neither cached nor coalesced.
+ * </p>
+ */
+public class PlanStep implements AsyncPipelineStep<Object, Object> {
+
+    private final StepDefinition definition;
+    private final String beanName;
+    private final ConfigurableApplicationContext context;
+    private final Map<String, PipelineStep<Object, Object>> pipelineSteps;
+    private final StepResourcePool resourcePool;
+    private final CircuitBreaker circuitBreaker;
+    /** Failures the retry policy ignores; the circuit breaker does not count them either. */
+    private final RetryExceptionClassifier classifier;
+    private final AsyncPipelineStep<Object, Object> invocation;
+    private final PipelineStep<Object, Object> sharedInstance;
+    private final boolean batchCapable;
+    private final MicroBatcher microBatcher;
+    private final StepCache cache;
+    /** The invocation on a cache miss: coalesced, or the uncached chain. */
+    private final AsyncPipelineStep<Object, Object> loader;
+    private final DeadlineTimer deadlineTimer;
+
+    PlanStep(StepDefinition definition,
+             String beanName,
+             ConfigurableApplicationContext context,
+             Map<String, PipelineStep<Object, Object>> pipelineSteps,
+             StepResourcePool resourcePool,
+             CircuitBreaker circuitBreaker,
+             RetryExecutor retryExecutor,
+             Bulkhead bulkhead,
+             Function<MicroBatcher.BatchHandler, MicroBatcher> microBatching,
+             Hedger hedger,
+             StepCache cache,
+             SingleFlight singleFlight,
+             DeadlineTimer deadlineTimer) {
+        this.definition = definition;
+        this.beanName = beanName;
+        this.context = context;
+        this.pipelineSteps = pipelineSteps;
+        this.resourcePool = resourcePool;
+        this.circuitBreaker = circuitBreaker;
+        this.classifier = circuitBreaker != null && definition.retryPolicy() != null
+                ? RetryExceptionClassifier.of(definition.retryPolicy(), context.getClassLoader())
+                : RetryExceptionClassifier.RETRY_ALL;
+        this.deadlineTimer = deadlineTimer;
+        AsyncPipelineStep<Object, Object> guarded = bulkhead != null
+                ? new BulkheadStep(new BeanInvocation(), bulkhead)
+                : new BeanInvocation();
+        AsyncPipelineStep<Object, Object> retried = retryExecutor != null ? new RetryingStep(guarded, retryExecutor) : guarded;
+        Class<?> beanType = context.getType(beanName);
+        this.invocation = hedger != null ? new HedgingStep(retried, requireIdempotent(beanType, hedger)) : retried;
+        this.sharedInstance = context.getBeanFactory().isSingleton(beanName) ? lookup() : null;
+        this.batchCapable = beanType != null && BatchPipelineStep.class.isAssignableFrom(beanType);
+        this.microBatcher = microBatching != null ? createMicroBatcher(microBatching) : null;
+        this.cache = cache;
+        this.loader = singleFlight != null ? new Coalesced(singleFlight) : new Uncached();
+        if (hedger != null && sharedInstance == null) {
+            throw new PipelineConfigurationException(
+                    "Step '" + definition.id() + "' enables hedging but is not thread-safe: "
+                            + "both attempts share the execution's instance, and the losing one may outlive it.");
+        }
+        if (cache != null && definition.cache().refreshAheadMs() > 0 && sharedInstance == null) {
+            throw new PipelineConfigurationException(
+                    "Step '" + definition.id() + "' enables cache refresh-ahead but is not thread-safe: "
+                            + "reloads run after the triggering execution may have ended.");
+        }
+    }
+
+    private MicroBatcher createMicroBatcher(Function<MicroBatcher.BatchHandler, MicroBatcher> microBatching) {
+        if (!batchCapable) {
+            throw new PipelineConfigurationException(
+                    "Step '" + definition.id() + "' enables micro-batching but is not a BatchPipelineStep.");
+        }
+        if (sharedInstance == null) {
+            throw new PipelineConfigurationException(
+                    "Step '" + definition.id() + "' enables micro-batching but is not thread-safe: "
+                            + "one instance must serve all executions of a batch.");
+        }
+        // A chunk serves many executions: none of their deadlines applies to it
+        return microBatching.apply((inputs, context) -> executeChunk(inputs, context, timeoutDeadline()));
+    }
+
+    private Hedger requireIdempotent(Class<?> beanType, Hedger hedger) {
+        if (beanType == null || !AnnotatedElementUtils.hasAnnotation(beanType, IdempotentStep.class)) {
+            throw new PipelineConfigurationException(
+                    "Step '" + definition.id() + "' enables hedging but is not marked @IdempotentStep: "
+                            + "duplicate attempts could repeat its side effects.");
+        }
+        return hedger;
+    }
+
+    public StepDefinition definition() {
+        return definition;
+    }
+
+    public String beanName() {
+        return beanName;
+    }
+
+    /**
+     * @return {@code true} if a single instance of this step is shared by all executions of the plan.
+     */
+    public boolean isShared() {
+        return sharedInstance != null;
+    }
+
+    /**
+     * @return {@code true} if the step bean is a {@link BatchPipelineStep} and accepts {@link #executeBatch}.
+     */
+    public boolean isBatchCapable() {
+        return batchCapable;
+    }
+
+    /**
+     * Resolves the step instance for the current execution.
+     */
+    public PipelineStep<Object, Object> resolve() {
+        if (sharedInstance != null) {
+            return sharedInstance;
+        }
+        PipelineStep<Object, Object> step = lookup();
+        bind(step);
+        return step;
+    }
+
+    @Override
+    public Object execute(Object input, PipelineContext context) throws Exception {
+        return cache != null ? cache.execute(input, context, loader) : loader.execute(input, context);
+    }
+
+    private Object executeUncached(Object input, PipelineContext context) throws Exception {
+        long deadline = deadlineOf(context);
+        if (deadline == PipelineContext.NO_DEADLINE) {
+            return executeUnbounded(input, context);
+        }
+        return callBefore(deadline, context, () -> executeUnbounded(input, context.withDeadline(deadline)));
+    }
+
+    private Object executeUnbounded(Object input, PipelineContext context) throws Exception {
+        if (microBatcher != null && !(input instanceof Chunk)) {
+            return Futures.await(microBatcher.submit(input, context));
+        }
+        return executeChain(input, context);
+    }
+
+    private Object executeChain(Object input, PipelineContext context) throws Exception {
+        if (circuitBreaker == null) {
+            return invocation.execute(input, context);
+        }
+
+        long permit = circuitBreaker.tryAcquirePermission();
+        if (permit == CircuitBreaker.REJECTED) {
+            throw new CircuitBreakerOpenException(definition.id(), circuitBreaker.getName());
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.execute(input, context);
+            circuitBreaker.onSuccess(permit, System.nanoTime() - start);
+            return result;
+        } catch (Exception | Error e) {
+            recordFailure(permit, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Records a failed call with the circuit breaker, if it tells anything about the downstream.
+     * Local rejections (a full bulkhead, an empty retry budget), cancellations (by the caller, a sibling branch
+     * or a deadline) and failures ignored by the retry policy (e.g. validation errors) only return the permit.
+     */
+    private void recordFailure(long permit, long durationNanos, Throwable failure) {
+        Throwable cause = Futures.unwrap(failure);
+        boolean local = hasCause(cause, ExecutionRejectedException.class)
+                || hasCause(cause, RetryBudgetExhaustedException.class)
+                || Futures.isCancellation(cause)
+                || classifier.isIgnored(cause);
+        if (local) {
+            circuitBreaker.releasePermission(permit);
+        } else {
+            circuitBreaker.onError(permit, durationNanos);
+        }
+    }
+
+    private static boolean hasCause(Throwable failure, Class<? extends Throwable> type) {
+        for (Throwable current = failure; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Invokes a {@link BatchPipelineStep} once for a chunk of items, through the decorator chain.
+     *
+     * @return One output per input, in input order.
+     * @throws StepExecutionException if the step returns a result list of a different size.
+     */
+    public List<Object> executeBatch(List<Object> inputs, PipelineContext context) throws Exception {
+        if (!batchCapable) {
+            throw new IllegalStateException("Step '" + definition.id() + "' is not a BatchPipelineStep.");
+        }
+        return executeChunk(inputs, context, deadlineOf(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> executeChunk(List<Object> inputs, PipelineContext context, long deadline) throws Exception {
+        if (deadline == PipelineContext.NO_DEADLINE) {
+            return (List<Object>) executeChain(new Chunk(inputs), context);
+        }
+        return callBefore(deadline, context,
+                () -> (List<Object>) executeChain(new Chunk(inputs), context.withDeadline(deadline)));
+    }
+
+    /**
+     * Runs a synchronous invocation on the calling thread, interrupting it once the deadline has passed.
+     * A failure after the deadline is reported as {@link DeadlineExceededException}.
+     */
+    private <T> T callBefore(long deadline, PipelineContext context, Callable<T> invocation) throws Exception {
+        if (System.currentTimeMillis() >= deadline) {
+            throw deadlineExceeded(context, deadline, null);
+        }
+        DeadlineTimer.Alarm alarm = deadlineTimer.interruptAt(deadline);
+        try {
+            return invocation.call();
+        } catch (Exception e) {
+            if (alarm.disarm() || System.currentTimeMillis() >= deadline) {
+                throw deadlineExceeded(context, deadline, e);
+            }
+            throw e;
+        } finally {
+            alarm.disarm();
+        }
+    }
+
+    @Override
+    public CompletableFuture<Object> executeAsync(Object input, PipelineContext context) {
+        return cache != null ? cache.executeAsync(input, context, loader) : start(loader, input, context);
+    }
+
+    private CompletableFuture<Object> executeAsyncUncached(Object input, PipelineContext context) {
+        long deadline = deadlineOf(context);
+        if (deadline == PipelineContext.NO_DEADLINE) {
+            return startUnbounded(input, context);
+        }
+        if (System.currentTimeMillis() >= deadline) {
+            return CompletableFuture.failedFuture(deadlineExceeded(context, deadline, null));
+        }
+
+        // Synchronous step beans run inline: they are interrupted like in execute()
+        DeadlineTimer.Alarm alarm = deadlineTimer.interruptAt(deadline);
+        CompletableFuture<Object> stage;
+        boolean expired;
+        try {
+            stage = startUnbounded(input, context.withDeadline(deadline));
+        } finally {
+            expired = alarm.disarm();
+        }
+        if (expired && (!stage.isDone() || stage.isCompletedExceptionally())) {
+            Throwable failure = stage.isDone() ? Futures.unwrap(stage.exceptionNow()) : null;
+            stage.cancel(true);
+            return CompletableFuture.failedFuture(deadlineExceeded(context, deadline, failure));
+        }
+        return deadlineTimer.bound(stage, deadline, () -> deadlineExceeded(context, deadline, null));
+    }
+
+    private CompletableFuture<Object> startUnbounded(Object input, PipelineContext context) {
+        if (microBatcher != null) {
+            return microBatcher.submit(input, context);
+        }
+        if (circuitBreaker == null) {
+            return start(invocation, input, context);
+        }
+
+        long permit = circuitBreaker.tryAcquirePermission();
+        if (permit == CircuitBreaker.REJECTED) {
+            return CompletableFuture.failedFuture(new CircuitBreakerOpenException(definition.id(), circuitBreaker.getName()));
+        }
+        long start = System.nanoTime();
+        CompletableFuture<Object> stage = start(invocation, input, context);
+        return Futures.propagateCancellation(stage.whenComplete((result, failure) -> {
+            if (failure == null) {
+                circuitBreaker.onSuccess(permit, System.nanoTime() - start);
+            } else {
+                recordFailure(permit, System.nanoTime() - start, failure);
+            }
+        }), stage);
+    }
+
+    /**
+     * @return The earlier of the execution's deadline and the end of the step's timeout, as of now.
+     */
+    private long deadlineOf(PipelineContext context) {
+        return Math.min(context.deadline(), timeoutDeadline());
+    }
+
+    private long timeoutDeadline() {
+        Long timeoutMs = definition.timeoutMs();
+        return timeoutMs != null ? System.currentTimeMillis() + timeoutMs : PipelineContext.NO_DEADLINE;
+    }
+
+    private DeadlineExceededException deadlineExceeded(PipelineContext context, long deadline, Throwable cause) {
+        if (cause instanceof DeadlineExceededException exceeded) {
+            return exceeded;
+        }
+        String message = deadline < context.deadline()
+                ? "Step '" + definition.id() + "' did not finish within its timeout of " + definition.timeoutMs() + "ms."
+                : "Execution deadline of pipeline '" + context.pipelineName() + "' passed in step '" + definition.id() + "'.";
+        return new DeadlineExceededException(message, definition.id(), cause);
+    }
+
+    private static CompletableFuture<Object> start(AsyncPipelineStep<Object, Object> step, Object input, PipelineContext context) {
+        try {
+            return step.executeAsync(input, context).toCompletableFuture();
+        } catch (Throwable t) {
+            return CompletableFuture.failedFuture(t);
+        }
+    }
+
+    private Object invoke(Object input, PipelineContext context) throws Exception {
+        return invoke(resolve(), input, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object invoke(PipelineStep<Object, Object> step, Object input, PipelineContext context) throws Exception {
+        if (input instanceof Chunk chunk && step instanceof BatchPipelineStep<?, ?> batchStep) {
+            List<Object> outputs = ((BatchPipelineStep<Object, Object>) batchStep).executeBatch(chunk.items(), context);
+            if (outputs == null || outputs.size() != chunk.items().size()) {
+                throw new StepExecutionException("Batch step returned " + (outputs == null ? "no" : outputs.size())
+                        + " results for " + chunk.items().size() + " inputs.", definition.id());
+            }
+            return outputs;
+        }
+        // A ResourceAwareStep leases its resource from the pool bound by bind()
+        return step.execute(input, context);
+    }
+
+    @SuppressWarnings("unchecked")
+    private CompletionStage<Object> invokeAsync(Object input, PipelineContext context) throws Exception {
+        // Attempts may start on timer or I/O threads: pipeline-scoped beans need the execution bound
+        PipelineStep<Object, Object> step = PipelineContextHolder.callWithContext(context, this::resolve);
+
+        if (step instanceof AsyncPipelineStep<?, ?> async && !(step instanceof ResourceAwareStep<?, ?, ?>)) {
+            return ((AsyncPipelineStep<Object, Object>) async).executeAsync(input, context);
+        }
+        return Futures.call(() -> PipelineContextHolder.callWithContext(context, () -> invoke(step, input, context)));
+    }
+
+    /**
+     * The items of one {@link #executeBatch} call, passed as a single input through the decorator chain.
+     */
+    private record Chunk(List<Object> items) {
+    }
+
+    /**
+     * The invocation of the step on a cache miss: the whole chain within the deadline.
+     */
+    private final class Uncached implements AsyncPipelineStep<Object, Object> {
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            return executeUncached(input, context);
+        }
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            return executeAsyncUncached(input, context);
+        }
+    }
+
+    /**
+     * The invocation of the step on a cache miss, attached to an identical one in flight if there is any.
+     * Followers wait within their own deadline; the leader runs the chain like an uncoalesced invocation.
+     */
+    private final class Coalesced implements AsyncPipelineStep<Object, Object> {
+
+        private final SingleFlight singleFlight;
+
+        Coalesced(SingleFlight singleFlight) {
+            this.singleFlight = singleFlight;
+        }
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            Object key = singleFlight.keyOf(input);
+            if (key == null) {
+                return executeUncached(input, context);
+            }
+            long deadline = deadlineOf(context);
+            return singleFlight.execute(key, deadline, () -> deadlineExceeded(context, deadline, null),
+                    () -> executeUncached(input, context));
+        }
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            Object key = singleFlight.keyOf(input);
+            if (key == null) {
+                return executeAsyncUncached(input, context);
+            }
+            long deadline = deadlineOf(context);
+            return deadlineTimer.bound(singleFlight.call(key, () -> executeAsyncUncached(input, context)),
+                    deadline, () -> deadlineExceeded(context, deadline, null));
+        }
+    }
+
+    /**
+     * The innermost link of the decorator chain: invokes the step bean.
+     */
+    private final class BeanInvocation implements AsyncPipelineStep<Object, Object> {
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            return invoke(input, context);
+        }
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) throws Exception {
+            return invokeAsync(input, context);
+        }
+    }
+
+    /**
+     * This step, seen by composite steps as a {@link BatchPipelineStep}. Chunks go through {@link #executeBatch}.
+     */
+    private final class BatchSubStep implements AsyncPipelineStep<Object, Object>, BatchPipelineStep<Object, Object> {
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            return PlanStep.this.execute(input, context);
+        }
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            return PlanStep.this.executeAsync(input, context);
+        }
+
+        @Override
+        public List<Object> executeBatch(List<Object> inputs, PipelineContext context) throws Exception {
+            return PlanStep.this.executeBatch(inputs, context);
+        }
+    }
+
+    /**
+     * Hands the plan's steps to a composite step, and the plan's resource pool to a resource-aware step.
+     * Shared instances are bound once by the plan, isolated ones on every resolution.
+     */
+    void bind(PipelineStep<Object, Object> step) {
+        if (step instanceof CompositeStep composite) {
+            composite.bindSubSteps(pipelineSteps);
+        }
+        if (resourcePool != null && step instanceof ResourceAwareStep<?, ?, ?> resourceAware) {
+            resourceAware.bindResourcePool(resourcePool);
+        }
+    }
+
+    PipelineStep<Object, Object> sharedInstance() {
+        return sharedInstance;
+    }
+
+    /**
+     * @return The step as bound to composite steps: a batch-capable step is exposed as a
+     * {@link BatchPipelineStep}, so composites can pass it whole chunks.
+     */
+    PipelineStep<Object, Object> asSubStep() {
+        return batchCapable ? new BatchSubStep() : this;
+    }
+
+    private PipelineStep<Object, Object> lookup() {
+        Object bean = context.getBean(beanName);
+
+        if (!(bean instanceof PipelineStep)) {
+            throw new IllegalStateException("Bean '" + beanName + "' is not a PipelineStep.");
+        }
+
+        @SuppressWarnings("unchecked")
+        PipelineStep<Object, Object> step = (PipelineStep<Object, Object>) bean;
+        return step;
+    }
+}
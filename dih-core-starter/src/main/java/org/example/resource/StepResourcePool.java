@@ -0,0 +1,197 @@
+package org.example.resource;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.example.exception.StepExecutionException;
+import org.example.model.StepDefinition;
+import org.example.step.ResourceAwareStep;
+import org.example.step.StepResource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of {@link StepResource}s for one step of a compiled pipeline version.
+ * <p>
+ * Resources are created lazily by the {@link ResourceAwareStep} on demand, kept after use and
+ * handed out LIFO (hot resources first). The total number of resources - idle and leased - never
+ * exceeds {@code maxSize}; invocations wait up to {@code acquireTimeout} for a free one.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * <ul>
+ * <li>{@code dih.step.resource.pool.size} (gauge, {@code state=idle|leased}) - current pool size.</li>
+ * <li>{@code dih.step.resource.acquire} (timer) - time spent waiting for a resource.</li>
+ * <li>{@code dih.step.resource.created} (counter) - resource creation rate.</li>
+ * </ul>
+ */
+public class StepResourcePool {
+
+    private static final Logger log = LoggerFactory.getLogger(StepResourcePool.class);
+
+    private final StepDefinition stepDefinition;
+    private final Duration acquireTimeout;
+    private final Semaphore permits;
+    private final Deque<StepResource> idle = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger leased = new AtomicInteger();
+
+    private final MeterRegistry meterRegistry;
+    private final List<Meter> meters = new ArrayList<>();
+    private final Timer acquireTimer;
+    private final Counter createdCounter;
+
+    private volatile boolean closed;
+
+    public StepResourcePool(StepDefinition stepDefinition,
+                            String pipelineName,
+                            String pipelineVersion,
+                            int maxSize,
+                            Duration acquireTimeout,
+                            MeterRegistry meterRegistry) {
+        this.stepDefinition = stepDefinition;
+        this.acquireTimeout = acquireTimeout;
+        this.permits = new Semaphore(maxSize, true);
+        this.meterRegistry = meterRegistry;
+
+        Tags tags = Tags.of(
+                "pipeline.name", pipelineName,
+                "pipeline.version", String.valueOf(pipelineVersion),
+                "step.id", stepDefinition.id());
+
+        meters.add(Gauge.builder("dih.step.resource.pool.size", idle, Deque::size)
+                .tags(tags).tag("state", "idle")
+                .description("Idle resources held by the step resource pool.")
+                .register(meterRegistry));
+        meters.add(Gauge.builder("dih.step.resource.pool.size", leased, AtomicInteger::get)
+                .tags(tags).tag("state", "leased")
+                .description("Resources currently leased to step invocations.")
+                .register(meterRegistry));
+        this.acquireTimer = Timer.builder("dih.step.resource.acquire")
+                .tags(tags)
+                .description("Time spent waiting for a pooled step resource.")
+                .register(meterRegistry);
+        this.createdCounter = Counter.builder("dih.step.resource.created")
+                .tags(tags)
+                .description("Number of step resources created.")
+                .register(meterRegistry);
+        meters.add(acquireTimer);
+        meters.add(createdCounter);
+    }
+
+    /**
+     * Leases a resource, creating and opening a new one if no idle resource is available.
+     *
+     * @param step The step creating resources on demand.
+     * @return A resource that MUST be returned via {@link #release(StepResource)}.
+     * @throws StepExecutionException if no resource becomes available in time or opening fails.
+     * @throws InterruptedException if the invocation is cancelled (or its deadline passes) while waiting.
+     */
+    public StepResource acquire(ResourceAwareStep<?, ?, ?> step) throws InterruptedException {
+        if (closed) {
+            throw new StepExecutionException("Resource pool is closed.", stepDefinition.id());
+        }
+
+        long waitStart = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new StepExecutionException(
+                        "Timed out after " + acquireTimeout.toMillis() + "ms waiting for a pooled resource.",
+                        stepDefinition.id());
+            }
+        } finally {
+            acquireTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+        }
+
+        try {
+            StepResource resource = pollValid();
+            if (resource == null) {
+                resource = create(step);
+            }
+            leased.incrementAndGet();
+            return resource;
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns a leased resource. Invalid resources, and all resources of a closed pool, are closed.
+     */
+    public void release(StepResource resource) {
+        leased.decrementAndGet();
+        try {
+            if (closed || !resource.isValid()) {
+                destroy(resource);
+            } else {
+                idle.offerFirst(resource);
+                // Pool closed concurrently: make sure the resource does not linger
+                if (closed && idle.remove(resource)) {
+                    destroy(resource);
+                }
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Closes all idle resources and removes the pool's meters. Leased resources are closed on release.
+     */
+    public void close() {
+        closed = true;
+        StepResource resource;
+        while ((resource = idle.pollFirst()) != null) {
+            destroy(resource);
+        }
+        meters.forEach(meterRegistry::remove);
+    }
+
+    int idleCount() {
+        return idle.size();
+    }
+
+    private StepResource pollValid() {
+        StepResource resource;
+        while ((resource = idle.pollFirst()) != null) {
+            if (resource.isValid()) {
+                return resource;
+            }
+            destroy(resource);
+        }
+        return null;
+    }
+
+    private StepResource create(ResourceAwareStep<?, ?, ?> step) {
+        StepResource resource = step.createResource();
+        try {
+            resource.open(stepDefinition);
+        } catch (Exception e) {
+            destroy(resource);
+            throw new StepExecutionException("Failed to open resource: " + e.getMessage(), stepDefinition.id(), e);
+        }
+        createdCounter.increment();
+        log.debug("Opened new resource for step '{}' ({})", stepDefinition.id(), resource.getClass().getSimpleName());
+        return resource;
+    }
+
+    private void destroy(StepResource resource) {
+        try {
+            resource.close();
+        } catch (Exception e) {
+            log.warn("Failed to close resource of step '{}'", stepDefinition.id(), e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package org.example.retry;
+
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.RetryPolicyDefinition.Backoff;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Computes the delays of one retry sequence according to a {@link RetryPolicyDefinition}.
+ * <p>
+ * Stateful (decorrelated jitter depends on the previous delay): create one instance per
+ * step invocation and call {@link #nextDelay()} once per failed attempt.
+ * </p>
+ */
+public final class RetryBackoff {
+
+    private final RetryPolicyDefinition policy;
+    private int retries;
+    private long previousDelay;
+
+    public RetryBackoff(RetryPolicyDefinition policy) {
+        this.policy = policy;
+        this.previousDelay = policy.delay();
+    }
+
+    /**
+     * @return The delay in milliseconds before the next attempt.
+     */
+    public long nextDelay() {
+        retries++;
+        long base = Math.max(0, policy.delay());
+
+        long delay = switch (policy.jitter()) {
+            case NONE -> computeDelay(base);
+            case FULL -> random(0, computeDelay(base));
+            case DECORRELATED -> cap(random(base, saturatedMultiply(previousDelay, 3)));
+        };
+        previousDelay = Math.max(delay, base);
+        return delay;
+    }
+
+    private long computeDelay(long base) {
+        if (policy.backoff() == Backoff.FIXED) {
+            return cap(base);
+        }
+        double exponential = base * Math.pow(policy.multiplier(), retries - 1);
+        return cap(exponential >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) exponential);
+    }
+
+    private long cap(long delay) {
+        return policy.maxDelay() > 0 ? Math.min(delay, policy.maxDelay()) : delay;
+    }
+
+    private static long random(long from, long to) {
+        return to <= from ? from : ThreadLocalRandom.current().nextLong(from, to + 1);
+    }
+
+    private static long saturatedMultiply(long value, int factor) {
+        return value > Long.MAX_VALUE / factor ? Long.MAX_VALUE : value * factor;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.retry;
+
+/**
+ * Caps the number of retries relative to the number of calls, so retries cannot multiply
+ * the load on a failing downstream.
+ *
+ * @see TokenBucketRetryBudget
+ */
+public interface RetryBudget {
+
+    /**
+     * Records a call (first attempt) and credits the budget accordingly.
+     */
+    void recordCall();
+
+    /**
+     * @return {@code true} if a retry may proceed; the retry is charged to the budget.
+     */
+    boolean tryAcquireRetry();
+
+    /**
+     * Returns the charge of a retry that did not take place.
+     */
+    void refund();
+
+    /**
+     * @return The number of retries currently affordable.
+     */
+    double availableTokens();
+
+    /**
+     * Combines budgets: a retry must be affordable for each of them.
+     */
+    static RetryBudget allOf(RetryBudget first, RetryBudget second) {
+        return new RetryBudget() {
+            @Override
+            public void recordCall() {
+                first.recordCall();
+                second.recordCall();
+            }
+
+            @Override
+            public boolean tryAcquireRetry() {
+                if (!first.tryAcquireRetry()) {
+                    return false;
+                }
+                if (!second.tryAcquireRetry()) {
+                    first.refund();
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public void refund() {
+                first.refund();
+                second.refund();
+            }
+
+            @Override
+            public double availableTokens() {
+                return Math.min(first.availableTokens(), second.availableTokens());
+            }
+        };
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.retry;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.config.DihProperties;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Application-wide {@link RetryBudget}s, shared by all compiled plans.
+ * <p>
+ * Two budgets guard every retry: one per <b>step type</b> (all pipelines calling the same kind of
+ * downstream) and one per <b>pipeline</b>. A retry proceeds only if both have a token left.
+ * </p>
+ *
+ * <h2>Metrics:</h2>
+ * {@code dih.retry.budget.tokens} (gauge, {@code budget=step.type|pipeline}, {@code name}) - remaining tokens.
+ */
+public class RetryBudgetRegistry {
+
+    private final DihProperties.Retry.Budget settings;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, RetryBudget> stepTypeBudgets = new ConcurrentHashMap<>();
+    private final Map<String, RetryBudget> pipelineBudgets = new ConcurrentHashMap<>();
+
+    public RetryBudgetRegistry(DihProperties.Retry.Budget settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * @return The combined budget of the step type and the pipeline, or {@code null} if budgets are disabled.
+     */
+    public RetryBudget budgetFor(String pipelineName, String stepType) {
+        if (!settings.isEnabled()) {
+            return null;
+        }
+        return RetryBudget.allOf(
+                stepTypeBudgets.computeIfAbsent(String.valueOf(stepType), type -> create("step.type", type)),
+                pipelineBudgets.computeIfAbsent(pipelineName, name -> create("pipeline", name)));
+    }
+
+    private RetryBudget create(String scope, String name) {
+        TokenBucketRetryBudget budget = new TokenBucketRetryBudget(
+                settings.getPercent() / 100.0, settings.getMinRetriesPerSecond(), settings.getMaxTokens());
+        Gauge.builder("dih.retry.budget.tokens", budget, TokenBucketRetryBudget::availableTokens)
+                .tag("budget", scope)
+                .tag("name", name)
+                .description("Retry tokens currently available.")
+                .register(meterRegistry);
+        return budget;
+    }
+}
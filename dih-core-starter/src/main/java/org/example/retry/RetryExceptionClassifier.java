@@ -0,0 +1,85 @@
+package org.example.retry;
+
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.RetryPolicyDefinition;
+import org.springframework.util.ClassUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides whether a failure is worth retrying, based on the {@code retryExceptions} and
+ * {@code ignoreExceptions} of a {@link RetryPolicyDefinition}.
+ * <p>
+ * A failure is retryable unless an ignored type appears anywhere in its cause chain. If retryable
+ * types are configured, one of them must appear in the cause chain as well. Class names are resolved
+ * once, when the pipeline is registered.
+ * </p>
+ */
+public final class RetryExceptionClassifier {
+
+    /** Retries every {@code Exception}. */
+    public static final RetryExceptionClassifier RETRY_ALL = new RetryExceptionClassifier(List.of(), List.of());
+
+    private final List<Class<?>> retryable;
+    private final List<Class<?>> ignored;
+
+    private RetryExceptionClassifier(List<Class<?>> retryable, List<Class<?>> ignored) {
+        this.retryable = retryable;
+        this.ignored = ignored;
+    }
+
+    /**
+     * @throws PipelineConfigurationException if a configured class cannot be loaded or is not a {@link Throwable}.
+     */
+    public static RetryExceptionClassifier of(RetryPolicyDefinition policy, ClassLoader classLoader) {
+        if (policy.retryExceptions().isEmpty() && policy.ignoreExceptions().isEmpty()) {
+            return RETRY_ALL;
+        }
+        return new RetryExceptionClassifier(
+                resolve(policy.retryExceptions(), classLoader),
+                resolve(policy.ignoreExceptions(), classLoader));
+    }
+
+    /**
+     * @return {@code true} if an ignored type (e.g. a validation error) appears in the failure's cause chain.
+     */
+    public boolean isIgnored(Throwable failure) {
+        return matches(ignored, failure);
+    }
+
+    public boolean isRetryable(Throwable failure) {
+        if (matches(ignored, failure)) {
+            return false;
+        }
+        return retryable.isEmpty() || matches(retryable, failure);
+    }
+
+    private static boolean matches(List<Class<?>> types, Throwable failure) {
+        for (Throwable current = failure; current != null; current = current.getCause() == current ? null : current.getCause()) {
+            for (Class<?> type : types) {
+                if (type.isInstance(current)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<Class<?>> resolve(List<String> classNames, ClassLoader classLoader) {
+        List<Class<?>> types = new ArrayList<>(classNames.size());
+        for (String className : classNames) {
+            Class<?> type;
+            try {
+                type = ClassUtils.forName(className, classLoader);
+            } catch (ClassNotFoundException | LinkageError e) {
+                throw new PipelineConfigurationException("Unknown exception class '" + className + "' in retry policy.", e);
+            }
+            if (!Throwable.class.isAssignableFrom(type)) {
+                throw new PipelineConfigurationException("'" + className + "' in retry policy is not an exception type.");
+            }
+            types.add(type);
+        }
+        return List.copyOf(types);
+    }
+}
@@ -0,0 +1,368 @@
+package org.example.retry;
+
+import io.micrometer.core.instrument.Counter;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.RetryBudgetExhaustedException;
+import org.example.exception.RetryExhaustedException;
+import org.example.concurrency.Futures;
+import org.example.exception.StepExecutionException;
+import org.example.model.RetryPolicyDefinition;
+import org.example.step.PipelineContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs a step invocation under a {@link RetryPolicyDefinition}.
+ * <p>
+ * Synchronous invocations ({@link #execute}) run every attempt on the calling thread, so an interrupt of the
+ * caller reaches the running attempt and no attempt outlives the call. Between attempts the caller either
+ * </p>
+ * <ul>
+ * <li><b>parks</b> (when a {@link RetryScheduler} is configured): on a virtual thread the wait releases
+ * its carrier, or</li>
+ * <li><b>sleeps</b> through the backoff (legacy behaviour).</li>
+ * </ul>
+ * Exhausted retries surface as {@link RetryExhaustedException} carrying the last failure. Cancelled attempts
+ * (see {@link Futures#isCancellation}) are never retried, and an interrupted backoff ends with
+ * {@link InterruptedException}, so a cancelled or expired execution is not reported as a step failure.
+ * <p>
+ * Asynchronous invocations ({@link #executeAsync}, {@link #executeStages}) run their first attempt on the
+ * calling thread; the backoff elapses on the shared timer of the {@link RetryScheduler} and later attempts
+ * resume on fresh virtual threads. Attempt stages are composed without blocking: each stage decides, on
+ * completion, whether the next attempt is scheduled.
+ * </p>
+ *
+ * <h2>Retry Storm Protection:</h2>
+ * <ul>
+ * <li>Failures rejected by the {@link RetryExceptionClassifier} (e.g. validation errors) are rethrown
+ * immediately, without further attempts.</li>
+ * <li>Each retry is charged to a {@link RetryBudget}. When the budget is empty, the step fails fast with
+ * {@link RetryBudgetExhaustedException} instead of adding load to a failing downstream.</li>
+ * <li>With a deadline, a retry is only scheduled if the next attempt can finish in time: the backoff plus the
+ * duration of the failed attempt must end before the deadline. Otherwise the step fails right away with
+ * {@link DeadlineExceededException}.</li>
+ * </ul>
+ */
+public class RetryExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryExecutor.class);
+
+    private final RetryPolicyDefinition policy;
+    private final String stepId;
+    private final Counter retryCounter;
+    private final RetryScheduler scheduler;
+    private final RetryExceptionClassifier classifier;
+    private final RetryBudget budget;
+    private final Counter budgetExhaustedCounter;
+
+    /**
+     * @param scheduler The backoff timer; {@code null} selects blocking waits.
+     */
+    public RetryExecutor(RetryPolicyDefinition policy, String stepId, Counter retryCounter, RetryScheduler scheduler) {
+        this(policy, stepId, retryCounter, scheduler, RetryExceptionClassifier.RETRY_ALL, null, null);
+    }
+
+    /**
+     * @param scheduler              The backoff timer; {@code null} selects blocking waits.
+     * @param classifier             Decides which failures are retried.
+     * @param budget                 Limits retries relative to calls; {@code null} for unlimited retries.
+     * @param budgetExhaustedCounter Incremented whenever the budget rejects a retry.
+     */
+    public RetryExecutor(RetryPolicyDefinition policy,
+                         String stepId,
+                         Counter retryCounter,
+                         RetryScheduler scheduler,
+                         RetryExceptionClassifier classifier,
+                         RetryBudget budget,
+                         Counter budgetExhaustedCounter) {
+        this.policy = policy;
+        this.stepId = stepId;
+        this.retryCounter = retryCounter;
+        this.scheduler = scheduler;
+        this.classifier = classifier != null ? classifier : RetryExceptionClassifier.RETRY_ALL;
+        this.budget = budget;
+        this.budgetExhaustedCounter = budgetExhaustedCounter;
+    }
+
+    /**
+     * Runs the attempts on the calling thread. On a virtual thread, backoffs do not hold a carrier.
+     *
+     * @throws RetryExhaustedException if all attempts failed.
+     */
+    public <T> T execute(Callable<T> attempt) throws Exception {
+        return execute(attempt, PipelineContext.NO_DEADLINE);
+    }
+
+    /**
+     * Runs the attempts on the calling thread, retrying only while the next attempt can finish before
+     * the deadline.
+     *
+     * @param deadline Epoch timestamp (ms), usually {@link PipelineContext#deadline()}.
+     * @throws RetryExhaustedException if all attempts failed.
+     * @throws DeadlineExceededException if an attempt failed and the next one could not finish in time.
+     */
+    public <T> T execute(Callable<T> attempt, long deadline) throws Exception {
+        if (budget != null) {
+            budget.recordCall();
+        }
+        return executeBlocking(attempt, deadline);
+    }
+
+    /**
+     * Runs the attempts without blocking between them.
+     *
+     * @return A future completed with the first successful result, or exceptionally with
+     * {@link RetryExhaustedException}. Cancelling it prevents further attempts.
+     * @throws IllegalStateException if no {@link RetryScheduler} is configured.
+     */
+    public <T> CompletableFuture<T> executeAsync(Callable<T> attempt) {
+        return executeAsync(attempt, PipelineContext.NO_DEADLINE);
+    }
+
+    /**
+     * Runs the attempts without blocking between them, retrying only while the next attempt can finish
+     * before the deadline.
+     *
+     * @see #executeAsync(Callable)
+     */
+    public <T> CompletableFuture<T> executeAsync(Callable<T> attempt, long deadline) {
+        if (scheduler == null) {
+            throw new IllegalStateException("Asynchronous retries require a RetryScheduler.");
+        }
+        if (budget != null) {
+            budget.recordCall();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        runAttempt(attempt, 1, new RetryBackoff(policy), deadline, result);
+        return result;
+    }
+
+    /**
+     * Runs attempts that complete asynchronously. No thread waits for an attempt or a backoff.
+     *
+     * @param attempt Starts one attempt.
+     * @return A future completed with the first successful result, or exceptionally with
+     * {@link RetryExhaustedException}. Cancelling it cancels the running attempt and prevents further ones.
+     * @throws IllegalStateException if no {@link RetryScheduler} is configured.
+     */
+    public <T> CompletableFuture<T> executeStages(Callable<? extends CompletionStage<T>> attempt) {
+        return executeStages(attempt, PipelineContext.NO_DEADLINE);
+    }
+
+    /**
+     * Runs attempts that complete asynchronously, retrying only while the next attempt can finish before
+     * the deadline.
+     *
+     * @see #executeStages(Callable)
+     */
+    public <T> CompletableFuture<T> executeStages(Callable<? extends CompletionStage<T>> attempt, long deadline) {
+        if (scheduler == null) {
+            throw new IllegalStateException("Asynchronous retries require a RetryScheduler.");
+        }
+        if (budget != null) {
+            budget.recordCall();
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        runStageAttempt(attempt, 1, new RetryBackoff(policy), deadline, result);
+        return result;
+    }
+
+    /**
+     * @return {@code true} if backoffs elapse on a {@link RetryScheduler}, so
+     * {@link #executeAsync} and {@link #executeStages} are available.
+     */
+    public boolean isScheduled() {
+        return scheduler != null;
+    }
+
+    private <T> void runAttempt(Callable<T> attempt,
+                                int attemptNumber,
+                                RetryBackoff backoff,
+                                long deadline,
+                                CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            result.complete(attempt.call());
+        } catch (Exception e) {
+            long delay = backoff.nextDelay();
+            Exception terminal = terminalFailure(e, attemptNumber, delay, System.nanoTime() - start, deadline);
+            if (terminal != null) {
+                result.completeExceptionally(terminal);
+                return;
+            }
+
+            log.warn("Attempt {}/{} failed for step '{}'. Retrying in {}ms. Error: {}",
+                    attemptNumber, policy.maxAttempts(), stepId, delay, e.getMessage());
+            retryCounter.increment();
+
+            scheduler.schedule(() -> runAttempt(attempt, attemptNumber + 1, backoff, deadline, result), delay)
+                    .exceptionally(rejected -> {
+                        result.completeExceptionally(new StepExecutionException(
+                                "Retry could not be scheduled: " + rejected.getMessage(), stepId, e));
+                        return null;
+                    });
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private <T> void runStageAttempt(Callable<? extends CompletionStage<T>> attempt,
+                                     int attemptNumber,
+                                     RetryBackoff backoff,
+                                     long deadline,
+                                     CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> stage;
+        try {
+            stage = attempt.call().toCompletableFuture();
+        } catch (Throwable t) {
+            stage = CompletableFuture.failedFuture(t);
+        }
+        Futures.propagateCancellation(result, stage);
+
+        stage.whenComplete((value, failure) -> {
+            if (failure == null) {
+                result.complete(value);
+                return;
+            }
+            if (result.isDone()) {
+                return;
+            }
+            Throwable cause = Futures.unwrap(failure);
+            if (!(cause instanceof Exception e)) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            long delay = backoff.nextDelay();
+            Exception terminal = terminalFailure(e, attemptNumber, delay, System.nanoTime() - start, deadline);
+            if (terminal != null) {
+                result.completeExceptionally(terminal);
+                return;
+            }
+
+            log.warn("Attempt {}/{} failed for step '{}'. Retrying in {}ms. Error: {}",
+                    attemptNumber, policy.maxAttempts(), stepId, delay, e.getMessage());
+            retryCounter.increment();
+
+            scheduler.schedule(() -> runStageAttempt(attempt, attemptNumber + 1, backoff, deadline, result), delay)
+                    .exceptionally(rejected -> {
+                        result.completeExceptionally(new StepExecutionException(
+                                "Retry could not be scheduled: " + rejected.getMessage(), stepId, e));
+                        return null;
+                    });
+        });
+    }
+
+    /**
+     * Decides whether the failed attempt ends the invocation.
+     *
+     * @param delay         Backoff before the next attempt, in milliseconds.
+     * @param attemptNanos  Duration of the failed attempt, the estimate for the next one.
+     * @return The exception to surface, or {@code null} if the next attempt may proceed
+     * (in which case a retry has been charged to the budget).
+     */
+    private Exception terminalFailure(Exception failure, int attemptNumber, long delay, long attemptNanos, long deadline) {
+        // 0. Cancellation: the invocation is no longer wanted, the step did not fail
+        if (Futures.isCancellation(failure)) {
+            return failure;
+        }
+
+        // 1. Classification: permanent errors are not retried
+        if (!classifier.isRetryable(failure)) {
+            log.debug("Step '{}' failed with non-retryable {}. Not retrying.", stepId, failure.getClass().getName());
+            return failure;
+        }
+
+        // 2. Attempts
+        if (attemptNumber >= policy.maxAttempts()) {
+            log.error("RETRY EXHAUSTED: Step '{}' failed after {} attempts.", stepId, policy.maxAttempts());
+            return new RetryExhaustedException(stepId, policy.maxAttempts(), failure);
+        }
+
+        // 3. Deadline: an attempt that cannot finish in time only adds load
+        if (deadline != PipelineContext.NO_DEADLINE
+                && System.currentTimeMillis() + delay + TimeUnit.NANOSECONDS.toMillis(attemptNanos) >= deadline) {
+            log.warn("Step '{}' failed and a retry cannot finish before the deadline. Giving up after attempt {}.",
+                    stepId, attemptNumber);
+            return new DeadlineExceededException("Step '" + stepId + "' failed after " + attemptNumber
+                    + " attempt(s); a retry cannot finish before the deadline.", stepId, failure);
+        }
+
+        // 4. Budget: fail fast instead of amplifying an outage
+        if (budget != null && !budget.tryAcquireRetry()) {
+            if (budgetExhaustedCounter != null) {
+                budgetExhaustedCounter.increment();
+            }
+            log.warn("Retry budget exhausted for step '{}'. Failing fast after attempt {}.", stepId, attemptNumber);
+            return new RetryBudgetExhaustedException(stepId, attemptNumber, failure);
+        }
+        return null;
+    }
+
+    private <T> T executeBlocking(Callable<T> attempt, long deadline) throws Exception {
+        RetryBackoff backoff = new RetryBackoff(policy);
+        int maxAttempts = policy.maxAttempts();
+
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            long start = System.nanoTime();
+            try {
+                return attempt.call();
+            } catch (Exception e) {
+                long delay = backoff.nextDelay();
+                Exception terminal = terminalFailure(e, attemptNumber, delay, System.nanoTime() - start, deadline);
+                if (terminal != null) {
+                    throw terminal;
+                }
+
+                log.warn("Attempt {}/{} failed for step '{}'. Retrying in {}ms. Error: {}",
+                        attemptNumber, maxAttempts, stepId, delay, e.getMessage());
+                retryCounter.increment();
+
+                if (scheduler != null) {
+                    park(delay);
+                } else {
+                    performWait(delay);
+                }
+            }
+        }
+    }
+
+    /**
+     * Parks the current thread for the backoff; a virtual thread releases its carrier meanwhile.
+     *
+     * @throws InterruptedException if the invocation is cancelled (or its deadline passes) during the backoff.
+     */
+    private void park(long delay) throws InterruptedException {
+        long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        for (long remaining = until - System.nanoTime(); remaining > 0; remaining = until - System.nanoTime()) {
+            LockSupport.parkNanos(this, remaining);
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Retry backoff of step '" + stepId + "' interrupted.");
+            }
+        }
+    }
+
+    /**
+     * Pauses the current thread.
+     *
+     * @deprecated <b>Performance Bottleneck:</b> Calling {@code Thread.sleep} blocks the worker thread
+     * for the whole backoff (and pins the carrier when called inside a {@code synchronized} block).
+     * Used only when no {@link RetryScheduler} is configured ({@code dih.executor.retry.wait-strategy=SLEEP}).
+     */
+    @Deprecated
+    private void performWait(long delay) throws InterruptedException {
+        Thread.sleep(delay);
+    }
+}
@@ -0,0 +1,54 @@
+package org.example.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.model.RetryPolicyDefinition;
+
+/**
+ * Creates the {@link RetryExecutor} of a step, wired with the application's backoff timer, retry budgets
+ * and meters. Used by both retry modes: once per step of a compiled plan ({@code DECORATOR}) or once per
+ * proxied bean instance ({@code PROXY}).
+ */
+public class RetryExecutorFactory {
+
+    private final MeterRegistry meterRegistry;
+    private final RetryScheduler retryScheduler;
+    private final RetryBudgetRegistry retryBudgetRegistry;
+
+    /**
+     * @param retryScheduler      Optional backoff timer; when {@code null}, retries block the calling thread.
+     * @param retryBudgetRegistry Optional retry budgets; when {@code null}, retries are only limited by {@code maxAttempts}.
+     */
+    public RetryExecutorFactory(MeterRegistry meterRegistry,
+                                RetryScheduler retryScheduler,
+                                RetryBudgetRegistry retryBudgetRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.retryScheduler = retryScheduler;
+        this.retryBudgetRegistry = retryBudgetRegistry;
+    }
+
+    public RetryExecutor create(String pipelineName,
+                                String stepId,
+                                String stepType,
+                                RetryPolicyDefinition policy,
+                                RetryExceptionClassifier classifier) {
+        Counter retryCounter = Counter.builder("dih.step.retries")
+                .tag("pipeline.name", pipelineName)
+                .tag("step.id", stepId)
+                .description("Counts failed attempts that triggered a retry.")
+                .register(meterRegistry);
+
+        RetryBudget budget = null;
+        Counter budgetExhaustedCounter = null;
+        if (retryBudgetRegistry != null) {
+            budget = retryBudgetRegistry.budgetFor(pipelineName, stepType);
+            budgetExhaustedCounter = Counter.builder("dih.step.retry.budget.exhausted")
+                    .tag("pipeline.name", pipelineName)
+                    .tag("step.id", stepId)
+                    .description("Counts retries rejected because the retry budget was empty.")
+                    .register(meterRegistry);
+        }
+
+        return new RetryExecutor(policy, stepId, retryCounter, retryScheduler, classifier, budget, budgetExhaustedCounter);
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.retry;
+
+import org.example.concurrency.DihTaskDecorator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer for the retry backoff of asynchronous invocations.
+ * <p>
+ * A single daemon timer thread only <i>fires</i> due retries; the attempts themselves run on fresh
+ * virtual threads. No thread is parked while a backoff elapses, regardless of how many steps are
+ * waiting to be retried.
+ * </p>
+ * <p>
+ * Synchronous invocations do not use the timer: {@link RetryExecutor#execute} runs every attempt on the
+ * calling thread and parks it through the backoff. A configured scheduler only selects parking over
+ * {@code Thread.sleep} for them.
+ * </p>
+ * <p>
+ * The pipeline context (execution ID, MDC) is captured when a retry is scheduled and re-established
+ * on the thread running the attempt via {@link DihTaskDecorator}.
+ * </p>
+ */
+public class RetryScheduler implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryScheduler.class);
+
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+    private final DihTaskDecorator contextDecorator = new DihTaskDecorator();
+
+    public RetryScheduler(String threadNamePrefix) {
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name(threadNamePrefix + "timer")
+                .daemon(true)
+                .factory());
+        this.workers = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name(threadNamePrefix, 0)
+                .factory());
+    }
+
+    /**
+     * Runs the task on a virtual thread once the delay has elapsed.
+     *
+     * @return A future completed when the task has been handed to its thread, or completed
+     * exceptionally with a {@link RejectedExecutionException} if the scheduler has been shut down.
+     */
+    public CompletableFuture<Void> schedule(Runnable task, long delayMillis) {
+        // Captured now, on the thread that owns the pipeline context
+        Runnable decorated = contextDecorator.decorate(task);
+        CompletableFuture<Void> launched = new CompletableFuture<>();
+
+        try {
+            if (delayMillis <= 0) {
+                launch(decorated, launched);
+            } else {
+                timer.schedule(() -> launch(decorated, launched), delayMillis, TimeUnit.MILLISECONDS);
+            }
+        } catch (RejectedExecutionException e) {
+            launched.completeExceptionally(e);
+        }
+        return launched;
+    }
+
+    private void launch(Runnable task, CompletableFuture<Void> launched) {
+        try {
+            workers.execute(task);
+            launched.complete(null);
+        } catch (RejectedExecutionException e) {
+            log.warn("Dropped a due retry: scheduler is shutting down.");
+            launched.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        timer.shutdownNow();
+        workers.shutdown();
+    }
+}
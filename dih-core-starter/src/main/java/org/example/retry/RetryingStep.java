@@ -0,0 +1,51 @@
+package org.example.retry;
+
+import org.example.concurrency.Futures;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Composition decorator applying a {@link RetryExecutor} to a step.
+ * <p>
+ * Created once per step of a compiled plan, it replaces the per-bean CGLIB retry proxy: no class
+ * generation, no per-execution proxy or meter creation, no method-name dispatch on the hot path,
+ * and it works for {@code final} step classes.
+ * </p>
+ * <p>
+ * {@link #executeAsync} composes the attempts without blocking when the executor schedules its
+ * backoffs; with {@code wait-strategy=SLEEP} it retries synchronously on the calling thread.
+ * </p>
+ * <p>
+ * Retries respect the deadline of the {@link PipelineContext}: no attempt is scheduled that cannot finish in time.
+ * </p>
+ */
+public final class RetryingStep implements AsyncPipelineStep<Object, Object> {
+
+    private final PipelineStep<Object, Object> delegate;
+    private final RetryExecutor retryExecutor;
+
+    public RetryingStep(PipelineStep<Object, Object> delegate, RetryExecutor retryExecutor) {
+        this.delegate = delegate;
+        this.retryExecutor = retryExecutor;
+    }
+
+    @Override
+    public Object execute(Object input, PipelineContext context) throws Exception {
+        return retryExecutor.execute(() -> delegate.execute(input, context), context.deadline());
+    }
+
+    @Override
+    public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+        if (!retryExecutor.isScheduled()) {
+            return Futures.call(() -> execute(input, context));
+        }
+        if (delegate instanceof AsyncPipelineStep<Object, Object> async) {
+            return retryExecutor.executeStages(() -> async.executeAsync(input, context), context.deadline());
+        }
+        // First attempt inline, later ones on the retry scheduler
+        return retryExecutor.executeAsync(() -> delegate.execute(input, context), context.deadline());
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.retry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket {@link RetryBudget} limiting retries to a share of recent calls.
+ * <p>
+ * Every call deposits {@code ratio} tokens (e.g. {@code 0.2} = retries may add 20% load), every retry
+ * withdraws one. A trickle of {@code minRetriesPerSecond} keeps low-traffic steps retryable. The bucket
+ * holds at most {@code maxTokens}, so only <i>recent</i> traffic earns retries: during an outage the
+ * balance drains quickly and further retries fail fast instead of multiplying the load.
+ * </p>
+ * Thread-safe; critical sections are a few arithmetic operations.
+ */
+public class TokenBucketRetryBudget implements RetryBudget {
+
+    private final double ratio;
+    private final double maxTokens;
+    private final double refillPerNanosecond;
+
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucketRetryBudget(double ratio, double minRetriesPerSecond, double maxTokens) {
+        this.ratio = ratio;
+        this.maxTokens = Math.max(1.0, maxTokens);
+        this.refillPerNanosecond = minRetriesPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = Math.min(this.maxTokens, Math.max(1.0, minRetriesPerSecond));
+        this.lastRefill = System.nanoTime();
+    }
+
+    @Override
+    public synchronized void recordCall() {
+        refill();
+        tokens = Math.min(maxTokens, tokens + ratio);
+    }
+
+    @Override
+    public synchronized boolean tryAcquireRetry() {
+        refill();
+        if (tokens >= 1.0) {
+            tokens -= 1.0;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void refund() {
+        tokens = Math.min(maxTokens, tokens + 1.0);
+    }
+
+    @Override
+    public synchronized double availableTokens() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(maxTokens, tokens + (now - lastRefill) * refillPerNanosecond);
+        lastRefill = now;
+    }
+}
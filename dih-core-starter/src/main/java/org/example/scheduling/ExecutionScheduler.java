@@ -0,0 +1,321 @@
+package org.example.scheduling;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.config.DihProperties;
+import org.example.exception.ExecutionRejectedException;
+import org.example.model.ExecutionOptions;
+import org.example.model.ExecutionOptions.Priority;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission queue in front of pipeline execution, ordered by {@link Priority} and {@code tenant}.
+ * <p>
+ * At most {@code max-concurrent} executions run at once. When a slot frees up, the next execution is
+ * chosen in two steps:
+ * </p>
+ * <ol>
+ * <li><b>Strict priority:</b> the most important non-empty {@link Priority} class is served first.</li>
+ * <li><b>Weighted fair queuing</b> between the tenants of that class (start-time fair queuing): a tenant
+ * with weight {@code w} gets {@code w} times the share of a weight-1 tenant while both have work queued,
+ * however many executions either of them submits.</li>
+ * </ol>
+ *
+ * <h2>Load Shedding:</h2>
+ * When an execution has waited longer than {@code queue-wait-slo} by the time it is dispatched, the
+ * lowest accepted priority class with queued work is shed: its queued executions and all new ones are rejected with
+ * {@link ExecutionRejectedException}. Each further breach sheds the next class up; {@link Priority#CRITICAL}
+ * is never shed. Classes are re-admitted one at a time once waits fall below half the SLO, and all at once
+ * when the queue drains. A full queue makes room by rejecting the newest execution of a lower class than
+ * the one arriving.
+ *
+ * <h2>Metrics</h2> (tag {@code priority}):
+ * <ul>
+ * <li>{@code dih.scheduler.running} (gauge) - executions holding a slot.</li>
+ * <li>{@code dih.scheduler.queue.depth} (gauge) - queued executions.</li>
+ * <li>{@code dih.scheduler.wait} (timer) - time from submission to dispatch.</li>
+ * <li>{@code dih.scheduler.shed} (counter, {@code reason=queue_full|slo}) - rejected executions.</li>
+ * </ul>
+ */
+public class ExecutionScheduler {
+
+    private static final String NAME = "scheduler";
+    private static final Priority[] PRIORITIES = Priority.values();
+
+    private final DihProperties.Scheduler settings;
+    private final long sloNanos;
+    private final PriorityClass[] classes = new PriorityClass[PRIORITIES.length];
+    private final CompletableFuture<ExecutionSlot> unlimited;
+
+    /** Guarded by {@code this}. */
+    private int running;
+    /** Guarded by {@code this}. */
+    private int queued;
+    /** Guarded by {@code this}. */
+    private long sequence;
+    /** Priority classes with an ordinal at or above this are shed. Guarded by {@code this}. */
+    private int shedFrom = PRIORITIES.length;
+
+    public ExecutionScheduler(DihProperties.Scheduler settings, MeterRegistry meterRegistry) {
+        this.settings = settings;
+        this.sloNanos = settings.getQueueWaitSlo().toNanos();
+        this.unlimited = CompletableFuture.completedFuture(ExecutionSlot.NONE);
+
+        Gauge.builder("dih.scheduler.running", this, ExecutionScheduler::running)
+                .description("Executions holding a scheduler slot.")
+                .register(meterRegistry);
+        for (Priority priority : PRIORITIES) {
+            PriorityClass priorityClass = new PriorityClass(priority, meterRegistry);
+            classes[priority.ordinal()] = priorityClass;
+            Gauge.builder("dih.scheduler.queue.depth", this, scheduler -> scheduler.queueDepth(priorityClass))
+                    .tag("priority", priority.name())
+                    .description("Executions waiting for a scheduler slot.")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Requests a slot for an execution.
+     *
+     * @return A future completed with the slot to {@link ExecutionSlot#release() release} when the execution
+     * ends, or exceptionally with {@link ExecutionRejectedException} if the execution is shed.
+     * Cancelling it withdraws the request.
+     */
+    public CompletableFuture<ExecutionSlot> schedule(ExecutionOptions options) {
+        if (!settings.isEnabled()) {
+            return unlimited;
+        }
+        PriorityClass priorityClass = classes[options.priority().ordinal()];
+        Ticket ticket;
+        Ticket displaced = null;
+        synchronized (this) {
+            if (priorityClass.ordinal >= shedFrom) {
+                priorityClass.shedSlo.increment();
+                return CompletableFuture.failedFuture(new ExecutionRejectedException(NAME,
+                        options.priority() + " executions are shed: queue wait exceeds the SLO"));
+            }
+            if (running < settings.getMaxConcurrent() && queued == 0) {
+                running++;
+                shedFrom = PRIORITIES.length;
+                priorityClass.waitTimer.record(0, TimeUnit.NANOSECONDS);
+                return CompletableFuture.completedFuture(new ExecutionSlot(this));
+            }
+            if (queued >= settings.getMaxQueue()) {
+                displaced = newestBelow(priorityClass.ordinal);
+                if (displaced == null) {
+                    priorityClass.shedQueueFull.increment();
+                    return CompletableFuture.failedFuture(new ExecutionRejectedException(NAME, "queue is full"));
+                }
+                classes[displaced.priorityClass.ordinal].queue.remove(displaced);
+                queued--;
+            }
+            ticket = priorityClass.enqueue(options.tenant(), weightOf(options.tenant()), sequence++);
+            queued++;
+        }
+
+        if (displaced != null && displaced.completeExceptionally(
+                new ExecutionRejectedException(NAME, "displaced by a higher-priority execution"))) {
+            displaced.priorityClass.shedQueueFull.increment();
+        }
+        ticket.whenComplete((slot, failure) -> {
+            if (failure != null) {
+                synchronized (this) {
+                    if (ticket.priorityClass.queue.remove(ticket)) {
+                        queued--;
+                    }
+                }
+            }
+        });
+        return ticket;
+    }
+
+    /**
+     * Returns a slot and dispatches the next execution.
+     */
+    void release() {
+        while (true) {
+            Ticket next;
+            long waitNanos;
+            List<Ticket> shed;
+            synchronized (this) {
+                next = poll();
+                if (next == null) {
+                    running--;
+                    shedFrom = PRIORITIES.length;
+                    return;
+                }
+                waitNanos = System.nanoTime() - next.enqueuedAt;
+                shed = adjustShedding(waitNanos);
+            }
+
+            for (Ticket ticket : shed) {
+                if (ticket.completeExceptionally(new ExecutionRejectedException(NAME,
+                        ticket.priorityClass.priority + " executions are shed: queue wait exceeds the SLO"))) {
+                    ticket.priorityClass.shedSlo.increment();
+                }
+            }
+            // Completed outside the lock: the execution may continue inline
+            if (next.complete(new ExecutionSlot(this))) {
+                next.priorityClass.waitTimer.record(waitNanos, TimeUnit.NANOSECONDS);
+                return;
+            }
+            // Cancelled concurrently; the slot goes to the next one
+        }
+    }
+
+    /**
+     * Moves the shedding threshold after a dispatch. Must hold the lock.
+     *
+     * @return Queued tickets of classes that are shed from now on.
+     */
+    private List<Ticket> adjustShedding(long waitNanos) {
+        if (sloNanos <= 0) {
+            return List.of();
+        }
+        if (waitNanos > sloNanos) {
+            // Never shed the most important class
+            int lowestAccepted = lowestNonEmptyBelow(shedFrom);
+            if (lowestAccepted > 0) {
+                shedFrom = lowestAccepted;
+                List<Ticket> shed = new ArrayList<>(classes[lowestAccepted].queue);
+                classes[lowestAccepted].queue.clear();
+                queued -= shed.size();
+                return shed;
+            }
+        } else if (waitNanos < sloNanos / 2 && shedFrom < PRIORITIES.length) {
+            shedFrom++;
+        }
+        return List.of();
+    }
+
+    /**
+     * @return The ordinal of the lowest class below {@code limit} with queued work, or of the class just
+     * above the limit if all are empty. Must hold the lock.
+     */
+    private int lowestNonEmptyBelow(int limit) {
+        for (int ordinal = limit - 1; ordinal > 0; ordinal--) {
+            if (!classes[ordinal].queue.isEmpty()) {
+                return ordinal;
+            }
+        }
+        return limit - 1;
+    }
+
+    private Ticket poll() {
+        for (PriorityClass priorityClass : classes) {
+            Ticket ticket = priorityClass.poll();
+            if (ticket != null) {
+                queued--;
+                return ticket;
+            }
+        }
+        return null;
+    }
+
+    private Ticket newestBelow(int ordinal) {
+        for (int lower = classes.length - 1; lower > ordinal; lower--) {
+            Ticket newest = classes[lower].queue.stream()
+                    .max(Comparator.comparingLong(ticket -> ticket.sequence))
+                    .orElse(null);
+            if (newest != null) {
+                return newest;
+            }
+        }
+        return null;
+    }
+
+    private int weightOf(String tenant) {
+        return Math.max(1, settings.getTenantWeights().getOrDefault(tenant, settings.getDefaultTenantWeight()));
+    }
+
+    synchronized int running() {
+        return running;
+    }
+
+    synchronized int queueDepth(PriorityClass priorityClass) {
+        return priorityClass.queue.size();
+    }
+
+    /**
+     * The queue of one priority class, fair across tenants.
+     * <p>
+     * Every ticket gets a virtual start tag {@code max(virtualTime, previous finish tag of its tenant)} and
+     * a finish tag {@code start + 1 / weight}. Tickets are served by start tag, and the virtual time advances
+     * to the start tag of the ticket served, so a tenant that was idle cannot claim credit for the past.
+     * </p>
+     */
+    private static final class PriorityClass {
+
+        final Priority priority;
+        final int ordinal;
+        final PriorityQueue<Ticket> queue = new PriorityQueue<>(
+                Comparator.<Ticket>comparingDouble(ticket -> ticket.startTag).thenComparingLong(ticket -> ticket.sequence));
+        final Map<String, Double> finishTags = new HashMap<>();
+        final Timer waitTimer;
+        final Counter shedQueueFull;
+        final Counter shedSlo;
+        double virtualTime;
+
+        PriorityClass(Priority priority, MeterRegistry meterRegistry) {
+            this.priority = priority;
+            this.ordinal = priority.ordinal();
+            this.waitTimer = Timer.builder("dih.scheduler.wait")
+                    .tag("priority", priority.name())
+                    .description("Time executions waited for a scheduler slot.")
+                    .register(meterRegistry);
+            this.shedQueueFull = shedCounter(meterRegistry, priority, "queue_full");
+            this.shedSlo = shedCounter(meterRegistry, priority, "slo");
+        }
+
+        Ticket enqueue(String tenant, int weight, long sequence) {
+            double start = Math.max(virtualTime, finishTags.getOrDefault(tenant, 0.0));
+            finishTags.put(tenant, start + 1.0 / weight);
+            Ticket ticket = new Ticket(this, start, sequence);
+            queue.add(ticket);
+            return ticket;
+        }
+
+        Ticket poll() {
+            Ticket ticket = queue.poll();
+            if (ticket != null) {
+                virtualTime = ticket.startTag;
+                if (queue.isEmpty()) {
+                    // No backlog: past finish tags carry no information
+                    finishTags.clear();
+                }
+            }
+            return ticket;
+        }
+
+        private static Counter shedCounter(MeterRegistry meterRegistry, Priority priority, String reason) {
+            return Counter.builder("dih.scheduler.shed")
+                    .tag("priority", priority.name())
+                    .tag("reason", reason)
+                    .description("Executions rejected by the scheduler.")
+                    .register(meterRegistry);
+        }
+    }
+
+    private static final class Ticket extends CompletableFuture<ExecutionSlot> {
+        final PriorityClass priorityClass;
+        final double startTag;
+        final long sequence;
+        final long enqueuedAt = System.nanoTime();
+
+        Ticket(PriorityClass priorityClass, double startTag, long sequence) {
+            this.priorityClass = priorityClass;
+            this.startTag = startTag;
+            this.sequence = sequence;
+        }
+    }
+}
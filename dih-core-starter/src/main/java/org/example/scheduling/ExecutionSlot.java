@@ -0,0 +1,49 @@
+package org.example.scheduling;
+
+import org.example.concurrency.Futures;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The right of one execution to run, granted by the {@link ExecutionScheduler}.
+ * <p>
+ * {@link #release()} is idempotent and hands the slot to the next queued execution.
+ * </p>
+ */
+public final class ExecutionSlot {
+
+    /** Slot of an execution that is not scheduled. */
+    public static final ExecutionSlot NONE = new ExecutionSlot(null);
+
+    private final ExecutionScheduler scheduler;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    ExecutionSlot(ExecutionScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Waits for a slot on the calling thread.
+     * A slot granted while the thread is being interrupted is returned, not leaked.
+     *
+     * @throws InterruptedException if the waiting thread was interrupted.
+     */
+    public static ExecutionSlot await(CompletableFuture<ExecutionSlot> slot) throws Exception {
+        try {
+            return Futures.await(slot);
+        } catch (InterruptedException e) {
+            ExecutionSlot granted = slot.getNow(null);
+            if (granted != null) {
+                granted.release();
+            }
+            throw e;
+        }
+    }
+
+    public void release() {
+        if (scheduler != null && released.compareAndSet(false, true)) {
+            scheduler.release();
+        }
+    }
+}
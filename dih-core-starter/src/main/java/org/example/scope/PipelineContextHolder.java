@@ -3,6 +3,8 @@ package org.example.scope;
 import org.example.step.PipelineContext;
 import org.slf4j.MDC;
 
+import java.util.concurrent.Callable;
+
 /**
  * Static holder for the thread-bound {@link PipelineContext}.
  * <p>
@@ -12,14 +14,15 @@ import org.slf4j.MDC;
  * <li>Synchronizes this metadata with SLF4J's {@link MDC} for structured logging.</li>
  * </ul>
  * <p>
- * <b>Note:</b> This class no longer manages Beans. Bean lifecycle is now managed
- * by the Ephemeral Child ApplicationContext.
+ * <b>Note:</b> This class no longer manages Beans. Per-execution bean instances are managed
+ * by {@link PipelineScope}, keyed by the execution ID held here.
  * </p>
  */
 public class PipelineContextHolder {
 
     public static final String MDC_EXECUTION_ID = "execution.id";
     public static final String MDC_PIPELINE_NAME = "pipeline.name";
+    public static final String MDC_TENANT = "tenant";
 
     // We only store Metadata now, not Beans.
     private static final ThreadLocal<PipelineContext> THREAD_CONTEXT = new ThreadLocal<>();
@@ -40,6 +43,7 @@ public class PipelineContextHolder {
         // Populate Logging Context
         MDC.put(MDC_EXECUTION_ID, context.executionId());
         MDC.put(MDC_PIPELINE_NAME, context.pipelineName());
+        MDC.put(MDC_TENANT, context.tenant());
     }
 
     /**
@@ -61,6 +65,27 @@ public class PipelineContextHolder {
         return ctx != null ? ctx.executionId() : null;
     }
 
+    /**
+     * Runs an action with the given context bound to the current thread, then restores the previous one.
+     * Used where asynchronous continuations resume on threads that carry no (or another) pipeline context.
+     *
+     * @param context The metadata of the pipeline run the action belongs to.
+     * @param action  The action, e.g. the resolution of a pipeline-scoped step.
+     * @return The result of the action.
+     */
+    public static <T> T callWithContext(PipelineContext context, Callable<T> action) throws Exception {
+        PipelineContext previous = THREAD_CONTEXT.get();
+        if (previous == context) {
+            return action.call();
+        }
+        initializeContext(context);
+        try {
+            return action.call();
+        } finally {
+            initializeContext(previous);
+        }
+    }
+
     /**
      * Clears the context from the current thread.
      * MUST be called in a `finally` block to prevent ThreadLocal leaks (memory leaks).
@@ -72,6 +97,7 @@ public class PipelineContextHolder {
         // 2. Clear logging context to prevent confusing logs in reused threads
         MDC.remove(MDC_EXECUTION_ID);
         MDC.remove(MDC_PIPELINE_NAME);
+        MDC.remove(MDC_TENANT);
     }
     // Deprecated methods removed for clarity (getCurrentBeans, getCurrentCallbacks)
 }
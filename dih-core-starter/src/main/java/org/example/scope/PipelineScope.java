@@ -0,0 +1,189 @@
+package org.example.scope;
+
+import org.example.step.PipelineContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
+import org.springframework.beans.factory.config.Scope;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Custom Spring {@link Scope} binding bean instances to a single pipeline execution.
+ * <p>
+ * Beans in this scope are created on first access within an execution (identified by the
+ * {@link PipelineContext#executionId()} bound in {@link PipelineContextHolder}) and reused by every
+ * access of that execution - including parallel branches, which inherit the execution ID through
+ * {@code DihTaskDecorator}. Concurrent executions never see each other's instances.
+ * </p>
+ * <p>
+ * The {@code PipelineExecutor} opens the scope of an execution via {@link #beginExecution(String)} and destroys
+ * its instances (destruction callbacks invoked) via {@link #endExecution(String)} in its cleanup phase. Accesses
+ * outside of that window are rejected, so a late access (e.g. by a branch that outlived its run) cannot create
+ * instances that would never be destroyed.
+ * </p>
+ * <p>
+ * Each execution's beans are guarded by a {@link ReentrantLock} rather than a monitor: bean creation may block,
+ * and a virtual thread blocking inside {@code synchronized} would pin its carrier.
+ * </p>
+ */
+public class PipelineScope implements Scope {
+
+    /** The scope name used in {@code @Scope} and in {@code PipelineDefinition.scope()}. */
+    public static final String SCOPE_NAME = "pipeline";
+
+    /** Contextual object key resolving to the current {@link PipelineContext}. */
+    public static final String CONTEXT_KEY = "pipelineContext";
+
+    private static final Logger log = LoggerFactory.getLogger(PipelineScope.class);
+
+    private final Map<String, ExecutionBeans> executions = new ConcurrentHashMap<>();
+
+    /**
+     * Opens the scope of a starting execution. Pipeline-scoped beans can be accessed until
+     * {@link #endExecution(String)} is called for the same ID.
+     *
+     * @param executionId The starting execution.
+     */
+    public void beginExecution(String executionId) {
+        executions.putIfAbsent(executionId, new ExecutionBeans());
+    }
+
+    @Override
+    public Object get(String name, ObjectFactory<?> objectFactory) {
+        ExecutionBeans beans = currentExecution(name);
+
+        // Guarded per execution (not per scope): creation may recursively resolve other scoped beans.
+        beans.lock.lock();
+        try {
+            requireActive(beans, name);
+            Object instance = beans.instances.get(name);
+            if (instance == null) {
+                instance = objectFactory.getObject();
+                beans.instances.put(name, instance);
+            }
+            return instance;
+        } finally {
+            beans.lock.unlock();
+        }
+    }
+
+    @Override
+    public Object remove(String name) {
+        ExecutionBeans beans = executions.get(currentExecutionId(name));
+        if (beans == null) {
+            return null;
+        }
+        beans.lock.lock();
+        try {
+            beans.callbacks.remove(name);
+            return beans.instances.remove(name);
+        } finally {
+            beans.lock.unlock();
+        }
+    }
+
+    @Override
+    public void registerDestructionCallback(String name, Runnable callback) {
+        ExecutionBeans beans = currentExecution(name);
+        beans.lock.lock();
+        try {
+            requireActive(beans, name);
+            beans.callbacks.put(name, callback);
+        } finally {
+            beans.lock.unlock();
+        }
+    }
+
+    @Override
+    public Object resolveContextualObject(String key) {
+        return CONTEXT_KEY.equals(key) ? PipelineContextHolder.getContext() : null;
+    }
+
+    @Override
+    public String getConversationId() {
+        return PipelineContextHolder.getContextId();
+    }
+
+    /**
+     * Destroys all beans created for the given execution.
+     *
+     * @param executionId The finished execution.
+     */
+    public void endExecution(String executionId) {
+        if (executionId == null) {
+            return;
+        }
+        ExecutionBeans beans = executions.remove(executionId);
+        if (beans == null) {
+            return;
+        }
+
+        beans.lock.lock();
+        try {
+            beans.ended = true;
+            beans.callbacks.forEach((name, callback) -> {
+                try {
+                    callback.run();
+                } catch (Exception e) {
+                    log.warn("Destruction callback of pipeline-scoped bean '{}' failed [ID={}]", name, executionId, e);
+                }
+            });
+            log.trace("Destroyed {} pipeline-scoped beans [ID={}]", beans.instances.size(), executionId);
+            beans.instances.clear();
+            beans.callbacks.clear();
+        } finally {
+            beans.lock.unlock();
+        }
+    }
+
+    /**
+     * @return Number of executions currently holding scoped beans (diagnostics).
+     */
+    public int activeExecutions() {
+        return executions.size();
+    }
+
+    /**
+     * @throws IllegalStateException if no execution is bound, or the bound one has not begun or has already ended.
+     */
+    private ExecutionBeans currentExecution(String beanName) {
+        String executionId = currentExecutionId(beanName);
+        ExecutionBeans beans = executions.get(executionId);
+        if (beans == null) {
+            throw new IllegalStateException("Cannot access pipeline-scoped bean '" + beanName
+                    + "': execution " + executionId + " has not begun or has already ended.");
+        }
+        return beans;
+    }
+
+    /**
+     * Rejects an access that raced with {@link #endExecution(String)}. Called with the execution's lock held.
+     */
+    private static void requireActive(ExecutionBeans beans, String beanName) {
+        if (beans.ended) {
+            throw new IllegalStateException(
+                    "Cannot access pipeline-scoped bean '" + beanName + "': its execution has already ended.");
+        }
+    }
+
+    private String currentExecutionId(String beanName) {
+        String executionId = PipelineContextHolder.getContextId();
+        if (executionId == null) {
+            throw new IllegalStateException(
+                    "Cannot access pipeline-scoped bean '" + beanName + "' outside of a pipeline execution.");
+        }
+        return executionId;
+    }
+
+    private static final class ExecutionBeans {
+        private final ReentrantLock lock = new ReentrantLock();
+        // Guarded by lock
+        private final Map<String, Object> instances = new LinkedHashMap<>();
+        private final Map<String, Runnable> callbacks = new LinkedHashMap<>();
+        private boolean ended;
+    }
+}
@@ -1,136 +1,908 @@
 package org.example.service;
 
+import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Timer;
-import org.example.aop.RetryBeanPostProcessor;
-import org.example.bpp.DynamicContextBeanPostProcessor;
+import org.example.bulkhead.BulkheadPermit;
+import org.example.bulkhead.BulkheadRegistry;
+import org.example.coalescing.SingleFlight;
+import org.example.coalescing.SingleFlightRegistry;
+import org.example.concurrency.BranchScope;
+import org.example.concurrency.Futures;
+import org.example.concurrency.InterruptibleFuture;
+import org.example.config.DihProperties;
+import org.example.deadline.DeadlineTimer;
+import org.example.exception.DeadlineExceededException;
 import org.example.exception.DihCoreException;
+import org.example.exception.ExecutionRejectedException;
+import org.example.exception.PipelineCancelledException;
 import org.example.exception.PipelineConfigurationException;
+import org.example.model.BatchItemResult;
+import org.example.model.ExecutionOptions;
+import org.example.model.ExecutionOptions.Priority;
 import org.example.model.PipelineDefinition;
-import org.example.model.StepDefinition;
+import org.example.plan.PipelinePlan;
+import org.example.plan.PipelinePlanCache;
+import org.example.plan.PlanGraph;
+import org.example.plan.PlanStep;
+import org.example.scheduling.ExecutionScheduler;
+import org.example.scheduling.ExecutionSlot;
 import org.example.scope.PipelineContextHolder;
+import org.example.scope.PipelineScope;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.BatchPipelineStep;
 import org.example.step.PipelineContext;
-import org.example.step.PipelineStep;
+import org.example.streaming.StreamExecution;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
 
 /**
- * Orchestrator using the <b>Ephemeral Child Context Pattern</b>.
+ * Orchestrator running pipelines from <b>Compiled Execution Plans</b>.
  * <p>
- * For every pipeline execution, this executor spins up a dedicated, short-lived
- * Spring ApplicationContext. This ensures perfect isolation of stateful components
- * and enables standard Spring features (AOP, Singletons) to behave dynamically
- * per request.
+ * The first execution of a pipeline version compiles its definition into a {@link PipelinePlan}
+ * (a long-lived child Spring ApplicationContext with all step beans, properties and step decorators
+ * resolved). Every later execution of that version reuses the plan and only pays for running the steps.
  * </p>
+ *
+ * <h2>State Isolation:</h2>
+ * Steps marked thread-safe ({@code @ThreadSafeStep} or {@code StepDefinition.threadSafe()}) are created
+ * once per plan and shared by all executions. Other steps follow the pipeline scope (default
+ * {@code "pipeline"}): each execution receives fresh instances, destroyed by {@link PipelineScope}
+ * when the run ends.
+ *
+ * <h2>Asynchronous Execution:</h2>
+ * {@link #executePipelineAsync(PipelineDefinition, Object)} runs the same execution on the
+ * {@code dihTaskExecutor} (or a caller-supplied executor) and returns immediately. Stages returned by
+ * {@link AsyncPipelineStep}s are composed without parking a thread. Cancelling the returned future with
+ * {@code cancel(true)} interrupts the running step or cancels its stage; a {@code ParallelSplitter}
+ * forwards the cancellation to its branches.
+ *
+ * <h2>Admission Control:</h2>
+ * Before its plan is leased, every execution obtains a slot from the {@link ExecutionScheduler}, which
+ * orders queued executions by priority and tenant ({@link ExecutionOptions}), and is then admitted through
+ * the configured pipeline and global bulkheads (see {@link BulkheadRegistry}). Synchronous callers wait on
+ * their thread, asynchronous executions wait without occupying one; both fail with
+ * {@link ExecutionRejectedException} when they are shed, a wait queue is full or a queue timeout elapses.
+ *
+ * <h2>Batch Execution:</h2>
+ * {@link #executePipelineBatch(PipelineDefinition, List)} runs many inputs as one execution: admission, plan
+ * lease, context and metrics are paid once per batch. {@link BatchPipelineStep}s receive the items in chunks,
+ * other steps are invoked once per item. Each item succeeds or fails on its own.
+ *
+ * <h2>Streaming Execution:</h2>
+ * {@link #executePipelineStream(PipelineDefinition, Object)} runs the pipeline record by record: the first step
+ * emits records (a {@link Flow.Publisher}, an {@link Iterator}, an {@link Iterable} or a {@link Stream}), every
+ * later step runs once per record, concurrently with its neighbours, and the records of the last step are
+ * published to the subscriber. Bounded buffers between the steps propagate the subscriber's demand back to the
+ * source, so memory stays bounded by {@code dih.executor.streaming.buffer-size} whatever the size of the stream.
+ *
+ * <h2>Deadlines:</h2>
+ * An {@link ExecutionOptions#timeout()} sets the deadline of the execution, counted from the call (from the
+ * subscription for streams), so it also bounds the wait for admission. It is carried in the
+ * {@link PipelineContext}; each step runs within it (and within its own {@code timeoutMs}), and retries are not
+ * scheduled past it. Once it passes, the running work is interrupted or cancelled and the execution fails with
+ * {@link DeadlineExceededException}.
+ *
+ * <h2>Dependency Graphs:</h2>
+ * If the steps declare {@code dependsOn}, synchronous and asynchronous executions run them as a
+ * {@link PlanGraph}: every step starts once its dependencies have finished, independent chains concurrently
+ * on the {@code dihTaskExecutor}. Batch and streaming executions require a linear pipeline.
+ *
+ * <h2>Coalescing:</h2>
+ * If the definition declares {@code coalesce}, a synchronous or asynchronous execution whose pipeline version,
+ * tenant, priority and input key equal those of an execution in flight does not run: it attaches to that execution
+ * (see {@link SingleFlight}) before admission, and completes with its outcome or once its own deadline has passed.
+ * If the execution it follows is cancelled, exceeds its deadline or is rejected, it runs on its own instead.
+ * Each coalesced execution holds a reference to the pipeline's single-flight until it completes, and the compiled
+ * plan holds one until it is closed.
  */
 @Service
 public class PipelineExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(PipelineExecutor.class);
 
-    private final ApplicationContext parentContext;
     private final MeterRegistry meterRegistry;
-    private final PipelineRegistrar registrar;
+    private final PipelinePlanCache planCache;
+    private final PipelineScope pipelineScope;
+    private final AsyncTaskExecutor taskExecutor;
+    private final BulkheadRegistry bulkheadRegistry;
+    private final ExecutionScheduler scheduler;
+    private final DeadlineTimer deadlineTimer;
+    private final SingleFlightRegistry singleFlightRegistry;
+    private final int streamBufferSize;
+    private final int batchChunkSize;
 
     @Autowired
-    public PipelineExecutor(ApplicationContext parentContext,
-                            MeterRegistry meterRegistry,
-                            PipelineRegistrar registrar) {
-        this.parentContext = parentContext;
+    public PipelineExecutor(MeterRegistry meterRegistry,
+                            PipelinePlanCache planCache,
+                            PipelineScope pipelineScope,
+                            @Qualifier("dihTaskExecutor") AsyncTaskExecutor taskExecutor,
+                            BulkheadRegistry bulkheadRegistry,
+                            ExecutionScheduler scheduler,
+                            DeadlineTimer deadlineTimer,
+                            SingleFlightRegistry singleFlightRegistry,
+                            DihProperties properties) {
         this.meterRegistry = meterRegistry;
-        this.registrar = registrar;
+        this.planCache = planCache;
+        this.pipelineScope = pipelineScope;
+        this.taskExecutor = taskExecutor;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.scheduler = scheduler;
+        this.deadlineTimer = deadlineTimer;
+        this.singleFlightRegistry = singleFlightRegistry;
+        this.streamBufferSize = Math.max(1, properties.getStreaming().getBufferSize());
+        this.batchChunkSize = properties.getBatch().getMaxChunkSize();
     }
 
     /**
-     * Executes the pipeline in an isolated child context.
+     * Executes the pipeline using its compiled plan.
      *
      * @param definition The pipeline blueprint.
+     * @param options    Tenant, priority and timeout of this call.
      * @return The final result from the last step.
      * @throws DihCoreException If a known domain error occurs.
-     * @throws PipelineConfigurationException If the context fails to start.
+     * @throws PipelineConfigurationException If the plan cannot be compiled.
+     * @throws PipelineCancelledException If the executing thread was interrupted.
+     * @throws ExecutionRejectedException If the scheduler or a bulkhead rejected the execution.
+     * @throws DeadlineExceededException If the timeout of the call, or of a step, elapsed.
      */
-    public Object executePipeline(PipelineDefinition definition,Object initialInput) {
+    public Object executePipeline(PipelineDefinition definition, Object initialInput, ExecutionOptions options) {
+        SingleFlight singleFlight = singleFlightRegistry.forPipeline(definition);
+        if (singleFlight == null) {
+            return runPipeline(definition, initialInput, options);
+        }
+        try {
+            Object key = singleFlight.keyOf(initialInput);
+            if (key == null) {
+                return runPipeline(definition, initialInput, options);
+            }
+            return singleFlight.<RuntimeException>execute(
+                    new CoalescingKey(options.tenant(), options.priority(), key), deadlineOf(options),
+                    () -> deadlineExceeded(definition.name(), null),
+                    () -> runPipeline(definition, initialInput, options));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PipelineCancelledException(definition.name(), e);
+        } finally {
+            singleFlight.release();
+        }
+    }
+
+    private Object runPipeline(PipelineDefinition definition, Object initialInput, ExecutionOptions options) {
         Timer.Sample sample = Timer.start(meterRegistry);
         String executionId = UUID.randomUUID().toString();
         String pipelineName = definition.name();
+        long deadline = deadlineOf(options);
+        PipelinePlan plan = null;
+        ExecutionSlot slot = ExecutionSlot.NONE;
+        BulkheadPermit permit = BulkheadPermit.NONE;
+        boolean succeeded = false;
+        // Interrupts whatever the run waits for (admission, a step) once the deadline has passed
+        DeadlineTimer.Alarm alarm = deadlineTimer.interruptAt(deadline);
 
-        // 1. Initialize ThreadLocal Context (for MDC logs)
-        PipelineContext pipelineContext = new PipelineContext(executionId, Instant.now().toEpochMilli(), pipelineName);
-        PipelineContextHolder.initializeContext(pipelineContext);
+        try {
+            // 0. Admission Control (scheduler slot by priority and tenant, then pipeline and global bulkheads)
+            slot = ExecutionSlot.await(scheduler.schedule(options));
+            permit = BulkheadPermit.await(bulkheadRegistry.admit(pipelineName, options.priority()));
 
-        // 2. Create Ephemeral Child Context
-        // WARN: Heavyweight operation. This is the main bottleneck of this architecture.
-        try (var childContext = new AnnotationConfigApplicationContext()) {
+            // 1. Lease the Compiled Plan (compiled on first use, outside of any execution context,
+            // so shared steps never capture the metadata of a single run)
+            plan = planCache.acquire(definition);
 
-            // 2.1 Context Hierarchy
-            childContext.setParent(parentContext);
-            childContext.setDisplayName("Child-Pipeline-" + executionId);
+            // 2. Initialize ThreadLocal Context (for MDC logs)
+            PipelineContext pipelineContext = new PipelineContext(
+                    executionId, Instant.now().toEpochMilli(), pipelineName, options, deadline);
+            pipelineScope.beginExecution(executionId);
+            PipelineContextHolder.initializeContext(pipelineContext);
 
-            // 2.2 Register Infrastructure Beans *specifically* for this child context
-            // This ensures BPPs only affect beans in this isolation bubble.
-            childContext.registerBean(RetryBeanPostProcessor.class);
-            childContext.registerBean(DynamicContextBeanPostProcessor.class);
+            log.info("Pipeline '{}' started. ExecutionID: {}", pipelineName, executionId);
 
-            // 2.3 Register Pipeline Steps via Registrar
-            registrar.registerPipeline(definition, childContext);
+            // 3. Execution Loop (or the dependency graph, if the steps declare one)
+            Object currentData = initialInput;
+            if (plan.graph() != null) {
+                currentData = runGraph(plan.graph(), initialInput, pipelineContext);
+            } else {
+                for (PlanStep step : plan.steps()) {
+                    checkProgress(pipelineContext);
+                    currentData = step.execute(currentData, pipelineContext);
+                }
+            }
 
-            // 2.4 Ignite the Context (Dependency Injection, AOP Proxies created here)
-            childContext.refresh();
+            succeeded = true;
+            return currentData;
 
-            log.info("Pipeline '{}' started. ExecutionID: {}", pipelineName, executionId);
+        } catch (Exception e) {
+            Exception failure = alarm.disarm() ? deadlineExceeded(pipelineName, e) : e;
+            if (failure instanceof InterruptedException) {
+                // A step was interrupted while blocking, e.g. by cancellation of an asynchronous execution
+                Thread.currentThread().interrupt();
+            }
+            throw translateFailure(failure, executionId, pipelineName);
 
-            // 3. Execution Loop
-            Object currentData = initialInput;
-            for (StepDefinition stepDef : definition.steps()) {
-                String beanName = pipelineName + "_" + stepDef.id();
+        } finally {
+            // 4. Cleanup (pipeline-scoped step instances first, while MDC is still populated)
+            alarm.disarm();
+            finishExecution(executionId, pipelineName, plan, permit, succeeded, slot, sample);
+        }
+    }
 
-                // Retrieve the bean from the CHILD context
-                Object stepBean = childContext.getBean(beanName);
+    public Object executePipeline(PipelineDefinition definition, Object initialInput) {
+        return executePipeline(definition, initialInput, ExecutionOptions.DEFAULT);
+    }
 
-                if (!(stepBean instanceof PipelineStep)) {
-                    throw new IllegalStateException("Bean '" + beanName + "' is not a PipelineStep.");
-                }
+    public Object executePipeline(PipelineDefinition definition) {
+        return executePipeline(definition, null);
+    }
 
-                @SuppressWarnings("unchecked")
-                PipelineStep<Object, Object> step = (PipelineStep<Object, Object>) stepBean;
+    /**
+     * Executes the pipeline on the {@code dihTaskExecutor}.
+     *
+     * @see #executePipelineAsync(PipelineDefinition, Object, Executor)
+     */
+    public CompletableFuture<Object> executePipelineAsync(PipelineDefinition definition, Object initialInput) {
+        return executePipelineAsync(definition, initialInput, ExecutionOptions.DEFAULT, taskExecutor);
+    }
 
-                // Execute
-                currentData = step.execute(currentData, pipelineContext);
+    /**
+     * Executes the pipeline on the {@code dihTaskExecutor} with the given tenant and priority.
+     *
+     * @see #executePipelineAsync(PipelineDefinition, Object, ExecutionOptions, Executor)
+     */
+    public CompletableFuture<Object> executePipelineAsync(PipelineDefinition definition,
+                                                          Object initialInput,
+                                                          ExecutionOptions options) {
+        return executePipelineAsync(definition, initialInput, options, taskExecutor);
+    }
+
+    /**
+     * Executes the pipeline on the given executor.
+     *
+     * @see #executePipelineAsync(PipelineDefinition, Object, ExecutionOptions, Executor)
+     */
+    public CompletableFuture<Object> executePipelineAsync(PipelineDefinition definition,
+                                                          Object initialInput,
+                                                          Executor executor) {
+        return executePipelineAsync(definition, initialInput, ExecutionOptions.DEFAULT, executor);
+    }
+
+    /**
+     * Executes the pipeline on the given executor without blocking on asynchronous steps.
+     * <p>
+     * Steps run in order, as in {@link #executePipeline(PipelineDefinition, Object)}, with the same metrics
+     * and the same exceptions (which complete the future exceptionally):
+     * </p>
+     * <ul>
+     * <li>Synchronous steps run back to back on an executor thread.</li>
+     * <li>When an {@link AsyncPipelineStep} returns an incomplete stage, the thread is released. The
+     * execution resumes on the executor once the stage completes.</li>
+     * </ul>
+     * The caller's MDC entries are visible to the run. {@code cancel(true)} interrupts the running step
+     * or cancels the pending stage; the execution then fails with {@link PipelineCancelledException}.
+     *
+     * @param options  Tenant and priority of this call.
+     * @param executor Runs the synchronous segments of the execution.
+     * @return A future completed with the result of the last step.
+     */
+    public CompletableFuture<Object> executePipelineAsync(PipelineDefinition definition,
+                                                          Object initialInput,
+                                                          ExecutionOptions options,
+                                                          Executor executor) {
+        SingleFlight singleFlight;
+        Object key;
+        try {
+            singleFlight = singleFlightRegistry.forPipeline(definition);
+            if (singleFlight == null) {
+                return startExecution(definition, initialInput, options, executor);
             }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        try {
+            key = singleFlight.keyOf(initialInput);
+        } catch (RuntimeException e) {
+            singleFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (key == null) {
+            singleFlight.release();
+            return startExecution(definition, initialInput, options, executor);
+        }
+        long deadline = deadlineOf(options);
+        CompletableFuture<Object> result = deadlineTimer.bound(singleFlight.call(
+                        new CoalescingKey(options.tenant(), options.priority(), key),
+                        () -> startExecution(definition, initialInput, options, executor)),
+                deadline, () -> deadlineExceeded(definition.name(), null));
+        result.whenComplete((value, failure) -> singleFlight.release());
+        return result;
+    }
 
-            return currentData;
+    private CompletableFuture<Object> startExecution(PipelineDefinition definition,
+                                                     Object initialInput,
+                                                     ExecutionOptions options,
+                                                     Executor executor) {
+        AsyncExecution execution = new AsyncExecution(definition, options, executor, MDC.getCopyOfContextMap());
+        execution.admit(initialInput);
+        return execution;
+    }
 
-        } catch (DihCoreException e) {
-            // Domain errors (Concurrency, RetryExhausted) should propagate up
-            log.error("Pipeline execution failed [ID={}]: {}", executionId, e.getMessage());
-            throw e;
+    /**
+     * Executes the pipeline for a batch of inputs with the default tenant and priority.
+     *
+     * @see #executePipelineBatch(PipelineDefinition, List, ExecutionOptions)
+     */
+    public List<BatchItemResult> executePipelineBatch(PipelineDefinition definition, List<?> inputs) {
+        return executePipelineBatch(definition, inputs, ExecutionOptions.DEFAULT);
+    }
+
+    /**
+     * Executes the pipeline for a batch of inputs within one execution.
+     * <p>
+     * The batch is admitted, leases the plan and gets its {@link PipelineContext} once. The steps then run in
+     * order over all items still alive:
+     * </p>
+     * <ul>
+     * <li>A {@link BatchPipelineStep} is invoked once per chunk of up to {@code dih.executor.batch.max-chunk-size}
+     * items; its failure fails every item of the chunk.</li>
+     * <li>Any other step is invoked once per item.</li>
+     * </ul>
+     * A failed item skips the remaining steps and is reported with its translated exception; the other items
+     * go on. Failures of the batch as a whole (admission, plan compilation, cancellation) are thrown as in
+     * {@link #executePipeline(PipelineDefinition, Object, ExecutionOptions)}.
+     *
+     * A step {@code timeoutMs} applies per item (per chunk for batch steps); the timeout of the call applies to
+     * the batch as a whole.
+     *
+     * @param inputs  One initial input per item.
+     * @param options Tenant, priority and timeout of this call.
+     * @return One result per input, in input order.
+     */
+    public List<BatchItemResult> executePipelineBatch(PipelineDefinition definition,
+                                                      List<?> inputs,
+                                                      ExecutionOptions options) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String executionId = UUID.randomUUID().toString();
+        String pipelineName = definition.name();
+        long deadline = deadlineOf(options);
+        PipelinePlan plan = null;
+        ExecutionSlot slot = ExecutionSlot.NONE;
+        BulkheadPermit permit = BulkheadPermit.NONE;
+        boolean succeeded = false;
+        DeadlineTimer.Alarm alarm = deadlineTimer.interruptAt(deadline);
+
+        try {
+            // 0. Admission Control, once for the whole batch
+            slot = ExecutionSlot.await(scheduler.schedule(options));
+            permit = BulkheadPermit.await(bulkheadRegistry.admit(pipelineName, options.priority()));
+
+            // 1. Lease the Compiled Plan
+            plan = planCache.acquire(definition);
+            requireLinear(plan, "batch");
+
+            // 2. Initialize ThreadLocal Context
+            PipelineContext pipelineContext = new PipelineContext(
+                    executionId, Instant.now().toEpochMilli(), pipelineName, options, deadline);
+            pipelineScope.beginExecution(executionId);
+            PipelineContextHolder.initializeContext(pipelineContext);
+
+            log.info("Pipeline '{}' started for a batch of {} items. ExecutionID: {}",
+                    pipelineName, inputs.size(), executionId);
+            DistributionSummary.builder("dih.pipeline.batch.size")
+                    .tag("pipeline.name", pipelineName)
+                    .description("Items per batch execution")
+                    .register(meterRegistry)
+                    .record(inputs.size());
+
+            // 3. Execution Loop, step by step over the items that have not failed
+            Object[] data = inputs.toArray();
+            RuntimeException[] failures = new RuntimeException[data.length];
+            for (PlanStep step : plan.steps()) {
+                checkProgress(pipelineContext);
+                List<Integer> alive = new ArrayList<>();
+                for (int i = 0; i < data.length; i++) {
+                    if (failures[i] == null) {
+                        alive.add(i);
+                    }
+                }
+                if (alive.isEmpty()) {
+                    break;
+                }
+                if (step.isBatchCapable()) {
+                    int chunkSize = batchChunkSize > 0 ? batchChunkSize : alive.size();
+                    for (int from = 0; from < alive.size(); from += chunkSize) {
+                        checkProgress(pipelineContext);
+                        runChunk(step, alive.subList(from, Math.min(from + chunkSize, alive.size())),
+                                data, failures, pipelineContext, executionId);
+                    }
+                } else {
+                    for (int item : alive) {
+                        checkProgress(pipelineContext);
+                        try {
+                            data[item] = step.execute(data[item], pipelineContext);
+                        } catch (Exception e) {
+                            failures[item] = itemFailure(e, executionId, pipelineName);
+                        }
+                    }
+                }
+            }
+
+            List<BatchItemResult> results = new ArrayList<>(data.length);
+            for (int i = 0; i < data.length; i++) {
+                results.add(failures[i] == null
+                        ? BatchItemResult.success(i, data[i])
+                        : BatchItemResult.failure(i, failures[i]));
+            }
+            succeeded = true;
+            return results;
 
         } catch (Exception e) {
-            // Infrastructure errors (Context startup, DI failure)
-            log.error("Infrastructure failure in pipeline [ID={}]", executionId, e);
-            throw new PipelineConfigurationException("Fatal execution error: " + e.getMessage(), e);
+            Exception failure = alarm.disarm() ? deadlineExceeded(pipelineName, e) : e;
+            if (failure instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw translateFailure(failure, executionId, pipelineName);
 
         } finally {
             // 4. Cleanup
-            PipelineContextHolder.cleanup();
+            alarm.disarm();
+            finishExecution(executionId, pipelineName, plan, permit, succeeded, slot, sample);
+        }
+    }
 
-            sample.stop(Timer.builder("dih.pipeline.execution")
-                    .tag("pipeline.name", pipelineName)
-                    .description("Total execution time including context startup")
-                    .register(meterRegistry));
+    private void runChunk(PlanStep step,
+                          List<Integer> items,
+                          Object[] data,
+                          RuntimeException[] failures,
+                          PipelineContext pipelineContext,
+                          String executionId) throws Exception {
+        List<Object> chunk = new ArrayList<>(items.size());
+        for (int item : items) {
+            chunk.add(data[item]);
+        }
+        try {
+            List<Object> outputs = step.executeBatch(chunk, pipelineContext);
+            for (int i = 0; i < items.size(); i++) {
+                data[items.get(i)] = outputs.get(i);
+            }
+        } catch (Exception e) {
+            RuntimeException failure = itemFailure(e, executionId, pipelineContext.pipelineName());
+            for (int item : items) {
+                failures[item] = failure;
+            }
+        }
+    }
 
-            log.debug("Pipeline context destroyed [ID={}]", executionId);
+    /**
+     * Maps the failure of one item (or chunk) of a batch. Cancellation is not an item failure: it ends the batch.
+     */
+    private RuntimeException itemFailure(Exception e, String executionId, String pipelineName) throws Exception {
+        if (e instanceof InterruptedException || e instanceof PipelineCancelledException
+                || e instanceof CancellationException || Thread.currentThread().isInterrupted()) {
+            throw e;
         }
+        return translateFailure(e, executionId, pipelineName);
     }
 
-    public Object executePipeline(PipelineDefinition definition) {
-        return executePipeline(definition, null);
+    /**
+     * Streams the pipeline with the default tenant and priority.
+     *
+     * @see #executePipelineStream(PipelineDefinition, Object, ExecutionOptions)
+     */
+    public Flow.Publisher<Object> executePipelineStream(PipelineDefinition definition, Object initialInput) {
+        return executePipelineStream(definition, initialInput, ExecutionOptions.DEFAULT);
+    }
+
+    /**
+     * Executes the pipeline in streaming record mode.
+     * <p>
+     * The returned publisher is cold and accepts a single subscriber: the execution is admitted and started on
+     * the {@code dihTaskExecutor} when it is subscribed to, and ends when the last record has been delivered.
+     * </p>
+     * <ul>
+     * <li>The first step is invoked once with {@code initialInput}. Its result is the record source: a
+     * {@link Flow.Publisher} (read with bounded demand), an {@link Iterator}, {@link Iterable} or {@link Stream}
+     * (iterated lazily), or a single record.</li>
+     * <li>Every later step runs on its own thread, taking one record at a time from a bounded buffer and handing
+     * its result to the next one. A {@code null} result drops the record.</li>
+     * <li>Retry policies, circuit breakers and step-type bulkheads apply per record. The execution's context and
+     * the caller's MDC entries are bound on every step thread.</li>
+     * </ul>
+     * The first failure stops all steps and is signalled via {@code onError}, translated as in
+     * {@link #executePipeline(PipelineDefinition, Object)}. Cancelling the subscription interrupts all steps.
+     *
+     * @param options Tenant and priority of this call.
+     * @return A publisher of the records produced by the last step.
+     */
+    public Flow.Publisher<Object> executePipelineStream(PipelineDefinition definition,
+                                                        Object initialInput,
+                                                        ExecutionOptions options) {
+        String executionId = UUID.randomUUID().toString();
+        return new StreamExecution(executionId, definition.name(), initialInput, MDC.getCopyOfContextMap(),
+                taskExecutor, deadlineTimer, streamBufferSize, new StreamLifecycle(executionId, definition, options));
+    }
+
+    /**
+     * Runs the steps of a graph pipeline as branches. Returns only once every step has stopped.
+     */
+    private Object runGraph(PlanGraph graph, Object input, PipelineContext pipelineContext) throws Exception {
+        checkProgress(pipelineContext);
+        // Closing the scope waits until every step has stopped, also on failure or interruption
+        try (BranchScope<Object> scope = graphScope(pipelineContext)) {
+            return Futures.await(graph.start(input, pipelineContext, scope));
+        }
+    }
+
+    private BranchScope<Object> graphScope(PipelineContext pipelineContext) {
+        return new BranchScope<>("graph:" + pipelineContext.pipelineName() + ":" + pipelineContext.executionId(),
+                taskExecutor);
+    }
+
+    /**
+     * Batch and streaming runs pass data along the list of steps; graph pipelines are not supported there.
+     */
+    private static void requireLinear(PipelinePlan plan, String mode) {
+        if (plan.graph() != null) {
+            throw new PipelineConfigurationException("Pipeline '" + plan.definition().name()
+                    + "' declares step dependencies, which are not supported in " + mode + " mode.");
+        }
+    }
+
+    /**
+     * Identity of a coalesced execution within its pipeline version: executions of different tenants never
+     * share a run, as steps may read the tenant from the context, and executions of different priorities
+     * never queue for admission behind each other.
+     */
+    private record CoalescingKey(String tenant, Priority priority, Object inputKey) {
+    }
+
+    /**
+     * @return The deadline of an execution requested now, or {@link PipelineContext#NO_DEADLINE}.
+     */
+    private static long deadlineOf(ExecutionOptions options) {
+        Duration timeout = options.timeout();
+        return timeout != null ? System.currentTimeMillis() + timeout.toMillis() : PipelineContext.NO_DEADLINE;
+    }
+
+    /**
+     * Stops a run between two steps (or items) once it has been cancelled or its deadline has passed.
+     */
+    private static void checkProgress(PipelineContext pipelineContext) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new PipelineCancelledException(pipelineContext.pipelineName());
+        }
+        if (pipelineContext.isExpired()) {
+            throw deadlineExceeded(pipelineContext.pipelineName(), null);
+        }
+    }
+
+    /**
+     * The failure of a run whose deadline has passed; {@code cause} is what the interrupted work failed with.
+     */
+    private static DeadlineExceededException deadlineExceeded(String pipelineName, Throwable cause) {
+        if (cause instanceof DeadlineExceededException exceeded) {
+            return exceeded;
+        }
+        return new DeadlineExceededException(
+                "Execution deadline of pipeline '" + pipelineName + "' has passed.", pipelineName, cause);
+    }
+
+    /**
+     * Maps a failure of a run to the exception surfaced to the caller, and logs it.
+     */
+    private RuntimeException translateFailure(Exception e, String executionId, String pipelineName) {
+        if (e instanceof PipelineCancelledException cancelled) {
+            log.warn("Pipeline execution cancelled [ID={}]", executionId);
+            return cancelled;
+        }
+        if (e instanceof DihCoreException domainError) {
+            // Domain errors (Concurrency, RetryExhausted) should propagate up
+            log.error("Pipeline execution failed [ID={}]: {}", executionId, e.getMessage());
+            return domainError;
+        }
+        if (e instanceof InterruptedException || e instanceof CancellationException) {
+            log.warn("Pipeline execution cancelled [ID={}]", executionId);
+            return new PipelineCancelledException(pipelineName, e);
+        }
+        // Infrastructure errors (DI failure, step lookup)
+        log.error("Infrastructure failure in pipeline [ID={}]", executionId, e);
+        return new PipelineConfigurationException("Fatal execution error: " + e.getMessage(), e);
+    }
+
+    private void finishExecution(String executionId,
+                                 String pipelineName,
+                                 PipelinePlan plan,
+                                 BulkheadPermit permit,
+                                 boolean succeeded,
+                                 ExecutionSlot slot,
+                                 Timer.Sample sample) {
+        pipelineScope.endExecution(executionId);
+        if (plan != null) {
+            plan.release();
+        }
+        permit.release(succeeded);
+        slot.release();
+        PipelineContextHolder.cleanup();
+
+        sample.stop(Timer.builder("dih.pipeline.execution")
+                .tag("pipeline.name", pipelineName)
+                .description("Total execution time including plan compilation on first use")
+                .register(meterRegistry));
+
+        log.debug("Pipeline execution finished [ID={}]", executionId);
+    }
+
+    /**
+     * One asynchronous run. Executes the steps in segments: a segment runs synchronous steps back to back
+     * on an executor thread and ends at the first incomplete stage, whose completion schedules the next one.
+     * At most one segment runs at a time, so the run's state needs no further synchronization.
+     */
+    private final class AsyncExecution extends InterruptibleFuture<Object> {
+
+        private final Timer.Sample sample = Timer.start(meterRegistry);
+        private final String executionId = UUID.randomUUID().toString();
+        private final PipelineDefinition definition;
+        private final ExecutionOptions options;
+        private final long deadline;
+        private final Executor executor;
+        private final Map<String, String> callerMdc;
+
+        private volatile boolean expired;
+        private Future<?> deadlineTimeout;
+        private ExecutionSlot slot = ExecutionSlot.NONE;
+        private BulkheadPermit permit = BulkheadPermit.NONE;
+        private PipelinePlan plan;
+        private PipelineContext pipelineContext;
+        private BranchScope<Object> scope;
+        private volatile CompletableFuture<?> pending;
+
+        AsyncExecution(PipelineDefinition definition,
+                       ExecutionOptions options,
+                       Executor executor,
+                       Map<String, String> callerMdc) {
+            this.definition = definition;
+            this.options = options;
+            this.deadline = deadlineOf(options);
+            this.executor = executor;
+            this.callerMdc = callerMdc;
+        }
+
+        /**
+         * Starts the run once the scheduler and the bulkheads admit it. Queueing holds no executor thread.
+         */
+        void admit(Object initialInput) {
+            deadlineTimeout = deadlineTimer.runAt(deadline, this::expire);
+            CompletableFuture<ExecutionSlot> scheduled = scheduler.schedule(options);
+            awaitAdmission(scheduled, (granted, failure) -> {
+                if (failure != null) {
+                    resume(0, initialInput, failure);
+                    return;
+                }
+                slot = granted;
+                awaitAdmission(bulkheadRegistry.admit(definition.name(), options.priority()), (admitted, rejection) -> {
+                    if (admitted != null) {
+                        permit = admitted;
+                    }
+                    resume(0, initialInput, rejection);
+                });
+            });
+        }
+
+        private <T> void awaitAdmission(CompletableFuture<T> admission, BiConsumer<T, Throwable> then) {
+            pending = admission;
+            if (isDone()) {
+                admission.cancel(true);
+            }
+            admission.whenComplete(then);
+        }
+
+        void resume(int stepIndex, Object data, Throwable failure) {
+            try {
+                executor.execute(() -> runSegment(stepIndex, data, failure));
+            } catch (RejectedExecutionException e) {
+                // Still release the plan and record the run
+                runSegment(stepIndex, data, failure != null ? failure : e);
+            }
+        }
+
+        @Override
+        protected void onCancel() {
+            CompletableFuture<?> stage = pending;
+            if (stage != null) {
+                stage.cancel(true);
+            }
+        }
+
+        /**
+         * Runs on the deadline timer: stops the admission wait or the pending stage. Running steps are
+         * stopped by their own deadline (see {@link PlanStep}).
+         */
+        private void expire() {
+            expired = true;
+            CompletableFuture<?> stage = pending;
+            if (stage != null) {
+                stage.cancel(true);
+            }
+        }
+
+        private void runSegment(int stepIndex, Object data, Throwable failure) {
+            boolean bound = bindRunner();
+            Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+            if (callerMdc != null) {
+                MDC.setContextMap(callerMdc);
+            }
+            try {
+                if (failure != null) {
+                    throw failure;
+                }
+                if (!bound) {
+                    throw new PipelineCancelledException(definition.name());
+                }
+                if (plan == null) {
+                    // 1. Lease the Compiled Plan, 2. Initialize ThreadLocal Context
+                    plan = planCache.acquire(definition);
+                    pipelineContext = new PipelineContext(
+                            executionId, Instant.now().toEpochMilli(), definition.name(), options, deadline);
+                    pipelineScope.beginExecution(executionId);
+                    PipelineContextHolder.initializeContext(pipelineContext);
+                    log.info("Pipeline '{}' started. ExecutionID: {}", definition.name(), executionId);
+                } else {
+                    PipelineContextHolder.initializeContext(pipelineContext);
+                }
+
+                // 3. Execution Loop (until the first step that completes asynchronously)
+                List<PlanStep> steps = plan.steps();
+                if (plan.graph() != null && stepIndex == 0) {
+                    // A graph runs as branches: the segment ends once the roots have been started
+                    checkProgress(pipelineContext);
+                    BranchScope<Object> branches = graphScope(pipelineContext);
+                    scope = branches;
+                    CompletableFuture<Object> run = plan.graph().start(data, pipelineContext, branches);
+                    pending = run;
+                    if (isDone()) {
+                        run.cancel(true);
+                    }
+                    // A cancelled run completes right away: the execution ends only once every step has stopped
+                    run.whenComplete((result, runFailure) -> {
+                        branches.shutdown();
+                        branches.termination().whenComplete((ignored, none) -> resume(steps.size(), result, runFailure));
+                    });
+                    return;
+                }
+                Object currentData = data;
+                for (int i = stepIndex; i < steps.size(); i++) {
+                    if (isDone()) {
+                        throw new PipelineCancelledException(definition.name());
+                    }
+                    checkProgress(pipelineContext);
+                    CompletableFuture<Object> stage = steps.get(i).executeAsync(currentData, pipelineContext);
+                    if (!stage.isDone()) {
+                        pending = stage;
+                        if (isDone()) {
+                            stage.cancel(true);
+                        }
+                        int next = i + 1;
+                        stage.whenComplete((result, stageFailure) -> resume(next, result, stageFailure));
+                        return;
+                    }
+                    currentData = stage.join();
+                }
+
+                // 4. Cleanup and completion
+                finish(currentData, null);
+
+            } catch (Throwable t) {
+                finish(null, Futures.unwrap(t));
+            } finally {
+                PipelineContextHolder.cleanup();
+                if (previousMdc != null) {
+                    MDC.setContextMap(previousMdc);
+                } else {
+                    MDC.clear();
+                }
+                if (bound) {
+                    unbindRunner();
+                }
+            }
+        }
+
+        private void finish(Object result, Throwable failure) {
+            deadlineTimeout.cancel(false);
+            if (scope != null) {
+                // Already terminated unless the graph failed to start
+                scope.close();
+            }
+            Throwable surfaced = failure != null && expired ? deadlineExceeded(definition.name(), failure) : failure;
+            try {
+                if (surfaced instanceof Exception e) {
+                    surfaced = translateFailure(e, executionId, definition.name());
+                }
+            } finally {
+                finishExecution(executionId, definition.name(), plan, permit, failure == null, slot, sample);
+            }
+            if (surfaced == null) {
+                complete(result);
+            } else {
+                completeExceptionally(surfaced);
+            }
+        }
+    }
+
+    /**
+     * Admission, plan lease and cleanup of a {@link StreamExecution}, like those of the other execution modes.
+     * Called on the coordinator thread of the run only.
+     */
+    private final class StreamLifecycle implements StreamExecution.Lifecycle {
+
+        private final String executionId;
+        private final PipelineDefinition definition;
+        private final ExecutionOptions options;
+
+        private Timer.Sample sample;
+        private long deadline;
+        private PipelinePlan plan;
+        private ExecutionSlot slot = ExecutionSlot.NONE;
+        private BulkheadPermit permit = BulkheadPermit.NONE;
+
+        StreamLifecycle(String executionId, PipelineDefinition definition, ExecutionOptions options) {
+            this.executionId = executionId;
+            this.definition = definition;
+            this.options = options;
+        }
+
+        @Override
+        public long begin() {
+            sample = Timer.start(meterRegistry);
+            deadline = deadlineOf(options);
+            return deadline;
+        }
+
+        @Override
+        public List<PlanStep> admit() throws Exception {
+            slot = ExecutionSlot.await(scheduler.schedule(options));
+            permit = BulkheadPermit.await(bulkheadRegistry.admit(definition.name(), options.priority()));
+            plan = planCache.acquire(definition);
+            requireLinear(plan, "streaming");
+            PipelineContext pipelineContext = new PipelineContext(
+                    executionId, Instant.now().toEpochMilli(), definition.name(), options, deadline);
+            pipelineScope.beginExecution(executionId);
+            PipelineContextHolder.initializeContext(pipelineContext);
+            log.info("Pipeline '{}' started in streaming mode. ExecutionID: {}", definition.name(), executionId);
+            return plan.steps();
+        }
+
+        @Override
+        public Exception deadlineExceeded() {
+            return PipelineExecutor.deadlineExceeded(definition.name(), null);
+        }
+
+        @Override
+        public RuntimeException translateFailure(Exception failure) {
+            return PipelineExecutor.this.translateFailure(failure, executionId, definition.name());
+        }
+
+        @Override
+        public void finish(boolean succeeded) {
+            finishExecution(executionId, definition.name(), plan, permit, succeeded, slot, sample);
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,22 +1,29 @@
 package org.example.service;
 
+import org.example.annotation.ThreadSafeStep;
 import org.example.model.PipelineDefinition;
 import org.example.model.StepDefinition;
+import org.example.model.RetryPolicyDefinition;
 import org.example.registry.StepTypeRegistry;
+import org.example.retry.RetryExceptionClassifier;
+import org.example.scope.PipelineScope;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.context.annotation.Scope;
+import org.springframework.core.annotation.AnnotatedElementUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 
 /**
  * Responsible for translating the high-level {@link PipelineDefinition} (JSON)
  * into low-level Spring {@link BeanDefinition}s.
  * <p>
  * This component is stateless and purely functional. It populates a provided
- * {@link BeanDefinitionRegistry} (usually an ephemeral child context) with
- * the step definitions required for a specific pipeline run.
+ * {@link BeanDefinitionRegistry} (usually the child context of a compiled execution plan) with
+ * the step definitions required for a specific pipeline version.
  * </p>
  */
 @Service
@@ -24,6 +31,15 @@ public class PipelineRegistrar {
 
     private static final Logger log = LoggerFactory.getLogger(PipelineRegistrar.class);
 
+    /** BeanDefinition attribute holding the step's {@link RetryPolicyDefinition}. */
+    public static final String RETRY_POLICY_ATTRIBUTE = "retryPolicy";
+
+    /** BeanDefinition attribute holding the {@link RetryExceptionClassifier} resolved from the retry policy. */
+    public static final String RETRY_CLASSIFIER_ATTRIBUTE = "retryClassifier";
+
+    /** BeanDefinition attribute holding the step type alias of the definition. */
+    public static final String STEP_TYPE_ATTRIBUTE = "stepType";
+
     private final StepTypeRegistry stepTypeRegistry;
 
     public PipelineRegistrar(StepTypeRegistry stepTypeRegistry) {
@@ -44,9 +60,12 @@ public class PipelineRegistrar {
             return;
         }
 
+        // Steps that are not explicitly marked fall back to the pipeline-wide scope
+        String defaultScope = StringUtils.hasText(definition.scope()) ? definition.scope() : PipelineScope.SCOPE_NAME;
+
         // Recursively register steps to handle composite structures (if any)
         for (StepDefinition stepDef : definition.steps()) {
-            registerStepRecursive(pipelineName, stepDef, registry);
+            registerStepRecursive(pipelineName, stepDef, defaultScope, registry);
         }
 
         log.debug("Successfully registered pipeline '{}' with {} top-level steps.",
@@ -55,12 +74,26 @@ public class PipelineRegistrar {
 
     /**
      * Registers a single step definition as a Spring Bean.
+     * Unmarked steps are isolated per execution ({@link PipelineScope}), as in {@link #registerPipeline}.
      *
      * @param pipelineName The namespace prefix.
      * @param stepDefinition The step configuration.
      * @param registry     The target registry.
      */
     public void registerStep(String pipelineName, StepDefinition stepDefinition, BeanDefinitionRegistry registry) {
+        registerStep(pipelineName, stepDefinition, PipelineScope.SCOPE_NAME, registry);
+    }
+
+    /**
+     * Registers a single step definition as a Spring Bean.
+     *
+     * @param pipelineName   The namespace prefix.
+     * @param stepDefinition The step configuration.
+     * @param defaultScope   The scope applied when neither the definition nor the class declares one.
+     * @param registry       The target registry.
+     */
+    public void registerStep(String pipelineName, StepDefinition stepDefinition, String defaultScope,
+                             BeanDefinitionRegistry registry) {
         // 1. Resolve the implementation class
         Class<?> stepClass = stepTypeRegistry.getStepClass(stepDefinition.type());
 
@@ -72,13 +105,18 @@ public class PipelineRegistrar {
             stepDefinition.properties().forEach(builder::addPropertyValue);
         }
 
-        // 4. Attach Metadata for Post-Processors (Critical for Retry AOP)
+        // 4. Attach Metadata for Post-Processors (Critical for Retry AOP).
+        // Exception classes are resolved here, so typos fail the pipeline registration, not the first retry.
+        builder.getRawBeanDefinition().setAttribute(STEP_TYPE_ATTRIBUTE, stepDefinition.type());
         if (stepDefinition.retryPolicy() != null) {
-            builder.getRawBeanDefinition().setAttribute("retryPolicy", stepDefinition.retryPolicy());
+            builder.getRawBeanDefinition().setAttribute(RETRY_POLICY_ATTRIBUTE, stepDefinition.retryPolicy());
+            builder.getRawBeanDefinition().setAttribute(RETRY_CLASSIFIER_ATTRIBUTE,
+                    RetryExceptionClassifier.of(stepDefinition.retryPolicy(), stepClass.getClassLoader()));
         }
 
-        // 5. Scope: SINGLETON is correct here because the entire Context is ephemeral (scoped to the request).
-        builder.setScope(BeanDefinition.SCOPE_SINGLETON);
+        // 5. Scope: SINGLETON instances live as long as the compiled plan and are shared by all executions,
+        // PIPELINE instances are created per execution ID and destroyed when the run ends.
+        builder.setScope(resolveScope(stepDefinition, stepClass, defaultScope));
 
         // 6. Generate unique bean name
         String beanName = pipelineName + "_" + stepDefinition.id();
@@ -88,13 +126,32 @@ public class PipelineRegistrar {
         log.trace("Registered bean definition: {}", beanName);
     }
 
-    private void registerStepRecursive(String pipelineName, StepDefinition stepDef, BeanDefinitionRegistry registry) {
-        registerStep(pipelineName, stepDef, registry);
+    /**
+     * Resolution order: explicit {@code threadSafe} flag of the definition, {@link ThreadSafeStep} marker,
+     * {@link Scope} annotation of the class, pipeline-wide default.
+     */
+    private String resolveScope(StepDefinition stepDefinition, Class<?> stepClass, String defaultScope) {
+        if (stepDefinition.threadSafe() != null) {
+            return stepDefinition.threadSafe() ? BeanDefinition.SCOPE_SINGLETON : PipelineScope.SCOPE_NAME;
+        }
+        if (AnnotatedElementUtils.hasAnnotation(stepClass, ThreadSafeStep.class)) {
+            return BeanDefinition.SCOPE_SINGLETON;
+        }
+        Scope scope = AnnotatedElementUtils.findMergedAnnotation(stepClass, Scope.class);
+        if (scope != null && StringUtils.hasText(scope.scopeName())) {
+            return scope.scopeName();
+        }
+        return defaultScope;
+    }
+
+    private void registerStepRecursive(String pipelineName, StepDefinition stepDef, String defaultScope,
+                                       BeanDefinitionRegistry registry) {
+        registerStep(pipelineName, stepDef, defaultScope, registry);
 
         // Support for nested steps (e.g., for ParallelSplitter branches)
         if (stepDef.subSteps() != null) {
             for (StepDefinition subStepDef : stepDef.subSteps()) {
-                registerStepRecursive(pipelineName, subStepDef, registry);
+                registerStepRecursive(pipelineName, subStepDef, defaultScope, registry);
             }
         }
     }
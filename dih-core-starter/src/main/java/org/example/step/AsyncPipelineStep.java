@@ -0,0 +1,50 @@
+package org.example.step;
+
+import org.example.concurrency.Futures;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Variant of {@link PipelineStep} for I/O-bound steps that complete asynchronously.
+ * <p>
+ * Instead of blocking a thread while waiting for a downstream system, the step starts the work and
+ * returns a {@link CompletionStage}. The engine composes the stage with the rest of the pipeline:
+ * no thread is parked between the start and the completion of the step.
+ * </p>
+ *
+ * <h2>Contract:</h2>
+ * <ul>
+ * <li>{@link #executeAsync} should return quickly; heavy synchronous work belongs in a regular
+ * {@link PipelineStep}.</li>
+ * <li>Failures may be thrown directly or delivered through the stage.</li>
+ * <li>Cancelling the returned stage should stop the work where possible (the engine cancels it
+ * when the execution is cancelled).</li>
+ * <li>Continuations run on whatever thread completes the stage; the {@link PipelineContext} argument
+ * is the reliable source of execution metadata there, not {@code ThreadLocal}s.</li>
+ * </ul>
+ * Sync and async steps can be mixed freely in one pipeline definition. When invoked synchronously,
+ * {@link #execute} waits for the stage.
+ *
+ * @param <I> The type of the input data received from the previous step.
+ * @param <O> The type of the output data passed to the next step.
+ */
+public interface AsyncPipelineStep<I, O> extends PipelineStep<I, O> {
+
+    /**
+     * Starts the processing logic of the step.
+     *
+     * @param input   The data payload received from the preceding step.
+     * @param context The runtime context for the current pipeline execution.
+     * @return A stage completed with the payload for the succeeding step.
+     * @throws Exception if the step cannot be started.
+     */
+    CompletionStage<O> executeAsync(I input, PipelineContext context) throws Exception;
+
+    /**
+     * Blocking bridge for synchronous callers: waits for {@link #executeAsync} to complete.
+     */
+    @Override
+    default O execute(I input, PipelineContext context) throws Exception {
+        return Futures.await(executeAsync(input, context));
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.step;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Variant of {@link PipelineStep} that processes a chunk of items in one call.
+ * <p>
+ * Used by {@code PipelineExecutor.executePipelineBatch}: instead of being invoked once per item, the step
+ * receives all items of the batch that are still alive at this point of the pipeline, e.g. to write them
+ * with a single bulk statement or fetch them with one remote call.
+ * </p>
+ *
+ * <h2>Contract:</h2>
+ * <ul>
+ * <li>The returned list holds exactly one output per input, in the same order.</li>
+ * <li>A thrown exception fails every item of the chunk. Retry policies retry the whole chunk.</li>
+ * </ul>
+ * In single-item executions, {@link #execute} delegates to {@link #executeBatch} with a one-element chunk.
+ *
+ * @param <I> The type of the input data received from the previous step.
+ * @param <O> The type of the output data passed to the next step.
+ */
+public interface BatchPipelineStep<I, O> extends PipelineStep<I, O> {
+
+    /**
+     * Processes a chunk of items.
+     *
+     * @param inputs  The payloads received from the preceding step, one per item.
+     * @param context The runtime context for the current pipeline execution.
+     * @return The payloads for the succeeding step, one per input and in input order.
+     * @throws Exception if the chunk cannot be processed.
+     */
+    List<O> executeBatch(List<I> inputs, PipelineContext context) throws Exception;
+
+    @Override
+    default O execute(I input, PipelineContext context) throws Exception {
+        List<O> outputs = executeBatch(Collections.singletonList(input), context);
+        if (outputs == null || outputs.size() != 1) {
+            throw new IllegalStateException("Batch step returned "
+                    + (outputs == null ? "no" : outputs.size()) + " results for 1 input.");
+        }
+        return outputs.get(0);
+    }
+}
@@ -0,0 +1,23 @@
+package org.example.step;
+
+import java.util.Map;
+
+/**
+ * Optional contract for steps that orchestrate other steps of the same pipeline
+ * (e.g. {@link ParallelSplitterStep}).
+ * <p>
+ * When a pipeline is compiled into an execution plan, the engine hands every composite step
+ * the resolved sub-steps of its pipeline, keyed by step ID. This replaces the runtime
+ * bean lookup by naming convention ({@code PipelineName + "_" + StepId}) on the hot path.
+ * </p>
+ */
+public interface CompositeStep {
+
+    /**
+     * Binds the compiled steps of the owning pipeline.
+     *
+     * @param subSteps All steps of the pipeline, keyed by {@code StepDefinition.id()}.
+     *                 Each value resolves the actual bean on invocation, so scoping rules still apply.
+     */
+    void bindSubSteps(Map<String, PipelineStep<Object, Object>> subSteps);
+}
@@ -0,0 +1,355 @@
+package org.example.step;
+
+import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+import org.example.concurrency.BranchScope;
+import org.example.concurrency.Futures;
+import org.example.exception.PipelineCancelledException;
+import org.example.exception.PipelineConcurrencyException;
+import org.example.exception.PipelineConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Implements the data-parallel <b>Map-Reduce</b> pattern over collection inputs.
+ * <p>
+ * Where {@link ParallelSplitterStep} broadcasts one input to a fixed set of branches, this step:
+ * <ol>
+ * <li><b>Splits</b> a {@code Collection}, {@code Iterable}, {@code Iterator}, {@code Stream} or array input
+ * into chunks.</li>
+ * <li><b>Maps</b> every item with the sub-step {@code subStepId}, one chunk per worker at a time. A
+ * {@link BatchPipelineStep} sub-step receives each chunk in a single call.</li>
+ * <li><b>Reduces</b> the outputs with a {@link Collector} while the remaining chunks still run, so the
+ * results need not be held in one list.</li>
+ * </ol>
+ *
+ * <h2>Properties:</h2>
+ * <ul>
+ * <li><b>subStepId</b> (required) - the step applied to each item.</li>
+ * <li><b>parallelism</b> - chunks running at the same time (default 4).</li>
+ * <li><b>maxInFlight</b> - chunks started but not yet reduced (default {@code 2 * parallelism}). In ordered
+ * mode this bounds the outputs buffered behind a slow chunk.</li>
+ * <li><b>chunkSize</b> - items per chunk. {@code 0} (default) sizes chunks dynamically.</li>
+ * <li><b>ordered</b> - reduce in input order (default) or in completion order.</li>
+ * <li><b>reducer</b> - {@code list} (default), {@code count}, {@code none}, or the name of a {@link Collector}
+ * bean.</li>
+ * </ul>
+ *
+ * <h2>Scheduling Model:</h2>
+ * <ul>
+ * <li><b>Self-Scheduling:</b> Chunks are cut lazily and handed out one at a time: a worker finishing early
+ * picks up the next chunk, so skewed items do not leave workers idle while one of them is busy.</li>
+ * <li><b>Guided Chunk Sizes:</b> With {@code chunkSize = 0} and an input of known size, each chunk takes
+ * {@code remaining / (2 * parallelism)} items (at most {@value #MAX_GUIDED_CHUNK_SIZE}): large chunks while
+ * there is plenty of work, single items towards the end, where a skewed item would otherwise hold up the
+ * whole step. Inputs of unknown size use chunks of {@value #DEFAULT_CHUNK_SIZE}.</li>
+ * <li><b>Backpressure:</b> The input is consumed only as chunks are started, so lazy {@code Iterator} and
+ * {@code Stream} inputs are never materialized as a whole.</li>
+ * <li><b>Fail-Fast:</b> Chunks run in a {@link BranchScope}. The first failing chunk cancels and interrupts
+ * the others; once they have stopped, the step fails with {@link PipelineConcurrencyException}.</li>
+ * </ul>
+ */
+@ThreadSafeStep
+@DihStepComponent("ParallelForEach")
+public class ParallelForEachStep implements PipelineStep<Object, Object>, CompositeStep, ApplicationContextAware {
+
+    private static final Logger log = LoggerFactory.getLogger(ParallelForEachStep.class);
+
+    /** Chunk size for inputs of unknown size when {@code chunkSize} is dynamic. */
+    static final int DEFAULT_CHUNK_SIZE = 16;
+    /** Upper bound of dynamically sized chunks. */
+    static final int MAX_GUIDED_CHUNK_SIZE = 1024;
+
+    private ApplicationContext springContext;
+
+    @Autowired
+    private AsyncTaskExecutor dihTaskExecutor;
+
+    private String subStepId;
+    private int parallelism = 4;
+    private int maxInFlight;
+    private int chunkSize;
+    private boolean ordered = true;
+    private String reducer = "list";
+
+    /**
+     * Bound by the execution plan: the sub-step and the reducer are resolved once per plan.
+     */
+    private volatile PipelineStep<Object, Object> boundSubStep;
+    private volatile Collector<Object, Object, Object> boundReducer;
+
+    public void setSubStepId(String subStepId) {
+        this.subStepId = subStepId;
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public void setReducer(String reducer) {
+        this.reducer = reducer;
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        this.springContext = applicationContext;
+    }
+
+    /**
+     * Wires the sub-step and the reducer once per plan and validates the configuration eagerly.
+     *
+     * @throws PipelineConfigurationException if the sub-step or the reducer does not exist, or a limit is not positive.
+     */
+    @Override
+    public void bindSubSteps(Map<String, PipelineStep<Object, Object>> subSteps) {
+        if (subStepId == null || !subSteps.containsKey(subStepId)) {
+            throw new PipelineConfigurationException(
+                    "ParallelForEach references unknown sub-step '" + subStepId + "'.");
+        }
+        if (parallelism <= 0 || maxInFlight < 0 || chunkSize < 0) {
+            throw new PipelineConfigurationException("ParallelForEach '" + subStepId
+                    + "' requires a positive parallelism and non-negative maxInFlight and chunkSize.");
+        }
+        this.boundReducer = resolveReducer();
+        this.boundSubStep = subSteps.get(subStepId);
+    }
+
+    /**
+     * Maps every item of the input with the sub-step and reduces the outputs.
+     *
+     * @param input           A collection-like payload; any other object is processed as a single item.
+     * @param pipelineContext The current execution metadata, shared by all chunks.
+     * @return The result of the reducer.
+     * @throws PipelineConcurrencyException if a chunk fails.
+     * @throws PipelineCancelledException if the calling thread is interrupted while waiting for the chunks.
+     */
+    @Override
+    public Object execute(Object input, PipelineContext pipelineContext) {
+        PipelineStep<Object, Object> subStep = boundSubStep;
+        Collector<Object, Object, Object> collector = boundReducer;
+        if (subStep == null) {
+            throw new PipelineConfigurationException("ParallelForEach must run within a compiled pipeline plan.");
+        }
+
+        String pipelineName = pipelineContext.pipelineName();
+        Iterator<?> items = iterate(input);
+        int remaining = sizeOf(input);
+        int window = maxInFlight > 0 ? maxInFlight : 2 * parallelism;
+
+        Object accumulator = collector.supplier().get();
+        BlockingQueue<ChunkOutcome> completions = new LinkedBlockingQueue<>();
+        Map<Integer, List<Object>> reorderBuffer = new HashMap<>();
+        int started = 0;
+        int reduced = 0;
+        int running = 0;
+
+        // Closing the scope waits until every chunk has stopped, also on failure or interruption
+        try (BranchScope<List<Object>> scope = new BranchScope<>(
+                "foreach:" + pipelineName + ":" + pipelineContext.executionId(), dihTaskExecutor)) {
+            while (true) {
+                // 1. Split: start chunks while workers are free and the in-flight window allows
+                while (running < parallelism && started - reduced < window && items.hasNext()) {
+                    List<Object> chunk = nextChunk(items, remaining);
+                    if (remaining > 0) {
+                        remaining -= chunk.size();
+                    }
+                    int index = started++;
+                    running++;
+                    scope.fork("chunk-" + index,
+                                    () -> CompletableFuture.completedFuture(mapChunk(subStep, chunk, pipelineContext)))
+                            .whenComplete((outputs, failure) -> completions.add(new ChunkOutcome(index, outputs,
+                                    failure != null ? Futures.unwrap(failure) : null)));
+                }
+                if (running == 0) {
+                    break;
+                }
+
+                // 2. Map: wait for the next chunk to finish, fail fast on the first failure
+                ChunkOutcome outcome = completions.take();
+                running--;
+                if (outcome.failure() != null) {
+                    throw chunkFailure(pipelineName, outcome);
+                }
+
+                // 3. Reduce: in completion order, or in input order through the reorder buffer
+                if (!ordered) {
+                    accumulate(collector, accumulator, outcome.outputs());
+                    reduced++;
+                } else {
+                    reorderBuffer.put(outcome.index(), outcome.outputs());
+                    List<Object> next;
+                    while ((next = reorderBuffer.remove(reduced)) != null) {
+                        accumulate(collector, accumulator, next);
+                        reduced++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // --- CANCELLATION: closing the scope has interrupted the running chunks ---
+            Thread.currentThread().interrupt();
+            log.warn("ParallelForEach interrupted in pipeline '{}'. Chunks cancelled.", pipelineName);
+
+            throw new PipelineCancelledException(pipelineName, e);
+        }
+
+        log.debug("ParallelForEach reduced {} chunks in pipeline '{}'.", started, pipelineName);
+        return collector.finisher().apply(accumulator);
+    }
+
+    /**
+     * Applies the sub-step to one chunk on a worker thread.
+     *
+     * @return One output per item, in item order.
+     */
+    private List<Object> mapChunk(PipelineStep<Object, Object> subStep,
+                                  List<Object> chunk,
+                                  PipelineContext context) throws Exception {
+        if (subStep instanceof BatchPipelineStep<Object, Object> batchStep) {
+            return batchStep.executeBatch(chunk, context);
+        }
+        List<Object> outputs = new ArrayList<>(chunk.size());
+        for (Object item : chunk) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Chunk cancelled");
+            }
+            outputs.add(subStep.execute(item, context));
+        }
+        return outputs;
+    }
+
+    private List<Object> nextChunk(Iterator<?> items, int remaining) {
+        int size;
+        if (chunkSize > 0) {
+            size = chunkSize;
+        } else if (remaining > 0) {
+            // Guided self-scheduling: chunks shrink as the remaining work does
+            size = Math.min(MAX_GUIDED_CHUNK_SIZE, Math.max(1, remaining / (2 * parallelism)));
+        } else {
+            size = DEFAULT_CHUNK_SIZE;
+        }
+        List<Object> chunk = new ArrayList<>(size);
+        while (chunk.size() < size && items.hasNext()) {
+            chunk.add(items.next());
+        }
+        return chunk;
+    }
+
+    private static void accumulate(Collector<Object, Object, Object> collector, Object accumulator, List<Object> outputs) {
+        for (Object output : outputs) {
+            collector.accumulator().accept(accumulator, output);
+        }
+    }
+
+    private PipelineConcurrencyException chunkFailure(String pipelineName, ChunkOutcome outcome) {
+        log.error("ParallelForEach chunk {} failed in pipeline '{}'. Aborting.", outcome.index(), pipelineName, outcome.failure());
+
+        return new PipelineConcurrencyException(
+                "ParallelForEach chunk " + outcome.index() + " failed. See cause for details.",
+                pipelineName,
+                outcome.failure()
+        );
+    }
+
+    /**
+     * Resolves the built-in reducers, or a {@link Collector} bean of the given name.
+     */
+    @SuppressWarnings("unchecked")
+    private Collector<Object, Object, Object> resolveReducer() {
+        Collector<?, ?, ?> collector = switch (reducer) {
+            case "list" -> Collectors.toList();
+            case "count" -> Collectors.counting();
+            case "none" -> Collector.of(() -> null, (ignored, output) -> { }, (left, right) -> left);
+            default -> {
+                if (springContext == null || !springContext.containsBean(reducer)) {
+                    throw new PipelineConfigurationException(
+                            "ParallelForEach references unknown reducer '" + reducer + "'.");
+                }
+                Object bean = springContext.getBean(reducer);
+                if (!(bean instanceof Collector<?, ?, ?> custom)) {
+                    throw new PipelineConfigurationException(
+                            "Reducer bean '" + reducer + "' must implement java.util.stream.Collector.");
+                }
+                yield custom;
+            }
+        };
+        return (Collector<Object, Object, Object>) collector;
+    }
+
+    private static Iterator<?> iterate(Object input) {
+        if (input == null) {
+            return List.of().iterator();
+        }
+        if (input instanceof Iterable<?> iterable) {
+            return iterable.iterator();
+        }
+        if (input instanceof Iterator<?> iterator) {
+            return iterator;
+        }
+        if (input instanceof Stream<?> stream) {
+            return stream.iterator();
+        }
+        if (input.getClass().isArray()) {
+            return new Iterator<>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < Array.getLength(input);
+                }
+
+                @Override
+                public Object next() {
+                    return Array.get(input, next++);
+                }
+            };
+        }
+        return List.of(input).iterator();
+    }
+
+    /**
+     * @return The number of items, or {@code -1} if it is not known up front.
+     */
+    private static int sizeOf(Object input) {
+        if (input instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (input != null && input.getClass().isArray()) {
+            return Array.getLength(input);
+        }
+        return -1;
+    }
+
+    private record ChunkOutcome(int index, List<Object> outputs, Throwable failure) {
+    }
+}
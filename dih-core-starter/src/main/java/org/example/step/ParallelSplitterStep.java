@@ -1,7 +1,17 @@
 package org.example.step;
 
 import org.example.annotation.DihStepComponent;
+import org.example.annotation.ThreadSafeStep;
+import org.example.bulkhead.Bulkhead;
+import org.example.bulkhead.BulkheadPermit;
+import org.example.bulkhead.BulkheadRegistry;
+import org.example.concurrency.BranchScope;
+import org.example.concurrency.Futures;
+import org.example.exception.PipelineCancelledException;
 import org.example.exception.PipelineConcurrencyException;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.BranchResult;
+import org.example.scope.PipelineContextHolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeansException;
@@ -10,10 +20,11 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.core.task.AsyncTaskExecutor;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.CompletionException;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Implements the <b>Scatter-Gather</b> Enterprise Integration Pattern.
@@ -22,22 +33,50 @@ import java.util.stream.Collectors;
  * <ol>
  * <li><b>Splits</b> the execution flow into multiple concurrent branches.</li>
  * <li><b>Executes</b> defined sub-steps using the configured {@link AsyncTaskExecutor}.</li>
- * <li><b>Aggregates</b> the results into a single {@code List}.</li>
+ * <li><b>Aggregates</b> the results according to the configured gather mode.</li>
  * </ol>
  *
+ * <h2>Gather Modes ({@code gatherMode}):</h2>
+ * <ul>
+ * <li><b>all</b> (default) - waits for every branch and returns the results as a {@code List}, in
+ * {@code subStepIds} order. The first failure fails the step.</li>
+ * <li><b>any</b> - returns the first successful result itself, e.g. for redundant lookups. Fails only if every
+ * branch fails.</li>
+ * <li><b>quorum</b> - returns the first {@code quorum} successful results as a {@code List}, in completion
+ * order, e.g. for scoring ensembles. {@code quorum} defaults to a majority of the branches. Fails once the
+ * quorum is out of reach.</li>
+ * <li><b>collectAll</b> - waits for every branch and returns a {@code List} of {@link BranchResult}, in
+ * {@code subStepIds} order, reporting failures alongside the successes. Never fails because of a branch.</li>
+ * </ul>
+ * The {@code any} and {@code quorum} modes return as soon as their condition is met and cancel the remaining
+ * branches, which cuts the tail latency of the slowest branches.
+ *
  * <h2>Concurrency Model:</h2>
  * <ul>
- * <li><b>Fail-Fast:</b> If any single branch fails, the main thread catches the exception immediately
- * and aborts the entire pipeline execution via {@link PipelineConcurrencyException}.</li>
+ * <li><b>Fail-Fast:</b> Branches run in a {@link BranchScope}. Once the outcome is decided (in {@code all} mode:
+ * by the first failing branch), the remaining branches are cancelled and interrupted; once they have stopped,
+ * the step returns or fails with {@link PipelineConcurrencyException}. No branch keeps running after the
+ * splitter has returned.</li>
  * <li><b>Context Propagation:</b> Relies on {@code DihTaskDecorator} (configured in the Executor)
  * to propagate {@code ThreadLocal} context (MDC, Execution ID) to worker threads.</li>
+ * <li><b>Cancellation:</b> If the thread waiting for the branches is interrupted (e.g. the execution
+ * was cancelled), all running branches are interrupted as well and the step fails with
+ * {@link PipelineCancelledException}.</li>
+ * <li><b>Non-Blocking Gather:</b> As an {@link AsyncPipelineStep}, the splitter completes a stage once the
+ * last branch does. {@link AsyncPipelineStep} branches hold no thread while they wait.</li>
+ * <li><b>Bounded Fan-Out:</b> With a {@code dih.executor.bulkhead.fan-out} limit, each branch waits for a
+ * permit of its pipeline's fan-out {@link Bulkhead} before it is started, so the number of running branches
+ * follows the (possibly adaptive) limit rather than the number of sub-steps.</li>
+ * <li><b>Priority Inheritance:</b> Branches run with the execution's {@link PipelineContext}, including its
+ * tenant and priority: they queue for fan-out and step-type permits in the execution's priority class.</li>
  * </ul>
  *
  * @param <I> The input type passed to all parallel branches.
- * @param <O> The output type (always returns {@code List<Object>}).
+ * @param <O> The output type ({@code List<Object>}, or the winning result in {@code any} mode).
  */
+@ThreadSafeStep
 @DihStepComponent("ParallelSplitter")
-public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, ApplicationContextAware {
+public class ParallelSplitterStep<I, O> implements AsyncPipelineStep<I, O>, CompositeStep, ApplicationContextAware {
 
     private static final Logger log = LoggerFactory.getLogger(ParallelSplitterStep.class);
 
@@ -46,16 +85,30 @@ public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, Applicati
     @Autowired
     private AsyncTaskExecutor dihTaskExecutor;
 
+    @Autowired(required = false)
+    private BulkheadRegistry bulkheadRegistry;
+
     /**
      * The identifiers of the steps to run in parallel.
-     *
-     * @deprecated <b>Architectural Warning:</b> Relying on String IDs forces a runtime lookup (Service Locator pattern).
-     * <br><b>Improvement:</b> Refactor {@code PipelineRegistrar} to wire a {@code List<PipelineStep>} directly into this bean
-     * during the definition phase. This would provide compile-time safety and eager validation.
      */
-    @Deprecated
     private List<String> subStepIds;
 
+    /**
+     * How the branch results are gathered: {@code all}, {@code any}, {@code quorum} or {@code collectAll}.
+     */
+    private String gatherMode = "all";
+
+    /**
+     * Successful branches required in {@code quorum} mode; {@code 0} means a majority.
+     */
+    private int quorum;
+
+    /**
+     * Compiled steps of the owning pipeline, bound by the execution plan.
+     * {@code null} when the splitter is used outside a plan (falls back to bean lookup).
+     */
+    private volatile Map<String, PipelineStep<Object, Object>> boundSubSteps;
+
     /**
      * Injected via setter from the {@code StepDefinition} properties.
      */
@@ -63,6 +116,45 @@ public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, Applicati
         this.subStepIds = subStepIds;
     }
 
+    public void setGatherMode(String gatherMode) {
+        this.gatherMode = gatherMode;
+    }
+
+    public void setQuorum(int quorum) {
+        this.quorum = quorum;
+    }
+
+    /**
+     * Wires the branches once per plan and validates them eagerly.
+     *
+     * @throws PipelineConfigurationException if a referenced sub-step does not exist in the pipeline,
+     * or the gather mode is unknown or its quorum cannot be reached.
+     */
+    @Override
+    public void bindSubSteps(Map<String, PipelineStep<Object, Object>> subSteps) {
+        int branchCount = subStepIds != null ? subStepIds.size() : 0;
+        switch (gatherMode) {
+            case "all", "any", "collectAll" -> { }
+            case "quorum" -> {
+                if (quorum < 0 || quorum > branchCount) {
+                    throw new PipelineConfigurationException("ParallelSplitter quorum " + quorum
+                            + " is out of range for " + branchCount + " sub-steps.");
+                }
+            }
+            default -> throw new PipelineConfigurationException(
+                    "ParallelSplitter has unknown gather mode '" + gatherMode + "'.");
+        }
+        if (subStepIds != null) {
+            for (String stepId : subStepIds) {
+                if (!subSteps.containsKey(stepId)) {
+                    throw new PipelineConfigurationException(
+                            "ParallelSplitter references unknown sub-step '" + stepId + "'.");
+                }
+            }
+        }
+        this.boundSubSteps = subSteps;
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         this.springContext = applicationContext;
@@ -73,11 +165,11 @@ public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, Applicati
      *
      * @param input           The payload broadcast to all branches.
      * @param pipelineContext The current execution metadata.
-     * @return A {@link List} of results from all branches.
-     * @throws PipelineConcurrencyException if any branch fails.
+     * @return The gathered results, as described for the gather modes.
+     * @throws PipelineConcurrencyException if the gather mode's condition cannot be met because of failing branches.
+     * @throws PipelineCancelledException if the calling thread is interrupted while waiting for the branches.
      */
     @Override
-    @SuppressWarnings("unchecked")
     public O execute(I input, PipelineContext pipelineContext) {
 
         if (subStepIds == null || subStepIds.isEmpty()) {
@@ -86,54 +178,180 @@ public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, Applicati
         }
 
         String pipelineName = pipelineContext.pipelineName();
+        Object results;
 
-        // 1. Scatter: Submit tasks to the thread pool
-        List<CompletableFuture<Object>> futures = subStepIds.stream()
-                .map(stepId -> {
-                    // ARCHITECTURAL NOTE: Naming convention coupling (PipelineName + "_" + StepId)
-                    String beanName = pipelineName + "_" + stepId;
+        // Closing the scope waits until every branch has stopped, also on failure or interruption
+        try (BranchScope<Object> scope = openScope(pipelineContext)) {
+            // 1. Scatter: Submit tasks to the thread pool
+            List<CompletableFuture<Object>> branches = scatter(input, pipelineContext, scope);
 
-                    return CompletableFuture.supplyAsync(() -> executeSubStep(beanName, input, pipelineContext), dihTaskExecutor);
-                })
-                .toList();
+            // 2. Monitor: Block until the gather mode's outcome is decided (remaining branches are cancelled)
+            results = Futures.await(join(scope, branches));
 
-        // 2. Monitor: Create a barrier waiting for all tasks
-        CompletableFuture<Void> allOf = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        } catch (InterruptedException e) {
+            // --- CANCELLATION: the interrupt was forwarded to the branches ---
+            Thread.currentThread().interrupt();
+            log.warn("Parallel execution interrupted in pipeline '{}'. Branches cancelled.", pipelineName);
 
-        try {
-            // Block until all are done. If any future completes exceptionally, join() throws CompletionException.
-            allOf.join();
-
-        } catch (CompletionException e) {
-            // --- FAIL FAST LOGIC ---
-            Throwable realCause = e.getCause();
-            log.error("Parallel execution failed in pipeline '{}'. Aborting.", pipelineName, realCause);
-
-            throw new PipelineConcurrencyException(
-                    "One or more parallel steps failed. See cause for details.",
-                    pipelineName,
-                    realCause
-            );
+            throw new PipelineCancelledException(pipelineName, e);
+
+        } catch (Exception e) {
+            throw branchFailure(pipelineName, e);
         }
 
         // 3. Gather: Collect results
-        List<Object> results = futures.stream()
-                .map(CompletableFuture::join) // Safe to join here as we passed the barrier
-                .collect(Collectors.toList());
+        return gather(results);
+    }
+
+    /**
+     * Non-blocking variant of {@link #execute}: the returned stage completes once the gather mode's outcome is
+     * decided and the remaining branches have stopped.
+     * Cancelling it cancels (and interrupts) all branches.
+     */
+    @Override
+    public CompletionStage<O> executeAsync(I input, PipelineContext pipelineContext) {
+
+        if (subStepIds == null || subStepIds.isEmpty()) {
+            log.warn("ParallelSplitter defined without sub-steps. Returning null.");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String pipelineName = pipelineContext.pipelineName();
+        BranchScope<Object> scope = openScope(pipelineContext);
+        CompletableFuture<Object> gathered = join(scope, scatter(input, pipelineContext, scope));
+
+        CompletableFuture<O> result = gathered.handle((results, failure) -> {
+            if (failure != null) {
+                throw branchFailure(pipelineName, Futures.unwrap(failure));
+            }
+            return gather(results);
+        });
+        return Futures.propagateCancellation(result, gathered);
+    }
 
-        log.debug("ParallelSplitter aggregated {} results.", results.size());
+    /**
+     * Joins the branches according to the gather mode.
+     */
+    private CompletableFuture<Object> join(BranchScope<Object> scope, List<CompletableFuture<Object>> branches) {
+        CompletableFuture<?> joined = switch (gatherMode) {
+            case "any" -> scope.gatherFirst(branches, 1);
+            case "quorum" -> scope.gatherFirst(branches, requiredQuorum());
+            case "collectAll" -> scope.settle(branches);
+            default -> scope.gather(branches);
+        };
+        CompletableFuture<Object> gathered = joined.thenApply(results -> switch (gatherMode) {
+            case "any" -> ((List<?>) results).get(0);
+            case "collectAll" -> settled(branches);
+            default -> results;
+        });
+        return Futures.propagateCancellation(gathered, joined);
+    }
+
+    private int requiredQuorum() {
+        return quorum > 0 ? quorum : subStepIds.size() / 2 + 1;
+    }
+
+    /**
+     * Reads the outcome of every (completed) branch, in {@code subStepIds} order.
+     */
+    private List<BranchResult> settled(List<CompletableFuture<Object>> branches) {
+        List<BranchResult> results = new ArrayList<>(branches.size());
+        for (int i = 0; i < branches.size(); i++) {
+            String stepId = subStepIds.get(i);
+            results.add(branches.get(i).handle((result, failure) -> {
+                if (failure == null) {
+                    return BranchResult.success(stepId, result);
+                }
+                // Branch failures are already wrapped by startSubStep; cancellations are runtime exceptions too
+                Throwable cause = Futures.unwrap(failure);
+                return BranchResult.failure(stepId, cause instanceof RuntimeException runtime
+                        ? runtime
+                        : new RuntimeException("Step execution failed: " + stepId, cause));
+            }).join());
+        }
+        return results;
+    }
+
+    private BranchScope<Object> openScope(PipelineContext pipelineContext) {
+        return new BranchScope<>("split:" + pipelineContext.pipelineName() + ":" + pipelineContext.executionId(),
+                dihTaskExecutor);
+    }
+
+    /**
+     * Starts every branch on the executor, once the fan-out bulkhead (if any) admits it.
+     * Async branches release their thread once started.
+     */
+    private List<CompletableFuture<Object>> scatter(I input, PipelineContext pipelineContext, BranchScope<Object> scope) {
+        String pipelineName = pipelineContext.pipelineName();
+        Bulkhead fanOut = bulkheadRegistry != null ? bulkheadRegistry.forFanOut(pipelineName) : null;
+        return subStepIds.stream()
+                .map(stepId -> {
+                    PipelineStep<Object, Object> step = resolveSubStep(stepId, pipelineName);
+                    if (fanOut == null) {
+                        return forkBranch(scope, stepId, step, input, pipelineContext);
+                    }
+                    // May start on the thread releasing a permit: fork with this execution's context
+                    return BulkheadPermit.callWith(List.of(fanOut), pipelineContext.priority(), Runnable::run,
+                            () -> PipelineContextHolder.callWithContext(pipelineContext,
+                                    () -> forkBranch(scope, stepId, step, input, pipelineContext)));
+                })
+                .toList();
+    }
+
+    private CompletableFuture<Object> forkBranch(BranchScope<Object> scope,
+                                                String stepId,
+                                                PipelineStep<Object, Object> step,
+                                                I input,
+                                                PipelineContext context) {
+        return scope.fork(stepId, () -> startSubStep(stepId, step, input, context));
+    }
+
+    /**
+     * --- FAIL FAST LOGIC ---
+     */
+    private PipelineConcurrencyException branchFailure(String pipelineName, Throwable realCause) {
+        log.error("Parallel execution failed in pipeline '{}'. Aborting.", pipelineName, realCause);
+
+        String message = switch (gatherMode) {
+            case "any" -> "All parallel steps failed. See cause for details.";
+            case "quorum" -> "Fewer than " + requiredQuorum() + " of " + subStepIds.size()
+                    + " parallel steps succeeded. See cause for details.";
+            default -> "One or more parallel steps failed. See cause for details.";
+        };
+        return new PipelineConcurrencyException(
+                message,
+                pipelineName,
+                realCause
+        );
+    }
+
+    @SuppressWarnings("unchecked")
+    private O gather(Object results) {
+        log.debug("ParallelSplitter gathered {} branches in '{}' mode.", subStepIds.size(), gatherMode);
 
         return (O) results;
     }
 
     /**
-     * Helper to locate and execute a single step bean.
+     * Resolves a branch, preferring the steps bound by the execution plan.
+     */
+    private PipelineStep<Object, Object> resolveSubStep(String stepId, String pipelineName) {
+        Map<String, PipelineStep<Object, Object>> bound = boundSubSteps;
+        if (bound != null) {
+            return bound.get(stepId);
+        }
+        return lookupSubStep(pipelineName + "_" + stepId);
+    }
+
+    /**
+     * Locates a branch bean by naming convention ({@code PipelineName + "_" + StepId}).
      *
-     * @deprecated <b>Performance & Design Issue:</b> This method performs a Bean Lookup inside the hot execution path.
+     * @deprecated <b>Fallback only:</b> Performs a Bean Lookup inside the hot execution path.
+     * Used when the splitter runs outside a compiled plan.
      */
     @Deprecated
-    private Object executeSubStep(String beanName, I input, PipelineContext context) {
-        // 1. Service Locator Call (Pulling dependencies)
+    private PipelineStep<Object, Object> lookupSubStep(String beanName) {
+        // Service Locator Call (Pulling dependencies)
         Object bean = springContext.getBean(beanName);
 
         if (!(bean instanceof PipelineStep)) {
@@ -142,13 +360,43 @@ public class ParallelSplitterStep<I, O> implements PipelineStep<I, O>, Applicati
 
         @SuppressWarnings("unchecked")
         PipelineStep<Object, Object> step = (PipelineStep<Object, Object>) bean;
+        return step;
+    }
 
+    /**
+     * Helper to start a single branch. Failures are wrapped to identify the branch.
+     */
+    private CompletionStage<Object> startSubStep(String stepId, PipelineStep<Object, Object> step, I input, PipelineContext context) {
+        if (!(step instanceof AsyncPipelineStep<Object, Object> async)) {
+            return CompletableFuture.completedFuture(executeSubStep(stepId, step, input, context));
+        }
+        CompletableFuture<Object> started;
+        try {
+            started = async.executeAsync(input, context).toCompletableFuture();
+        } catch (Exception e) {
+            throw branchException(stepId, context, e);
+        }
+        return Futures.propagateCancellation(started.handle((result, failure) -> {
+            if (failure != null) {
+                throw branchException(stepId, context, Futures.unwrap(failure));
+            }
+            return result;
+        }), started);
+    }
+
+    /**
+     * Helper to execute a single branch.
+     */
+    private Object executeSubStep(String stepId, PipelineStep<Object, Object> step, I input, PipelineContext context) {
         try {
-            // 2. Execution
             return step.execute(input, context);
         } catch (Exception e) {
             // Wrap checked exceptions to runtime exceptions for CompletableFuture compatibility
-            throw new RuntimeException("Step execution failed: " + beanName, e);
+            throw branchException(stepId, context, e);
         }
     }
-}
\ No newline at end of file
+
+    private static RuntimeException branchException(String stepId, PipelineContext context, Throwable cause) {
+        return new RuntimeException("Step execution failed: " + context.pipelineName() + "_" + stepId, cause);
+    }
+}
@@ -1,5 +1,7 @@
 package org.example.step;
 
+import org.example.model.ExecutionOptions;
+import org.example.model.ExecutionOptions.Priority;
 import org.springframework.util.Assert;
 
 /**
@@ -15,18 +17,30 @@ import org.springframework.util.Assert;
  * <li><b>Explicit Dependencies:</b> Steps receive their context as an argument, making unit testing trivial.</li>
  * <li><b>Immutability:</b> As a Java Record, it is thread-safe by definition, which is critical for parallel branches.</li>
  * <li><b>Observability:</b> Carries the 'Correlation ID' (executionId) required for distributed tracing.</li>
+ * <li><b>Deadlines:</b> Carries the point in time by which the execution must finish. Steps with a
+ * {@code timeoutMs} receive a copy narrowed to their own deadline (see {@link #withDeadline}), so nested
+ * work (retries, parallel branches) never outlives its caller.</li>
  * </ul>
  *
  * @param executionId  The unique UUID for this specific run (Correlation ID).
  * @param startTime    The epoch timestamp (ms) when the pipeline started.
  * @param pipelineName The human-readable name of the pipeline definition.
+ * @param tenant       The owner of the execution (see {@link ExecutionOptions}).
+ * @param priority     The priority class of the execution, inherited by parallel branches.
+ * @param deadline     The epoch timestamp (ms) by which the work must be done, or {@link #NO_DEADLINE}.
  */
 public record PipelineContext(
         String executionId,
         long startTime,
-        String pipelineName
+        String pipelineName,
+        String tenant,
+        Priority priority,
+        long deadline
 ) {
 
+    /** Deadline of work that may run indefinitely. */
+    public static final long NO_DEADLINE = Long.MAX_VALUE;
+
     /**
      * Compact constructor for validation.
      * Prevents the creation of a "headless" context.
@@ -37,6 +51,65 @@ public record PipelineContext(
         if (startTime <= 0) {
             throw new IllegalArgumentException("Start Time must be positive");
         }
+        if (tenant == null) {
+            tenant = ExecutionOptions.DEFAULT_TENANT;
+        }
+        if (priority == null) {
+            priority = Priority.NORMAL;
+        }
+        if (deadline <= 0) {
+            deadline = NO_DEADLINE;
+        }
+    }
+
+    public PipelineContext(String executionId, long startTime, String pipelineName, String tenant, Priority priority) {
+        this(executionId, startTime, pipelineName, tenant, priority, NO_DEADLINE);
+    }
+
+    /**
+     * Creates the context of an execution with {@link ExecutionOptions#DEFAULT default} options.
+     */
+    public PipelineContext(String executionId, long startTime, String pipelineName) {
+        this(executionId, startTime, pipelineName, ExecutionOptions.DEFAULT_TENANT, Priority.NORMAL, NO_DEADLINE);
+    }
+
+    public PipelineContext(String executionId, long startTime, String pipelineName, ExecutionOptions options) {
+        this(executionId, startTime, pipelineName, options.tenant(), options.priority(), NO_DEADLINE);
+    }
+
+    public PipelineContext(String executionId, long startTime, String pipelineName, ExecutionOptions options, long deadline) {
+        this(executionId, startTime, pipelineName, options.tenant(), options.priority(), deadline);
+    }
+
+    /**
+     * @return A copy whose deadline is the earlier of this deadline and the given one.
+     */
+    public PipelineContext withDeadline(long deadline) {
+        if (deadline >= this.deadline) {
+            return this;
+        }
+        return new PipelineContext(executionId, startTime, pipelineName, tenant, priority, deadline);
+    }
+
+    public boolean hasDeadline() {
+        return deadline != NO_DEADLINE;
+    }
+
+    /**
+     * Time left until the deadline. Steps calling remote systems should pass it on as their own timeout.
+     *
+     * @return Duration in milliseconds, {@code 0} once the deadline has passed,
+     * or {@link Long#MAX_VALUE} without a deadline.
+     */
+    public long getRemainingTime() {
+        if (!hasDeadline()) {
+            return Long.MAX_VALUE;
+        }
+        return Math.max(0, deadline - System.currentTimeMillis());
+    }
+
+    public boolean isExpired() {
+        return hasDeadline() && System.currentTimeMillis() >= deadline;
     }
 
     /**
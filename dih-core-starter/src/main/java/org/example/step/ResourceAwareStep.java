@@ -0,0 +1,71 @@
+package org.example.step;
+
+import org.example.resource.StepResourcePool;
+
+/**
+ * A {@link PipelineStep} that works with a pooled, long-lived {@link StepResource}.
+ * <p>
+ * The engine binds the pool owned by the pipeline's execution plan to the step, like it binds the sub-steps
+ * of a {@link CompositeStep}. {@link #execute(Object, PipelineContext)} leases a resource from that pool,
+ * passes it to {@link #execute(Object, StepResource, PipelineContext)} and returns it to the pool afterwards,
+ * so the step works the same wherever it is invoked (directly by the plan, as a branch, or through a proxy).
+ * The step instance itself may be stateless and shared, or scoped per execution - the resource pool
+ * outlives both.
+ * </p>
+ *
+ * @param <I> The input type.
+ * @param <O> The output type.
+ * @param <R> The resource type.
+ */
+public interface ResourceAwareStep<I, O, R extends StepResource> extends PipelineStep<I, O> {
+
+    /**
+     * Creates a new, not yet opened resource. Called by the pool when no idle resource is available.
+     */
+    R createResource();
+
+    /**
+     * Executes the processing logic with a leased resource.
+     *
+     * @param input    The data payload received from the preceding step.
+     * @param resource The resource leased for this invocation. Must not be retained after returning.
+     * @param context  The runtime context for the current pipeline execution.
+     * @return The data payload to be passed to the succeeding step.
+     * @throws Exception if the step execution fails.
+     */
+    O execute(I input, R resource, PipelineContext context) throws Exception;
+
+    /**
+     * Binds the resource pool of the owning plan. Shared instances are bound once per plan,
+     * isolated ones on every resolution.
+     *
+     * @param resourcePool The pool of this step in the compiled pipeline version.
+     */
+    void bindResourcePool(StepResourcePool resourcePool);
+
+    /**
+     * @return The pool bound by {@link #bindResourcePool}, or {@code null} if the step was not bound.
+     */
+    StepResourcePool resourcePool();
+
+    /**
+     * Leases a resource from the bound pool for the duration of the invocation.
+     *
+     * @throws IllegalStateException if the step was not bound to a compiled plan.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    default O execute(I input, PipelineContext context) throws Exception {
+        StepResourcePool resourcePool = resourcePool();
+        if (resourcePool == null) {
+            throw new IllegalStateException("ResourceAwareStep '" + getClass().getSimpleName()
+                    + "' has no resource pool: it must be resolved through a compiled pipeline plan.");
+        }
+        R resource = (R) resourcePool.acquire(this);
+        try {
+            return execute(input, resource, context);
+        } finally {
+            resourcePool.release(resource);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.example.step;
+
+import org.example.model.StepDefinition;
+
+/**
+ * SPI for long-lived resources used by pipeline steps (connections, clients, prepared statements, ...).
+ * <p>
+ * Resources are <b>not</b> tied to a single execution. They are created by a {@link ResourceAwareStep},
+ * owned by the compiled execution plan of the pipeline version, pooled, and shared by all concurrent
+ * executions of that plan. A resource is leased to exactly one step invocation at a time.
+ * </p>
+ *
+ * <h2>Lifecycle:</h2>
+ * <ol>
+ * <li>{@link #open(StepDefinition)} - called once, right after the step created the resource.</li>
+ * <li>Leased to step invocations; {@link #isValid()} is checked whenever it returns to the pool.</li>
+ * <li>{@link #close()} - called when the resource is found invalid, or when the pipeline version
+ * is unloaded or the application stops.</li>
+ * </ol>
+ */
+public interface StepResource extends AutoCloseable {
+
+    /**
+     * Establishes the resource (e.g. opens the connection).
+     *
+     * @param definition The configuration of the step owning the resource.
+     * @throws Exception if the resource cannot be opened; the invocation that requested it fails.
+     */
+    void open(StepDefinition definition) throws Exception;
+
+    /**
+     * Health check performed before a pooled resource is reused.
+     *
+     * @return {@code false} to discard (and close) the resource.
+     */
+    default boolean isValid() {
+        return true;
+    }
+
+    /**
+     * Releases the underlying resource. Never called while the resource is leased.
+     */
+    @Override
+    void close() throws Exception;
+}
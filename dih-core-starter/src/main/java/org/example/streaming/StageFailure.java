@@ -0,0 +1,11 @@
+package org.example.streaming;
+
+/**
+ * Carries a checked failure of a stream stage to {@code StreamExecution.fail}.
+ */
+final class StageFailure extends RuntimeException {
+
+    StageFailure(Exception cause) {
+        super(cause);
+    }
+}
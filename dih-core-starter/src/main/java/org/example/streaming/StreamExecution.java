@@ -0,0 +1,521 @@
+package org.example.streaming;
+
+import org.example.concurrency.Futures;
+import org.example.concurrency.PublisherIterator;
+import org.example.deadline.DeadlineTimer;
+import org.example.exception.DihCoreException;
+import org.example.exception.StepExecutionException;
+import org.example.plan.PlanStep;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.PipelineContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * One streaming run of a pipeline, as returned by {@code PipelineExecutor.executePipelineStream}.
+ * A coordinator admits the run and leases the plan (see {@link Lifecycle}), then starts one stage per step plus
+ * an emitter, connected by bounded queues, and finishes the execution once all of them have stopped.
+ * <p>
+ * Only the emitter calls {@code onNext}; the terminal signal is sent by the coordinator after the emitter
+ * has stopped, so signals to the subscriber are serial. Stopping is cooperative: the first failure, or a
+ * cancelled subscription, marks the run aborted and interrupts every registered stage thread.
+ * </p>
+ */
+public final class StreamExecution implements Flow.Publisher<Object>, Flow.Subscription {
+
+    private static final Logger log = LoggerFactory.getLogger(StreamExecution.class);
+
+    /** Marks the end of the records in a buffer. */
+    private static final Object END = new Object();
+
+    private final String executionId;
+    private final String pipelineName;
+    private final Object initialInput;
+    private final Map<String, String> callerMdc;
+    private final Executor taskExecutor;
+    private final DeadlineTimer deadlineTimer;
+    private final int bufferSize;
+    private final Lifecycle lifecycle;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    // Guards the fields below; a lock rather than a monitor, so waiting virtual threads are not pinned
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition demandAvailable = lock.newCondition();
+    private final Set<Thread> running = new HashSet<>();
+    private long demand;
+    private boolean aborted;
+    private boolean cancelled;
+    private Throwable failure;
+
+    private Flow.Subscriber<? super Object> subscriber;
+
+    /**
+     * The execution around the stages: admission, plan lease and cleanup, as in the other execution modes.
+     * All methods are called on the coordinator thread.
+     */
+    public interface Lifecycle {
+
+        /**
+         * Called first, when the run starts.
+         *
+         * @return The deadline of the execution, or {@link PipelineContext#NO_DEADLINE}.
+         */
+        long begin();
+
+        /**
+         * Admits the execution, leases the plan and binds the pipeline context to the calling thread.
+         * Blocks while the execution is queued; an interrupt withdraws it.
+         *
+         * @return The steps to stream the records through.
+         */
+        List<PlanStep> admit() throws Exception;
+
+        /**
+         * @return The failure of a run whose deadline has passed.
+         */
+        Exception deadlineExceeded();
+
+        /**
+         * Maps a failure of the run to the exception signalled to the subscriber, and logs it.
+         */
+        RuntimeException translateFailure(Exception failure);
+
+        /**
+         * Releases whatever {@link #admit} obtained, also after it failed, and records the execution.
+         *
+         * @param succeeded Whether all records were delivered.
+         */
+        void finish(boolean succeeded);
+    }
+
+    /**
+     * @param callerMdc    MDC entries of the caller, bound on every stage thread; may be {@code null}.
+     * @param taskExecutor Runs the coordinator and one thread per stage.
+     * @param bufferSize   Capacity of the buffers between stages.
+     */
+    public StreamExecution(String executionId,
+                           String pipelineName,
+                           Object initialInput,
+                           Map<String, String> callerMdc,
+                           Executor taskExecutor,
+                           DeadlineTimer deadlineTimer,
+                           int bufferSize,
+                           Lifecycle lifecycle) {
+        this.executionId = executionId;
+        this.pipelineName = pipelineName;
+        this.initialInput = initialInput;
+        this.callerMdc = callerMdc;
+        this.taskExecutor = taskExecutor;
+        this.deadlineTimer = deadlineTimer;
+        this.bufferSize = Math.max(1, bufferSize);
+        this.lifecycle = lifecycle;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super Object> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException(
+                    "Pipeline stream '" + pipelineName + "' supports a single subscriber"));
+            return;
+        }
+        this.subscriber = subscriber;
+        subscriber.onSubscribe(this);
+        try {
+            taskExecutor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            fail(e);
+            subscriber.onError(lifecycle.translateFailure(e));
+        }
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            fail(new IllegalArgumentException("Non-positive request: " + n));
+            return;
+        }
+        lock.lock();
+        try {
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            demandAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        lock.lock();
+        try {
+            cancelled = true;
+        } finally {
+            lock.unlock();
+        }
+        abort();
+    }
+
+    /**
+     * The coordinator: admission, plan lease, stages, cleanup and the terminal signal.
+     */
+    private void run() {
+        Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+        if (callerMdc != null) {
+            MDC.setContextMap(callerMdc);
+        }
+        long deadline = lifecycle.begin();
+        Future<?> deadlineTimeout = deadlineTimer.runAt(deadline, () -> fail(lifecycle.deadlineExceeded()));
+        try {
+            if (register()) {
+                List<PlanStep> steps;
+                try {
+                    // 0. Admission Control, 1. Lease the Compiled Plan, 2. Initialize ThreadLocal Context
+                    steps = lifecycle.admit();
+                } finally {
+                    deregister();
+                }
+
+                // 3. Stream the records through the steps
+                if (!isAborted()) {
+                    runStages(steps, PipelineContextHolder.getContext());
+                }
+            }
+        } catch (Throwable t) {
+            fail(Futures.unwrap(t));
+        }
+        deadlineTimeout.cancel(false);
+
+        // 4. Cleanup and the terminal signal
+        Throwable surfaced;
+        boolean silent;
+        lock.lock();
+        try {
+            surfaced = failure;
+            silent = cancelled;
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (silent) {
+                log.debug("Pipeline stream cancelled by its subscriber [ID={}]", executionId);
+            } else if (surfaced instanceof Exception e) {
+                surfaced = lifecycle.translateFailure(e);
+            }
+        } finally {
+            lifecycle.finish(surfaced == null && !silent);
+            if (previousMdc != null) {
+                MDC.setContextMap(previousMdc);
+            } else {
+                MDC.clear();
+            }
+        }
+        if (silent) {
+            return;
+        }
+        if (surfaced != null) {
+            subscriber.onError(surfaced);
+        } else {
+            subscriber.onComplete();
+        }
+    }
+
+    private void runStages(List<PlanStep> steps, PipelineContext pipelineContext) {
+        List<Runnable> stages = new ArrayList<>();
+        BlockingQueue<Object> out = new ArrayBlockingQueue<>(bufferSize);
+        stages.add(sourceStage(steps.isEmpty() ? null : steps.get(0), out));
+        for (int i = 1; i < steps.size(); i++) {
+            BlockingQueue<Object> in = out;
+            out = new ArrayBlockingQueue<>(bufferSize);
+            stages.add(recordStage(steps.get(i), in, out));
+        }
+        stages.add(emitterStage(out));
+
+        CountDownLatch stopped = new CountDownLatch(stages.size());
+        for (Runnable stage : stages) {
+            try {
+                taskExecutor.execute(() -> runStage(stage, pipelineContext, stopped));
+            } catch (RejectedExecutionException e) {
+                fail(e);
+                stopped.countDown();
+            }
+        }
+        // The plan must outlive every stage, even if the coordinator is interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                stopped.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                fail(e);
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Invokes the first step and feeds the records of its result into the first buffer.
+     */
+    private Runnable sourceStage(PlanStep step, BlockingQueue<Object> out) {
+        return () -> {
+            Object source = initialInput;
+            if (step != null) {
+                source = call(() -> step.execute(initialInput, PipelineContextHolder.getContext()));
+            }
+            Iterator<?> records = records(source);
+            try {
+                while (hasNext(records, step)) {
+                    Object record = records.next();
+                    if (record != null) {
+                        put(out, record);
+                    }
+                }
+            } finally {
+                // Cancels the subscription of a publisher source, also when the run is aborted
+                close(records instanceof AutoCloseable closeable ? closeable : source);
+            }
+            put(out, END);
+        };
+    }
+
+    /**
+     * Runs a step once per record of its input buffer.
+     */
+    private Runnable recordStage(PlanStep step, BlockingQueue<Object> in, BlockingQueue<Object> out) {
+        return () -> {
+            PipelineContext pipelineContext = PipelineContextHolder.getContext();
+            Object record;
+            while ((record = take(in)) != END) {
+                Object input = record;
+                Object result = call(() -> step.execute(input, pipelineContext));
+                if (result != null) {
+                    put(out, result);
+                }
+            }
+            put(out, END);
+        };
+    }
+
+    /**
+     * Delivers the records of the last buffer as the subscriber requests them.
+     */
+    private Runnable emitterStage(BlockingQueue<Object> in) {
+        return () -> {
+            Object record;
+            while ((record = take(in)) != END) {
+                awaitDemand();
+                subscriber.onNext(record);
+            }
+        };
+    }
+
+    private void runStage(Runnable stage, PipelineContext pipelineContext, CountDownLatch stopped) {
+        Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+        if (callerMdc != null) {
+            MDC.setContextMap(callerMdc);
+        }
+        PipelineContextHolder.initializeContext(pipelineContext);
+        try {
+            if (register()) {
+                try {
+                    stage.run();
+                } finally {
+                    deregister();
+                }
+            }
+        } catch (Throwable t) {
+            fail(Futures.unwrap(t));
+        } finally {
+            PipelineContextHolder.cleanup();
+            if (previousMdc != null) {
+                MDC.setContextMap(previousMdc);
+            } else {
+                MDC.clear();
+            }
+            stopped.countDown();
+        }
+    }
+
+    private void close(Object source) {
+        if (source instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Failed to close the record source of pipeline stream [ID={}]", executionId, e);
+            }
+        }
+    }
+
+    private Iterator<?> records(Object source) {
+        if (source instanceof Flow.Publisher<?> publisher) {
+            return new PublisherIterator<>(publisher, bufferSize);
+        }
+        if (source instanceof Iterator<?> iterator) {
+            return iterator;
+        }
+        if (source instanceof Iterable<?> iterable) {
+            return iterable.iterator();
+        }
+        if (source instanceof Stream<?> stream) {
+            return stream.iterator();
+        }
+        return source == null ? Collections.emptyIterator() : List.of(source).iterator();
+    }
+
+    /**
+     * Advances the record source; failures of the source itself are attributed to the first step.
+     */
+    private boolean hasNext(Iterator<?> records, PlanStep step) {
+        try {
+            return records.hasNext();
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            Throwable cause = Futures.unwrap(e);
+            if (cause instanceof DihCoreException domainError) {
+                throw domainError;
+            }
+            String stepId = step != null ? step.definition().id() : pipelineName;
+            throw new StepExecutionException("Record source failed: " + cause.getMessage(), stepId, cause);
+        }
+    }
+
+    private void awaitDemand() {
+        lock.lock();
+        try {
+            while (demand == 0 && !aborted) {
+                demandAvailable.awaitUninterruptibly();
+            }
+            if (aborted) {
+                throw new CancellationException();
+            }
+            if (demand != Long.MAX_VALUE) {
+                demand--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Object take(BlockingQueue<Object> queue) {
+        return call(queue::take);
+    }
+
+    private void put(BlockingQueue<Object> queue, Object record) {
+        call(() -> {
+            queue.put(record);
+            return null;
+        });
+    }
+
+    /**
+     * Runs a blocking action of a stage; checked failures are rethrown as they are, to be translated once.
+     */
+    private Object call(Callable<Object> action) {
+        if (isAborted()) {
+            throw new CancellationException();
+        }
+        try {
+            return action.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new StageFailure(e);
+        }
+    }
+
+    private boolean register() {
+        lock.lock();
+        try {
+            if (aborted) {
+                return false;
+            }
+            running.add(Thread.currentThread());
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void deregister() {
+        lock.lock();
+        try {
+            running.remove(Thread.currentThread());
+        } finally {
+            lock.unlock();
+        }
+        // An abort may have interrupted the thread after its last blocking call
+        Thread.interrupted();
+    }
+
+    private boolean isAborted() {
+        lock.lock();
+        try {
+            return aborted;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records the first failure of the run and stops all stages. Failures caused by stopping are ignored.
+     */
+    private void fail(Throwable t) {
+        Throwable cause = t instanceof StageFailure stageFailure ? stageFailure.getCause() : t;
+        lock.lock();
+        try {
+            if (!aborted) {
+                failure = cause;
+            }
+        } finally {
+            lock.unlock();
+        }
+        abort();
+    }
+
+    private void abort() {
+        lock.lock();
+        try {
+            if (aborted) {
+                return;
+            }
+            aborted = true;
+            running.forEach(Thread::interrupt);
+            demandAvailable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
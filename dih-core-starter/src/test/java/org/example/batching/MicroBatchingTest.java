@@ -0,0 +1,154 @@
+package org.example.batching;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.PipelineConfigurationException;
+import org.example.exception.StepExecutionException;
+import org.example.model.MicroBatchDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.BatchPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class MicroBatchingTest {
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Bulk sink: records the chunks it receives and fails chunks containing "boom". */
+    @ThreadSafeStep
+    static class BulkSinkStep implements BatchPipelineStep<Object, Object> {
+        static final List<List<Object>> CHUNKS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<Object> executeBatch(List<Object> inputs, PipelineContext context) {
+            CHUNKS.add(List.copyOf(inputs));
+            if (inputs.contains("boom")) {
+                throw new StepExecutionException("Bulk write rejected", "sink");
+            }
+            return inputs.stream().map(input -> (Object) ("stored-" + input)).toList();
+        }
+    }
+
+    /** Batch step without the thread-safe marker: instantiated per execution. */
+    static class IsolatedBulkStep implements BatchPipelineStep<Object, Object> {
+        @Override
+        public List<Object> executeBatch(List<Object> inputs, PipelineContext context) {
+            return inputs;
+        }
+    }
+
+    @ThreadSafeStep
+    static class PlainStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return input;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("MicroBulkSink", BulkSinkStep.class);
+        registry.register("MicroIsolatedBulk", IsolatedBulkStep.class);
+        registry.register("MicroPlain", PlainStep.class);
+        BulkSinkStep.CHUNKS.clear();
+    }
+
+    private static PipelineDefinition pipeline(String name, String type, MicroBatchDefinition microBatch) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(
+                new StepDefinition("sink", type, Map.of(), null, null).withMicroBatch(microBatch)));
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent executions into chunks of the window size")
+    void shouldFlushFullWindows() throws Exception {
+        PipelineDefinition definition = pipeline("MicroSizeFlow", "MicroBulkSink", new MicroBatchDefinition(10, 5_000));
+
+        List<CompletableFuture<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(executor.executePipelineAsync(definition, i));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals("stored-" + i, futures.get(i).get(5, TimeUnit.SECONDS), "Each execution gets its own slice");
+        }
+        assertEquals(List.of(10, 10), BulkSinkStep.CHUNKS.stream().map(List::size).toList());
+    }
+
+    @Test
+    @DisplayName("Should flush a partial window after the delay and record size and wait")
+    void shouldFlushAfterDelay() throws Exception {
+        PipelineDefinition definition = pipeline("MicroDelayFlow", "MicroBulkSink", new MicroBatchDefinition(100, 50));
+
+        // Synchronous callers block until the window closes
+        List<CompletableFuture<Object>> futures = IntStream.range(0, 3)
+                .mapToObj(i -> CompletableFuture.supplyAsync(() -> executor.executePipeline(definition, "item-" + i)))
+                .toList();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("stored-item-" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        int items = BulkSinkStep.CHUNKS.stream().mapToInt(List::size).sum();
+        assertEquals(3, items);
+
+        DistributionSummary size = meterRegistry.find("dih.step.batch.size").tag("pipeline.name", "MicroDelayFlow").summary();
+        Timer wait = meterRegistry.find("dih.step.batch.wait").tag("pipeline.name", "MicroDelayFlow").timer();
+        assertNotNull(size);
+        assertNotNull(wait);
+        assertEquals(BulkSinkStep.CHUNKS.size(), size.count());
+        assertEquals(3, wait.count());
+        assertTrue(wait.max(TimeUnit.MILLISECONDS) >= 40, "The first item waits for the window to close");
+    }
+
+    @Test
+    @DisplayName("Should fail every execution of a failed chunk")
+    void shouldFailWholeChunk() {
+        PipelineDefinition definition = pipeline("MicroFailureFlow", "MicroBulkSink", new MicroBatchDefinition(2, 5_000));
+
+        CompletableFuture<Object> first = executor.executePipelineAsync(definition, "ok");
+        CompletableFuture<Object> second = executor.executePipelineAsync(definition, "boom");
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(StepExecutionException.class, error.getCause());
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, BulkSinkStep.CHUNKS.size());
+    }
+
+    @Test
+    @DisplayName("Should reject micro-batching of steps that cannot serve a shared chunk")
+    void shouldRejectInvalidConfiguration() {
+        MicroBatchDefinition microBatch = new MicroBatchDefinition(0, 0);
+
+        assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(pipeline("MicroPlainFlow", "MicroPlain", microBatch), "x"));
+        assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(pipeline("MicroIsolatedFlow", "MicroIsolatedBulk", microBatch), "x"));
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.bulkhead;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.DihProperties.BulkheadLimit;
+import org.example.config.DihProperties.BulkheadLimit.Adaptive.Algorithm;
+import org.example.model.ExecutionOptions.Priority;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Test
+    @DisplayName("AIMD should grow by one per fast call under load and back off on slow calls")
+    void aimdShouldIncreaseAdditivelyAndDecreaseMultiplicatively() {
+        BulkheadLimit settings = limit(10, Algorithm.AIMD);
+        settings.getAdaptive().setLatencyThreshold(Duration.ofMillis(50));
+        settings.getAdaptive().setBackoffRatio(0.5);
+        settings.getAdaptive().setMinLimit(2);
+        AdaptiveLimit aimd = AdaptiveLimit.of(settings);
+
+        assertEquals(11, aimd.onSample(FAST, 10));
+        assertEquals(11, aimd.onSample(FAST, 1), "An idle bulkhead does not grow its limit");
+        assertEquals(5, aimd.onSample(SLOW, 11));
+        assertEquals(2, aimd.onSample(SLOW, 5));
+        assertEquals(2, aimd.onSample(SLOW, 2), "The limit never drops below min-limit");
+    }
+
+    @Test
+    @DisplayName("Gradient should grow while latency is stable and shrink when it inflates")
+    void gradientShouldFollowLatencyInflation() {
+        AdaptiveLimit gradient = AdaptiveLimit.of(limit(20, Algorithm.GRADIENT));
+
+        int limit = 20;
+        for (int i = 0; i < 50; i++) {
+            limit = gradient.onSample(FAST, limit);
+        }
+        int grown = limit;
+        assertTrue(grown > 20, "Stable latency lets the limit probe upwards: " + grown);
+
+        for (int i = 0; i < 50; i++) {
+            limit = gradient.onSample(SLOW, limit);
+        }
+        assertTrue(limit < grown / 2, "Inflated latency sheds load: " + grown + " -> " + limit);
+        assertEquals(SLOW, gradient.rttNanos(), SLOW * 0.05);
+    }
+
+    @Test
+    @DisplayName("Bulkhead should admit waiters as soon as the adaptive limit rises and publish limit and RTT")
+    void bulkheadShouldApplyLimitChanges() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        BulkheadLimit settings = limit(1, Algorithm.AIMD);
+        settings.getAdaptive().setLatencyThreshold(Duration.ofMillis(50));
+        Bulkhead bulkhead = new Bulkhead("pipeline", "adaptive", settings, null, Runnable::run, meters);
+
+        bulkhead.acquire();
+        CompletableFuture<Void> first = bulkhead.acquire();
+        CompletableFuture<Void> second = bulkhead.acquire();
+
+        // 1 of 1 in use and fast -> limit 2: both waiters get a permit
+        bulkhead.release(FAST);
+        assertTrue(first.isDone() && second.isDone());
+        assertEquals(2.0, meters.get("dih.bulkhead.permits.limit").gauge().value());
+        assertEquals(10.0, meters.get("dih.bulkhead.rtt").timeGauge().value(TimeUnit.MILLISECONDS), 0.001);
+
+        // Slow -> limit 1: the next release does not admit anyone new
+        bulkhead.release(SLOW);
+        assertEquals(1.0, meters.get("dih.bulkhead.permits.limit").gauge().value());
+        CompletableFuture<Void> third = bulkhead.acquire();
+        assertFalse(third.isDone(), "Load above the lowered limit queues");
+        bulkhead.release(FAST);
+        assertTrue(third.isDone());
+    }
+
+    @Test
+    @DisplayName("Failed calls should return their permit without raising the adaptive limit")
+    void failuresShouldNotCountAsGoodLatency() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        BulkheadLimit settings = limit(1, Algorithm.AIMD);
+        settings.getAdaptive().setLatencyThreshold(Duration.ofSeconds(10));
+        Bulkhead bulkhead = new Bulkhead("step", "failing", settings, null, Runnable::run, meters);
+
+        // A fast failure, e.g. a refused connection, leaves the limit alone
+        BulkheadPermit failed = BulkheadPermit.acquire(List.of(bulkhead), Priority.NORMAL).join();
+        failed.release(false);
+        failed.release(true);
+        assertEquals(1.0, meters.get("dih.bulkhead.permits.limit").gauge().value());
+        assertEquals(0.0, meters.get("dih.bulkhead.permits.used").gauge().value(), "Released exactly once");
+
+        BulkheadPermit succeeded = BulkheadPermit.acquire(List.of(bulkhead), Priority.NORMAL).join();
+        succeeded.release(true);
+        assertEquals(2.0, meters.get("dih.bulkhead.permits.limit").gauge().value());
+    }
+
+    private static BulkheadLimit limit(int initial, Algorithm algorithm) {
+        BulkheadLimit limit = new BulkheadLimit();
+        limit.setMaxConcurrent(initial);
+        limit.setQueueTimeout(Duration.ZERO);
+        limit.getAdaptive().setAlgorithm(algorithm);
+        return limit;
+    }
+}
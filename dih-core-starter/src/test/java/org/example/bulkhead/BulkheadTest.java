@@ -0,0 +1,257 @@
+package org.example.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.config.DihProperties.BulkheadLimit;
+import org.example.config.DihProperties.BulkheadLimit.RejectPolicy;
+import org.example.exception.ExecutionRejectedException;
+import org.example.model.ExecutionOptions.Priority;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class, properties = {
+        "dih.executor.bulkhead.pipelines.BulkheadFlow.max-concurrent=1",
+        "dih.executor.bulkhead.pipelines.BulkheadFlow.max-queue=1",
+        "dih.executor.bulkhead.pipelines.BulkheadFlow.queue-timeout=10s",
+        "dih.executor.bulkhead.step-types.BulkheadDownstream.max-concurrent=2",
+        "dih.executor.bulkhead.fan-out.max-concurrent=3"
+})
+class BulkheadTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+    /** Blocks until the test opens the gate. */
+    @ThreadSafeStep
+    static class GatedStep implements PipelineStep<Object, Object> {
+        static volatile CountDownLatch started = new CountDownLatch(1);
+        static volatile CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            started.countDown();
+            gate.await();
+            return input;
+        }
+    }
+
+    /** Records how many invocations overlap. */
+    @ThreadSafeStep
+    static class DownstreamStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger ACTIVE = new AtomicInteger();
+        static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            MAX_ACTIVE.accumulateAndGet(ACTIVE.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                return input;
+            } finally {
+                ACTIVE.decrementAndGet();
+            }
+        }
+    }
+
+    /** Records how many branches overlap; its step type is not limited. */
+    @ThreadSafeStep
+    static class BranchStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger ACTIVE = new AtomicInteger();
+        static final AtomicInteger MAX_ACTIVE = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            MAX_ACTIVE.accumulateAndGet(ACTIVE.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+                return input;
+            } finally {
+                ACTIVE.decrementAndGet();
+            }
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("BulkheadGated", GatedStep.class);
+        registry.register("BulkheadDownstream", DownstreamStep.class);
+        registry.register("BulkheadBranch", BranchStep.class);
+        BranchStep.ACTIVE.set(0);
+        BranchStep.MAX_ACTIVE.set(0);
+        GatedStep.started = new CountDownLatch(1);
+        GatedStep.gate = new CountDownLatch(1);
+        DownstreamStep.ACTIVE.set(0);
+        DownstreamStep.MAX_ACTIVE.set(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        GatedStep.gate.countDown();
+        timer.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should queue up to max-queue callers, reject the rest and time out waiting callers")
+    void shouldBoundTheQueue() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("pipeline", "test",
+                limit(1, 1, Duration.ofMillis(100), RejectPolicy.ABORT), timer, Runnable::run, meters);
+
+        assertTrue(bulkhead.acquire().isDone(), "A free permit is granted immediately");
+        CompletableFuture<Void> queued = bulkhead.acquire();
+        assertFalse(queued.isDone());
+        assertEquals(1.0, meters.get("dih.bulkhead.queue.depth").gauge().value());
+
+        ExecutionException full = assertThrows(ExecutionException.class, () -> bulkhead.acquire().get());
+        assertInstanceOf(ExecutionRejectedException.class, full.getCause());
+
+        ExecutionException timedOut = assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ExecutionRejectedException.class, timedOut.getCause());
+        assertEquals(0.0, meters.get("dih.bulkhead.queue.depth").gauge().value());
+        assertEquals(1.0, meters.get("dih.bulkhead.rejected").tag("reason", "queue_full").counter().count());
+        assertEquals(1.0, meters.get("dih.bulkhead.rejected").tag("reason", "timeout").counter().count());
+
+        bulkhead.release();
+        assertEquals(0.0, meters.get("dih.bulkhead.permits.used").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should hand released permits to the oldest waiter and evict it with DROP_OLDEST")
+    void shouldHandOverAndEvict() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("step.type", "test",
+                limit(1, 2, Duration.ZERO, RejectPolicy.DROP_OLDEST), timer, Runnable::run, meters);
+
+        bulkhead.acquire();
+        CompletableFuture<Void> oldest = bulkhead.acquire();
+        CompletableFuture<Void> middle = bulkhead.acquire();
+        CompletableFuture<Void> newest = bulkhead.acquire();
+
+        assertTrue(oldest.isCompletedExceptionally(), "The oldest waiter makes room for the newest");
+        assertEquals(1.0, meters.get("dih.bulkhead.rejected").tag("reason", "evicted").counter().count());
+
+        // A cancelled waiter is skipped
+        middle.cancel(true);
+        bulkhead.release();
+        assertTrue(newest.isDone() && !newest.isCompletedExceptionally());
+        assertEquals(1.0, meters.get("dih.bulkhead.permits.used").gauge().value());
+        assertEquals(2, meters.get("dih.bulkhead.wait").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should hand permits to higher-priority waiters first and displace lower-priority ones when full")
+    void shouldQueueByPriority() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        Bulkhead bulkhead = new Bulkhead("fan.out", "test",
+                limit(1, 2, Duration.ZERO, RejectPolicy.ABORT), timer, Runnable::run, meters);
+
+        bulkhead.acquire(Priority.NORMAL);
+        CompletableFuture<Void> batch = bulkhead.acquire(Priority.BATCH);
+        CompletableFuture<Void> normal = bulkhead.acquire(Priority.NORMAL);
+        CompletableFuture<Void> critical = bulkhead.acquire(Priority.CRITICAL);
+
+        assertTrue(batch.isCompletedExceptionally(), "The full queue sheds the lowest priority");
+        bulkhead.release();
+        assertTrue(critical.isDone() && !normal.isDone());
+        bulkhead.release();
+        assertTrue(normal.isDone());
+    }
+
+    @Test
+    @DisplayName("Should admit executions of a limited pipeline one at a time and reject beyond the queue")
+    void shouldLimitPipelineExecutions() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("BulkheadFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("gated", "BulkheadGated", Map.of(), null, null)));
+
+        CompletableFuture<Object> running = executor.executePipelineAsync(definition, "first");
+        assertTrue(GatedStep.started.await(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Object> queued = executor.executePipelineAsync(definition, "second");
+        ExecutionException rejected = assertThrows(ExecutionException.class,
+                () -> executor.executePipelineAsync(definition, "third").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(ExecutionRejectedException.class, rejected.getCause());
+        assertFalse(queued.isDone(), "The second execution waits for the first");
+
+        GatedStep.gate.countDown();
+        assertEquals("first", running.get(5, TimeUnit.SECONDS));
+        assertEquals("second", queued.get(5, TimeUnit.SECONDS));
+        assertEquals(0.0, meterRegistry.get("dih.bulkhead.permits.used")
+                .tag("bulkhead.name", "BulkheadFlow").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should cap concurrent invocations of a step type across parallel branches")
+    void shouldLimitStepType() {
+        List<String> branches = List.of("d1", "d2", "d3", "d4", "d5", "d6");
+        List<StepDefinition> subSteps = branches.stream()
+                .map(id -> new StepDefinition(id, "BulkheadDownstream", Map.of(), null, null))
+                .toList();
+        PipelineDefinition definition = new PipelineDefinition("BulkheadFanOut", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter", Map.of("subStepIds", branches), subSteps, null)));
+
+        List<?> result = (List<?>) executor.executePipeline(definition, "in");
+
+        assertEquals(6, result.size());
+        assertEquals(2, DownstreamStep.MAX_ACTIVE.get());
+    }
+
+    @Test
+    @DisplayName("Should cap the running ParallelSplitter branches of a pipeline with the fan-out limit")
+    void shouldLimitFanOut() throws Exception {
+        List<String> branches = List.of("b1", "b2", "b3", "b4", "b5", "b6", "b7", "b8");
+        List<StepDefinition> subSteps = branches.stream()
+                .map(id -> new StepDefinition(id, "BulkheadBranch", Map.of(), null, null))
+                .toList();
+        PipelineDefinition definition = new PipelineDefinition("BulkheadWideFanOut", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter", Map.of("subStepIds", branches), subSteps, null)));
+
+        assertEquals(8, ((List<?>) executor.executePipeline(definition, "in")).size());
+        assertEquals(8, ((List<?>) executor.executePipelineAsync(definition, "in").get(5, TimeUnit.SECONDS)).size());
+
+        assertEquals(3, BranchStep.MAX_ACTIVE.get());
+        assertEquals(3.0, meterRegistry.get("dih.bulkhead.permits.limit")
+                .tag("bulkhead.level", "fan.out").tag("bulkhead.name", "BulkheadWideFanOut").gauge().value());
+    }
+
+    private static BulkheadLimit limit(int maxConcurrent, int maxQueue, Duration timeout, RejectPolicy policy) {
+        BulkheadLimit limit = new BulkheadLimit();
+        limit.setMaxConcurrent(maxConcurrent);
+        limit.setMaxQueue(maxQueue);
+        limit.setQueueTimeout(timeout);
+        limit.setRejectPolicy(policy);
+        return limit;
+    }
+}
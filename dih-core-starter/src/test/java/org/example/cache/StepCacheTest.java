@@ -0,0 +1,234 @@
+package org.example.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.CacheDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class StepCacheTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    /** A pure enrichment: counts its invocations. */
+    static class EnrichStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            CALLS.incrementAndGet();
+            return "enriched-" + input;
+        }
+    }
+
+    /** Counting loader of the unit tests. */
+    static class CountingLoader implements AsyncPipelineStep<Object, Object> {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            calls.incrementAndGet();
+            return CompletableFuture.completedFuture("value-" + input);
+        }
+    }
+
+    private final PipelineContext context = new PipelineContext("cache-test", System.currentTimeMillis(), "CacheUnit");
+
+    @BeforeEach
+    void setup() {
+        registry.register("CacheEnrich", EnrichStep.class);
+        EnrichStep.CALLS.set(0);
+    }
+
+    private static PipelineDefinition pipeline(String name, StepDefinition step) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(step));
+    }
+
+    private static StepCache cache(CacheDefinition definition, MeterRegistry meterRegistry) {
+        return new StepCache("test", definition, null, null, Runnable::run, meterRegistry, Tags.of("step.cache", "test"));
+    }
+
+    @Test
+    @DisplayName("Should serve repeated inputs from the cache across executions and pipelines")
+    void shouldServeRepeatedInputs() throws Exception {
+        CacheDefinition cacheDefinition = new CacheDefinition(null, 100, null, 0, 0, 0);
+        StepDefinition step = new StepDefinition("enrich", "CacheEnrich", Map.of("source", "crm"), null, null)
+                .withCache(cacheDefinition);
+
+        assertEquals("enriched-42", executor.executePipeline(pipeline("CacheFlowA", step), "42"));
+        assertEquals("enriched-42", executor.executePipeline(pipeline("CacheFlowA", step), "42"));
+        assertEquals("enriched-42", executor.executePipelineAsync(pipeline("CacheFlowB", step), "42").get(5, TimeUnit.SECONDS));
+        assertEquals("enriched-7", executor.executePipeline(pipeline("CacheFlowB", step), "7"));
+
+        assertEquals(2, EnrichStep.CALLS.get());
+        String name = registryCacheName(step);
+        assertEquals(2.0, meterRegistry.get("dih.step.cache.hits").tags("step.cache", name, "tier", "heap").counter().count());
+        assertEquals(2.0, meterRegistry.get("dih.step.cache.misses").tag("step.cache", name).counter().count());
+    }
+
+    private String registryCacheName(StepDefinition step) {
+        return meterRegistry.get("dih.step.cache.misses").tag("step.type", step.type()).counters().stream()
+                .map(counter -> counter.getId().getTag("step.cache"))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @Test
+    @DisplayName("Should demote evicted entries off-heap and promote them back on a hit")
+    void shouldUseOffHeapTier() throws Exception {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        StepCache cache = cache(new CacheDefinition(null, 2, null, 0, 0, 64 * 1024), meters);
+        CountingLoader loader = new CountingLoader();
+
+        for (String key : List.of("a", "b", "c")) {
+            cache.execute(key, context, loader);
+        }
+        assertEquals(1.0, meters.get("dih.step.cache.evictions").tag("tier", "heap").counter().count());
+        assertEquals(1.0, meters.get("dih.step.cache.size").tag("tier", "off-heap").gauge().value());
+
+        assertEquals("value-a", cache.execute("a", context, loader));
+        assertEquals(3, loader.calls.get());
+        assertEquals(1.0, meters.get("dih.step.cache.hits").tag("tier", "off-heap").counter().count());
+        assertTrue(meters.get("dih.step.cache.weight").gauge().value() <= 2);
+    }
+
+    @Test
+    @DisplayName("Should keep the off-heap tier within its capacity by overwriting the oldest entries")
+    void shouldBoundOffHeapTier() {
+        AtomicInteger evictions = new AtomicInteger();
+        OffHeapTier tier = new OffHeapTier(1024, evictions::incrementAndGet);
+
+        for (int i = 0; i < 200; i++) {
+            assertTrue(tier.put(i, "entry-" + i, 0));
+        }
+
+        assertTrue(tier.usedBytes() <= 1024, "Used: " + tier.usedBytes());
+        assertEquals(200, tier.size() + evictions.get());
+        assertNull(tier.get(0));
+        assertEquals("entry-199", tier.get(199).value());
+        assertFalse(tier.put("unserializable", new Object(), 0));
+    }
+
+    @Test
+    @DisplayName("Should reload entries once their TTL has passed")
+    void shouldExpireEntries() throws Exception {
+        StepCache cache = cache(new CacheDefinition(null, 100, null, 50, 0, 0), new SimpleMeterRegistry());
+        CountingLoader loader = new CountingLoader();
+
+        cache.execute("k", context, loader);
+        cache.execute("k", context, loader);
+        assertEquals(1, loader.calls.get());
+
+        Thread.sleep(100);
+        cache.execute("k", context, loader);
+        assertEquals(2, loader.calls.get());
+    }
+
+    @Test
+    @DisplayName("Should refresh stale entries ahead of expiry without blocking the hit")
+    void shouldRefreshAhead() throws Exception {
+        StepCache cache = cache(new CacheDefinition(null, 100, null, 10_000, 50, 0), new SimpleMeterRegistry());
+        CountingLoader loader = new CountingLoader();
+
+        cache.execute("k", context, loader);
+        Thread.sleep(100);
+
+        assertEquals("value-k", cache.execute("k", context, loader));
+        assertEquals(2, loader.calls.get(), "The stale hit must trigger one reload");
+        cache.execute("k", context, loader);
+        assertEquals(2, loader.calls.get(), "The reloaded entry is fresh");
+    }
+
+    @Test
+    @DisplayName("Should reload stale entries within their expiry, not the triggering execution's deadline")
+    void shouldRefreshWithOwnDeadline() throws Exception {
+        StepCache cache = cache(new CacheDefinition(null, 100, null, 10_000, 50, 0), new SimpleMeterRegistry());
+        List<Long> deadlines = new CopyOnWriteArrayList<>();
+        AsyncPipelineStep<Object, Object> loader = new AsyncPipelineStep<>() {
+            @Override
+            public CompletionStage<Object> executeAsync(Object input, PipelineContext loadContext) {
+                deadlines.add(loadContext.deadline());
+                return CompletableFuture.completedFuture("value-" + input);
+            }
+        };
+
+        long loadedAt = System.currentTimeMillis();
+        cache.execute("k", context, loader);
+        Thread.sleep(100);
+        PipelineContext expiring = new PipelineContext("cache-test-2", System.currentTimeMillis(), "CacheUnit",
+                context.tenant(), context.priority(), System.currentTimeMillis() + 1);
+        cache.execute("k", expiring, loader);
+
+        assertEquals(2, deadlines.size());
+        assertTrue(deadlines.get(1) >= loadedAt + 10_000, "The reload expires with the entry: " + deadlines.get(1));
+    }
+
+    @Test
+    @DisplayName("Should close a shared cache and remove its meters once the last plan releases it")
+    void shouldCloseCacheWithLastOwner() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        StepCacheRegistry caches = new StepCacheRegistry(applicationContext, Runnable::run, meters);
+        StepDefinition step = new StepDefinition("enrich", "CacheEnrich", Map.of(), null, null)
+                .withCache(new CacheDefinition(null, 100, null, 0, 0, 1024));
+
+        StepCache first = caches.cacheFor(step);
+        StepCache second = caches.cacheFor(step);
+        assertSame(first, second, "Equal configurations share one cache");
+
+        first.release();
+        assertNotNull(meters.find("dih.step.cache.misses").counter(), "Still used by the second plan");
+        second.release();
+        assertNull(meters.find("dih.step.cache.misses").counter());
+        assertNull(meters.find("dih.step.cache.off.heap.bytes").gauge());
+
+        StepCache next = caches.cacheFor(step);
+        assertNotSame(first, next);
+        assertNotNull(meters.find("dih.step.cache.misses").counter());
+        next.release();
+    }
+
+    @Test
+    @DisplayName("Should reject unknown key extractor beans")
+    void shouldRejectUnknownKeyExtractor() {
+        StepDefinition step = new StepDefinition("enrich", "CacheEnrich", Map.of(), null, null)
+                .withCache(new CacheDefinition("noSuchExtractor", 0, null, 0, 0, 0));
+
+        assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(pipeline("CacheUnknownExtractor", step), "in"));
+    }
+}
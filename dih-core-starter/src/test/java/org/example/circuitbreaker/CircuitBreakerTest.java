@@ -0,0 +1,206 @@
+package org.example.circuitbreaker;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.CircuitBreakerOpenException;
+import org.example.exception.ExecutionRejectedException;
+import org.example.exception.RetryBudgetExhaustedException;
+import org.example.model.CircuitBreakerDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class CircuitBreakerTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    static class DownstreamStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            CALLS.incrementAndGet();
+            throw new IllegalStateException("Downstream unavailable");
+        }
+    }
+
+    /** Fails without the downstream being at fault, as selected by the {@code failure} property. */
+    static class LocalFailureStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        private String failure = "none";
+
+        public void setFailure(String failure) {
+            this.failure = failure;
+        }
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            CALLS.incrementAndGet();
+            switch (failure) {
+                case "rejected" -> throw new ExecutionRejectedException("step-type:BreakerLocal", "queue full");
+                case "budget" -> throw new RetryBudgetExhaustedException("call", 1, new IllegalStateException("transient"));
+                case "cancelled" -> throw new InterruptedException("cancelled by a sibling branch");
+                case "invalid" -> throw new IllegalArgumentException("invalid input");
+                default -> {
+                    return input;
+                }
+            }
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("BreakerDownstream", DownstreamStep.class);
+        registry.register("BreakerLocal", LocalFailureStep.class);
+        DownstreamStep.CALLS.set(0);
+        LocalFailureStep.CALLS.set(0);
+    }
+
+    @Test
+    @DisplayName("Should open on the failure rate, probe when half-open and close after successful probes")
+    void shouldTransitionThroughStates() {
+        AtomicLong clock = new AtomicLong();
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        CircuitBreaker breaker = new CircuitBreaker("test", new CircuitBreakerDefinition(4, 4, 50, 0, 0, 1000, 2),
+                meters, Tags.of("circuit.breaker", "test"), clock::get);
+
+        // 2 of 4 calls fail -> 50% -> OPEN
+        breaker.onSuccess(breaker.tryAcquirePermission(), 0);
+        breaker.onError(breaker.tryAcquirePermission(), 0);
+        breaker.onSuccess(breaker.tryAcquirePermission(), 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.onError(breaker.tryAcquirePermission(), 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+        assertEquals(1.0, meters.get("dih.circuit.breaker.rejected").counter().count());
+
+        // After the open duration, exactly two probes pass
+        clock.set(TimeUnit.MILLISECONDS.toNanos(1000));
+        long probe1 = breaker.tryAcquirePermission();
+        long probe2 = breaker.tryAcquirePermission();
+        assertNotEquals(CircuitBreaker.REJECTED, probe1);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+
+        breaker.onSuccess(probe1, 0);
+        breaker.onSuccess(probe2, 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(1.0, meters.get("dih.circuit.breaker.transitions").tag("to", "CLOSED").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should open on slow calls and ignore outcomes permitted before a transition")
+    void shouldTrackSlowCalls() {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        CircuitBreaker breaker = new CircuitBreaker("slow", new CircuitBreakerDefinition(2, 2, 100, 100, 100, 1000, 1),
+                meters, Tags.empty(), () -> 0L);
+
+        long straggler = breaker.tryAcquirePermission();
+        long slowNanos = TimeUnit.MILLISECONDS.toNanos(150);
+        breaker.onSuccess(breaker.tryAcquirePermission(), slowNanos);
+        breaker.onSuccess(breaker.tryAcquirePermission(), slowNanos);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Completes after the breaker opened: must not count
+        breaker.onError(straggler, 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    @DisplayName("Should fail fast across executions once the step's breaker is open, outside of retries")
+    void shouldFailFastAcrossExecutions() {
+        StepDefinition step = new StepDefinition("call", "BreakerDownstream", Map.of(), null,
+                new RetryPolicyDefinition(2, 1))
+                .withCircuitBreaker(new CircuitBreakerDefinition(3, 3, 100, 0, 0, 60_000, 1));
+        PipelineDefinition definition = new PipelineDefinition("BreakerFlow", "pipeline", "1.0", List.of(step));
+
+        for (int run = 0; run < 3; run++) {
+            assertThrows(RuntimeException.class, () -> executor.executePipeline(definition));
+        }
+        assertEquals(6, DownstreamStep.CALLS.get(), "3 executions x 2 attempts");
+
+        // Another pipeline with the same step type and configuration shares the breaker
+        PipelineDefinition other = new PipelineDefinition("BreakerFlow2", "pipeline", "1.0", List.of(step));
+        assertThrows(CircuitBreakerOpenException.class, () -> executor.executePipeline(other));
+        assertEquals(6, DownstreamStep.CALLS.get(), "An open breaker must not reach the step");
+
+        assertTrue(meterRegistry.get("dih.circuit.breaker.rejected").tag("step.type", "BreakerDownstream")
+                .counter().count() >= 1.0);
+    }
+
+    @Test
+    @DisplayName("Should return a released half-open probe without recording an outcome")
+    void shouldReleaseProbeWithoutOutcome() {
+        AtomicLong clock = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker("release", new CircuitBreakerDefinition(1, 1, 100, 0, 0, 1000, 1),
+                new SimpleMeterRegistry(), Tags.empty(), clock::get);
+        breaker.onError(breaker.tryAcquirePermission(), 0);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        clock.set(TimeUnit.MILLISECONDS.toNanos(1000));
+        long probe = breaker.tryAcquirePermission();
+        assertEquals(CircuitBreaker.REJECTED, breaker.tryAcquirePermission());
+        breaker.releasePermission(probe);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        breaker.onSuccess(breaker.tryAcquirePermission(), 0);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"rejected", "budget", "cancelled", "invalid"})
+    @DisplayName("Should not count local rejections, cancellations or ignored failures as downstream failures")
+    void shouldNotCountLocalFailures(String failure) {
+        RetryPolicyDefinition ignoreInvalid = new RetryPolicyDefinition(1, 1)
+                .withExceptions(List.of(), List.of(IllegalArgumentException.class.getName()));
+        CircuitBreakerDefinition breaker = new CircuitBreakerDefinition(2, 2, 50, 0, 0, 60_000, 1);
+        PipelineDefinition failing = new PipelineDefinition("BreakerLocal-" + failure, "pipeline", "1.0", List.of(
+                new StepDefinition("call", "BreakerLocal", Map.of("failure", failure), null, ignoreInvalid)
+                        .withCircuitBreaker(breaker)));
+
+        for (int run = 0; run < 4; run++) {
+            assertThrows(RuntimeException.class, () -> executor.executePipeline(failing, "in"));
+            // A cancelled run restores the caller's interrupt status
+            Thread.interrupted();
+        }
+        assertEquals(4, LocalFailureStep.CALLS.get());
+
+        // The same type and configuration share the breaker: it must still be closed
+        PipelineDefinition healthy = new PipelineDefinition("BreakerLocalHealthy", "pipeline", "1.0", List.of(
+                new StepDefinition("call", "BreakerLocal", Map.of("failure", "none"), null, ignoreInvalid)
+                        .withCircuitBreaker(breaker)));
+        assertEquals("in", executor.executePipeline(healthy, "in"));
+        assertEquals(5, LocalFailureStep.CALLS.get(), "A healthy downstream must not be cut off");
+    }
+}
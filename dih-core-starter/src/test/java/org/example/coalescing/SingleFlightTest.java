@@ -0,0 +1,242 @@
+package org.example.coalescing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.DeadlineExceededException;
+import org.example.model.CoalescingDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.plan.PipelinePlanCache;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class SingleFlightTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PipelinePlanCache planCache;
+
+    /** An expensive lookup: takes 300ms and counts its invocations. */
+    static class LookupStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger CALLS = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            CALLS.incrementAndGet();
+            Thread.sleep(300);
+            return "looked-up-" + input;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("CoalescedLookup", LookupStep.class);
+        LookupStep.CALLS.set(0);
+    }
+
+    private static PipelineDefinition pipeline(String name, StepDefinition step) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(step));
+    }
+
+    private static StepDefinition lookup() {
+        return new StepDefinition("lookup", "CoalescedLookup", Map.of(), null, null);
+    }
+
+    @Test
+    @DisplayName("Should attach identical concurrent async executions to the one in flight")
+    void shouldCoalesceAsyncExecutions() throws Exception {
+        PipelineDefinition definition = pipeline("CoalescedAsyncFlow", lookup())
+                .withCoalesce(CoalescingDefinition.defaults());
+
+        List<CompletableFuture<Object>> results = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            results.add(executor.executePipelineAsync(definition, "order-1"));
+        }
+        CompletableFuture<Object> other = executor.executePipelineAsync(definition, "order-2");
+
+        for (CompletableFuture<Object> result : results) {
+            assertEquals("looked-up-order-1", result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals("looked-up-order-2", other.get(5, TimeUnit.SECONDS));
+        assertEquals(2, LookupStep.CALLS.get());
+        assertEquals(4.0, meterRegistry.get("dih.pipeline.coalesced")
+                .tag("pipeline.name", "CoalescedAsyncFlow").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should attach identical concurrent synchronous executions to the one in flight")
+    void shouldCoalesceSyncExecutions() throws Exception {
+        PipelineDefinition definition = pipeline("CoalescedSyncFlow", lookup())
+                .withCoalesce(CoalescingDefinition.defaults());
+
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                results.add(callers.submit(() -> executor.executePipeline(definition, "order-1")));
+            }
+            for (Future<Object> result : results) {
+                assertEquals("looked-up-order-1", result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        assertEquals(1, LookupStep.CALLS.get());
+    }
+
+    @Test
+    @DisplayName("Should share one call of a coalesced step between executions of different pipelines")
+    void shouldCoalesceStepInvocations() throws Exception {
+        StepDefinition step = lookup().withCoalesce(CoalescingDefinition.defaults());
+        PipelineDefinition flowA = pipeline("CoalescedStepFlowA", step);
+        PipelineDefinition flowB = pipeline("CoalescedStepFlowB", step);
+        // Compile both plans first, so the executions reach the step at the same time
+        executor.executePipeline(flowA, "warm-up-a");
+        executor.executePipeline(flowB, "warm-up-b");
+        LookupStep.CALLS.set(0);
+
+        CompletableFuture<Object> first = executor.executePipelineAsync(flowA, "sku-1");
+        CompletableFuture<Object> second = executor.executePipelineAsync(flowB, "sku-1");
+
+        assertEquals("looked-up-sku-1", first.get(5, TimeUnit.SECONDS));
+        assertEquals("looked-up-sku-1", second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, LookupStep.CALLS.get());
+        assertEquals(1.0, meterRegistry.get("dih.step.coalesced")
+                .tag("step.type", "CoalescedLookup").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should remove the coalescing meters once the plan using them is evicted")
+    void shouldCloseWithLastPlan() {
+        registry.register("EvictedLookup", LookupStep.class);
+        StepDefinition step = new StepDefinition("lookup", "EvictedLookup", Map.of(), null, null)
+                .withCoalesce(CoalescingDefinition.defaults());
+        PipelineDefinition definition = pipeline("CoalescedEvictedFlow", step)
+                .withCoalesce(CoalescingDefinition.defaults());
+
+        assertEquals("looked-up-sku-1", executor.executePipeline(definition, "sku-1"));
+        assertNotNull(meterRegistry.find("dih.pipeline.coalesced").tag("pipeline.name", "CoalescedEvictedFlow").counter());
+        assertNotNull(meterRegistry.find("dih.step.coalescing.in.flight").tag("step.type", "EvictedLookup").gauge());
+
+        assertTrue(planCache.evict("CoalescedEvictedFlow", "1.0"));
+        assertNull(meterRegistry.find("dih.pipeline.coalesced").tag("pipeline.name", "CoalescedEvictedFlow").counter());
+        assertNull(meterRegistry.find("dih.pipeline.coalescing.in.flight")
+                .tag("pipeline.name", "CoalescedEvictedFlow").gauge());
+        assertNull(meterRegistry.find("dih.step.coalesced").tag("step.type", "EvictedLookup").counter());
+        assertNull(meterRegistry.find("dih.step.coalescing.in.flight").tag("step.type", "EvictedLookup").gauge());
+    }
+
+    @Test
+    @DisplayName("Should cancel the run only once all attached callers have cancelled")
+    void shouldCancelRunWhenAllCallersLeave() {
+        SingleFlight singleFlight = new SingleFlight(null, "test", Tags.empty(), new SimpleMeterRegistry());
+        CompletableFuture<Object> run = new CompletableFuture<>();
+        AtomicInteger started = new AtomicInteger();
+
+        CompletableFuture<Object> leader = singleFlight.call("k", () -> {
+            started.incrementAndGet();
+            return run;
+        });
+        CompletableFuture<Object> follower = singleFlight.call("k", () -> {
+            started.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        leader.cancel(true);
+        assertFalse(run.isCancelled(), "The follower still waits for the run");
+        follower.cancel(true);
+        assertTrue(run.isCancelled());
+        assertEquals(1, started.get());
+    }
+
+    @Test
+    @DisplayName("Should run a follower on its own when the leader exceeds its deadline, but share other failures")
+    void shouldNotInheritLeaderSpecificFailures() throws Exception {
+        SingleFlight singleFlight = new SingleFlight(null, "test", Tags.empty(), new SimpleMeterRegistry());
+        CompletableFuture<Object> expiring = new CompletableFuture<>();
+        CompletableFuture<Object> leader = singleFlight.call("k", () -> expiring);
+        CompletableFuture<Object> follower = singleFlight.call("k", () -> CompletableFuture.completedFuture("own run"));
+
+        expiring.completeExceptionally(new DeadlineExceededException("Leader deadline passed", "flow"));
+        assertInstanceOf(DeadlineExceededException.class,
+                assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+        assertEquals("own run", follower.get(5, TimeUnit.SECONDS));
+
+        CompletableFuture<Object> failing = new CompletableFuture<>();
+        CompletableFuture<Object> second = singleFlight.call("k", () -> failing);
+        CompletableFuture<Object> attached = singleFlight.call("k", () -> CompletableFuture.completedFuture("own run"));
+        failing.completeExceptionally(new IllegalArgumentException("invalid sku"));
+        assertInstanceOf(IllegalArgumentException.class,
+                assertThrows(ExecutionException.class, () -> attached.get(5, TimeUnit.SECONDS)).getCause());
+        assertInstanceOf(IllegalArgumentException.class,
+                assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS)).getCause());
+    }
+
+    @Test
+    @DisplayName("Should hand the leader's checked failure to synchronous followers unwrapped")
+    void shouldPropagateCheckedFailures() throws Exception {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        SingleFlight singleFlight = new SingleFlight(null, "test", Tags.empty(), meters);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            Future<Object> leader = callers.submit(() -> singleFlight.execute("k", PipelineContext.NO_DEADLINE,
+                    () -> new IOException("expired"), () -> {
+                        release.await();
+                        throw new IOException("connection reset");
+                    }));
+            while (meters.get("test.coalescing.in.flight").gauge().value() == 0) {
+                Thread.onSpinWait();
+            }
+            Future<Object> follower = callers.submit(() -> singleFlight.execute("k", PipelineContext.NO_DEADLINE,
+                    () -> new IOException("expired"), () -> "own run"));
+            while (meters.get("test.coalesced").counter().count() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertInstanceOf(IOException.class,
+                    assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS)).getCause());
+            Throwable followerFailure = assertThrows(ExecutionException.class,
+                    () -> follower.get(5, TimeUnit.SECONDS)).getCause();
+            assertInstanceOf(IOException.class, followerFailure);
+            assertEquals("connection reset", followerFailure.getMessage());
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package org.example.hedge;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.annotation.IdempotentStep;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.deadline.DeadlineTimer;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.HedgeDefinition;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class HedgingTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** A replicated downstream: the call after {@link #HANG} was set hangs until interrupted. */
+    @IdempotentStep
+    @ThreadSafeStep
+    static class ReplicaStep implements PipelineStep<Object, Object> {
+        static final AtomicBoolean HANG = new AtomicBoolean();
+        static final AtomicInteger CALLS = new AtomicInteger();
+        static volatile CountDownLatch interrupted;
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            CALLS.incrementAndGet();
+            if (HANG.getAndSet(false)) {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                    throw e;
+                }
+                return "slow replica";
+            }
+            return "fast replica";
+        }
+    }
+
+    /** Idempotent, but holds per-execution state. */
+    @IdempotentStep
+    static class StatefulStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return input;
+        }
+    }
+
+    static class SideEffectStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return input;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("HedgeReplica", ReplicaStep.class);
+        registry.register("HedgeSideEffect", SideEffectStep.class);
+        registry.register("HedgeStateful", StatefulStep.class);
+        ReplicaStep.HANG.set(false);
+        ReplicaStep.CALLS.set(0);
+        ReplicaStep.interrupted = new CountDownLatch(1);
+    }
+
+    private static PipelineDefinition pipeline(String name, StepDefinition step) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(step));
+    }
+
+    @Test
+    @DisplayName("Should race a slow call with a hedge and cancel the loser")
+    void shouldHedgeSlowCall() throws InterruptedException {
+        StepDefinition step = new StepDefinition("lookup", "HedgeReplica", Map.of(), null, null)
+                .withHedge(new HedgeDefinition(50, 0, 100, 0));
+        ReplicaStep.HANG.set(true);
+
+        long start = System.currentTimeMillis();
+        Object result = executor.executePipeline(pipeline("HedgeFlow", step), "in");
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals("fast replica", result);
+        assertTrue(duration < 5_000, "The hedge must win over the hanging call (" + duration + "ms)");
+        assertEquals(2, ReplicaStep.CALLS.get());
+        // The loser is cancelled without waiting: its interrupt may land after the result
+        assertTrue(ReplicaStep.interrupted.await(5, TimeUnit.SECONDS), "The losing attempt must be interrupted");
+
+        assertEquals(1.0, meterRegistry.get("dih.step.hedge.wins").tag("pipeline.name", "HedgeFlow").counter().count());
+        assertEquals(1.0, meterRegistry.get("dih.step.hedge.win.ratio").tag("pipeline.name", "HedgeFlow").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should stop hedging once the hedge rate is used up")
+    void shouldLimitHedgeRate() {
+        // 1% of the calls may be hedged: the initial token serves one hedge only
+        StepDefinition step = new StepDefinition("lookup", "HedgeReplica", Map.of(), null, null)
+                .withHedge(new HedgeDefinition(50, 0, 1, 0))
+                .withTimeoutMs(500L);
+        PipelineDefinition definition = pipeline("HedgeLimitedFlow", step);
+
+        ReplicaStep.HANG.set(true);
+        assertEquals("fast replica", executor.executePipeline(definition, "in"));
+
+        ReplicaStep.HANG.set(true);
+        assertThrows(DeadlineExceededException.class, () -> executor.executePipeline(definition, "in"));
+
+        assertEquals(1.0, meterRegistry.get("dih.step.hedge.attempts").tag("pipeline.name", "HedgeLimitedFlow").counter().count());
+        assertEquals(1.0, meterRegistry.get("dih.step.hedge.suppressed").tag("pipeline.name", "HedgeLimitedFlow").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should derive the hedge delay from the observed latency once warmed up")
+    void shouldAdaptDelayToLatency() {
+        DeadlineTimer timer = new DeadlineTimer("hedge-test-timer");
+        Hedger hedger = new HedgerFactory(new SimpleMeterRegistry(), timer, Runnable::run)
+                .create("AdaptiveFlow", "1.0", "lookup", new HedgeDefinition(0, 95, 10, 5));
+        try {
+            assertTrue(hedger.delayMillis() < 0, "No hedging before enough latencies are known");
+            for (int i = 0; i < 5; i++) {
+                assertEquals("ok", hedger.call(() -> CompletableFuture.completedFuture("ok")).join());
+            }
+            assertTrue(hedger.delayMillis() >= 1, "Warmed up: " + hedger.delayMillis());
+        } finally {
+            hedger.close();
+            timer.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject hedging of steps not marked idempotent")
+    void shouldRequireIdempotentStep() {
+        StepDefinition step = new StepDefinition("write", "HedgeSideEffect", Map.of(), null, null)
+                .withHedge(HedgeDefinition.defaults());
+
+        assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(pipeline("HedgeSideEffectFlow", step), "in"));
+    }
+
+    @Test
+    @DisplayName("Should reject hedging of steps that are not thread-safe")
+    void shouldRequireThreadSafeStep() {
+        StepDefinition step = new StepDefinition("lookup", "HedgeStateful", Map.of(), null, null)
+                .withHedge(HedgeDefinition.defaults());
+
+        assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(pipeline("HedgeStatefulFlow", step), "in"));
+    }
+}
@@ -0,0 +1,135 @@
+package org.example.integration;
+
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.PipelineConcurrencyException;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.scope.PipelineContextHolder;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class AsyncExecutionTest {
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+
+    /** Reports the context visible to the step. */
+    @ThreadSafeStep
+    static class ContextProbeStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return List.of(
+                    Thread.currentThread().isVirtual(),
+                    PipelineContextHolder.getContextId().equals(context.executionId()),
+                    String.valueOf(MDC.get("request.id")));
+        }
+    }
+
+    /** Blocks until interrupted. */
+    @ThreadSafeStep
+    static class BlockingStep implements PipelineStep<Object, Object> {
+        static volatile CountDownLatch started;
+        static volatile CountDownLatch interrupted;
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            started.countDown();
+            try {
+                Thread.sleep(30_000);
+                return input;
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }
+    }
+
+    @ThreadSafeStep
+    static class ExplodingStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            throw new IllegalStateException("boom");
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("AsyncProbe", ContextProbeStep.class);
+        registry.register("AsyncBlocking", BlockingStep.class);
+        registry.register("AsyncExploding", ExplodingStep.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    @DisplayName("Should run on the DIH executor with pipeline context and caller MDC")
+    void shouldExecuteAsynchronously() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("AsyncFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("probe", "AsyncProbe", Map.of(), null, null)));
+
+        MDC.put("request.id", "req-42");
+        CompletableFuture<Object> future = executor.executePipelineAsync(definition, "in");
+
+        assertEquals(List.of(true, true, "req-42"), future.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should complete exceptionally with the same exception as the synchronous path")
+    void shouldPropagateFailures() {
+        StepDefinition exploding = new StepDefinition("exploding", "AsyncExploding", Map.of(), null, null);
+        PipelineDefinition definition = new PipelineDefinition("AsyncFailingFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter",
+                        Map.of("subStepIds", List.of("exploding")), List.of(exploding), null)));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+                () -> executor.executePipelineAsync(definition, "in").get(5, TimeUnit.SECONDS));
+        assertInstanceOf(PipelineConcurrencyException.class, e.getCause());
+        assertThrows(PipelineConcurrencyException.class, () -> executor.executePipeline(definition, "in"));
+    }
+
+    @Test
+    @DisplayName("Should interrupt running ParallelSplitter branches on cancellation")
+    void shouldCancelRunningBranches() throws Exception {
+        BlockingStep.started = new CountDownLatch(2);
+        BlockingStep.interrupted = new CountDownLatch(2);
+
+        StepDefinition blocking = new StepDefinition("blocking", "AsyncBlocking", Map.of(), null, null);
+        PipelineDefinition definition = new PipelineDefinition("AsyncCancelFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter",
+                        Map.of("subStepIds", List.of("blocking", "blocking")), List.of(blocking), null)));
+
+        CompletableFuture<Object> future = executor.executePipelineAsync(definition, "in");
+        assertTrue(BlockingStep.started.await(5, TimeUnit.SECONDS), "Branches did not start");
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(BlockingStep.interrupted.await(5, TimeUnit.SECONDS), "Branches were not interrupted");
+        assertThrows(CancellationException.class, future::join);
+    }
+}
@@ -0,0 +1,142 @@
+package org.example.integration;
+
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class AsyncStepExecutionTest {
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+
+    /** Completes after a delay on a timer thread, without holding the caller's thread. */
+    @ThreadSafeStep
+    static class DelayedAsyncStep implements AsyncPipelineStep<Object, Object> {
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            return CompletableFuture.supplyAsync(() -> input + "-async",
+                    CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    /** Synchronous step reporting whether it runs on an engine (virtual) thread. */
+    @ThreadSafeStep
+    static class SyncSuffixStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return input + "-sync:" + Thread.currentThread().isVirtual();
+        }
+    }
+
+    /** Fails its first two stages. */
+    @ThreadSafeStep
+    static class FlakyAsyncStep implements AsyncPipelineStep<Object, Object> {
+        static final AtomicInteger ATTEMPTS = new AtomicInteger();
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            if (ATTEMPTS.incrementAndGet() < 3) {
+                return CompletableFuture.failedFuture(new IllegalStateException("Transient"));
+            }
+            return CompletableFuture.completedFuture("attempt-" + ATTEMPTS.get());
+        }
+    }
+
+    /** Never completes on its own. */
+    @ThreadSafeStep
+    static class HangingAsyncStep implements AsyncPipelineStep<Object, Object> {
+        static volatile CompletableFuture<Object> last;
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            last = new CompletableFuture<>();
+            return last;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("DelayedAsync", DelayedAsyncStep.class);
+        registry.register("SyncSuffix", SyncSuffixStep.class);
+        registry.register("FlakyAsync", FlakyAsyncStep.class);
+        registry.register("HangingAsync", HangingAsyncStep.class);
+        FlakyAsyncStep.ATTEMPTS.set(0);
+    }
+
+    @Test
+    @DisplayName("Should mix sync and async steps in both execution modes")
+    void shouldMixSyncAndAsyncSteps() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("AsyncMixedFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("async", "DelayedAsync", Map.of(), null, null),
+                new StepDefinition("sync", "SyncSuffix", Map.of(), null, null)));
+
+        // Resumes on the engine's executor, not on the timer thread completing the stage
+        assertEquals("in-async-sync:true",
+                executor.executePipelineAsync(definition, "in").get(5, TimeUnit.SECONDS));
+        assertEquals("in-async-sync:false", executor.executePipeline(definition, "in"));
+    }
+
+    @Test
+    @DisplayName("Should retry failed stages of async steps")
+    void shouldRetryAsyncSteps() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("AsyncRetryFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("flaky", "FlakyAsync", Map.of(), null, new RetryPolicyDefinition(3, 1))));
+
+        assertEquals("attempt-3", executor.executePipelineAsync(definition, "in").get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @DisplayName("Should gather async ParallelSplitter branches without blocking")
+    void shouldGatherAsyncBranches() throws Exception {
+        StepDefinition branch = new StepDefinition("branch", "DelayedAsync", Map.of(), null, null);
+        PipelineDefinition definition = new PipelineDefinition("AsyncSplitFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter",
+                        Map.of("subStepIds", List.of("branch", "branch", "branch")), List.of(branch), null)));
+
+        assertEquals(List.of("in-async", "in-async", "in-async"),
+                executor.executePipelineAsync(definition, "in").get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("in-async", "in-async", "in-async"), executor.executePipeline(definition, "in"));
+    }
+
+    @Test
+    @DisplayName("Should cancel the pending stage when the execution is cancelled")
+    void shouldCancelPendingStage() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("AsyncHangingFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("hanging", "HangingAsync", Map.of(), null, null)));
+        HangingAsyncStep.last = null;
+
+        CompletableFuture<Object> future = executor.executePipelineAsync(definition, "in");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (HangingAsyncStep.last == null && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertNotNull(HangingAsyncStep.last, "Step was not started");
+
+        assertTrue(future.cancel(true));
+        assertTrue(HangingAsyncStep.last.isCancelled());
+    }
+}
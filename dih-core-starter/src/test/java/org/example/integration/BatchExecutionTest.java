@@ -0,0 +1,143 @@
+package org.example.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.StepExecutionException;
+import org.example.model.BatchItemResult;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.BatchPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class, properties = "dih.executor.batch.max-chunk-size=3")
+class BatchExecutionTest {
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Upper-cases items in bulk and records the chunks it received; fails chunks containing "boom". */
+    @ThreadSafeStep
+    static class BulkUpperStep implements BatchPipelineStep<Object, Object> {
+        static final List<List<Object>> CHUNKS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<Object> executeBatch(List<Object> inputs, PipelineContext context) {
+            CHUNKS.add(List.copyOf(inputs));
+            if (inputs.contains("boom")) {
+                throw new StepExecutionException("Bulk write rejected", "bulk");
+            }
+            return inputs.stream().map(input -> (Object) input.toString().toUpperCase()).toList();
+        }
+    }
+
+    /** Per-item step; fails items named "bad" and records the execution each item ran in. */
+    @ThreadSafeStep
+    static class SuffixStep implements PipelineStep<Object, Object> {
+        static final Set<String> EXECUTION_IDS = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            EXECUTION_IDS.add(context.executionId());
+            if ("bad".equals(input)) {
+                throw new StepExecutionException("Invalid item", "suffix");
+            }
+            return input + "!";
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("BatchBulkUpper", BulkUpperStep.class);
+        registry.register("BatchSuffix", SuffixStep.class);
+        BulkUpperStep.CHUNKS.clear();
+        SuffixStep.EXECUTION_IDS.clear();
+    }
+
+    @Test
+    @DisplayName("Should hand chunks to batch steps, loop plain steps per item and run once")
+    void shouldRunBatchInOneExecution() {
+        PipelineDefinition definition = new PipelineDefinition("BatchChunkFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("suffix", "BatchSuffix", Map.of(), null, null),
+                new StepDefinition("bulk", "BatchBulkUpper", Map.of(), null, null)));
+
+        List<BatchItemResult> results = executor.executePipelineBatch(
+                definition, List.of("a", "b", "c", "d", "e", "f", "g"));
+
+        assertEquals(List.of("A!", "B!", "C!", "D!", "E!", "F!", "G!"),
+                results.stream().map(BatchItemResult::result).toList());
+        assertTrue(results.stream().allMatch(BatchItemResult::isSuccess));
+        assertEquals(List.of(3, 3, 1), BulkUpperStep.CHUNKS.stream().map(List::size).toList());
+        assertEquals(1, SuffixStep.EXECUTION_IDS.size(), "All items share one execution");
+
+        Timer timer = meterRegistry.find("dih.pipeline.execution").tag("pipeline.name", "BatchChunkFlow").timer();
+        assertNotNull(timer);
+        assertEquals(1, timer.count());
+    }
+
+    @Test
+    @DisplayName("Should report failures per item and keep failed items out of later steps")
+    void shouldIsolateItemFailures() {
+        PipelineDefinition definition = new PipelineDefinition("BatchFailureFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("suffix", "BatchSuffix", Map.of(), null, null),
+                new StepDefinition("bulk", "BatchBulkUpper", Map.of(), null, null)));
+
+        List<BatchItemResult> results = executor.executePipelineBatch(
+                definition, List.of("a", "bad", "b", "c", "d"));
+
+        assertEquals(5, results.size());
+        assertEquals("A!", results.get(0).result());
+        assertFalse(results.get(1).isSuccess());
+        assertInstanceOf(StepExecutionException.class, results.get(1).failure());
+        assertEquals(1, results.get(1).index());
+        assertEquals("D!", results.get(4).result());
+        // The failed item never reached the batch step
+        assertEquals(List.of(List.of("a!", "b!", "c!"), List.of("d!")), BulkUpperStep.CHUNKS);
+    }
+
+    @Test
+    @DisplayName("Should fail every item of a failed chunk, and only those")
+    void shouldFailWholeChunk() {
+        PipelineDefinition definition = new PipelineDefinition("BatchChunkFailureFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("bulk", "BatchBulkUpper", Map.of(), null, null)));
+
+        List<BatchItemResult> results = executor.executePipelineBatch(
+                definition, List.of("a", "b", "c", "boom", "e"));
+
+        assertEquals(List.of(true, true, true, false, false),
+                results.stream().map(BatchItemResult::isSuccess).toList());
+        assertSame(results.get(3).failure(), results.get(4).failure());
+        assertEquals("Step failed: Bulk write rejected", results.get(3).failure().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should run batch steps one item at a time in single executions")
+    void shouldRunBatchStepForSingleInput() {
+        PipelineDefinition definition = new PipelineDefinition("BatchSingleFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("bulk", "BatchBulkUpper", Map.of(), null, null)));
+
+        assertEquals("X", executor.executePipeline(definition, "x"));
+        assertEquals(List.of(List.of("x")), BulkUpperStep.CHUNKS);
+    }
+}
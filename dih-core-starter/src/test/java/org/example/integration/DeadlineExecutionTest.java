@@ -0,0 +1,190 @@
+package org.example.integration;
+
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.PipelineConcurrencyException;
+import org.example.model.ExecutionOptions;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.AsyncPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class DeadlineExecutionTest {
+
+    private static final ExecutionOptions TIMEOUT_300MS = ExecutionOptions.DEFAULT.withTimeout(Duration.ofMillis(300));
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+
+    /** Blocks for a long time and records whether it was interrupted. */
+    @ThreadSafeStep
+    static class HangingStep implements PipelineStep<Object, Object> {
+        static final AtomicBoolean INTERRUPTED = new AtomicBoolean();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws InterruptedException {
+            try {
+                Thread.sleep(10_000);
+                return input;
+            } catch (InterruptedException e) {
+                INTERRUPTED.set(true);
+                throw e;
+            }
+        }
+    }
+
+    /** Reports the time left until the deadline it runs with. */
+    @ThreadSafeStep
+    static class RemainingTimeStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return context.getRemainingTime();
+        }
+    }
+
+    /** Fails every attempt after 50ms. */
+    @ThreadSafeStep
+    static class FailingSlowStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger ATTEMPTS = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws InterruptedException {
+            ATTEMPTS.incrementAndGet();
+            Thread.sleep(50);
+            throw new IllegalStateException("Downstream unavailable");
+        }
+    }
+
+    /** Returns a stage that never completes on its own. */
+    @ThreadSafeStep
+    static class NeverCompletingStep implements AsyncPipelineStep<Object, Object> {
+        static volatile CompletableFuture<Object> last;
+
+        @Override
+        public CompletionStage<Object> executeAsync(Object input, PipelineContext context) {
+            last = new CompletableFuture<>();
+            return last;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("DeadlineHanging", HangingStep.class);
+        registry.register("DeadlineRemaining", RemainingTimeStep.class);
+        registry.register("DeadlineFailingSlow", FailingSlowStep.class);
+        registry.register("DeadlineNeverCompleting", NeverCompletingStep.class);
+        HangingStep.INTERRUPTED.set(false);
+        FailingSlowStep.ATTEMPTS.set(0);
+    }
+
+    private static PipelineDefinition pipeline(String name, StepDefinition... steps) {
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(steps));
+    }
+
+    @Test
+    @DisplayName("Should interrupt the running step once the execution deadline has passed")
+    void shouldEnforceExecutionDeadline() {
+        PipelineDefinition definition = pipeline("DeadlineFlow",
+                new StepDefinition("hang", "DeadlineHanging", Map.of(), null, null));
+
+        long start = System.nanoTime();
+        DeadlineExceededException error = assertThrows(DeadlineExceededException.class,
+                () -> executor.executePipeline(definition, "in", TIMEOUT_300MS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 2_000, "Took " + elapsedMs + "ms");
+        assertTrue(HangingStep.INTERRUPTED.get());
+        assertFalse(Thread.currentThread().isInterrupted(), "The deadline interrupt must not leak to the caller");
+        assertTrue(error.getMessage().contains("DeadlineFlow"), error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should expose the remaining time, narrowed by the step timeout")
+    void shouldNarrowDeadlineToStepTimeout() {
+        PipelineDefinition unbounded = pipeline("DeadlineUnboundedFlow",
+                new StepDefinition("remaining", "DeadlineRemaining", Map.of(), null, null));
+        PipelineDefinition bounded = pipeline("DeadlineBoundedFlow",
+                new StepDefinition("remaining", "DeadlineRemaining", Map.of(), null, null).withTimeoutMs(100L));
+
+        assertEquals(Long.MAX_VALUE, executor.executePipeline(unbounded, "in"));
+        long executionRemaining = (Long) executor.executePipeline(unbounded, "in", TIMEOUT_300MS);
+        long stepRemaining = (Long) executor.executePipeline(bounded, "in", TIMEOUT_300MS);
+
+        assertTrue(executionRemaining > 100 && executionRemaining <= 300, "Remaining: " + executionRemaining);
+        assertTrue(stepRemaining > 0 && stepRemaining <= 100, "Remaining: " + stepRemaining);
+    }
+
+    @Test
+    @DisplayName("Should cancel a branch exceeding its timeout together with its siblings")
+    void shouldEnforceBranchTimeout() {
+        StepDefinition slowBranch = new StepDefinition("slow", "DeadlineHanging", Map.of(), null, null).withTimeoutMs(200L);
+        StepDefinition fastBranch = new StepDefinition("fast", "DeadlineRemaining", Map.of(), null, null);
+        PipelineDefinition definition = pipeline("DeadlineBranchFlow", new StepDefinition(
+                "splitter", "ParallelSplitter", Map.of("subStepIds", List.of("slow", "fast")),
+                List.of(slowBranch, fastBranch), null));
+
+        long start = System.nanoTime();
+        PipelineConcurrencyException error = assertThrows(PipelineConcurrencyException.class,
+                () -> executor.executePipeline(definition, "in"));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs < 2_000, "Took " + elapsedMs + "ms");
+        assertInstanceOf(DeadlineExceededException.class, error.getCause().getCause());
+        assertTrue(HangingStep.INTERRUPTED.get());
+    }
+
+    @Test
+    @DisplayName("Should stop retrying when the next attempt cannot finish before the deadline")
+    void shouldNotRetryPastDeadline() {
+        PipelineDefinition definition = pipeline("DeadlineRetryFlow",
+                new StepDefinition("flaky", "DeadlineFailingSlow", Map.of(), null, new RetryPolicyDefinition(10, 100)));
+
+        long start = System.nanoTime();
+        DeadlineExceededException error = assertThrows(DeadlineExceededException.class,
+                () -> executor.executePipeline(definition, "in", TIMEOUT_300MS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Each attempt takes 50ms plus a 100ms backoff: only two fit into 300ms
+        assertEquals(2, FailingSlowStep.ATTEMPTS.get());
+        assertTrue(elapsedMs < 300, "Gave up before the deadline, took " + elapsedMs + "ms");
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+    }
+
+    @Test
+    @DisplayName("Should fail an asynchronous execution and cancel the pending stage at the deadline")
+    void shouldCancelPendingStageAtDeadline() {
+        PipelineDefinition definition = pipeline("DeadlineAsyncFlow",
+                new StepDefinition("never", "DeadlineNeverCompleting", Map.of(), null, null));
+
+        CompletableFuture<Object> future = executor.executePipelineAsync(definition, "in", TIMEOUT_300MS);
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(2, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, error.getCause());
+        assertTrue(NeverCompletingStep.last.isCancelled());
+    }
+}
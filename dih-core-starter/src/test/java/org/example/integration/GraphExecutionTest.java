@@ -0,0 +1,169 @@
+package org.example.integration;
+
+import org.example.annotation.DihStepComponent;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.DeadlineExceededException;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.ExecutionOptions;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+@Import({
+        TestComponents.class,
+        GraphExecutionTest.TagStep.class,
+        GraphExecutionTest.JoinStep.class,
+        GraphExecutionTest.CleanupStep.class
+})
+class GraphExecutionTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    /** Appends its tag to the input after an optional delay. */
+    @DihStepComponent("GraphTag")
+    static class TagStep implements PipelineStep<Object, String> {
+        private String tag;
+        private long sleepTime;
+
+        public void setTag(String tag) { this.tag = tag; }
+        public void setSleepTime(long sleepTime) { this.sleepTime = sleepTime; }
+
+        @Override
+        public String execute(Object input, PipelineContext context) throws Exception {
+            Thread.sleep(sleepTime);
+            return input + tag;
+        }
+    }
+
+    /** Joins the outputs of several upstream steps. */
+    @DihStepComponent("GraphJoin")
+    static class JoinStep implements PipelineStep<Map<String, Object>, String> {
+        @Override
+        public String execute(Map<String, Object> input, PipelineContext context) {
+            List<String> values = input.values().stream().map(String::valueOf).toList();
+            return String.join("|", input.keySet()) + "=" + String.join("|", values);
+        }
+    }
+
+    /** Runs for a long time; when interrupted, needs a moment to clean up (uninterruptibly) before it stops. */
+    @DihStepComponent("GraphCleanup")
+    static class CleanupStep implements PipelineStep<Object, Object> {
+        static final AtomicBoolean STOPPED = new AtomicBoolean();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws Exception {
+            try {
+                Thread.sleep(10_000);
+                return input;
+            } finally {
+                // Both the step's and the execution's deadline interrupt it
+                long cleanedUp = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+                while (System.nanoTime() < cleanedUp) {
+                    Thread.onSpinWait();
+                }
+                STOPPED.set(true);
+            }
+        }
+    }
+
+    private static StepDefinition tag(String id, String tag, long sleepTime, String... dependsOn) {
+        return new StepDefinition(id, "GraphTag", Map.of("tag", tag, "sleepTime", sleepTime), null, null)
+                .withDependsOn(List.of(dependsOn));
+    }
+
+    /** a -> (b, c) -> d: b and c sleep 500ms each. */
+    private static PipelineDefinition diamond(String name) {
+        StepDefinition join = new StepDefinition("d", "GraphJoin", Map.of(), null, null).withDependsOn(List.of("b", "c"));
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(
+                join, tag("c", "C", 500, "a"), tag("b", "B", 500, "a"), tag("a", "A", 0)));
+    }
+
+    @Test
+    @DisplayName("Should run independent steps concurrently and pass keyed outputs to multi-input steps")
+    void shouldRunDiamondConcurrently() {
+        long start = System.currentTimeMillis();
+        Object result = executor.executePipeline(diamond("GraphDiamond"), "in");
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals("b|c=inAB|inAC", result);
+        assertTrue(duration < 900, "b and c must run in parallel (" + duration + "ms)");
+    }
+
+    @Test
+    @DisplayName("Should run the graph asynchronously")
+    void shouldRunGraphAsync() throws Exception {
+        Object result = executor.executePipelineAsync(diamond("GraphDiamondAsync"), "in").get(5, TimeUnit.SECONDS);
+
+        assertEquals("b|c=inAB|inAC", result);
+    }
+
+    @Test
+    @DisplayName("Should complete an expired asynchronous run only once its steps have stopped")
+    void shouldAwaitStepsOfExpiredAsyncRun() {
+        CleanupStep.STOPPED.set(false);
+        StepDefinition slow = new StepDefinition("slow", "GraphCleanup", Map.of(), null, null).withDependsOn(List.of("a"));
+        PipelineDefinition definition = new PipelineDefinition("GraphExpired", "pipeline", "1.0", List.of(
+                tag("a", "A", 0), slow));
+
+        CompletableFuture<Object> future = executor.executePipelineAsync(definition, "in",
+                ExecutionOptions.DEFAULT.withTimeout(Duration.ofMillis(300)));
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(DeadlineExceededException.class, error.getCause());
+        assertTrue(CleanupStep.STOPPED.get(), "The run must not complete before its steps have stopped");
+    }
+
+    @Test
+    @DisplayName("Should return the outputs of all sinks keyed by step ID")
+    void shouldReturnAllSinks() {
+        PipelineDefinition definition = new PipelineDefinition("GraphSinks", "pipeline", "1.0", List.of(
+                tag("x", "X", 0), tag("y", "Y", 0, "x"), tag("z", "Z", 0)));
+
+        assertEquals(Map.of("y", "inXY", "z", "inZ"), executor.executePipeline(definition, "in"));
+    }
+
+    @Test
+    @DisplayName("Should reject cyclic and unknown dependencies when compiling the plan")
+    void shouldRejectInvalidGraphs() {
+        PipelineDefinition cyclic = new PipelineDefinition("GraphCycle", "pipeline", "1.0", List.of(
+                tag("a", "A", 0), tag("b", "B", 0, "a", "c"), tag("c", "C", 0, "b")));
+        PipelineDefinition unknown = new PipelineDefinition("GraphUnknown", "pipeline", "1.0", List.of(
+                tag("a", "A", 0, "missing")));
+
+        PipelineConfigurationException cycle = assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(cyclic, "in"));
+        assertTrue(cycle.getMessage().contains("[b, c]"), cycle.getMessage());
+        assertThrows(PipelineConfigurationException.class, () -> executor.executePipeline(unknown, "in"));
+    }
+
+    @Test
+    @DisplayName("Should reject graphs mixing steps with and without dependsOn")
+    void shouldRejectMixedDefinitions() {
+        StepDefinition undeclared = new StepDefinition("b", "GraphTag", Map.of("tag", "B", "sleepTime", 0L), null, null);
+        PipelineDefinition mixed = new PipelineDefinition("GraphMixed", "pipeline", "1.0", List.of(
+                tag("a", "A", 0), undeclared, tag("c", "C", 0, "a")));
+
+        PipelineConfigurationException error = assertThrows(PipelineConfigurationException.class,
+                () -> executor.executePipeline(mixed, "in"));
+        assertTrue(error.getMessage().contains("[b]"), error.getMessage());
+    }
+}
@@ -3,6 +3,7 @@ package org.example.integration;
 import org.example.annotation.DihStepComponent;
 import org.example.config.DihCoreTestConfig;
 import org.example.exception.PipelineConcurrencyException;
+import org.example.model.BranchResult;
 import org.example.model.PipelineDefinition;
 import org.example.model.StepDefinition;
 import org.example.registry.StepTypeRegistry;
@@ -24,6 +25,7 @@ import org.springframework.context.support.GenericApplicationContext;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,7 +33,8 @@ import static org.junit.jupiter.api.Assertions.*;
 @Import({
         TestComponents.class,
         ParallelExecutionTest.SleepingStep.class,
-        ParallelExecutionTest.FailingStep.class
+        ParallelExecutionTest.FailingStep.class,
+        ParallelExecutionTest.CleanupStep.class
 })
 class ParallelExecutionTest {
 
@@ -71,6 +74,28 @@ class ParallelExecutionTest {
         }
     }
 
+    /** Runs for a long time; when interrupted, needs a moment to clean up before it stops. */
+    @DihStepComponent("CleanupStep")
+    static class CleanupStep implements PipelineStep<String, String> {
+        static final AtomicBoolean INTERRUPTED = new AtomicBoolean();
+        static final AtomicBoolean CLEANED_UP = new AtomicBoolean();
+        static volatile String threadName;
+
+        @Override
+        public String execute(String input, PipelineContext context) throws Exception {
+            threadName = Thread.currentThread().getName();
+            try {
+                Thread.sleep(10_000);
+                return "too late";
+            } catch (InterruptedException e) {
+                INTERRUPTED.set(true);
+                Thread.sleep(200);
+                CLEANED_UP.set(true);
+                throw e;
+            }
+        }
+    }
+
     @Test
     @DisplayName("Should execute branches in parallel and aggregate results")
     void shouldExecuteInParallelAndGatherResults() {
@@ -167,4 +192,103 @@ class ParallelExecutionTest {
         // Проверка на то, что сообщение об ошибке адекватное
         assertTrue(exception.getMessage().contains("One or more parallel steps failed"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should cancel sibling branches on failure and wait until they have stopped")
+    void shouldCancelSiblingsOnFailure() {
+        CleanupStep.INTERRUPTED.set(false);
+        CleanupStep.CLEANED_UP.set(false);
+        StepDefinition failBranch = new StepDefinition("failBranch", "FailingStep", Map.of(), null, null);
+        StepDefinition slowBranch = new StepDefinition("slowBranch", "CleanupStep", Map.of(), null, null);
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter",
+                Map.of("subStepIds", List.of("slowBranch", "failBranch")),
+                List.of(failBranch, slowBranch),
+                null
+        );
+        PipelineDefinition definition = new PipelineDefinition(
+                "StructuredFailFlow", "pipeline", "1.0", List.of(splitter)
+        );
+
+        long start = System.currentTimeMillis();
+        assertThrows(PipelineConcurrencyException.class, () -> executor.executePipeline(definition, "in"));
+        long duration = System.currentTimeMillis() - start;
+
+        assertTrue(duration < 5_000, "The slow sibling must be cancelled, not awaited (" + duration + "ms)");
+        assertTrue(CleanupStep.INTERRUPTED.get(), "The slow sibling must be interrupted");
+        assertTrue(CleanupStep.CLEANED_UP.get(), "The splitter must not return before its branches have stopped");
+        assertTrue(CleanupStep.threadName.startsWith("split:StructuredFailFlow:"),
+                "Branch threads are named after their scope: " + CleanupStep.threadName);
+    }
+
+    @Test
+    @DisplayName("Should return the first successful branch in 'any' mode and cancel the others")
+    void shouldReturnFirstSuccessInAnyMode() {
+        CleanupStep.INTERRUPTED.set(false);
+        StepDefinition fast = new StepDefinition("fast", "SleepingStep",
+                Map.of("sleepTime", 50L, "resultValue", "Fast"), null, null);
+        StepDefinition failing = new StepDefinition("failing", "FailingStep", Map.of(), null, null);
+        StepDefinition slow = new StepDefinition("slow", "CleanupStep", Map.of(), null, null);
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter",
+                Map.of("subStepIds", List.of("slow", "failing", "fast"), "gatherMode", "any"),
+                List.of(fast, failing, slow),
+                null
+        );
+        PipelineDefinition definition = new PipelineDefinition("AnyOfFlow", "pipeline", "1.0", List.of(splitter));
+
+        long start = System.currentTimeMillis();
+        Object result = executor.executePipeline(definition, "in");
+        long duration = System.currentTimeMillis() - start;
+
+        assertEquals("Fast", result);
+        assertTrue(duration < 5_000, "The slow branch must be cancelled, not awaited (" + duration + "ms)");
+        assertTrue(CleanupStep.INTERRUPTED.get(), "The slow branch must be interrupted");
+    }
+
+    @Test
+    @DisplayName("Should fail in 'quorum' mode once the quorum is out of reach")
+    void shouldFailWhenQuorumIsUnreachable() {
+        StepDefinition ok = new StepDefinition("ok", "SleepingStep",
+                Map.of("sleepTime", 10L, "resultValue", "OK"), null, null);
+        StepDefinition failing = new StepDefinition("failing", "FailingStep", Map.of(), null, null);
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter",
+                Map.of("subStepIds", List.of("ok", "failing", "failing"), "gatherMode", "quorum"),
+                List.of(ok, failing),
+                null
+        );
+        PipelineDefinition definition = new PipelineDefinition("QuorumFlow", "pipeline", "1.0", List.of(splitter));
+
+        Exception exception = assertThrows(PipelineConcurrencyException.class,
+                () -> executor.executePipeline(definition, "in"));
+
+        assertTrue(exception.getMessage().contains("Fewer than 2 of 3"), exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should report failures alongside successes in 'collectAll' mode")
+    void shouldCollectAllOutcomes() {
+        StepDefinition ok = new StepDefinition("ok", "SleepingStep",
+                Map.of("sleepTime", 10L, "resultValue", "OK"), null, null);
+        StepDefinition failing = new StepDefinition("failing", "FailingStep", Map.of(), null, null);
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter",
+                Map.of("subStepIds", List.of("failing", "ok"), "gatherMode", "collectAll"),
+                List.of(ok, failing),
+                null
+        );
+        PipelineDefinition definition = new PipelineDefinition("CollectAllFlow", "pipeline", "1.0", List.of(splitter));
+
+        List<?> results = (List<?>) executor.executePipeline(definition, "in");
+
+        assertEquals(2, results.size());
+        BranchResult failed = (BranchResult) results.get(0);
+        BranchResult succeeded = (BranchResult) results.get(1);
+        assertEquals("failing", failed.stepId());
+        assertFalse(failed.isSuccess());
+        assertEquals("I am designed to fail!", failed.failure().getCause().getMessage());
+        assertEquals("ok", succeeded.stepId());
+        assertEquals("OK", succeeded.result());
+    }
+}
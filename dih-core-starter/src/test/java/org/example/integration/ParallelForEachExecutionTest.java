@@ -0,0 +1,123 @@
+package org.example.integration;
+
+import org.example.annotation.DihStepComponent;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.PipelineConcurrencyException;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.service.PipelineExecutor;
+import org.example.step.BatchPipelineStep;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+@Import({
+        TestComponents.class,
+        ParallelForEachExecutionTest.SquareStep.class,
+        ParallelForEachExecutionTest.BulkSquareStep.class
+})
+class ParallelForEachExecutionTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    /** Squares its input; item 7 fails, larger items take longer to produce skew. */
+    @DihStepComponent("SquareStep")
+    static class SquareStep implements PipelineStep<Integer, Integer> {
+        @Override
+        public Integer execute(Integer input, PipelineContext context) throws Exception {
+            if (input == 7 && "fail".equals(context.pipelineName())) {
+                throw new IllegalArgumentException("Unlucky item");
+            }
+            Thread.sleep(input % 5);
+            return input * input;
+        }
+    }
+
+    /** Squares a whole chunk in one call and records the chunk sizes. */
+    @DihStepComponent("BulkSquareStep")
+    static class BulkSquareStep implements BatchPipelineStep<Integer, Integer> {
+        static final List<Integer> CHUNK_SIZES = new CopyOnWriteArrayList<>();
+
+        @Override
+        public List<Integer> executeBatch(List<Integer> inputs, PipelineContext context) {
+            CHUNK_SIZES.add(inputs.size());
+            return inputs.stream().map(input -> input * input).toList();
+        }
+    }
+
+    private static PipelineDefinition forEach(String name, Map<String, Object> properties) {
+        return forEach(name, "SquareStep", properties);
+    }
+
+    private static PipelineDefinition forEach(String name, String squareType, Map<String, Object> properties) {
+        StepDefinition square = new StepDefinition("square", squareType, Map.of(), null, null);
+        Map<String, Object> forEachProperties = new HashMap<>(properties);
+        forEachProperties.put("subStepId", "square");
+        StepDefinition forEach = new StepDefinition("forEach", "ParallelForEach", forEachProperties, List.of(square), null);
+        return new PipelineDefinition(name, "pipeline", "1.0", List.of(forEach));
+    }
+
+    private static List<Integer> items(int count) {
+        return IntStream.range(0, count).boxed().toList();
+    }
+
+    @Test
+    @DisplayName("Should map every item and keep the input order by default")
+    void shouldMapItemsInOrder() {
+        Object result = executor.executePipeline(forEach("ordered", Map.of("parallelism", 4)), items(200));
+
+        assertEquals(IntStream.range(0, 200).map(i -> i * i).boxed().toList(), result);
+    }
+
+    @Test
+    @DisplayName("Should reduce unordered outputs with fixed chunks and a bounded window")
+    void shouldReduceUnorderedOutputs() {
+        Object result = executor.executePipeline(forEach("unordered",
+                Map.of("parallelism", 3, "maxInFlight", 3, "chunkSize", 7, "ordered", false)), items(100).iterator());
+
+        assertInstanceOf(List.class, result);
+        assertEquals(IntStream.range(0, 100).map(i -> i * i).boxed().sorted().toList(),
+                ((List<?>) result).stream().map(Integer.class::cast).sorted().toList());
+    }
+
+    @Test
+    @DisplayName("Should count outputs without collecting them")
+    void shouldCountOutputs() {
+        Object result = executor.executePipeline(forEach("count", Map.of("reducer", "count")), items(50).stream());
+
+        assertEquals(50L, result);
+    }
+
+    @Test
+    @DisplayName("Should pass whole chunks to a batch sub-step")
+    void shouldPassChunksToBatchSubStep() {
+        BulkSquareStep.CHUNK_SIZES.clear();
+        Object result = executor.executePipeline(forEach("bulk", "BulkSquareStep", Map.of("chunkSize", 10)), items(30));
+
+        assertEquals(IntStream.range(0, 30).map(i -> i * i).boxed().toList(), result);
+        assertEquals(List.of(10, 10, 10), BulkSquareStep.CHUNK_SIZES);
+    }
+
+    @Test
+    @DisplayName("Should fail fast when a chunk fails")
+    void shouldFailWhenChunkFails() {
+        PipelineConcurrencyException exception = assertThrows(PipelineConcurrencyException.class,
+                () -> executor.executePipeline(forEach("fail", Map.of("chunkSize", 2)), items(40)));
+
+        assertTrue(exception.getMessage().contains("ParallelForEach chunk"));
+    }
+}
@@ -0,0 +1,300 @@
+package org.example.integration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.StepExecutionException;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.scope.PipelineContextHolder;
+import org.example.scope.PipelineScope;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class, properties = "dih.executor.streaming.buffer-size=4")
+class StreamingExecutionTest {
+
+    @Autowired
+    private StepTypeRegistry registry;
+    @Autowired
+    private PipelineExecutor executor;
+    @Autowired
+    private PipelineScope pipelineScope;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Emits {@code input} records lazily (endless for a negative count) and counts the records pulled. */
+    @ThreadSafeStep
+    static class CountingSourceStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger PRODUCED = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            int count = (Integer) input;
+            return new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return count < 0 || PRODUCED.get() < count;
+                }
+
+                @Override
+                public Integer next() {
+                    return PRODUCED.getAndIncrement();
+                }
+            };
+        }
+    }
+
+    /** Emits {@code input} records from a {@link SubmissionPublisher} fed by its own thread. */
+    @ThreadSafeStep
+    static class PublisherSourceStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            SubmissionPublisher<Integer> publisher = new SubmissionPublisher<>();
+            Thread.ofVirtual().start(() -> {
+                // Items submitted before the engine subscribes would be dropped
+                while (publisher.getNumberOfSubscribers() == 0) {
+                    Thread.onSpinWait();
+                }
+                IntStream.range(0, (Integer) input).forEach(publisher::submit);
+                publisher.close();
+            });
+            return publisher;
+        }
+    }
+
+    /** Doubles every record and records the context it ran with. */
+    @ThreadSafeStep
+    static class DoublingStep implements PipelineStep<Object, Object> {
+        static final Set<String> EXECUTION_IDS = ConcurrentHashMap.newKeySet();
+        static final Set<String> CALLER_MDC = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            EXECUTION_IDS.add(String.valueOf(PipelineContextHolder.getContextId()));
+            CALLER_MDC.add(String.valueOf(MDC.get("request.id")));
+            return (Integer) input * 2;
+        }
+    }
+
+    /** Fails the first attempt for every 50th record; fails for good on record 7 when asked to. */
+    @ThreadSafeStep
+    static class FlakyRecordStep implements PipelineStep<Object, Object> {
+        static final Set<Object> FAILED_ONCE = ConcurrentHashMap.newKeySet();
+        static volatile boolean failOnSeven;
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            if (failOnSeven && input.equals(7)) {
+                throw new StepExecutionException("Broken record", "flaky");
+            }
+            if ((Integer) input % 50 == 0 && FAILED_ONCE.add(input)) {
+                throw new IllegalStateException("Transient");
+            }
+            return input;
+        }
+    }
+
+    /** Blocks the first record until the gate opens, so later steps must overlap with the source. */
+    @ThreadSafeStep
+    static class GateStep implements PipelineStep<Object, Object> {
+        static volatile CountDownLatch gate = new CountDownLatch(1);
+
+        @Override
+        public Object execute(Object input, PipelineContext context) throws InterruptedException {
+            if (!gate.await(5, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Gate was not opened");
+            }
+            return input;
+        }
+    }
+
+    /** Collects records and requests them one at a time, on demand of the test. */
+    static class CollectingSubscriber implements Flow.Subscriber<Object> {
+        final List<Object> items = new CopyOnWriteArrayList<>();
+        final CompletableFuture<List<Object>> done = new CompletableFuture<>();
+        volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(items);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("StreamCountingSource", CountingSourceStep.class);
+        registry.register("StreamPublisherSource", PublisherSourceStep.class);
+        registry.register("StreamDoubling", DoublingStep.class);
+        registry.register("StreamFlaky", FlakyRecordStep.class);
+        registry.register("StreamGate", GateStep.class);
+        CountingSourceStep.PRODUCED.set(0);
+        DoublingStep.EXECUTION_IDS.clear();
+        DoublingStep.CALLER_MDC.clear();
+        FlakyRecordStep.FAILED_ONCE.clear();
+        FlakyRecordStep.failOnSeven = false;
+        GateStep.gate = new CountDownLatch(1);
+    }
+
+    @Test
+    @DisplayName("Should bound the records in flight by the subscriber's demand and the buffer size")
+    void shouldApplyBackpressure() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("StreamBackpressureFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("source", "StreamCountingSource", Map.of(), null, null),
+                new StepDefinition("double", "StreamDoubling", Map.of(), null, null)));
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        executor.executePipelineStream(definition, 10_000).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        awaitCondition(() -> subscriber.items.size() == 1);
+        Thread.sleep(200);
+
+        // Two buffers of 4, plus one record held by each of the three stages
+        assertEquals(List.of(0), subscriber.items);
+        assertTrue(CountingSourceStep.PRODUCED.get() <= 12, "Pulled " + CountingSourceStep.PRODUCED.get());
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        List<Object> records = subscriber.done.get(10, TimeUnit.SECONDS);
+        assertEquals(10_000, records.size());
+        assertEquals(19_998, records.get(9_999));
+        assertEquals(0, pipelineScope.activeExecutions());
+    }
+
+    @Test
+    @DisplayName("Should read a Flow.Publisher source and retry failed records one by one")
+    void shouldRetryRecordsFromPublisher() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("StreamRetryFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("source", "StreamPublisherSource", Map.of(), null, null),
+                new StepDefinition("flaky", "StreamFlaky", Map.of(), null, new RetryPolicyDefinition(2, 1)),
+                new StepDefinition("double", "StreamDoubling", Map.of(), null, null)));
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        MDC.put("request.id", "req-42");
+        try {
+            executor.executePipelineStream(definition, 500).subscribe(subscriber);
+        } finally {
+            MDC.remove("request.id");
+        }
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        List<Object> records = subscriber.done.get(10, TimeUnit.SECONDS);
+        assertEquals(IntStream.range(0, 500).map(i -> i * 2).boxed().toList(), records);
+        assertEquals(10, FlakyRecordStep.FAILED_ONCE.size());
+        assertEquals(1, DoublingStep.EXECUTION_IDS.size(), "All records belong to one execution");
+        assertFalse(DoublingStep.EXECUTION_IDS.contains("null"));
+        assertEquals(Set.of("req-42"), DoublingStep.CALLER_MDC, "Caller MDC must reach every step thread");
+    }
+
+    @Test
+    @DisplayName("Should run the steps concurrently, record by record")
+    void shouldOverlapSteps() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("StreamOverlapFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("source", "StreamCountingSource", Map.of(), null, null),
+                new StepDefinition("gate", "StreamGate", Map.of(), null, null),
+                new StepDefinition("double", "StreamDoubling", Map.of(), null, null)));
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        executor.executePipelineStream(definition, 20).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        // The source fills the first buffer while the next step is still busy with its first record
+        awaitCondition(() -> CountingSourceStep.PRODUCED.get() >= 5);
+        assertTrue(subscriber.items.isEmpty());
+        GateStep.gate.countDown();
+
+        assertEquals(20, subscriber.done.get(10, TimeUnit.SECONDS).size());
+    }
+
+    @Test
+    @DisplayName("Should stop all steps and signal the first failure")
+    void shouldSignalFailure() throws Exception {
+        FlakyRecordStep.failOnSeven = true;
+        PipelineDefinition definition = new PipelineDefinition("StreamFailureFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("source", "StreamCountingSource", Map.of(), null, null),
+                new StepDefinition("flaky", "StreamFlaky", Map.of(), null, new RetryPolicyDefinition(2, 1))));
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        executor.executePipelineStream(definition, -1).subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        Exception error = assertThrows(Exception.class, () -> subscriber.done.get(10, TimeUnit.SECONDS));
+        assertInstanceOf(StepExecutionException.class, error.getCause());
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6), subscriber.items);
+        assertEquals(0, pipelineScope.activeExecutions());
+    }
+
+    @Test
+    @DisplayName("Should stop an endless source when the subscription is cancelled")
+    void shouldStopOnCancel() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("StreamCancelFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("source", "StreamCountingSource", Map.of(), null, null),
+                new StepDefinition("double", "StreamDoubling", Map.of(), null, null)));
+
+        CollectingSubscriber subscriber = new CollectingSubscriber();
+        executor.executePipelineStream(definition, -1).subscribe(subscriber);
+        subscriber.subscription.request(3);
+        awaitCondition(() -> subscriber.items.size() == 3);
+        subscriber.subscription.cancel();
+
+        // The execution is finished (and recorded) only once all of its steps have stopped
+        awaitCondition(() -> {
+            Timer timer = meterRegistry.find("dih.pipeline.execution").tag("pipeline.name", "StreamCancelFlow").timer();
+            return timer != null && timer.count() == 1;
+        });
+        int produced = CountingSourceStep.PRODUCED.get();
+        Thread.sleep(100);
+        assertEquals(produced, CountingSourceStep.PRODUCED.get(), "The source must stop");
+        assertFalse(subscriber.done.isDone(), "No terminal signal after cancel");
+        assertEquals(List.of(0, 2, 4), subscriber.items);
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean(), "Condition not met in time");
+    }
+}
@@ -0,0 +1,204 @@
+package org.example.plan;
+
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.PipelineConfigurationException;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Scope;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class PipelinePlanCacheTest {
+
+    private static final String PIPELINE_NAME = "PlanCacheFlow";
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private PipelinePlanCache planCache;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    /** Stateless step: one instance per plan. */
+    @ThreadSafeStep
+    static class SharedStep implements PipelineStep<Object, Object> {
+        static final Set<Integer> INSTANCES = ConcurrentHashMap.newKeySet();
+
+        private String suffix = "";
+
+        public void setSuffix(String suffix) {
+            this.suffix = suffix;
+        }
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            INSTANCES.add(System.identityHashCode(this));
+            return input + suffix;
+        }
+    }
+
+    /** Stateful step: isolated per execution. */
+    @Scope("prototype")
+    static class IsolatedStep implements PipelineStep<Object, Object> {
+        static final Set<Integer> INSTANCES = ConcurrentHashMap.newKeySet();
+
+        private int invocations;
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            INSTANCES.add(System.identityHashCode(this));
+            invocations++;
+            return input + "#" + invocations;
+        }
+    }
+
+    /** Shared step whose creation (during compilation) blocks while {@code BLOCKED} is open, or fails. */
+    @ThreadSafeStep
+    static class GatedStep implements PipelineStep<Object, Object> {
+        static volatile CountDownLatch ENTERED = new CountDownLatch(0);
+        static volatile CountDownLatch BLOCKED = new CountDownLatch(0);
+        static volatile boolean FAILING;
+
+        GatedStep() throws InterruptedException {
+            ENTERED.countDown();
+            BLOCKED.await();
+            if (FAILING) {
+                throw new IllegalStateException("Cannot be created");
+            }
+        }
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return input;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("PlanShared", SharedStep.class);
+        registry.register("PlanIsolated", IsolatedStep.class);
+        registry.register("PlanGated", GatedStep.class);
+        GatedStep.FAILING = false;
+        SharedStep.INSTANCES.clear();
+        IsolatedStep.INSTANCES.clear();
+    }
+
+    @AfterEach
+    void cleanup() {
+        planCache.clear();
+    }
+
+    private PipelineDefinition definition(String version, String suffix) {
+        return new PipelineDefinition(PIPELINE_NAME, "pipeline", version, List.of(
+                new StepDefinition("shared", "PlanShared", Map.of("suffix", suffix), null, null),
+                new StepDefinition("isolated", "PlanIsolated", Map.of(), null, null)
+        ));
+    }
+
+    @Test
+    @DisplayName("Should compile a pipeline version once and share stateless steps across executions")
+    void shouldReuseCompiledPlan() {
+        PipelineDefinition definition = definition("1.0", "-a");
+
+        assertEquals("in-a#1", executor.executePipeline(definition, "in"));
+        assertEquals("in-a#1", executor.executePipeline(definition, "in"));
+        assertEquals("in-a#1", executor.executePipeline(definition, "in"));
+
+        assertEquals(1, SharedStep.INSTANCES.size(), "Singleton steps must be created once per plan");
+        assertEquals(3, IsolatedStep.INSTANCES.size(), "Prototype steps must be created per execution");
+    }
+
+    @Test
+    @DisplayName("Should keep one plan per version and recompile a redefined version")
+    void shouldCompilePerVersion() {
+        PipelinePlan v1 = planCache.acquire(definition("1.0", "-a"));
+        v1.release();
+        PipelinePlan v1Again = planCache.acquire(definition("1.0", "-a"));
+        v1Again.release();
+        assertSame(v1, v1Again, "Equal definitions must hit the cache");
+
+        PipelinePlan v2 = planCache.acquire(definition("2.0", "-b"));
+        v2.release();
+        assertNotSame(v1, v2);
+
+        // Same version, different content: the stale plan is retired and replaced
+        assertEquals("in-c#1", executor.executePipeline(definition("1.0", "-c"), "in"));
+        assertTrue(v1.isRetired());
+        assertFalse(v1.tryAcquire(), "A retired plan must not accept new executions");
+    }
+
+    @Test
+    @DisplayName("Should keep a retired plan usable until in-flight executions release it")
+    void shouldDeferCloseUntilReleased() throws Exception {
+        PipelinePlan plan = planCache.acquire(definition("1.0", "-a"));
+
+        assertTrue(planCache.evict(PIPELINE_NAME, "1.0"));
+        assertEquals("in-a#1", plan.steps().get(1).resolve().execute(
+                plan.steps().get(0).resolve().execute("in", null), null));
+
+        plan.release();
+        assertFalse(plan.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should compile other versions while one compilation is still running")
+    void shouldNotBlockOtherVersionsWhileCompiling() throws Exception {
+        GatedStep.ENTERED = new CountDownLatch(1);
+        GatedStep.BLOCKED = new CountDownLatch(1);
+        PipelineDefinition gated = new PipelineDefinition(PIPELINE_NAME, "pipeline", "gated", List.of(
+                new StepDefinition("gated", "PlanGated", Map.of(), null, null)));
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<PipelinePlan> slow = pool.submit(() -> planCache.acquire(gated));
+            try {
+                assertTrue(GatedStep.ENTERED.await(5, TimeUnit.SECONDS));
+
+                Future<PipelinePlan> other = pool.submit(() -> planCache.acquire(definition("1.0", "-a")));
+                other.get(5, TimeUnit.SECONDS).release();
+                assertFalse(slow.isDone(), "The slow compilation is still running");
+            } finally {
+                GatedStep.BLOCKED.countDown();
+            }
+            slow.get(5, TimeUnit.SECONDS).release();
+        }
+    }
+
+    @Test
+    @DisplayName("Should report a failed compilation and retry it on the next acquisition")
+    void shouldRetryFailedCompilation() {
+        PipelineDefinition gated = new PipelineDefinition(PIPELINE_NAME, "pipeline", "failing", List.of(
+                new StepDefinition("gated", "PlanGated", Map.of(), null, null)));
+
+        GatedStep.FAILING = true;
+        assertThrows(PipelineConfigurationException.class, () -> planCache.acquire(gated));
+
+        GatedStep.FAILING = false;
+        PipelinePlan plan = planCache.acquire(gated);
+        plan.release();
+        assertFalse(plan.isRetired());
+    }
+}
@@ -0,0 +1,198 @@
+package org.example.resource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.plan.PipelinePlan;
+import org.example.plan.PipelinePlanCache;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.example.step.ResourceAwareStep;
+import org.example.step.StepResource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class StepResourcePoolTest {
+
+    private static final String PIPELINE_NAME = "ResourceFlow";
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private PipelinePlanCache planCache;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    static class CountingConnection implements StepResource {
+        static final AtomicInteger OPENED = new AtomicInteger();
+        static final AtomicInteger CLOSED = new AtomicInteger();
+
+        private String endpoint;
+
+        @Override
+        public void open(StepDefinition definition) {
+            endpoint = (String) definition.properties().get("endpoint");
+            OPENED.incrementAndGet();
+        }
+
+        @Override
+        public void close() {
+            CLOSED.incrementAndGet();
+        }
+    }
+
+    /** Stateful (pipeline-scoped) step: the resource must still outlive the execution. */
+    static class LookupStep implements ResourceAwareStep<String, String, CountingConnection> {
+        private String endpoint;
+        private volatile StepResourcePool resourcePool;
+
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        @Override
+        public CountingConnection createResource() {
+            return new CountingConnection();
+        }
+
+        @Override
+        public String execute(String input, CountingConnection connection, PipelineContext context) throws Exception {
+            Thread.sleep(5);
+            return input + "@" + connection.endpoint;
+        }
+
+        @Override
+        public void bindResourcePool(StepResourcePool resourcePool) {
+            this.resourcePool = resourcePool;
+        }
+
+        @Override
+        public StepResourcePool resourcePool() {
+            return resourcePool;
+        }
+    }
+
+    /** Shared variant, invoked by tests through the plain {@code PipelineStep} contract. */
+    @ThreadSafeStep
+    static class SharedLookupStep extends LookupStep {
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("PooledLookup", LookupStep.class);
+        registry.register("SharedPooledLookup", SharedLookupStep.class);
+        CountingConnection.OPENED.set(0);
+        CountingConnection.CLOSED.set(0);
+    }
+
+    private PipelineDefinition definition() {
+        return new PipelineDefinition(PIPELINE_NAME, "pipeline", "1.0", List.of(
+                new StepDefinition("lookup", "PooledLookup", Map.of("endpoint", "db-1"), null, null)
+        ));
+    }
+
+    @Test
+    @DisplayName("Should reuse pooled resources across executions and close them when the version is unloaded")
+    void shouldShareResourcesAcrossExecutions() throws Exception {
+        PipelineDefinition definition = definition();
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals("in@db-1", executor.executePipeline(definition, "in"));
+        }
+        assertEquals(1, CountingConnection.OPENED.get(), "Sequential executions must reuse one resource");
+
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Object>> runs = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                runs.add(pool.submit(() -> executor.executePipeline(definition, "in")));
+            }
+            for (Future<Object> run : runs) {
+                assertEquals("in@db-1", run.get());
+            }
+        }
+
+        assertTrue(CountingConnection.OPENED.get() <= 16, "Pool must never exceed its max size");
+        assertEquals(0, CountingConnection.CLOSED.get(), "Resources must survive the executions");
+        assertEquals(CountingConnection.OPENED.get(),
+                meterRegistry.get("dih.step.resource.created").tag("step.id", "lookup").counter().count());
+
+        planCache.evict(PIPELINE_NAME, "1.0");
+
+        assertEquals(CountingConnection.OPENED.get(), CountingConnection.CLOSED.get(),
+                "Unloading the version must close every pooled resource");
+    }
+
+    @Test
+    @DisplayName("Should lease a pooled resource when invoked through the PipelineStep contract")
+    void shouldLeaseResourceThroughPipelineStepContract() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("SharedResourceFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("lookup", "SharedPooledLookup", Map.of("endpoint", "db-2"), null, null)
+        ));
+
+        PipelinePlan plan = planCache.acquire(definition);
+        try {
+            PipelineStep<Object, Object> step = plan.steps().get(0).resolve();
+            PipelineContext context = new PipelineContext("direct", System.currentTimeMillis(), "SharedResourceFlow");
+
+            // The plain contract, as used by splitter fallbacks and retry proxies
+            assertEquals("in@db-2", step.execute("in", context));
+            assertEquals("in@db-2", step.execute("in", context));
+            assertEquals(1, CountingConnection.OPENED.get(), "Direct invocations must reuse the pooled resource");
+        } finally {
+            plan.release();
+            planCache.evict("SharedResourceFlow", "1.0");
+        }
+        assertEquals(1, CountingConnection.CLOSED.get());
+    }
+
+    @Test
+    @DisplayName("Should reject invocations of a resource-aware step outside a compiled plan")
+    void shouldRejectUnboundInvocation() {
+        PipelineContext context = new PipelineContext("direct", System.currentTimeMillis(), PIPELINE_NAME);
+
+        assertThrows(IllegalStateException.class, () -> new LookupStep().execute("in", context));
+    }
+
+    @Test
+    @DisplayName("Should surface an interrupt while waiting for a resource as cancellation, not as a step failure")
+    void shouldPropagateInterruptWhileWaiting() throws Exception {
+        StepDefinition stepDefinition = new StepDefinition("lookup", "PooledLookup", Map.of("endpoint", "db-1"), null, null);
+        StepResourcePool pool = new StepResourcePool(stepDefinition, "InterruptFlow", "1.0", 1,
+                Duration.ofSeconds(10), new SimpleMeterRegistry());
+        LookupStep step = new LookupStep();
+        StepResource leased = pool.acquire(step);
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(InterruptedException.class, () -> pool.acquire(step));
+        } finally {
+            Thread.interrupted();
+            pool.release(leased);
+            pool.close();
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example.retry;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.exception.PipelineConfigurationException;
+import org.example.exception.RetryBudgetExhaustedException;
+import org.example.exception.RetryExhaustedException;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.RetryPolicyDefinition.Jitter;
+import org.example.scope.PipelineContextHolder;
+import org.example.step.PipelineContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryExecutorTest {
+
+    private RetryScheduler scheduler;
+    private Counter retryCounter;
+
+    @BeforeEach
+    void setup() {
+        scheduler = new RetryScheduler("test-retry-");
+        retryCounter = new SimpleMeterRegistry().counter("dih.step.retries");
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.destroy();
+        PipelineContextHolder.cleanup();
+    }
+
+    @Test
+    @DisplayName("Should grow exponential backoff up to the max delay and keep jitter within bounds")
+    void shouldComputeBackoff() {
+        RetryPolicyDefinition exponential = new RetryPolicyDefinition(10, 100).withExponentialBackoff(2.0, 1000);
+        RetryBackoff backoff = new RetryBackoff(exponential);
+        List<Long> delays = List.of(backoff.nextDelay(), backoff.nextDelay(), backoff.nextDelay(),
+                backoff.nextDelay(), backoff.nextDelay());
+        assertEquals(List.of(100L, 200L, 400L, 800L, 1000L), delays);
+
+        RetryBackoff full = new RetryBackoff(exponential.withJitter(Jitter.FULL));
+        RetryBackoff decorrelated = new RetryBackoff(exponential.withJitter(Jitter.DECORRELATED));
+        for (int retry = 1; retry <= 8; retry++) {
+            long cap = Math.min(1000, 100L << (retry - 1));
+            long fullDelay = full.nextDelay();
+            assertTrue(fullDelay >= 0 && fullDelay <= cap, "Full jitter out of bounds: " + fullDelay);
+
+            long decorrelatedDelay = decorrelated.nextDelay();
+            assertTrue(decorrelatedDelay >= 100 && decorrelatedDelay <= 1000,
+                    "Decorrelated jitter out of bounds: " + decorrelatedDelay);
+        }
+    }
+
+    @Test
+    @DisplayName("Should run synchronous attempts on the calling thread")
+    void shouldRetryOnCallingThread() throws Exception {
+        List<Thread> attemptThreads = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+
+        RetryExecutor executor = new RetryExecutor(
+                new RetryPolicyDefinition(3, 20), "flaky", retryCounter, scheduler);
+
+        String result = executor.execute(() -> {
+            attemptThreads.add(Thread.currentThread());
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("transient");
+            }
+            return "OK";
+        });
+
+        assertEquals("OK", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, retryCounter.count());
+        attemptThreads.forEach(thread -> assertSame(Thread.currentThread(), thread));
+    }
+
+    @Test
+    @DisplayName("Should stop retrying once the caller is interrupted during the backoff")
+    void shouldStopRetryingWhenInterrupted() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CountDownLatch failed = new CountDownLatch(1);
+        RetryExecutor executor = new RetryExecutor(
+                new RetryPolicyDefinition(3, 5_000), "slow", retryCounter, scheduler);
+        AtomicReference<Throwable> outcome = new AtomicReference<>();
+
+        Thread caller = Thread.ofVirtual().start(() -> {
+            try {
+                executor.execute(() -> {
+                    attempts.incrementAndGet();
+                    failed.countDown();
+                    throw new IllegalStateException("transient");
+                });
+            } catch (Throwable t) {
+                outcome.set(t);
+            }
+        });
+        assertTrue(failed.await(5, TimeUnit.SECONDS));
+        caller.interrupt();
+        caller.join(5_000);
+
+        assertFalse(caller.isAlive(), "The backoff must end on interrupt");
+        assertInstanceOf(InterruptedException.class, outcome.get(), "Cancellation must not surface as a step failure");
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    @DisplayName("Should not retry attempts that were cancelled")
+    void shouldNotRetryCancelledAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryExecutor executor = new RetryExecutor(
+                new RetryPolicyDefinition(3, 10), "cancelled", retryCounter, scheduler);
+
+        assertThrows(InterruptedException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new InterruptedException("cancelled by a sibling branch");
+        }));
+        assertEquals(1, attempts.get());
+        assertEquals(0, retryCounter.count());
+    }
+
+    @Test
+    @DisplayName("Should resume asynchronous attempts on virtual threads with the pipeline context restored")
+    void shouldResumeOnVirtualThreadsWithContext() throws Exception {
+        PipelineContext context = new PipelineContext("exec-1", System.currentTimeMillis(), "RetryFlow");
+        PipelineContextHolder.initializeContext(context);
+
+        List<Thread> attemptThreads = new CopyOnWriteArrayList<>();
+        List<PipelineContext> attemptContexts = new CopyOnWriteArrayList<>();
+        AtomicInteger attempts = new AtomicInteger();
+
+        RetryExecutor executor = new RetryExecutor(
+                new RetryPolicyDefinition(3, 20), "flaky", retryCounter, scheduler);
+
+        String result = executor.executeAsync(() -> {
+            attemptThreads.add(Thread.currentThread());
+            attemptContexts.add(PipelineContextHolder.getContext());
+            if (attempts.incrementAndGet() < 3) {
+                throw new IllegalStateException("transient");
+            }
+            return "OK";
+        }).get(5, TimeUnit.SECONDS);
+
+        assertEquals("OK", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2.0, retryCounter.count());
+
+        assertSame(Thread.currentThread(), attemptThreads.get(0), "First attempt runs on the caller");
+        assertTrue(attemptThreads.get(1).isVirtual() && attemptThreads.get(2).isVirtual(),
+                "Retries run on virtual threads");
+        attemptContexts.forEach(ctx -> assertEquals("exec-1", ctx.executionId()));
+    }
+
+    @Test
+    @DisplayName("Should fail with RetryExhaustedException carrying the last failure")
+    void shouldExhaustAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+        RetryExecutor executor = new RetryExecutor(
+                new RetryPolicyDefinition(3, 5).withJitter(Jitter.FULL), "broken", retryCounter, scheduler);
+
+        RetryExhaustedException exception = assertThrows(RetryExhaustedException.class, () ->
+                executor.execute(() -> {
+                    throw new IllegalArgumentException("failure " + attempts.incrementAndGet());
+                }));
+
+        assertEquals(3, attempts.get());
+        assertEquals("failure 3", exception.getCause().getMessage());
+    }
+
+    @Test
+    @DisplayName("Should not retry ignored exceptions and reject unknown exception classes")
+    void shouldClassifyExceptions() {
+        RetryPolicyDefinition policy = new RetryPolicyDefinition(5, 1).withExceptions(
+                List.of("java.io.IOException"), List.of("java.io.FileNotFoundException"));
+        RetryExceptionClassifier classifier = RetryExceptionClassifier.of(policy, getClass().getClassLoader());
+
+        assertTrue(classifier.isRetryable(new IOException("timeout")));
+        assertTrue(classifier.isRetryable(new RuntimeException(new IOException("wrapped"))), "Cause chain is inspected");
+        assertFalse(classifier.isRetryable(new FileNotFoundException("permanent")));
+        assertFalse(classifier.isRetryable(new IllegalArgumentException("not listed")));
+
+        AtomicInteger attempts = new AtomicInteger();
+        RetryExecutor executor = new RetryExecutor(policy, "validate", retryCounter, scheduler, classifier, null, null);
+        assertThrows(IllegalArgumentException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalArgumentException("invalid payload");
+        }));
+        assertEquals(1, attempts.get(), "Non-retryable failures must not be retried");
+
+        assertThrows(PipelineConfigurationException.class, () -> RetryExceptionClassifier.of(
+                policy.withExceptions(List.of("com.example.NoSuchException"), List.of()), getClass().getClassLoader()));
+    }
+
+    @Test
+    @DisplayName("Should fail fast once the retry budget is drained")
+    void shouldFailFastWhenBudgetIsEmpty() throws Exception {
+        // No trickle refill, 10% of calls, room for two saved-up retries
+        RetryBudget budget = new TokenBucketRetryBudget(0.1, 0, 2);
+        Counter exhausted = new SimpleMeterRegistry().counter("dih.step.retry.budget.exhausted");
+        RetryExecutor executor = new RetryExecutor(new RetryPolicyDefinition(3, 1), "downstream", retryCounter,
+                scheduler, RetryExceptionClassifier.RETRY_ALL, budget, exhausted);
+
+        // The initial balance (1 token) plus deposits pays for the first retry
+        AtomicInteger attempts = new AtomicInteger();
+        assertThrows(RetryBudgetExhaustedException.class, () -> executor.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IOException("outage");
+        }));
+        assertEquals(2, attempts.get(), "One retry afforded, then fail fast");
+        assertEquals(1.0, exhausted.count());
+
+        // 10 successful calls earn exactly one retry again
+        for (int i = 0; i < 10; i++) {
+            executor.execute(() -> "OK");
+        }
+        assertTrue(budget.tryAcquireRetry());
+        assertFalse(budget.tryAcquireRetry());
+    }
+}
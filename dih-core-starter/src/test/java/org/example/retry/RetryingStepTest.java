@@ -0,0 +1,95 @@
+package org.example.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.example.config.DihCoreTestConfig;
+import org.example.exception.RetryExhaustedException;
+import org.example.model.PipelineDefinition;
+import org.example.model.RetryPolicyDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class RetryingStepTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /** Final, so it cannot be subclassed by a CGLIB proxy. Fails the first two attempts of every run. */
+    static final class FlakyFinalStep implements PipelineStep<Object, Object> {
+        static final AtomicInteger ATTEMPTS = new AtomicInteger();
+
+        private int runAttempts;
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            ATTEMPTS.incrementAndGet();
+            if (++runAttempts < 3) {
+                throw new IllegalStateException("Transient failure " + runAttempts);
+            }
+            return getClass().getSimpleName();
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("RetryFinalFlaky", FlakyFinalStep.class);
+        FlakyFinalStep.ATTEMPTS.set(0);
+    }
+
+    @Test
+    @DisplayName("Should retry final step classes through the plan-level decorator")
+    void shouldRetryFinalStep() {
+        PipelineDefinition definition = new PipelineDefinition("RetryDecoratorFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("flaky", "RetryFinalFlaky", Map.of(), null, new RetryPolicyDefinition(3, 1))
+        ));
+
+        assertEquals("FlakyFinalStep", executor.executePipeline(definition, "in"));
+        assertEquals("FlakyFinalStep", executor.executePipeline(definition, "in"));
+
+        assertEquals(6, FlakyFinalStep.ATTEMPTS.get());
+        assertEquals(4.0, meterRegistry.get("dih.step.retries")
+                .tag("pipeline.name", "RetryDecoratorFlow").tag("step.id", "flaky")
+                .counter().count());
+    }
+
+    @Test
+    @DisplayName("Should give up after maxAttempts")
+    void shouldExhaustRetries() {
+        PipelineDefinition definition = new PipelineDefinition("RetryDecoratorExhaustedFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("flaky", "RetryFinalFlaky", Map.of(), null, new RetryPolicyDefinition(2, 1))
+        ));
+
+        Exception e = assertThrows(Exception.class, () -> executor.executePipeline(definition, "in"));
+        assertTrue(hasCause(e, RetryExhaustedException.class), "Unexpected failure: " + e);
+        assertEquals(2, FlakyFinalStep.ATTEMPTS.get());
+    }
+
+    private static boolean hasCause(Throwable t, Class<? extends Throwable> type) {
+        for (Throwable current = t; current != null; current = current.getCause()) {
+            if (type.isInstance(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.scheduling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.config.DihProperties;
+import org.example.exception.ExecutionRejectedException;
+import org.example.model.ExecutionOptions;
+import org.example.model.ExecutionOptions.Priority;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.scope.PipelineContextHolder;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class ExecutionSchedulerTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    /** Records the context each branch runs with. */
+    @ThreadSafeStep
+    static class ContextRecordingStep implements PipelineStep<Object, Object> {
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            return context.tenant() + "/" + context.priority() + "/" + MDC.get(PipelineContextHolder.MDC_TENANT);
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("SchedulerContext", ContextRecordingStep.class);
+    }
+
+    @Test
+    @DisplayName("Should serve the highest priority class first, regardless of arrival order")
+    void shouldApplyStrictPriority() {
+        ExecutionScheduler scheduler = scheduler(1, 100, Duration.ZERO, Map.of());
+        ExecutionSlot running = scheduler.schedule(options("t", Priority.NORMAL)).join();
+
+        CompletableFuture<ExecutionSlot> batch = scheduler.schedule(options("t", Priority.BATCH));
+        CompletableFuture<ExecutionSlot> critical = scheduler.schedule(options("t", Priority.CRITICAL));
+        CompletableFuture<ExecutionSlot> normal = scheduler.schedule(options("t", Priority.NORMAL));
+
+        running.release();
+        assertTrue(critical.isDone());
+        assertFalse(normal.isDone() || batch.isDone());
+
+        critical.join().release();
+        assertTrue(normal.isDone());
+        assertFalse(batch.isDone());
+
+        normal.join().release();
+        assertTrue(batch.isDone());
+    }
+
+    @Test
+    @DisplayName("Should share capacity between backlogged tenants in proportion to their weights")
+    void shouldApplyWeightedFairQueuing() {
+        ExecutionScheduler scheduler = scheduler(1, 100, Duration.ZERO, Map.of("orders", 2));
+        ExecutionSlot running = scheduler.schedule(options("orders", Priority.NORMAL)).join();
+
+        // The backfill tenant submits all of its work first
+        List<String> served = new ArrayList<>();
+        List<ExecutionSlot> granted = new ArrayList<>();
+        for (String tenant : List.of("backfill", "orders")) {
+            for (int i = 0; i < 6; i++) {
+                scheduler.schedule(options(tenant, Priority.NORMAL)).thenAccept(slot -> {
+                    served.add(tenant);
+                    granted.add(slot);
+                });
+            }
+        }
+
+        // Every release dispatches the next execution inline
+        running.release();
+        for (int i = 0; i < 8; i++) {
+            granted.get(i).release();
+        }
+
+        assertEquals(9, served.size());
+        long ordersServed = served.stream().filter("orders"::equals).count();
+        assertEquals(6, ordersServed, "Weight 2 gets two of every three slots: " + served);
+    }
+
+    @Test
+    @DisplayName("Should shed the lowest priority class when queue wait breaches the SLO and re-admit it once drained")
+    void shouldShedLowPriorityOnSloBreach() throws Exception {
+        ExecutionScheduler scheduler = scheduler(1, 100, Duration.ofMillis(20), Map.of());
+        ExecutionSlot running = scheduler.schedule(options("t", Priority.NORMAL)).join();
+
+        CompletableFuture<ExecutionSlot> normal = scheduler.schedule(options("t", Priority.NORMAL));
+        CompletableFuture<ExecutionSlot> batch = scheduler.schedule(options("t", Priority.BATCH));
+        Thread.sleep(50);
+
+        running.release();
+        assertTrue(normal.isDone() && !normal.isCompletedExceptionally());
+        assertTrue(batch.isCompletedExceptionally(), "Queued low-priority work is shed");
+        CompletableFuture<ExecutionSlot> lateBatch = scheduler.schedule(options("t", Priority.BATCH));
+        assertInstanceOf(ExecutionRejectedException.class,
+                assertThrows(Exception.class, lateBatch::join).getCause());
+        CompletableFuture<ExecutionSlot> high = scheduler.schedule(options("t", Priority.HIGH));
+        assertFalse(high.isCompletedExceptionally());
+
+        // Queue drained: everything is admitted again
+        normal.join().release();
+        high.join().release();
+        assertFalse(scheduler.schedule(options("t", Priority.BATCH)).isCompletedExceptionally());
+    }
+
+    @Test
+    @DisplayName("Should make room in a full queue by displacing lower-priority work")
+    void shouldDisplaceLowerPriorityWhenFull() {
+        ExecutionScheduler scheduler = scheduler(1, 1, Duration.ZERO, Map.of());
+        scheduler.schedule(options("t", Priority.NORMAL)).join();
+
+        CompletableFuture<ExecutionSlot> low = scheduler.schedule(options("t", Priority.LOW));
+        CompletableFuture<ExecutionSlot> high = scheduler.schedule(options("t", Priority.HIGH));
+
+        assertTrue(low.isCompletedExceptionally());
+        assertFalse(high.isDone());
+        assertTrue(scheduler.schedule(options("t", Priority.LOW)).isCompletedExceptionally(), "Queue is full");
+    }
+
+    @Test
+    @DisplayName("Should carry tenant and priority into the context of every step and parallel branch")
+    void shouldPropagateOptionsToBranches() throws Exception {
+        PipelineDefinition definition = new PipelineDefinition("SchedulerFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("splitter", "ParallelSplitter", Map.of("subStepIds", List.of("a", "b")), List.of(
+                        new StepDefinition("a", "SchedulerContext", Map.of(), null, null),
+                        new StepDefinition("b", "SchedulerContext", Map.of(), null, null)), null)));
+
+        ExecutionOptions options = ExecutionOptions.of("acme", Priority.HIGH);
+        assertEquals(List.of("acme/HIGH/acme", "acme/HIGH/acme"), executor.executePipeline(definition, null, options));
+        assertEquals(List.of("acme/HIGH/acme", "acme/HIGH/acme"),
+                executor.executePipelineAsync(definition, null, options).get(5, TimeUnit.SECONDS));
+        assertEquals(List.of("default/NORMAL/default", "default/NORMAL/default"), executor.executePipeline(definition));
+    }
+
+    private static ExecutionScheduler scheduler(int maxConcurrent, int maxQueue, Duration slo, Map<String, Integer> weights) {
+        DihProperties.Scheduler settings = new DihProperties.Scheduler();
+        settings.setMaxConcurrent(maxConcurrent);
+        settings.setMaxQueue(maxQueue);
+        settings.setQueueWaitSlo(slo);
+        settings.setTenantWeights(weights);
+        return new ExecutionScheduler(settings, new SimpleMeterRegistry());
+    }
+
+    private static ExecutionOptions options(String tenant, Priority priority) {
+        return ExecutionOptions.of(tenant, priority);
+    }
+}
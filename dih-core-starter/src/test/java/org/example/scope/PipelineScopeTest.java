@@ -0,0 +1,149 @@
+package org.example.scope;
+
+import org.example.annotation.ThreadSafeStep;
+import org.example.config.DihCoreTestConfig;
+import org.example.model.PipelineDefinition;
+import org.example.model.StepDefinition;
+import org.example.registry.StepTypeRegistry;
+import org.example.service.PipelineExecutor;
+import org.example.step.PipelineContext;
+import org.example.step.PipelineStep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(classes = DihCoreTestConfig.class)
+class PipelineScopeTest {
+
+    @Autowired
+    private PipelineExecutor executor;
+
+    @Autowired
+    private StepTypeRegistry registry;
+
+    @Autowired
+    private PipelineScope pipelineScope;
+
+    /** Stateful step: counts its own invocations and records its destruction. */
+    static class StatefulStep implements PipelineStep<Object, Object>, DisposableBean {
+        static final Set<Integer> INSTANCES = ConcurrentHashMap.newKeySet();
+        static final AtomicInteger DESTROYED = new AtomicInteger();
+
+        private final AtomicInteger invocations = new AtomicInteger();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            INSTANCES.add(System.identityHashCode(this));
+            return invocations.incrementAndGet();
+        }
+
+        @Override
+        public void destroy() {
+            DESTROYED.incrementAndGet();
+        }
+    }
+
+    @ThreadSafeStep
+    static class StatelessStep implements PipelineStep<Object, Object> {
+        static final Set<Integer> INSTANCES = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public Object execute(Object input, PipelineContext context) {
+            INSTANCES.add(System.identityHashCode(this));
+            return input;
+        }
+    }
+
+    @BeforeEach
+    void setup() {
+        registry.register("ScopeStateful", StatefulStep.class);
+        registry.register("ScopeStateless", StatelessStep.class);
+        StatefulStep.INSTANCES.clear();
+        StatefulStep.DESTROYED.set(0);
+        StatelessStep.INSTANCES.clear();
+    }
+
+    @Test
+    @DisplayName("Should share one instance per execution across parallel branches and destroy it at the end")
+    void shouldIsolateStatefulStepsPerExecution() {
+        StepDefinition counter = new StepDefinition("counter", "ScopeStateful", Map.of(), null, null);
+        StepDefinition splitter = new StepDefinition(
+                "splitter", "ParallelSplitter",
+                Map.of("subStepIds", List.of("counter", "counter")),
+                List.of(counter), null
+        );
+        PipelineDefinition definition = new PipelineDefinition(
+                "ScopeFlow", "pipeline", "1.0", List.of(splitter));
+
+        for (int run = 0; run < 3; run++) {
+            List<?> result = (List<?>) executor.executePipeline(definition);
+            // Both branches hit the same execution-scoped instance
+            assertEquals(Set.of(1, 2), Set.copyOf(result));
+        }
+
+        assertEquals(3, StatefulStep.INSTANCES.size(), "One instance per execution");
+        assertEquals(3, StatefulStep.DESTROYED.get(), "Instances must be destroyed when the run ends");
+        assertEquals(0, pipelineScope.activeExecutions());
+    }
+
+    @Test
+    @DisplayName("Should share thread-safe steps and let the definition flag override the class marker")
+    void shouldShareThreadSafeSteps() {
+        PipelineDefinition definition = new PipelineDefinition("ScopeSharedFlow", "pipeline", "1.0", List.of(
+                new StepDefinition("stateless", "ScopeStateless", Map.of(), null, null),
+                new StepDefinition("forced", "ScopeStateful", Map.of(), null, null).withThreadSafe(true)
+        ));
+
+        assertEquals(1, executor.executePipeline(definition, "in"));
+        assertEquals(2, executor.executePipeline(definition, "in"));
+
+        assertEquals(1, StatelessStep.INSTANCES.size());
+        assertEquals(1, StatefulStep.INSTANCES.size());
+        assertEquals(0, StatefulStep.DESTROYED.get(), "Shared steps live as long as their plan");
+    }
+
+    @Test
+    @DisplayName("Should reject access to pipeline-scoped beans outside of an execution")
+    void shouldFailOutsideExecution() {
+        assertThrows(IllegalStateException.class, () -> pipelineScope.get("any", Object::new));
+    }
+
+    @Test
+    @DisplayName("Should reject late accesses once the execution has ended instead of creating undestroyed beans")
+    void shouldRejectAccessAfterEnd() {
+        AtomicInteger created = new AtomicInteger();
+        PipelineContextHolder.initializeContext(new PipelineContext("late-exec", System.currentTimeMillis(), "ScopeFlow"));
+        try {
+            assertThrows(IllegalStateException.class, () -> pipelineScope.get("bean", Object::new),
+                    "An execution that has not begun has no scope");
+
+            pipelineScope.beginExecution("late-exec");
+            Object instance = pipelineScope.get("bean", () -> {
+                created.incrementAndGet();
+                return new Object();
+            });
+            assertSame(instance, pipelineScope.get("bean", Object::new));
+
+            pipelineScope.endExecution("late-exec");
+            assertThrows(IllegalStateException.class, () -> pipelineScope.get("bean", () -> {
+                created.incrementAndGet();
+                return new Object();
+            }));
+            assertEquals(1, created.get());
+            assertEquals(0, pipelineScope.activeExecutions());
+        } finally {
+            PipelineContextHolder.cleanup();
+        }
+    }
+}